@@ -1,19 +1,14 @@
 package edu.tcu.cs.hogwartsartifactsonline;
 
-import edu.tcu.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HogwartsArtifactsOnlineApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(HogwartsArtifactsOnlineApplication.class, args);
     }
-
-    @Bean
-    public IdWorker idWorker() {
-        return new IdWorker(1, 1);
-    }
 }
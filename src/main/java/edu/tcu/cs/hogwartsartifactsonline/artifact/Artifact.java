@@ -3,19 +3,26 @@ package edu.tcu.cs.hogwartsartifactsonline.artifact;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.Wizard;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
+import java.util.Map;
 
 @NoArgsConstructor
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_artifact_name_id", columnList = "name, id")) // Lets cursor pagination sorted by name seek instead of scan
 public class Artifact implements Serializable {
 
     @Id
-    private String id;
+    private Long id; // From IdWorker; a BIGINT key is narrower and compares faster than the digits as VARCHAR
 
     private String name;
 
@@ -23,7 +30,13 @@ public class Artifact implements Serializable {
 
     private String imageUrl;
 
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<Integer, String> imageVariants; // Width in pixels to the URL of the image resized to it, copied from its ImageContent
+
     @ManyToOne
     private Wizard owner;
+
+    @Version
+    private long version; // Incremented on every update, the ETag of the artifact is derived from it and its owner's
 }
 
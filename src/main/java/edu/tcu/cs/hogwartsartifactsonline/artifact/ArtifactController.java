@@ -1,19 +1,35 @@
 package edu.tcu.cs.hogwartsartifactsonline.artifact;
 
 import com.azure.core.annotation.Post;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.converter.ArtifactDtoToArtifactConverter;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.converter.ArtifactToArtifactDtoConverter;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactBatchDto;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacetedPage;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacets;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportReport;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactSuggestion;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ImageUploadDto;
 import edu.tcu.cs.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
+import edu.tcu.cs.hogwartsartifactsonline.system.ETags;
 import edu.tcu.cs.hogwartsartifactsonline.system.Result;
 import edu.tcu.cs.hogwartsartifactsonline.system.StatusCode;
-import io.micrometer.core.instrument.MeterRegistry;
+import edu.tcu.cs.hogwartsartifactsonline.system.actuator.HotArtifactTracker;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,32 +47,69 @@ public class ArtifactController {
 
     private final ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter;
 
-    private final MeterRegistry meterRegistry;
+    private final HotArtifactTracker hotArtifactTracker;
 
     private final ImageStorageClient imageStorageClient;
 
-    public ArtifactController(ArtifactService artifactService, ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter, ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter, MeterRegistry meterRegistry, ImageStorageClient imageStorageClient) {
+    private final ArtifactImageService artifactImageService;
+
+    private final ArtifactImportService artifactImportService;
+
+    private final ArtifactExportService artifactExportService;
+
+    private final ArtifactSummaryService artifactSummaryService;
+
+    private final ArtifactSuggestIndex artifactSuggestIndex;
+
+    private final DataSize imageBlockSize;
+
+    public ArtifactController(ArtifactService artifactService, ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter, ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter, HotArtifactTracker hotArtifactTracker, ImageStorageClient imageStorageClient, ArtifactImageService artifactImageService, ArtifactImportService artifactImportService, ArtifactExportService artifactExportService, ArtifactSummaryService artifactSummaryService, ArtifactSuggestIndex artifactSuggestIndex, @Value("${image.upload.block-size:4MB}") DataSize imageBlockSize) {
         this.artifactService = artifactService;
         this.artifactToArtifactDtoConverter = artifactToArtifactDtoConverter;
         this.artifactDtoToArtifactConverter = artifactDtoToArtifactConverter;
-        this.meterRegistry = meterRegistry;
+        this.hotArtifactTracker = hotArtifactTracker;
         this.imageStorageClient = imageStorageClient;
+        this.artifactImageService = artifactImageService;
+        this.artifactImportService = artifactImportService;
+        this.artifactExportService = artifactExportService;
+        this.artifactSummaryService = artifactSummaryService;
+        this.artifactSuggestIndex = artifactSuggestIndex;
+        this.imageBlockSize = imageBlockSize;
     }
 
     @GetMapping("/{artifactId}")
-    public Result findArtifactById(@PathVariable String artifactId) {
-        Artifact foundArtifact =  this.artifactService.findById(artifactId);
-        meterRegistry.counter("artifact.id." + artifactId).increment();
-        ArtifactDto artifactDto = this.artifactToArtifactDtoConverter.convert(foundArtifact);
-        return new Result(true, StatusCode.SUCCESS, "Find One Success", artifactDto);
+    public ResponseEntity<Result> findArtifactById(@PathVariable Long artifactId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String eTag = this.artifactService.findETagById(artifactId); // Two version columns, the artifact itself is not loaded
+            if (ETags.isNotModified(ifNoneMatch, eTag)) {
+                this.hotArtifactTracker.record(artifactId);
+                return ETags.notModified(eTag);
+            }
+        }
+        ArtifactDto artifactDto = this.artifactService.findDtoById(artifactId); // Served from the artifact cache when possible
+        this.hotArtifactTracker.record(artifactId); // Fixed memory, unlike one counter per artifact id
+        return ETags.ok(ArtifactService.eTag(artifactDto), new Result(true, StatusCode.SUCCESS, "Find One Success", artifactDto)); // Tagged with the versions it was read at, even if it came from a stale cache entry
     }
 
     @GetMapping
-    public Result findAllArtifacts(Pageable pageable) { // Using Pageable directly in the controller method signature, let Spring handles the instantiation and population of PageRequest object based on the request parameters. It is a common and recommended approach when implement pagination in Spring Boot
-        Page<Artifact> artifactPage = this.artifactService.findAll(pageable);
-        // Convert artifactPage to a page of artifactDtos
-        Page<ArtifactDto> artifactDtoPage = artifactPage.map(this.artifactToArtifactDtoConverter::convert);
-        return new Result(true, StatusCode.SUCCESS, "Find All Success", artifactDtoPage);
+    public ResponseEntity<Result> findAllArtifacts(Pageable pageable, @RequestParam(required = false) String cursor, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) { // Using Pageable directly in the controller method signature, let Spring handles the instantiation and population of PageRequest object based on the request parameters. It is a common and recommended approach when implement pagination in Spring Boot
+        String eTag = this.artifactService.findAllETag(); // Read before the page, so the page is never older than its tag
+        if (ETags.isNotModified(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        if (cursor != null) { // Cursor mode is opt-in: ?cursor= (empty) asks for the first page, later pages pass the next/prev token back
+            CursorPage<ArtifactDto> artifactDtoCursorPage = this.artifactService.findAll(cursor, pageable);
+            return ETags.ok(eTag, new Result(true, StatusCode.SUCCESS, "Find All Success", artifactDtoCursorPage));
+        }
+        Page<ArtifactDto> artifactDtoPage = this.artifactService.findAll(pageable); // Read as DTO projections, so no Artifact or Wizard entity is loaded
+        return ETags.ok(eTag, new Result(true, StatusCode.SUCCESS, "Find All Success", artifactDtoPage));
+    }
+
+    @GetMapping(params = "ids")
+    public Result findArtifactsByIds(@RequestParam List<Long> ids) { // ?ids=1,2,3 replaces one request per artifact
+        ArtifactBatchDto artifactBatchDto = this.artifactService.findDtosByIds(ids);
+        artifactBatchDto.artifacts().forEach(artifactDto -> this.hotArtifactTracker.record(artifactDto.id()));
+        return new Result(true, StatusCode.SUCCESS, "Find Success", artifactBatchDto);
     }
 
     @PostMapping
@@ -68,41 +121,110 @@ public class ArtifactController {
         return new Result(true, StatusCode.SUCCESS, "Add Success", savedArtifactDto);
     }
 
+    @PostMapping(path = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public Result importArtifacts(InputStream requestBody, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, @RequestParam(required = false) Integer chunkSize) throws IOException {
+        // The body is streamed into the import chunk by chunk, it is never read into memory as a whole
+        ArtifactImportReport artifactImportReport = this.artifactImportService.importArtifacts(requestBody, MediaType.parseMediaType(contentType), chunkSize);
+        return new Result(true, StatusCode.SUCCESS, "Import Success", artifactImportReport);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportArtifacts(@RequestParam(defaultValue = "ndjson") String format, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ArtifactExportService.Format exportFormat = ArtifactExportService.Format.of(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("artifacts." + exportFormat.extension()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // Rows are written while they are read from the database, on an MVC async thread, instead of being returned in a Result
+        return response.body(outputStream -> this.artifactExportService.exportArtifacts(outputStream, exportFormat, gzip));
+    }
+
     @PutMapping("/{artifactId}")
-    public Result updateArtifact(@PathVariable String artifactId, @Valid @RequestBody ArtifactDto artifactDto) {
+    public ResponseEntity<Result> updateArtifact(@PathVariable Long artifactId, @Valid @RequestBody ArtifactDto artifactDto, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Artifact update = this.artifactDtoToArtifactConverter.convert(artifactDto);
-        Artifact updatedArtifact = this.artifactService.update(artifactId, update);
-        ArtifactDto updatedArtifactDto = this.artifactToArtifactDtoConverter.convert(updatedArtifact);
-        return new Result(true, StatusCode.SUCCESS, "Update Success", updatedArtifactDto);
+        ArtifactDto updatedArtifactDto = this.artifactService.update(artifactId, update, ifMatch); // One UPDATE statement, 412 if the artifact changed since the client read it
+        return ETags.ok(ArtifactService.eTag(updatedArtifactDto), new Result(true, StatusCode.SUCCESS, "Update Success", updatedArtifactDto));
     }
 
     @DeleteMapping("/{artifactId}")
-    public Result deleteArtifact(@PathVariable String artifactId) {
+    public Result deleteArtifact(@PathVariable Long artifactId) {
         this.artifactService.delete(artifactId);
         return new Result(true, StatusCode.SUCCESS, "Delete Success");
     }
 
+    @DeleteMapping
+    public Result deleteArtifacts(@RequestBody List<Long> artifactIds) { // JSON strings of digits are accepted as well as numbers
+        int deleted = this.artifactService.deleteAll(artifactIds); // Chunked IN (...) deletes, ids that do not exist are skipped
+        return new Result(true, StatusCode.SUCCESS, "Delete Success", deleted);
+    }
+
     @GetMapping("/summary")
-    public Result summarizeArtifacts() throws JsonProcessingException {
-        List<Artifact> foundArtifacts = this.artifactService.findAll();
-        // Convert foundArtifacts to a list of artifactDtos
-        List<ArtifactDto> artifactDtos = foundArtifacts.stream().map(this.artifactToArtifactDtoConverter::convert).toList();
-        String artifactSummary = this.artifactService.summarize(artifactDtos);
+    public Result summarizeArtifacts() {
+        String artifactSummary = this.artifactSummaryService.getSummary(); // Cached per catalog version, the model is only asked after changes
         return new Result(true, StatusCode.SUCCESS, "Summarize Success", artifactSummary);
     }
 
+    @GetMapping(path = "/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamArtifactSummary() {
+        return this.artifactSummaryService.streamSummary(); // Relays the summary token by token from a stream thread
+    }
+
+    @GetMapping("/suggest")
+    public Result suggestArtifacts(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        List<ArtifactSuggestion> artifactSuggestions = this.artifactSuggestIndex.suggest(prefix, limit); // Answered from memory for type-ahead, instead of a search per keystroke
+        return new Result(true, StatusCode.SUCCESS, "Suggest Success", artifactSuggestions);
+    }
+
     @PostMapping("/search")
-    public Result findArtifactsByCriteria(@RequestBody Map<String, String> searchCriteria, Pageable pageable) {
-        Page<Artifact> artifactPage = this.artifactService.findByCriteria(searchCriteria, pageable);
-        Page<ArtifactDto> artifactDtoPage = artifactPage.map(this.artifactToArtifactDtoConverter::convert);
-        return new Result(true, StatusCode.SUCCESS, "Search Success", artifactDtoPage);
+    public Result findArtifactsByCriteria(@RequestBody Map<String, String> searchCriteria, Pageable pageable, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean facets) {
+        Object page = cursor != null
+                ? this.artifactService.findByCriteria(searchCriteria, cursor, pageable)
+                : this.artifactService.findByCriteria(searchCriteria, pageable);
+        if (facets) { // ?facets=true adds the owner counts of the same search, instead of one search per owner
+            ArtifactFacets artifactFacets = this.artifactService.findFacets(searchCriteria);
+            return new Result(true, StatusCode.SUCCESS, "Search Success", new ArtifactFacetedPage<>(page, artifactFacets));
+        }
+        return new Result(true, StatusCode.SUCCESS, "Search Success", page);
     }
 
     @PostMapping("/images")
-    public Result uploadImage(@RequestParam String containerName, @RequestParam MultipartFile file) throws IOException{
+    public Result uploadImage(@RequestParam String containerName, @RequestParam MultipartFile file, @RequestParam(required = false) String sha256) throws IOException{
         try (InputStream inputStream = file.getInputStream()) {
-            String imageUrl = this.imageStorageClient.uploadImage(containerName, file.getOriginalFilename(), inputStream, file.getSize());
+            String imageUrl = this.artifactImageService.uploadImage(containerName, file.getOriginalFilename(), inputStream, file.getSize(), sha256); // Content already stored is not stored again
             return new Result(true, StatusCode.SUCCESS, "Upload Image Success", imageUrl);
         }
     }
+
+    @PostMapping("/images/uploads")
+    public Result initImageUpload(@RequestParam String containerName, @RequestParam String fileName, @RequestParam(required = false) String sha256) {
+        String imageUrl = this.artifactImageService.findImageUrl(containerName, sha256); // If the content is stored already, the client can skip the blocks
+        String uploadId = imageUrl == null ? this.imageStorageClient.initUpload(containerName, fileName) : null;
+        return new Result(true, StatusCode.SUCCESS, "Init Upload Success", new ImageUploadDto(uploadId, containerName, this.imageBlockSize.toBytes(), imageUrl));
+    }
+
+    @PutMapping(path = "/images/uploads/{uploadId}/blocks/{blockIndex}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Result putImageBlock(@PathVariable String uploadId, @PathVariable int blockIndex, @RequestParam String containerName, InputStream requestBody, @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength) throws IOException {
+        if (contentLength == null || contentLength < 1 || contentLength > this.imageBlockSize.toBytes()) {
+            throw new InvalidUploadException("A block must have a Content-Length between 1 and " + this.imageBlockSize.toBytes() + " bytes.");
+        }
+        // The body is streamed to the storage, so memory does not grow with the image, and blocks can be sent in parallel
+        this.imageStorageClient.putBlock(containerName, uploadId, blockIndex, requestBody, contentLength);
+        return new Result(true, StatusCode.SUCCESS, "Put Block Success");
+    }
+
+    @GetMapping("/images/uploads/{uploadId}")
+    public Result findUploadedImageBlocks(@PathVariable String uploadId, @RequestParam String containerName) { // To resume after a dropped connection
+        List<Integer> uploadedBlocks = this.imageStorageClient.findUploadedBlocks(containerName, uploadId);
+        return new Result(true, StatusCode.SUCCESS, "Find Success", uploadedBlocks);
+    }
+
+    @PostMapping("/images/uploads/{uploadId}")
+    public Result commitImageUpload(@PathVariable String uploadId, @RequestParam String containerName, @RequestParam int blockCount) throws IOException {
+        String imageUrl = this.artifactImageService.commitUpload(containerName, uploadId, blockCount); // Content already stored is not kept twice; new content gets its resized variants
+        return new Result(true, StatusCode.SUCCESS, "Upload Image Success", imageUrl);
+    }
 }
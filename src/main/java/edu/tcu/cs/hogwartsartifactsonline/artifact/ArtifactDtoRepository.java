@@ -0,0 +1,173 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacets;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.Wizard;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The read path of the artifact list and search endpoints. It selects the columns of ArtifactDto directly instead of
+ * loading Artifact entities and converting them, because the converter calls Wizard.getNumberOfArtifacts(), which
+ * initializes the owner's whole artifacts collection once per owner on the page.
+ * <p>
+ * A page costs at most three statements regardless of its size: the rows (left joined to their owner), one grouped count
+ * of artifacts per owner on the page, and the total count when Spring Data cannot infer it from the page.
+ */
+@Repository
+public class ArtifactDtoRepository {
+
+    private final EntityManager entityManager;
+
+    private final ArtifactRepository artifactRepository;
+
+    public ArtifactDtoRepository(EntityManager entityManager, ArtifactRepository artifactRepository) {
+        this.entityManager = entityManager;
+        this.artifactRepository = artifactRepository;
+    }
+
+    public Page<ArtifactDto> findAll(Specification<Artifact> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<ArtifactDto> content = findAll(spec, pageable.getSort(), Limit.unlimited());
+            return PageableExecutionUtils.getPage(content, pageable, content::size);
+        }
+        List<ArtifactDto> content = toDtos(createRowQuery(spec, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    public Optional<ArtifactDto> findById(Long artifactId) {
+        return findAll(ArtifactSpecs.hasId(artifactId), Sort.unsorted(), Limit.of(1)).stream().findFirst();
+    }
+
+    public List<ArtifactDto> findAll(Specification<Artifact> spec, Sort sort, Limit limit) {
+        TypedQuery<ArtifactRow> query = createRowQuery(spec, sort);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return toDtos(query.getResultList());
+    }
+
+    private TypedQuery<ArtifactRow> createRowQuery(Specification<Artifact> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<ArtifactRow> query = criteriaBuilder.createQuery(ArtifactRow.class);
+        Root<Artifact> root = query.from(Artifact.class);
+        Join<Artifact, Wizard> owner = root.join("owner", JoinType.LEFT);
+        query.select(criteriaBuilder.construct(ArtifactRow.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("description"),
+                root.get("imageUrl"),
+                root.get("version"),
+                root.get("imageVariants"),
+                owner.get("id"),
+                owner.get("name"),
+                owner.get("version")));
+        applySpecification(spec, root, query, criteriaBuilder);
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return this.entityManager.createQuery(query);
+    }
+
+    /**
+     * Counts the artifacts matching the specification per owner, with one grouped query instead of one count per owner.
+     * The unowned ones form the group whose owner id is null.
+     */
+    public ArtifactFacets findFacets(Specification<Artifact> spec) {
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<OwnerCountRow> query = criteriaBuilder.createQuery(OwnerCountRow.class);
+        Root<Artifact> root = query.from(Artifact.class);
+        Join<Artifact, Wizard> owner = root.join("owner", JoinType.LEFT);
+        query.select(criteriaBuilder.construct(OwnerCountRow.class, owner.get("id"), owner.get("name"), criteriaBuilder.count(root)));
+        applySpecification(spec, root, query, criteriaBuilder);
+        query.groupBy(owner.get("id"), owner.get("name"));
+
+        List<ArtifactFacets.OwnerFacet> owners = new ArrayList<>();
+        long unowned = 0;
+        for (OwnerCountRow row : this.entityManager.createQuery(query).getResultList()) {
+            if (row.ownerId() == null) {
+                unowned = row.count();
+            } else {
+                owners.add(new ArtifactFacets.OwnerFacet(row.ownerId(), row.ownerName(), row.count()));
+            }
+        }
+        owners.sort(Comparator.comparingLong(ArtifactFacets.OwnerFacet::count).reversed()
+                .thenComparing(ArtifactFacets.OwnerFacet::name, Comparator.nullsLast(Comparator.naturalOrder())));
+        long owned = owners.stream().mapToLong(ArtifactFacets.OwnerFacet::count).sum();
+        return new ArtifactFacets(owners, owned, unowned);
+    }
+
+    private long count(Specification<Artifact> spec) {
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Artifact> root = query.from(Artifact.class);
+        query.select(criteriaBuilder.count(root));
+        applySpecification(spec, root, query, criteriaBuilder);
+        return this.entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void applySpecification(Specification<Artifact> spec, Root<Artifact> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+
+    private List<ArtifactDto> toDtos(List<ArtifactRow> rows) {
+        Set<Integer> ownerIds = rows.stream()
+                .map(ArtifactRow::ownerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Integer, Long> numberOfArtifacts = ownerIds.isEmpty()
+                ? Map.of()
+                : this.artifactRepository.countByOwnerIdIn(ownerIds).stream()
+                        .collect(Collectors.toMap(ArtifactRepository.OwnerArtifactCount::getOwnerId, ArtifactRepository.OwnerArtifactCount::getNumberOfArtifacts));
+        return rows.stream()
+                .map(row -> new ArtifactDto(
+                        row.id(),
+                        row.name(),
+                        row.description(),
+                        row.imageUrl(),
+                        row.ownerId() != null
+                                ? new WizardDto(row.ownerId(), row.ownerName(), numberOfArtifacts.getOrDefault(row.ownerId(), 0L).intValue(), row.ownerVersion())
+                                : null,
+                        row.version(),
+                        row.imageVariants()))
+                .toList();
+    }
+
+    /**
+     * A flat constructor projection of an artifact and its owner. JPQL cannot construct the nested WizardDto, so the rows
+     * are assembled into ArtifactDtos once the owners' artifact counts are known.
+     */
+    record ArtifactRow(Long id, String name, String description, String imageUrl, Long version, Map<Integer, String> imageVariants, Integer ownerId, String ownerName, Long ownerVersion) {
+    }
+
+    record OwnerCountRow(Integer ownerId, String ownerName, Long count) {
+    }
+}
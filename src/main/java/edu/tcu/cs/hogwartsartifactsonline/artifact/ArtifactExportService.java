@@ -0,0 +1,183 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidExportFormatException;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.Wizard;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the whole catalog as NDJSON or CSV, one artifact per line, in constant memory.
+ * <p>
+ * Artifacts are streamed from the database in fetch-size batches inside a read-only transaction, each one is written
+ * out as soon as it is read, and the persistence context is cleared after every batch so it never holds more than one
+ * batch of entities. Nothing is collected into a List along the way.
+ * <p>
+ * Both formats carry the same flat columns. POST /artifacts/bulk accepts an export as is, but only re-reads name,
+ * description and imageUrl: id, ownerId and ownerName are ignored, so the imported artifacts get new ids and no owner.
+ */
+@Service
+public class ArtifactExportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactExportService.class.getName());
+
+    private static final CsvMapper CSV_MAPPER = (CsvMapper) new CsvMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final CsvSchema CSV_SCHEMA = CSV_MAPPER.schemaFor(Row.class).withHeader();
+
+    private final ArtifactRepository artifactRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ArtifactExportService(ArtifactRepository artifactRepository, EntityManager entityManager, ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.artifactRepository = artifactRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public enum Format {
+
+        NDJSON(ArtifactImportReader.NDJSON, "ndjson"),
+
+        CSV(ArtifactImportReader.CSV, "csv");
+
+        private final MediaType mediaType;
+
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType mediaType() {
+            return this.mediaType;
+        }
+
+        public String extension() {
+            return this.extension;
+        }
+
+        /**
+         * @param format ndjson or csv, in any case
+         * @throws InvalidExportFormatException for any other format
+         */
+        public static Format of(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidExportFormatException(format);
+            }
+        }
+    }
+
+    /**
+     * One line of the export. The owner is flattened into its id and name.
+     */
+    @JsonPropertyOrder({"id", "name", "description", "imageUrl", "ownerId", "ownerName"})
+    record Row(@JsonSerialize(using = ToStringSerializer.class) Long id, String name, String description, String imageUrl, Integer ownerId, String ownerName) {
+
+        static Row of(Artifact artifact) {
+            Wizard owner = artifact.getOwner();
+            return new Row(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(),
+                    owner == null ? null : owner.getId(), owner == null ? null : owner.getName());
+        }
+    }
+
+    /**
+     * Writes every artifact to the given stream, which is flushed but left open.
+     *
+     * @param outputStream the response body
+     * @param format       the format of the lines
+     * @param gzip         whether to gzip the output
+     * @return the number of artifacts written
+     */
+    public long exportArtifacts(OutputStream outputStream, Format format, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+        Long count;
+        try {
+            count = this.transactionTemplate.execute(status -> {
+                try (Stream<Artifact> artifacts = this.artifactRepository.streamAllByOrderById()) {
+                    return format == Format.CSV ? writeCsv(artifacts.iterator(), target) : writeNdjson(artifacts.iterator(), target);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause(); // Typically the client went away
+        }
+        if (target instanceof GZIPOutputStream gzipOutputStream) {
+            gzipOutputStream.finish();
+        }
+        target.flush();
+        LOGGER.info("Exported {} artifacts as {}", count, format);
+        return count;
+    }
+
+    private long writeNdjson(Iterator<Artifact> artifacts, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream);
+             SequenceWriter writer = this.objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).writeValues(generator)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long count = 0;
+            while (artifacts.hasNext()) {
+                writer.write(Row.of(artifacts.next()));
+                generator.writeRaw('\n');
+                count = afterRow(count, writer);
+            }
+            return count;
+        }
+    }
+
+    private long writeCsv(Iterator<Artifact> artifacts, OutputStream outputStream) throws IOException {
+        try (SequenceWriter writer = CSV_MAPPER.writer(CSV_SCHEMA).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).writeValues(outputStream)) {
+            long count = 0;
+            while (artifacts.hasNext()) {
+                writer.write(Row.of(artifacts.next()));
+                count = afterRow(count, writer);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Detaches the artifacts read so far once per fetch, so the persistence context does not grow with the table, and
+     * flushes the rows written so far to the client at the same pace. The writers do not flush after every row, which
+     * would send a small chunk, or compress a tiny gzip block, per artifact.
+     */
+    private long afterRow(long count, Flushable writer) throws IOException {
+        count++;
+        if (count % ArtifactRepository.STREAM_FETCH_SIZE == 0) {
+            this.entityManager.clear();
+            writer.flush();
+        }
+        return count;
+    }
+}
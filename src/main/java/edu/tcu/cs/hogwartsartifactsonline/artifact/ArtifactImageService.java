@@ -0,0 +1,178 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Uploads artifact images, storing each distinct content once per container.
+ * <p>
+ * An upload is hashed with SHA-256 while it streams to the storage. If an image with the same hash is already stored,
+ * the new copy is deleted and the existing URL returned. A client that knows the hash of its image can send it along,
+ * and if it is already stored the upload short-circuits before any byte is transferred. The hashes are indexed in the
+ * image_content table, whose unique key also settles two identical uploads racing each other. An image uploaded in
+ * blocks is hashed when its upload is committed, and deduplicated the same way.
+ * <p>
+ * image.upload.deduplicated counts the duplicates, and image.upload.saved the bytes they would have taken, tagged with
+ * whether the duplicate was found before or after the transfer.
+ * <p>
+ * New content is handed to ImageVariantPipeline, which resizes it in the background.
+ */
+@Service
+public class ArtifactImageService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactImageService.class.getName());
+
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-fA-F]{64}");
+
+    private final ImageStorageClient imageStorageClient;
+
+    private final ImageContentRepository imageContentRepository;
+
+    private final ImageVariantPipeline imageVariantPipeline;
+
+    private final Counter deduplicatedBeforeTransfer;
+
+    private final Counter deduplicatedAfterTransfer;
+
+    private final Counter savedBeforeTransfer;
+
+    private final Counter savedAfterTransfer;
+
+    public ArtifactImageService(ImageStorageClient imageStorageClient, ImageContentRepository imageContentRepository, ImageVariantPipeline imageVariantPipeline, MeterRegistry meterRegistry) {
+        this.imageStorageClient = imageStorageClient;
+        this.imageContentRepository = imageContentRepository;
+        this.imageVariantPipeline = imageVariantPipeline;
+        this.deduplicatedBeforeTransfer = deduplicatedCounter(meterRegistry, "before-transfer");
+        this.deduplicatedAfterTransfer = deduplicatedCounter(meterRegistry, "after-transfer");
+        this.savedBeforeTransfer = savedCounter(meterRegistry, "before-transfer");
+        this.savedAfterTransfer = savedCounter(meterRegistry, "after-transfer");
+    }
+
+    private static Counter deduplicatedCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("image.upload.deduplicated")
+                .tag("stage", stage)
+                .description("Number of image uploads whose content was already stored")
+                .register(meterRegistry);
+    }
+
+    private static Counter savedCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("image.upload.saved")
+                .tag("stage", stage)
+                .baseUnit("bytes")
+                .description("Bytes of image uploads not stored again because their content was already stored")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param sha256 the hash of the image as computed by the client, or null; it is only used to find a stored copy, never
+     *               trusted to index the upload
+     * @return the URL of the image, which is the URL of the stored copy if the content was uploaded before
+     */
+    public String uploadImage(String containerName, String originalImageName, InputStream data, long length, String sha256) throws IOException {
+        if (sha256 != null) {
+            Optional<ImageContent> stored = this.imageContentRepository.findByContainerNameAndSha256(containerName, normalize(sha256));
+            if (stored.isPresent()) {
+                this.deduplicatedBeforeTransfer.increment();
+                this.savedBeforeTransfer.increment(stored.get().getSize()); // The stored size, not the length the client declared
+                return stored.get().getImageUrl();
+            }
+        }
+        MessageDigest digest = newDigest();
+        String imageUrl = this.imageStorageClient.uploadImage(containerName, originalImageName, new DigestInputStream(data, digest), length);
+        String storedImageUrl = index(containerName, HexFormat.of().formatHex(digest.digest()), imageUrl, length);
+        if (storedImageUrl.equals(imageUrl)) { // New content; a stored copy has its variants already
+            this.imageVariantPipeline.submit(containerName, imageUrl);
+        }
+        return storedImageUrl;
+    }
+
+    /**
+     * Commits an image uploaded in blocks, then indexes and deduplicates it like an image uploaded at once. Blocks arrive
+     * in any order, so the image is only hashed once assembled, by reading it back from the storage.
+     *
+     * @return the URL of the image, which is the URL of the stored copy if the content was uploaded before
+     */
+    public String commitUpload(String containerName, String uploadId, int blockCount) throws IOException {
+        String imageUrl = this.imageStorageClient.commitUpload(containerName, uploadId, blockCount);
+        MessageDigest digest = newDigest();
+        long size;
+        try (InputStream data = new DigestInputStream(this.imageStorageClient.openImage(containerName, imageUrl.substring(imageUrl.lastIndexOf('/') + 1)), digest)) {
+            size = data.transferTo(OutputStream.nullOutputStream()); // The stored size; the client never declared one
+        }
+        String storedImageUrl = index(containerName, HexFormat.of().formatHex(digest.digest()), imageUrl, size);
+        if (storedImageUrl.equals(imageUrl)) {
+            this.imageVariantPipeline.submit(containerName, imageUrl);
+        }
+        return storedImageUrl;
+    }
+
+    /**
+     * Looks up the stored copy of an image about to be uploaded in blocks, so the client can skip the upload.
+     *
+     * @return the URL of the stored copy, or null if the content has not been uploaded before
+     */
+    public String findImageUrl(String containerName, String sha256) {
+        if (sha256 == null) {
+            return null;
+        }
+        return this.imageContentRepository.findByContainerNameAndSha256(containerName, normalize(sha256))
+                .map(stored -> {
+                    this.deduplicatedBeforeTransfer.increment();
+                    this.savedBeforeTransfer.increment(stored.getSize());
+                    return stored.getImageUrl();
+                })
+                .orElse(null);
+    }
+
+    private String index(String containerName, String sha256, String imageUrl, long length) {
+        Optional<ImageContent> stored = this.imageContentRepository.findByContainerNameAndSha256(containerName, sha256);
+        if (stored.isEmpty()) {
+            try {
+                this.imageContentRepository.save(new ImageContent(containerName, sha256, imageUrl, length));
+                return imageUrl;
+            } catch (DataIntegrityViolationException ex) { // The same content was indexed by a concurrent upload in the meantime
+                stored = this.imageContentRepository.findByContainerNameAndSha256(containerName, sha256);
+                if (stored.isEmpty()) {
+                    throw ex;
+                }
+            }
+        }
+        this.imageStorageClient.deleteImage(containerName, imageUrl.substring(imageUrl.lastIndexOf('/') + 1));
+        this.deduplicatedAfterTransfer.increment();
+        this.savedAfterTransfer.increment(length);
+        LOGGER.debug("Image {} duplicates {}, deleted", imageUrl, stored.get().getImageUrl());
+        return stored.get().getImageUrl();
+    }
+
+    private static String normalize(String sha256) {
+        if (!SHA_256.matcher(sha256).matches()) {
+            throw new InvalidUploadException("sha256 must be 64 hexadecimal digits.");
+        }
+        return sha256.toLowerCase(Locale.ROOT);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex); // Every Java platform is required to support SHA-256
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the rows of a bulk import one at a time, straight from the request body, so memory use does not depend on the
+ * size of the upload. A row that cannot be parsed is returned with an error instead of ending the import.
+ * <p>
+ * Two formats are accepted: NDJSON, one ArtifactDto object per line, and CSV with a header row naming the ArtifactDto
+ * columns (name, description, imageUrl). Columns the import does not use, such as id, are ignored.
+ */
+abstract class ArtifactImportReader implements Closeable {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(ArtifactDto.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    /**
+     * @param line  the line the row starts on
+     * @param error why the row could not be parsed, or null if artifactDto holds it
+     */
+    record Row(long line, ArtifactDto artifactDto, String error) {
+    }
+
+    static ArtifactImportReader open(InputStream inputStream, MediaType contentType, ObjectMapper objectMapper) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        Reader reader = new InputStreamReader(inputStream, charset);
+        if (NDJSON.includes(contentType)) {
+            return new NdjsonReader(new BufferedReader(reader), objectMapper);
+        }
+        if (CSV.includes(contentType)) {
+            return new CsvReader(CSV_READER.readValues(reader));
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + contentType);
+    }
+
+    /**
+     * @return the next row, or null at the end of the input
+     */
+    abstract Row next() throws IOException;
+
+    private static class NdjsonReader extends ArtifactImportReader {
+
+        private final BufferedReader reader;
+
+        private final ObjectMapper objectMapper;
+
+        private long lineNumber = 0;
+
+        NdjsonReader(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = this.reader.readLine();
+                this.lineNumber++;
+            } while (line != null && !StringUtils.hasText(line));
+            if (line == null) {
+                return null;
+            }
+            try {
+                return new Row(this.lineNumber, this.objectMapper.readValue(line, ArtifactDto.class), null);
+            } catch (JsonProcessingException ex) { // Lines are parsed independently, so a broken line spoils only itself
+                return new Row(this.lineNumber, null, ex.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
+    }
+
+    private static class CsvReader extends ArtifactImportReader {
+
+        private final MappingIterator<ArtifactDto> rows;
+
+        CsvReader(MappingIterator<ArtifactDto> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (!this.rows.hasNextValue()) {
+                return null;
+            }
+            long line = this.rows.getCurrentLocation().getLineNr();
+            try {
+                return new Row(line, this.rows.nextValue(), null);
+            } catch (JsonMappingException ex) { // The record was tokenized fine, only its values did not fit, so the next one can still be read
+                return new Row(line, null, ex.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.rows.close();
+        }
+    }
+}
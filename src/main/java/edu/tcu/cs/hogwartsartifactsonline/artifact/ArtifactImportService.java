@@ -0,0 +1,210 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.converter.ArtifactDtoToArtifactConverter;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportReport;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.utils.IdRange;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.TooManyRequestsException;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports artifacts in bulk from a streamed request body.
+ * <p>
+ * Rows are read, validated, and written one chunk at a time, each chunk in its own transaction, so a long import holds
+ * neither the whole upload in memory nor one huge transaction. The body is only read as fast as chunks commit, which
+ * pushes back on the client through TCP flow control, and the number of imports running at once is capped.
+ * <p>
+ * Rows are inserted with EntityManager.persist rather than ArtifactRepository.save: ids are assigned up front, so save
+ * would treat every row as an existing entity and merge it, costing a SELECT per row. Persisted rows are flushed
+ * together, which Hibernate turns into JDBC batches of hibernate.jdbc.batch_size inserts.
+ * <p>
+ * This class is deliberately not @Transactional; a chunk that fails to commit is rolled back on its own and reported,
+ * and the import moves on to the next chunk.
+ */
+@Service
+public class ArtifactImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactImportService.class.getName());
+
+    private static final int MAX_ERRORS_PER_CHUNK = 100; // Keeps the report small when a whole file is rejected; the counts stay exact
+
+    private final EntityManager entityManager;
+
+    private final IdWorker idWorker;
+
+    private final ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final CacheManager cacheManager;
+
+    private final CatalogVersion catalogVersion;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int defaultChunkSize;
+
+    private final int maxChunkSize;
+
+    private final Semaphore importPermits;
+
+    public ArtifactImportService(EntityManager entityManager,
+                                 IdWorker idWorker,
+                                 ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 CacheManager cacheManager,
+                                 CatalogVersion catalogVersion,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${artifact.import.chunk-size:1000}") int defaultChunkSize,
+                                 @Value("${artifact.import.max-chunk-size:10000}") int maxChunkSize,
+                                 @Value("${artifact.import.max-concurrent-imports:2}") int maxConcurrentImports) {
+        this.entityManager = entityManager;
+        this.idWorker = idWorker;
+        this.artifactDtoToArtifactConverter = artifactDtoToArtifactConverter;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.cacheManager = cacheManager;
+        this.catalogVersion = catalogVersion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.importPermits = new Semaphore(maxConcurrentImports);
+    }
+
+    /**
+     * Imports the artifacts in the given NDJSON or CSV body. Invalid rows are skipped and reported, valid rows are
+     * committed chunk by chunk.
+     *
+     * @param inputStream the request body, read once and not buffered
+     * @param contentType application/x-ndjson or text/csv, optionally with a charset
+     * @param chunkSize   the rows per transaction, null for the configured default; capped at artifact.import.max-chunk-size
+     * @return a report of every chunk
+     * @throws TooManyRequestsException if artifact.import.max-concurrent-imports imports are already running
+     */
+    public ArtifactImportReport importArtifacts(InputStream inputStream, MediaType contentType, Integer chunkSize) throws IOException {
+        int size = chunkSize == null ? this.defaultChunkSize : Math.max(1, Math.min(chunkSize, this.maxChunkSize));
+        if (!this.importPermits.tryAcquire()) {
+            throw new TooManyRequestsException("Too many imports are running, try again later.");
+        }
+        try (ArtifactImportReader reader = ArtifactImportReader.open(inputStream, contentType, this.objectMapper)) {
+            List<ArtifactImportReport.Chunk> chunks = new ArrayList<>();
+            long rowsRead = 0;
+            long rowsImported = 0;
+            List<ArtifactImportReader.Row> rows = new ArrayList<>(size);
+            ArtifactImportReader.Row row;
+            do {
+                row = reader.next();
+                if (row != null) {
+                    rows.add(row);
+                }
+                if (rows.size() == size || (row == null && !rows.isEmpty())) {
+                    ArtifactImportReport.Chunk chunk = importChunk(chunks.size(), rows);
+                    chunks.add(chunk);
+                    rowsRead += rows.size();
+                    rowsImported += chunk.imported();
+                    rows.clear();
+                }
+            } while (row != null);
+            LOGGER.info("Imported {} of {} artifacts in {} chunks", rowsImported, rowsRead, chunks.size());
+            return new ArtifactImportReport(size, rowsRead, rowsImported, rowsRead - rowsImported, chunks);
+        } finally {
+            this.importPermits.release();
+        }
+    }
+
+    private ArtifactImportReport.Chunk importChunk(int index, List<ArtifactImportReader.Row> rows) {
+        long start = System.nanoTime();
+        List<ArtifactImportReport.RowError> errors = new ArrayList<>();
+        int invalid = 0;
+        List<Artifact> artifacts = new ArrayList<>(rows.size());
+        for (ArtifactImportReader.Row row : rows) {
+            String error = row.error() != null ? row.error() : validate(row);
+            if (error == null) {
+                artifacts.add(this.artifactDtoToArtifactConverter.convert(row.artifactDto()));
+            } else if (invalid++ < MAX_ERRORS_PER_CHUNK) {
+                errors.add(new ArtifactImportReport.RowError(row.line(), error));
+            }
+        }
+
+        // Ids for the whole chunk are reserved at once, before the transaction opens.
+        IdRange ids = this.idWorker.reserve(artifacts.size());
+        artifacts.forEach(artifact -> artifact.setId(ids.nextId()));
+
+        String failure = null;
+        if (!artifacts.isEmpty()) {
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    artifacts.forEach(this.entityManager::persist);
+                    this.entityManager.flush(); // Sends the inserts as JDBC batches
+                    this.entityManager.clear(); // Keeps the persistence context from growing with the import
+                    this.catalogVersion.bump(CatalogVersion.ARTIFACTS, artifacts.stream().map(Artifact::getId).toList()); // After commit, puts them in the text and suggest indexes of every node
+                });
+                evictPages();
+            } catch (RuntimeException ex) {
+                failure = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+                LOGGER.warn("Artifact import chunk {} was rolled back: {}", index, failure);
+            }
+        }
+
+        int imported = failure == null ? artifacts.size() : 0;
+        return new ArtifactImportReport.Chunk(index,
+                rows.get(0).line(),
+                rows.get(rows.size() - 1).line(),
+                imported,
+                rows.size() - imported,
+                errors,
+                failure,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private String validate(ArtifactImportReader.Row row) {
+        Set<ConstraintViolation<ArtifactDto>> violations = this.validator.validate(row.artifactDto());
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * New artifacts can show up on any list or search page and in any facet count, the same entries ArtifactService.save evicts.
+     */
+    private void evictPages() {
+        for (String cacheName : List.of("artifactPages", "artifactCursorPages", "artifactFacets")) {
+            Cache cache = this.cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
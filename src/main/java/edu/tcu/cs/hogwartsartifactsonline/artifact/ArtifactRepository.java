@@ -1,9 +1,158 @@
 package edu.tcu.cs.hogwartsartifactsonline.artifact;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
-public interface ArtifactRepository extends JpaRepository<Artifact, String>, JpaSpecificationExecutor<Artifact> {
+public interface ArtifactRepository extends JpaRepository<Artifact, Long>, JpaSpecificationExecutor<Artifact> {
+
+    int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * The most ids bound to one IN (...) list by batch reads and writes; longer lists are split into chunks of this size,
+     * which keeps each statement's plan cacheable and its locks short.
+     */
+    int IN_LIST_CHUNK_SIZE = 500;
+
+    /**
+     * Streams every artifact with its owner in id order. Rows are fetched from the database STREAM_FETCH_SIZE at a
+     * time and loaded read-only, so Hibernate keeps no snapshots for dirty checking; callers still have to clear the
+     * persistence context as they go, and must consume the stream inside a transaction and close it.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select a from Artifact a left join fetch a.owner order by a.id")
+    Stream<Artifact> streamAllByOrderById();
+
+    /**
+     * Reads the searchable text of the artifacts after the given id in id order, used to rebuild ArtifactTextIndex in batches
+     * without hydrating entities or their owners.
+     */
+    @Query("select a.id as id, a.name as name, a.description as description from Artifact a where a.id > :afterId order by a.id")
+    List<ArtifactText> findTextsAfter(long afterId, Limit limit);
+
+    /**
+     * Reads the indexed text of the given artifacts, at most IN_LIST_CHUNK_SIZE of them; the ids of deleted ones are
+     * left out.
+     */
+    @Query("select a.id as id, a.name as name, a.description as description from Artifact a where a.id in :ids")
+    List<ArtifactText> findTextsByIdIn(Collection<Long> ids);
+
+    /**
+     * Counts the artifacts of each given owner with a single grouped query, so that listing owners does not have to
+     * initialize their artifacts collections.
+     */
+    @Query("select a.owner.id as ownerId, count(a) as numberOfArtifacts from Artifact a where a.owner.id in :ownerIds group by a.owner.id")
+    List<OwnerArtifactCount> countByOwnerIdIn(Collection<Integer> ownerIds);
+
+    /**
+     * Reads only the versions an artifact's ETag is made of, its own and its owner's, to evaluate a conditional request
+     * without loading the artifact.
+     */
+    @Query("select a.version as version, o.version as ownerVersion from Artifact a left join a.owner o where a.id = :artifactId")
+    Optional<ArtifactVersion> findVersionById(Long artifactId);
+
+    /**
+     * Updates an artifact's fields and increments its version in one statement, without loading it first.
+     *
+     * @return the number of rows updated, 0 if there is no artifact with the id
+     */
+    @Modifying
+    @Query("update Artifact a set a.name = :name, a.description = :description, a.imageUrl = :imageUrl, a.imageVariants = :imageVariants, a.version = a.version + 1 where a.id = :artifactId")
+    int updateById(Long artifactId, String name, String description, String imageUrl, Map<Integer, String> imageVariants);
+
+    /**
+     * Like updateById, but only if the artifact is still at the given version, so a conditional update needs no lock.
+     *
+     * @return the number of rows updated, 0 if there is no artifact with the id or it has been updated since
+     */
+    @Modifying
+    @Query("update Artifact a set a.name = :name, a.description = :description, a.imageUrl = :imageUrl, a.imageVariants = :imageVariants, a.version = a.version + 1 where a.id = :artifactId and a.version = :version")
+    int updateByIdAndVersion(Long artifactId, String name, String description, String imageUrl, Map<Integer, String> imageVariants, long version);
+
+    @Query("select a.id from Artifact a where a.imageUrl = :imageUrl")
+    List<Long> findIdsByImageUrl(String imageUrl);
+
+    /**
+     * Records the resized variants of an image on every artifact showing it, incrementing their versions so their ETags
+     * change.
+     *
+     * @return the number of artifacts updated
+     */
+    @Modifying
+    @Query("update Artifact a set a.imageVariants = :imageVariants, a.version = a.version + 1 where a.imageUrl = :imageUrl")
+    int updateImageVariantsByImageUrl(String imageUrl, Map<Integer, String> imageVariants);
+
+    /**
+     * Increments the versions of the owners of the given artifacts, whose numberOfArtifacts is about to change, so their
+     * ETags and those of their other artifacts change with it. Bulk statements bypass @Version, so this has to be done
+     * explicitly.
+     */
+    @Modifying
+    @Query("update Wizard w set w.version = w.version + 1 where w.id in (select a.owner.id from Artifact a where a.id in :artifactIds)")
+    int incrementOwnerVersions(Collection<Long> artifactIds);
+
+    /**
+     * Finds the given artifacts and every other artifact of their owners, with the owners' ids: what a deletion of the
+     * given artifacts changes, since each artifact shows its owner's numberOfArtifacts.
+     */
+    @Query("select a.id as id, o.id as ownerId from Artifact a left join a.owner o where a.id in :artifactIds or o.id in (select b.owner.id from Artifact b where b.id in :artifactIds)")
+    List<ArtifactOwner> findWithOwnedAlongside(Collection<Long> artifactIds);
+
+    /**
+     * Deletes the artifacts with the given ids in one statement, without loading them first. Ids that do not exist are
+     * ignored.
+     *
+     * @return the number of artifacts deleted
+     */
+    @Modifying
+    @Query("delete from Artifact a where a.id in :artifactIds")
+    int deleteByIdIn(Collection<Long> artifactIds);
+
+    interface ArtifactText {
+
+        Long getId();
+
+        String getName();
+
+        String getDescription();
+    }
+
+    interface OwnerArtifactCount {
+
+        Integer getOwnerId();
+
+        Long getNumberOfArtifacts();
+    }
+
+    interface ArtifactOwner {
+
+        Long getId();
+
+        Integer getOwnerId();
+    }
+
+    interface ArtifactVersion {
+
+        Long getVersion();
+
+        Long getOwnerVersion();
+    }
 }
@@ -2,24 +2,51 @@ package edu.tcu.cs.hogwartsartifactsonline.artifact;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactBatchDto;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacets;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.ChatClient;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
+import edu.tcu.cs.hogwartsartifactsonline.system.ETags;
+import edu.tcu.cs.hogwartsartifactsonline.system.KeysetCursor;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CachedPage;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.TwoTierCache;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidCursorException;
 import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.observation.annotation.Observed;
 import jakarta.transaction.Transactional;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
@@ -31,41 +58,251 @@ public class ArtifactService {
 
     private final ChatClient chatClient;
 
-    public ArtifactService(ArtifactRepository artifactRepository, IdWorker idWorker, ChatClient chatClient) {
+    private final ArtifactTextIndex artifactTextIndex;
+
+    private final ArtifactDtoRepository artifactDtoRepository;
+
+    private final CacheManager cacheManager;
+
+    private final CatalogVersion catalogVersion;
+
+    private final ImageContentRepository imageContentRepository;
+
+    private static final List<String> KEYSET_PROPERTIES = List.of("id", "name");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper(); // Thread-safe once configured, no need for one per summary
+
+    private static final String SUMMARY_PROMPT = "Your task is to generate a short summary of a given JSON array in at most 100 words. The summary must include the number of artifacts, each artifact's description, and the ownership information. Don't mention that the summary is from a given JSON array.";
+
+    private static final String COMBINE_PROMPT = "Your task is to combine the given summaries, each of different artifacts, into one short summary in at most 100 words. The summary must include the total number of artifacts, their descriptions, and the ownership information. Don't mention that the summary is combined from other summaries.";
+
+    public ArtifactService(ArtifactRepository artifactRepository, IdWorker idWorker, ChatClient chatClient, ArtifactTextIndex artifactTextIndex, ArtifactDtoRepository artifactDtoRepository, CacheManager cacheManager, CatalogVersion catalogVersion, ImageContentRepository imageContentRepository) {
         this.artifactRepository = artifactRepository;
         this.idWorker = idWorker;
         this.chatClient = chatClient;
+        this.artifactTextIndex = artifactTextIndex;
+        this.artifactDtoRepository = artifactDtoRepository;
+        this.cacheManager = cacheManager;
+        this.catalogVersion = catalogVersion;
+        this.imageContentRepository = imageContentRepository;
     }
 
     @Observed(name = "artifact", contextualName = "findByIdService")
-    public Artifact findById(String artifactId) {
+    public Artifact findById(Long artifactId) {
         return artifactRepository.findById(artifactId).orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
     }
 
+    @Cacheable(cacheNames = "artifact", key = "#artifactId", sync = true)
+    public ArtifactDto findDtoById(Long artifactId) {
+        return this.artifactDtoRepository.findById(artifactId).orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+    }
+
+    /**
+     * Finds many artifacts by id at once. They are looked up in the artifact cache first, with one round trip per tier,
+     * and the rest are read with their owners in IN (...) queries of ArtifactRepository.IN_LIST_CHUNK_SIZE ids, which
+     * then fill the cache. Ids that no artifact has are reported instead of failing the lookup.
+     *
+     * @param artifactIds the ids to look up, in the order the artifacts should be returned in
+     */
+    public ArtifactBatchDto findDtosByIds(List<Long> artifactIds) {
+        List<Long> distinctIds = artifactIds.stream().distinct().toList();
+        Cache cache = this.cacheManager.getCache("artifact");
+        Cache targetCache = cache instanceof TransactionAwareCacheDecorator decorator ? decorator.getTargetCache() : cache; // Reads need no transaction awareness
+        Map<Long, ArtifactDto> found = new HashMap<>();
+        if (targetCache instanceof TwoTierCache twoTierCache) { // Keyed by the ids' strings, as @Cacheable keys are
+            twoTierCache.getAll(distinctIds.stream().map(String::valueOf).toList())
+                    .forEach((artifactId, artifactDto) -> found.put(Long.valueOf(artifactId), (ArtifactDto) artifactDto));
+        } else if (targetCache != null) {
+            distinctIds.forEach(artifactId -> {
+                ArtifactDto artifactDto = targetCache.get(artifactId, ArtifactDto.class);
+                if (artifactDto != null) {
+                    found.put(artifactId, artifactDto);
+                }
+            });
+        }
+
+        List<Long> missedIds = distinctIds.stream().filter(artifactId -> !found.containsKey(artifactId)).toList();
+        Map<Long, ArtifactDto> loaded = new HashMap<>();
+        for (int from = 0; from < missedIds.size(); from += ArtifactRepository.IN_LIST_CHUNK_SIZE) {
+            List<Long> chunk = missedIds.subList(from, Math.min(from + ArtifactRepository.IN_LIST_CHUNK_SIZE, missedIds.size()));
+            this.artifactDtoRepository.findAll(ArtifactSpecs.hasIdIn(chunk), Sort.unsorted(), Limit.unlimited())
+                    .forEach(artifactDto -> loaded.put(artifactDto.id(), artifactDto));
+        }
+        if (targetCache instanceof TwoTierCache twoTierCache) {
+            Map<String, ArtifactDto> entries = new HashMap<>();
+            loaded.forEach((artifactId, artifactDto) -> entries.put(String.valueOf(artifactId), artifactDto));
+            twoTierCache.putAll(entries);
+        } else if (targetCache != null) {
+            loaded.forEach(targetCache::put);
+        }
+        found.putAll(loaded);
+
+        List<ArtifactDto> artifacts = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long artifactId : distinctIds) {
+            ArtifactDto artifactDto = found.get(artifactId);
+            if (artifactDto != null) {
+                artifacts.add(artifactDto);
+            } else {
+                missingIds.add(artifactId);
+            }
+        }
+        return new ArtifactBatchDto(artifacts, missingIds);
+    }
+
+    /**
+     * Returns the ETag of the artifact from its version and its owner's, without loading either.
+     */
+    public String findETagById(Long artifactId) {
+        return this.artifactRepository.findVersionById(artifactId)
+                .map(version -> ETags.of(version.getVersion(), version.getOwnerVersion()))
+                .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+    }
+
+    /**
+     * Returns the ETag of the artifact lists, which is the catalog version: every write that changes any page bumps it.
+     * A single max(version) would not do, since it stays the same when any other row is updated or deleted.
+     */
+    public String findAllETag() {
+        return this.catalogVersion.eTag();
+    }
+
+    public static String eTag(ArtifactDto artifactDto) {
+        return ETags.of(artifactDto.version(), artifactDto.owner() != null ? artifactDto.owner().version() : null);
+    }
+
     @Timed("findAllArtifactsService.time")
     public List<Artifact> findAll() {
         return artifactRepository.findAll();
     }
 
+    @CacheEvict(cacheNames = {"artifactPages", "artifactCursorPages", "artifactFacets"}, allEntries = true)
     public Artifact save(Artifact newArtifact) {
-        newArtifact.setId(idWorker.nextId() + "");
-        return this.artifactRepository.save(newArtifact);
-    }
-
-    public Artifact update(String artifactId, Artifact update) {
-        return this.artifactRepository.findById(artifactId)
-                .map(oldArtifact -> {
-                    oldArtifact.setName(update.getName());
-                    oldArtifact.setDescription(update.getDescription());
-                    oldArtifact.setImageUrl(update.getImageUrl());
-                    return this.artifactRepository.save(oldArtifact);
-                })
-                .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+        newArtifact.setId(idWorker.nextId());
+        newArtifact.setImageVariants(findImageVariants(newArtifact.getImageUrl()));
+        Artifact savedArtifact = this.artifactRepository.save(newArtifact);
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, List.of(savedArtifact.getId())); // Puts it in the text and suggest indexes of every node
+        return savedArtifact;
     }
 
-    public void delete(String artifactId) {
-        this.artifactRepository.findById(artifactId).orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
-        this.artifactRepository.deleteById(artifactId);
+    /**
+     * Updates the artifact with one UPDATE statement instead of loading, mutating, and saving it. With If-Match, only the
+     * versions are read to evaluate it, and the update is made conditional on the artifact's version, so a concurrent
+     * update in between is rejected as well.
+     *
+     * @return the updated artifact, read back as a DTO for the response
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "artifact", key = "#artifactId"),
+            @CacheEvict(cacheNames = {"artifactPages", "artifactCursorPages", "artifactFacets"}, allEntries = true)
+    })
+    public ArtifactDto update(Long artifactId, Artifact update, String ifMatch) {
+        Map<Integer, String> imageVariants = findImageVariants(update.getImageUrl());
+        if (ifMatch == null) {
+            int updated = this.artifactRepository.updateById(artifactId, update.getName(), update.getDescription(), update.getImageUrl(), imageVariants);
+            if (updated == 0) {
+                throw new ObjectNotFoundException("artifact", artifactId);
+            }
+        } else {
+            ArtifactRepository.ArtifactVersion version = this.artifactRepository.findVersionById(artifactId)
+                    .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+            if (ETags.isPreconditionFailed(ifMatch, ETags.of(version.getVersion(), version.getOwnerVersion()))) {
+                throw new PreconditionFailedException("artifact", artifactId);
+            }
+            int updated = this.artifactRepository.updateByIdAndVersion(artifactId, update.getName(), update.getDescription(), update.getImageUrl(), imageVariants, version.getVersion());
+            if (updated == 0) { // Updated or deleted since its version was read
+                throw new PreconditionFailedException("artifact", artifactId);
+            }
+        }
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, List.of(artifactId));
+        return this.artifactDtoRepository.findById(artifactId).orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+    }
+
+    /**
+     * Records the resized variants of an image, once ImageVariantPipeline has stored them, on the artifacts showing it.
+     *
+     * @return the number of artifacts updated
+     */
+    @CacheEvict(cacheNames = {"artifactPages", "artifactCursorPages"}, allEntries = true)
+    public int updateImageVariants(String imageUrl, Map<Integer, String> imageVariants) {
+        List<Long> artifactIds = this.artifactRepository.findIdsByImageUrl(imageUrl);
+        if (artifactIds.isEmpty()) {
+            return 0;
+        }
+        int updated = this.artifactRepository.updateImageVariantsByImageUrl(imageUrl, imageVariants);
+        Cache cache = this.cacheManager.getCache("artifact");
+        if (cache != null) {
+            artifactIds.forEach(cache::evict);
+        }
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, artifactIds); // Changes the list ETag, so clients fetch the small images
+        return updated;
+    }
+
+    /**
+     * @return the resized variants of an uploaded image, or null if it has none (yet) or was not uploaded here
+     */
+    private Map<Integer, String> findImageVariants(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        return this.imageContentRepository.findFirstByImageUrl(imageUrl).map(ImageContent::getVariants).orElse(null);
+    }
+
+    @CacheEvict(cacheNames = {"artifactPages", "artifactCursorPages", "artifactFacets"}, allEntries = true)
+    public void delete(Long artifactId) {
+        List<Long> artifactIds = List.of(artifactId);
+        List<ArtifactRepository.ArtifactOwner> changed = this.artifactRepository.findWithOwnedAlongside(artifactIds);
+        this.artifactRepository.incrementOwnerVersions(artifactIds); // Its numberOfArtifacts changes
+        if (this.artifactRepository.deleteByIdIn(artifactIds) == 0) {
+            throw new ObjectNotFoundException("artifact", artifactId);
+        }
+        evictChanged(changed);
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, artifactIds);
+    }
+
+    /**
+     * Evicts the cached entries a deletion changes: the deleted artifacts, and their owners, whose numberOfArtifacts is
+     * part of each owner's entry and of every artifact it owns. Inside a transaction the evictions happen after commit.
+     */
+    private void evictChanged(List<ArtifactRepository.ArtifactOwner> changed) {
+        Cache artifactCache = this.cacheManager.getCache("artifact");
+        Cache wizardCache = this.cacheManager.getCache("wizard");
+        Set<Integer> ownerIds = new HashSet<>();
+        for (ArtifactRepository.ArtifactOwner artifact : changed) {
+            if (artifactCache != null) {
+                artifactCache.evict(artifact.getId());
+            }
+            if (artifact.getOwnerId() != null) {
+                ownerIds.add(artifact.getOwnerId());
+            }
+        }
+        if (wizardCache != null) {
+            ownerIds.forEach(wizardCache::evict);
+        }
+    }
+
+    /**
+     * Deletes the artifacts with the given ids, ArtifactRepository.IN_LIST_CHUNK_SIZE at a time, with three statements
+     * per chunk and no entity loaded. Ids that do not exist are ignored, so a cleanup job can safely retry a list.
+     *
+     * @param artifactIds the ids of the artifacts to delete, duplicates are allowed
+     * @return the number of artifacts deleted
+     */
+    @CacheEvict(cacheNames = {"artifactPages", "artifactCursorPages", "artifactFacets"}, allEntries = true)
+    public int deleteAll(List<Long> artifactIds) {
+        List<Long> distinctIds = artifactIds.stream().distinct().toList();
+        int deleted = 0;
+        for (int from = 0; from < distinctIds.size(); from += ArtifactRepository.IN_LIST_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + ArtifactRepository.IN_LIST_CHUNK_SIZE, distinctIds.size()));
+            List<ArtifactRepository.ArtifactOwner> changed = this.artifactRepository.findWithOwnedAlongside(chunk);
+            this.artifactRepository.incrementOwnerVersions(chunk);
+            deleted += this.artifactRepository.deleteByIdIn(chunk);
+            evictChanged(changed);
+        }
+        if (deleted > 0) {
+            this.catalogVersion.bump(CatalogVersion.ARTIFACTS, distinctIds);
+        }
+        return deleted;
     }
 
     /**
@@ -76,46 +313,258 @@ public class ArtifactService {
      * @throws JsonProcessingException
      */
     public String summarize(List<ArtifactDto> artifactDtos) throws JsonProcessingException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        String jsonArray = objectMapper.writeValueAsString(artifactDtos);
+        return generate(summaryRequest(SUMMARY_PROMPT, OBJECT_MAPPER.writeValueAsString(artifactDtos)));
+    }
 
+    /**
+     * Like summarize, but passes the summary to onDelta piece by piece as the model generates it.
+     *
+     * @param artifactDtos a list of artifact dtos to be summarized
+     * @param onDelta      receives the summary text as it is generated
+     * @throws JsonProcessingException
+     */
+    public void summarizeStreaming(List<ArtifactDto> artifactDtos, Consumer<String> onDelta) throws JsonProcessingException {
+        this.chatClient.stream(summaryRequest(SUMMARY_PROMPT, OBJECT_MAPPER.writeValueAsString(artifactDtos)), onDelta);
+    }
+
+    /**
+     * Combines the summaries of disjoint parts of the catalog into one summary of them all.
+     *
+     * @param partialSummaries summaries returned by summarize, each of different artifacts
+     * @return a summary of all the artifacts the partial summaries cover
+     */
+    public String combineSummaries(List<String> partialSummaries) {
+        return generate(summaryRequest(COMBINE_PROMPT, String.join("\n\n", partialSummaries)));
+    }
+
+    /**
+     * Like combineSummaries, but passes the summary to onDelta piece by piece as the model generates it.
+     */
+    public void combineSummariesStreaming(List<String> partialSummaries, Consumer<String> onDelta) {
+        this.chatClient.stream(summaryRequest(COMBINE_PROMPT, String.join("\n\n", partialSummaries)), onDelta);
+    }
+
+    private String generate(ChatRequest chatRequest) {
+        chatRequest.setStream(false);
+
+        ChatResponse chatResponse = this.chatClient.generate(chatRequest);
+
+        return chatResponse.choices().get(0).message().content();
+    }
+
+    private static ChatRequest summaryRequest(String prompt, String content) {
         List<Message> messages = List.of(
-                new Message("system", "Your task is to generate a short summary of a given JSON array in at most 100 words. The summary must include the number of artifacts, each artifact's description, and the ownership information. Don't mention that the summary is from a given JSON array."),
-                new Message("user", jsonArray)
+                new Message("system", prompt),
+                new Message("user", content)
         );
 
         ChatRequest chatRequest = new ChatRequest("openai-community/gpt2", messages);
         chatRequest.setMaxTokens(500);
-        chatRequest.setStream(false);
+        return chatRequest;
+    }
 
-        ChatResponse chatResponse = this.chatClient.generate(chatRequest);
+    public Page<ArtifactDto> findAll(Pageable pageable) {
+        return findByCriteria(Map.of(), pageable);
+    }
 
-        return chatResponse.choices().get(0).message().content();
+    public Page<ArtifactDto> findByCriteria(Map<String, String> searchCriteria, Pageable pageable) {
+        String version = this.catalogVersion.current();
+        return cached("artifactPages", cacheKey(searchCriteria, null, pageable, version),
+                () -> CachedPage.of(loadPage(searchCriteria, pageable, version))).toPage(pageable);
+    }
+
+    public CursorPage<ArtifactDto> findAll(String cursor, Pageable pageable) {
+        return findByCriteria(Map.of(), cursor, pageable);
+    }
+
+    /**
+     * Keyset (cursor) variant of {@link #findByCriteria(Map, Pageable)}. Instead of an OFFSET scan plus a count query,
+     * it seeks past the row encoded in the cursor and reads one extra row to find out whether another page exists.
+     *
+     * @param searchCriteria the same criteria accepted by the offset variant
+     * @param cursor         the next or prev token of the previous page, null or empty for the first page
+     * @param pageable       the page size and sort order, only a single order on id or name is supported
+     * @return a page of artifacts together with the tokens of its neighbouring pages
+     */
+    public CursorPage<ArtifactDto> findByCriteria(Map<String, String> searchCriteria, String cursor, Pageable pageable) {
+        String version = this.catalogVersion.current();
+        return cached("artifactCursorPages", cacheKey(searchCriteria, cursor, pageable, version),
+                () -> loadCursorPage(searchCriteria, cursor, pageable, version));
+    }
+
+    /**
+     * Counts the artifacts matching the criteria per owner with one grouped query, cached like the pages. The ownerName
+     * criterion is left out, so the counts show how many artifacts every other owner would match too.
+     *
+     * @param searchCriteria the same criteria accepted by findByCriteria
+     */
+    public ArtifactFacets findFacets(Map<String, String> searchCriteria) {
+        Map<String, String> facetCriteria = new TreeMap<>(searchCriteria);
+        facetCriteria.remove("ownerName");
+        String version = this.catalogVersion.current();
+        return cached("artifactFacets", facetCriteria + "|" + version,
+                () -> this.artifactDtoRepository.findFacets(toSpecification(facetCriteria, searchText(facetCriteria, version))));
+    }
+
+    private Page<ArtifactDto> loadPage(Map<String, String> searchCriteria, Pageable pageable, String version) {
+        List<Long> matchingIds = searchText(searchCriteria, version);
+        if (matchingIds != null && pageable.isPaged() && hasTextCriteriaOnly(searchCriteria) && isSortedByIdOnly(pageable.getSort())) {
+            // The text index already knows every match and their order, so only the ids of the requested page go to the database.
+            List<Long> orderedIds = new ArrayList<>(matchingIds);
+            if (pageable.getSort().isSorted() && pageable.getSort().toList().get(0).isDescending()) {
+                Collections.reverse(orderedIds);
+            }
+            int from = (int) Math.min(pageable.getOffset(), orderedIds.size());
+            int to = Math.min(from + pageable.getPageSize(), orderedIds.size());
+            List<Long> pageIds = orderedIds.subList(from, to);
+            List<ArtifactDto> content = pageIds.isEmpty()
+                    ? List.of()
+                    : this.artifactDtoRepository.findAll(ArtifactSpecs.hasIdIn(pageIds), pageable.getSortOr(Sort.by("id")), Limit.unlimited());
+            return new PageImpl<>(content, pageable, orderedIds.size());
+        }
+        return this.artifactDtoRepository.findAll(toSpecification(searchCriteria, matchingIds), pageable);
+    }
+
+    private CursorPage<ArtifactDto> loadCursorPage(Map<String, String> searchCriteria, String cursor, Pageable pageable, String version) {
+        Sort.Order order = keysetOrder(pageable.getSort());
+        KeysetCursor position = StringUtils.hasLength(cursor) ? KeysetCursor.decode(cursor, order.getProperty()) : null;
+        boolean backward = position != null && position.backward();
+
+        Specification<Artifact> spec = toSpecification(searchCriteria, searchText(searchCriteria, version));
+        if (position != null) {
+            spec = spec.and(ArtifactSpecs.isBeyond(order, position));
+        }
+
+        // Walking backward reverses the order; the rows are flipped back once they are read.
+        Sort.Direction direction = backward != order.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = order.getProperty().equals("id")
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, order.getProperty(), "id");
+        int size = pageable.getPageSize();
+
+        List<ArtifactDto> rows = new ArrayList<>(this.artifactDtoRepository.findAll(spec, sort, Limit.of(size + 1)));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        if (backward) {
+            Collections.reverse(rows);
+        }
+
+        String next = null;
+        String prev = null;
+        if (!rows.isEmpty()) {
+            ArtifactDto first = rows.get(0);
+            ArtifactDto last = rows.get(rows.size() - 1);
+            if (backward || hasMore) {
+                next = new KeysetCursor(order.getProperty(), keyOf(last, order.getProperty()), String.valueOf(last.id()), false).encode();
+            }
+            if (backward ? hasMore : position != null) {
+                prev = new KeysetCursor(order.getProperty(), keyOf(first, order.getProperty()), String.valueOf(first.id()), true).encode();
+            }
+        }
+        return new CursorPage<>(rows, size, next, prev);
     }
 
-    public Page<Artifact> findAll(Pageable pageable) {
-        return this.artifactRepository.findAll(pageable);
+    /**
+     * Reads a page through the given cache, if it is enabled. Pages are evicted wholesale by every write. Their keys also
+     * carry the catalog version they were read at, so that a page read from a text index that had not yet caught up
+     * with that version can never be served for a later one.
+     */
+    private <T> T cached(String cacheName, String key, Supplier<T> loader) {
+        Cache cache = this.cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+        try {
+            return cache.get(key, loader::get);
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause; // Such as an InvalidCursorException
+            }
+            throw ex;
+        }
     }
 
-    public Page<Artifact> findByCriteria(Map<String, String> searchCriteria, Pageable pageable) {
+    private static String cacheKey(Map<String, String> searchCriteria, String cursor, Pageable pageable, String version) {
+        return new TreeMap<>(searchCriteria) + "|" + cursor + "|" + pageable + "|" + version;
+    }
+
+    /**
+     * Resolves the name and description criteria against the text index, if it holds every node's changes up to the
+     * given catalog version.
+     *
+     * @return the ids of the matching artifacts, or null if there are no text criteria or the index is not current
+     */
+    private List<Long> searchText(Map<String, String> searchCriteria, String version) {
+        if (!StringUtils.hasLength(searchCriteria.get("name")) && !StringUtils.hasLength(searchCriteria.get("description"))) {
+            return null;
+        }
+        if (!this.artifactTextIndex.isCurrentAt(version)) {
+            return null; // Changes from other nodes may still be on their way, the LIKE predicates see them already
+        }
+        return this.artifactTextIndex.search(searchCriteria.get("name"), searchCriteria.get("description"));
+    }
+
+    private Specification<Artifact> toSpecification(Map<String, String> searchCriteria, List<Long> matchingIds) {
         Specification<Artifact> spec = Specification.where(null);
 
         if (StringUtils.hasLength(searchCriteria.get("id"))) {
-            spec = spec.and(ArtifactSpecs.hasId(searchCriteria.get("id")));
+            Long id = parseId(searchCriteria.get("id"));
+            spec = spec.and(id != null ? ArtifactSpecs.hasId(id) : ArtifactSpecs.hasIdIn(List.of())); // No artifact has an id that is not a number
         }
 
-        if (StringUtils.hasLength(searchCriteria.get("name"))) {
-            spec = spec.and(ArtifactSpecs.containsName(searchCriteria.get("name")));
-        }
+        if (matchingIds != null && matchingIds.size() <= this.artifactTextIndex.maxInListSize()) {
+            spec = spec.and(ArtifactSpecs.hasIdIn(matchingIds)); // Replaces the LIKE '%x%' scans below
+        } else {
+            if (StringUtils.hasLength(searchCriteria.get("name"))) {
+                spec = spec.and(ArtifactSpecs.containsName(searchCriteria.get("name")));
+            }
 
-        if (StringUtils.hasLength(searchCriteria.get("description"))) {
-            spec = spec.and(ArtifactSpecs.containsDescription(searchCriteria.get("description")));
+            if (StringUtils.hasLength(searchCriteria.get("description"))) {
+                spec = spec.and(ArtifactSpecs.containsDescription(searchCriteria.get("description")));
+            }
         }
 
         if (StringUtils.hasLength(searchCriteria.get("ownerName"))) {
             spec = spec.and(ArtifactSpecs.hasOwnerName(searchCriteria.get("ownerName")));
         }
 
-        return this.artifactRepository.findAll(spec, pageable);
+        return spec;
+    }
+
+    /**
+     * Cursor pagination can only seek on columns that are indexed together with the id, so it accepts a single
+     * order on id or name. Ids come from IdWorker and are time-ordered, so sorting by id means sorting by creation.
+     */
+    private Sort.Order keysetOrder(Sort sort) {
+        if (sort.isUnsorted()) {
+            return Sort.Order.asc("id");
+        }
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() > 1 || !KEYSET_PROPERTIES.contains(orders.get(0).getProperty())) {
+            throw new InvalidCursorException("Cursor pagination only supports sorting by one of " + KEYSET_PROPERTIES + ".");
+        }
+        return orders.get(0);
+    }
+
+    private static boolean hasTextCriteriaOnly(Map<String, String> searchCriteria) {
+        return !StringUtils.hasLength(searchCriteria.get("id")) && !StringUtils.hasLength(searchCriteria.get("ownerName"));
+    }
+
+    private static boolean isSortedByIdOnly(Sort sort) {
+        return sort.isUnsorted() || (sort.toList().size() == 1 && sort.toList().get(0).getProperty().equals("id"));
+    }
+
+    private static String keyOf(ArtifactDto artifactDto, String property) {
+        return property.equals("name") ? artifactDto.name() : String.valueOf(artifactDto.id());
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return Long.valueOf(id.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
     }
 }
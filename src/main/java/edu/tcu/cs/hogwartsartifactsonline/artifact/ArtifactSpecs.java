@@ -1,16 +1,27 @@
 package edu.tcu.cs.hogwartsartifactsonline.artifact;
 
+import edu.tcu.cs.hogwartsartifactsonline.system.KeysetCursor;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidCursorException;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+
 public class ArtifactSpecs {
 
-    public static Specification<Artifact> hasId(String providedId) {
+    public static Specification<Artifact> hasId(Long providedId) {
         // From clause  ||  Ordering, Distinct, and Grouping by || Where clause
         //  Root<>      ||          CriteriaQuery               || Criteria Builder
         return (root, query, criteriaBuilder) ->
                 criteriaBuilder.equal(root.get("id"), providedId);
     }
 
+    public static Specification<Artifact> hasIdIn(Collection<Long> providedIds) {
+        return (root, query, criteriaBuilder) ->
+                providedIds.isEmpty() ? criteriaBuilder.disjunction() : root.get("id").in(providedIds);
+    }
+
     public static Specification<Artifact> containsName(String providedName) {
         return (root, query, criteriaBuilder) ->
                 criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), "%" + providedName.toLowerCase() + "%" );
@@ -25,4 +36,38 @@ public class ArtifactSpecs {
         return (root, query, criteriaBuilder) ->
                 criteriaBuilder.equal(criteriaBuilder.lower(root.get("owner").get("name")), providedOwnerName);
     }
+
+    /**
+     * Keyset (seek) predicate: matches the rows that come after the cursor's boundary row in the given order,
+     * or before it if the cursor points backward. The id breaks ties between equal sort keys, so together with
+     * an index on (sort column, id) the database can seek to the boundary instead of scanning OFFSET rows.
+     */
+    public static Specification<Artifact> isBeyond(Sort.Order order, KeysetCursor cursor) {
+        boolean greater = order.isAscending() != cursor.backward();
+        long boundaryId = parseCursorId(cursor);
+        return (root, query, criteriaBuilder) -> {
+            Path<String> key = root.get(order.getProperty());
+            Path<Long> id = root.get("id");
+            if (order.getProperty().equals("id")) {
+                return greater
+                        ? criteriaBuilder.greaterThan(id, boundaryId)
+                        : criteriaBuilder.lessThan(id, boundaryId);
+            }
+            return greater
+                    ? criteriaBuilder.or(
+                            criteriaBuilder.greaterThan(key, cursor.key()),
+                            criteriaBuilder.and(criteriaBuilder.equal(key, cursor.key()), criteriaBuilder.greaterThan(id, boundaryId)))
+                    : criteriaBuilder.or(
+                            criteriaBuilder.lessThan(key, cursor.key()),
+                            criteriaBuilder.and(criteriaBuilder.equal(key, cursor.key()), criteriaBuilder.lessThan(id, boundaryId)));
+        };
+    }
+
+    private static long parseCursorId(KeysetCursor cursor) {
+        try {
+            return Long.parseLong(cursor.id());
+        } catch (NumberFormatException ex) {
+            throw new InvalidCursorException("The cursor is malformed.");
+        }
+    }
 }
@@ -0,0 +1,571 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactSuggestion;
+import edu.tcu.cs.hogwartsartifactsonline.system.actuator.HotArtifactTracker;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogFrontier;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.IndexMaintenance;
+import jakarta.annotation.PreDestroy;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.WizardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory prefix index over artifact and wizard names, serving type-ahead suggestions without a database query.
+ * <p>
+ * Names are normalized (lower case, accents and punctuation removed) and every word of a name starts a term, so "wa"
+ * suggests "Elder Wand". The terms are stored in a character trie, and every node keeps the top-K entries of its
+ * subtree, so a suggestion walks the prefix and returns that node's list, no matter how many names share the prefix. A
+ * write relinks one entry and recomputes the top-K lists along its paths from the children's lists, bottom up.
+ * <p>
+ * Entries are ranked by popularity: artifacts by how often they are fetched, as estimated by HotArtifactTracker, and
+ * wizards by their number of artifacts, both refreshed on a schedule. Ties go to the shorter name. Like
+ * ArtifactTextIndex, the index is rebuilt once the application is ready, follows the CatalogVersion changes of every
+ * node by reading the changed names back, is rebuilt by resync() if it misses one, and suggest() returns nothing until
+ * the first rebuild finishes.
+ */
+@Component
+public class ArtifactSuggestIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactSuggestIndex.class.getName());
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private static final int MAX_TERM_LENGTH = 32; // Bounds the depth of the trie, longer prefixes are checked against the names
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ArtifactRepository artifactRepository;
+
+    private final WizardRepository wizardRepository;
+
+    private final HotArtifactTracker hotArtifactTracker;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CatalogFrontier frontier = new CatalogFrontier();
+
+    private final IndexMaintenance maintenance = new IndexMaintenance("artifact-suggest-index", this.frontier, this::rebuild, this::applyChanges);
+
+    private final boolean enabled;
+
+    private final int topK;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Trie trie;
+
+    private volatile boolean ready = false;
+
+    private List<Runnable> pendingWrites; // Writes that arrive while a rebuild is reading the database, replayed onto the rebuilt trie
+
+    private Set<String> popularKeys = Set.of(); // The artifacts weighted by the last popularity refresh
+
+    public ArtifactSuggestIndex(ArtifactRepository artifactRepository,
+                                WizardRepository wizardRepository,
+                                HotArtifactTracker hotArtifactTracker,
+                                CatalogVersion catalogVersion,
+                                @Value("${artifact.suggest.enabled:true}") boolean enabled,
+                                @Value("${artifact.suggest.top-k:10}") int topK) {
+        this.artifactRepository = artifactRepository;
+        this.wizardRepository = wizardRepository;
+        this.hotArtifactTracker = hotArtifactTracker;
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+        this.topK = topK;
+        this.trie = new Trie(topK);
+        catalogVersion.addListener(this::onCatalogChange);
+    }
+
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /**
+     * The most suggestions a single call can return.
+     */
+    public int maxLimit() {
+        return this.topK;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!this.enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        this.lock.writeLock().lock();
+        try {
+            this.pendingWrites = new ArrayList<>();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.frontier.rebuilding(this.catalogVersion.current()); // Read before the rows, so the rows are at least as new
+
+        Trie rebuilt = new Trie(this.topK);
+        try {
+            long afterId = Long.MIN_VALUE;
+            List<ArtifactRepository.ArtifactText> batch;
+            do {
+                batch = this.artifactRepository.findTextsAfter(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (ArtifactRepository.ArtifactText text : batch) {
+                    rebuilt.put(new Entry(ArtifactSuggestion.ARTIFACT, String.valueOf(text.getId()), text.getName(), 0), false);
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            for (WizardRepository.WizardCount wizard : this.wizardRepository.findAllWithNumberOfArtifacts()) {
+                rebuilt.put(new Entry(ArtifactSuggestion.WIZARD, String.valueOf(wizard.getId()), wizard.getName(), wizard.getNumberOfArtifacts()), false);
+            }
+        } catch (RuntimeException ex) {
+            rebuildFailed();
+            throw ex;
+        }
+        rebuilt.recomputeAll(); // Once for the whole trie instead of once per entry
+
+        this.lock.writeLock().lock();
+        try {
+            this.trie = rebuilt;
+            this.pendingWrites.forEach(Runnable::run);
+            this.pendingWrites = null;
+            this.popularKeys = Set.of();
+            this.ready = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.frontier.rebuilt();
+        LOGGER.info("Artifact suggest index rebuilt with {} names in {} ms", rebuilt.entries.size(), System.currentTimeMillis() - start);
+        refreshPopularity();
+    }
+
+    /**
+     * Reweights the artifacts by their fetch counts, and the wizards by their number of artifacts. Only the hottest
+     * artifacts carry a weight, so this touches a handful of entries plus one grouped count of the wizards.
+     */
+    @Scheduled(fixedDelayString = "${artifact.suggest.popularity-refresh-interval:60000}", initialDelayString = "${artifact.suggest.popularity-refresh-interval:60000}")
+    public void refreshPopularity() {
+        if (!this.ready) {
+            return;
+        }
+        Map<String, Long> artifactWeights = new HashMap<>();
+        this.hotArtifactTracker.hotArtifacts().forEach(hot -> artifactWeights.put(Entry.key(ArtifactSuggestion.ARTIFACT, String.valueOf(hot.id())), hot.count()));
+        List<WizardRepository.WizardCount> wizards = this.wizardRepository.findAllWithNumberOfArtifacts();
+        write(() -> {
+            this.popularKeys.stream()
+                    .filter(key -> !artifactWeights.containsKey(key))
+                    .forEach(key -> this.trie.reweight(key, 0)); // No longer hot
+            artifactWeights.forEach(this.trie::reweight);
+            this.popularKeys = artifactWeights.keySet();
+            wizards.forEach(wizard -> this.trie.reweight(Entry.key(ArtifactSuggestion.WIZARD, String.valueOf(wizard.getId())), wizard.getNumberOfArtifacts()));
+        });
+    }
+
+    private void rebuildFailed() {
+        this.lock.writeLock().lock();
+        try {
+            this.pendingWrites = null;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.frontier.rebuildFailed(); // Stalled, so the next resync tries again
+    }
+
+    /**
+     * Rebuilds the index on its maintenance thread if it has fallen behind the catalog version and not caught up since
+     * the previous run, or if its last rebuild failed.
+     */
+    @Scheduled(fixedDelayString = "${artifact.suggest.resync-interval:30000}", initialDelayString = "${artifact.suggest.resync-interval:30000}")
+    public void resync() {
+        if (this.enabled && this.frontier.isStalled(this.catalogVersion.current())) {
+            LOGGER.warn("Artifact suggest index missed a catalog change, rebuilding it");
+            this.maintenance.requestRebuild();
+        }
+    }
+
+    boolean awaitMaintenance() throws InterruptedException {
+        return this.maintenance.awaitIdle(5000);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.maintenance.shutdown();
+    }
+
+    /**
+     * Adds or renames an artifact, keeping its weight.
+     */
+    public void putArtifact(Long id, String name) {
+        put(ArtifactSuggestion.ARTIFACT, String.valueOf(id), name);
+    }
+
+    public void removeArtifact(Long id) {
+        write(() -> this.trie.remove(Entry.key(ArtifactSuggestion.ARTIFACT, String.valueOf(id))));
+    }
+
+    public void removeArtifacts(Collection<Long> ids) {
+        write(() -> ids.forEach(id -> this.trie.remove(Entry.key(ArtifactSuggestion.ARTIFACT, String.valueOf(id)))));
+    }
+
+    /**
+     * Adds or renames a wizard, keeping its weight.
+     */
+    public void putWizard(Integer id, String name) {
+        put(ArtifactSuggestion.WIZARD, String.valueOf(id), name);
+    }
+
+    public void removeWizard(Integer id) {
+        write(() -> this.trie.remove(Entry.key(ArtifactSuggestion.WIZARD, String.valueOf(id))));
+    }
+
+    /**
+     * Queues a change of any node for the maintenance thread, which merges it with the changes queued before it.
+     */
+    void onCatalogChange(CatalogVersion.Change change) {
+        if (this.enabled) {
+            this.maintenance.changed(change);
+        }
+    }
+
+    /**
+     * Applies changes by reading the changed names back: the rows that are gone were deleted, so they stop being
+     * suggested on every node. Wizards are reweighted by their fresh number of artifacts on the way. Only called on the
+     * maintenance thread, so a later read of a name is never overwritten by an earlier one.
+     */
+    private void applyChanges(Map<String, Set<Long>> changed) {
+        List<Long> artifactIds = new ArrayList<>(changed.getOrDefault(CatalogVersion.ARTIFACTS, Set.of()));
+        for (int from = 0; from < artifactIds.size(); from += ArtifactRepository.IN_LIST_CHUNK_SIZE) {
+            List<Long> chunk = artifactIds.subList(from, Math.min(from + ArtifactRepository.IN_LIST_CHUNK_SIZE, artifactIds.size()));
+            List<ArtifactRepository.ArtifactText> texts = this.artifactRepository.findTextsByIdIn(chunk);
+            Set<Long> deleted = new HashSet<>(chunk);
+            texts.forEach(text -> deleted.remove(text.getId()));
+            write(() -> {
+                texts.forEach(text -> putEntry(ArtifactSuggestion.ARTIFACT, String.valueOf(text.getId()), text.getName()));
+                deleted.forEach(id -> this.trie.remove(Entry.key(ArtifactSuggestion.ARTIFACT, String.valueOf(id))));
+            });
+        }
+        List<Integer> wizardIds = changed.getOrDefault(CatalogVersion.WIZARDS, Set.of()).stream().map(Long::intValue).toList();
+        if (!wizardIds.isEmpty()) {
+            List<WizardRepository.WizardCount> wizards = this.wizardRepository.findAllWithNumberOfArtifactsByIdIn(wizardIds);
+            Set<Integer> deleted = new HashSet<>(wizardIds);
+            wizards.forEach(wizard -> deleted.remove(wizard.getId()));
+            write(() -> {
+                wizards.forEach(wizard -> this.trie.put(new Entry(ArtifactSuggestion.WIZARD, String.valueOf(wizard.getId()), wizard.getName(), wizard.getNumberOfArtifacts()), true));
+                deleted.forEach(id -> this.trie.remove(Entry.key(ArtifactSuggestion.WIZARD, String.valueOf(id))));
+            });
+        }
+    }
+
+    /**
+     * Returns the most popular artifacts and wizards with a word of their name starting with the prefix, ignoring case
+     * and accents.
+     *
+     * @param limit at most this many suggestions are returned, capped at maxLimit()
+     * @return the suggestions, most popular first; empty for a blank prefix or before the index is ready
+     */
+    public List<ArtifactSuggestion> suggest(String prefix, int limit) {
+        String term = normalize(prefix);
+        if (!this.ready || term.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        this.lock.readLock().lock();
+        try {
+            return this.trie.top(term).stream()
+                    .limit(limit)
+                    .map(entry -> new ArtifactSuggestion(entry.type(), entry.id(), entry.name()))
+                    .toList();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void put(String type, String id, String name) {
+        write(() -> putEntry(type, id, name));
+    }
+
+    private void putEntry(String type, String id, String name) {
+        Entry existing = this.trie.entries.get(Entry.key(type, id));
+        this.trie.put(new Entry(type, id, name, existing != null ? existing.weight() : 0), true);
+    }
+
+    private void write(Runnable change) {
+        this.lock.writeLock().lock();
+        try {
+            change.run();
+            if (this.pendingWrites != null) {
+                this.pendingWrites.add(change);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String withoutMarks = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(withoutMarks.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * The terms a name is found by: the normalized name from each word on, cut to MAX_TERM_LENGTH.
+     */
+    static Set<String> terms(String name) {
+        String normalized = normalize(name);
+        Set<String> terms = new HashSet<>();
+        for (int start = 0; start < normalized.length(); start++) {
+            if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                terms.add(normalized.substring(start, Math.min(normalized.length(), start + MAX_TERM_LENGTH)));
+            }
+        }
+        return terms;
+    }
+
+    private record Entry(String type, String id, String name, long weight) {
+
+        private static final Comparator<Entry> RANK = Comparator.comparingLong(Entry::weight).reversed()
+                .thenComparingInt(entry -> entry.name() == null ? 0 : entry.name().length())
+                .thenComparing(entry -> entry.name() == null ? "" : entry.name())
+                .thenComparing(entry -> entry.key());
+
+        String key() {
+            return key(this.type, this.id);
+        }
+
+        static String key(String type, String id) {
+            return type + ":" + id;
+        }
+    }
+
+    /**
+     * The trie. Children are kept in a sorted char array next to an array of nodes, which is smaller than a map per node;
+     * nodes left without entries or children are pruned.
+     */
+    private static class Trie {
+
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private final int topK;
+
+        private final Node root = new Node();
+
+        private final Map<String, Entry> entries = new HashMap<>();
+
+        Trie(int topK) {
+            this.topK = topK;
+        }
+
+        void put(Entry entry, boolean recompute) {
+            Entry previous = this.entries.put(entry.key(), entry);
+            if (previous != null) {
+                unlink(previous);
+            }
+            for (String term : terms(entry.name())) {
+                List<Node> path = path(term, true);
+                Node last = path.get(path.size() - 1);
+                last.terminals = Arrays.copyOf(last.terminals, last.terminals.length + 1);
+                last.terminals[last.terminals.length - 1] = entry;
+                if (recompute) {
+                    recompute(path);
+                }
+            }
+        }
+
+        void remove(String key) {
+            Entry previous = this.entries.remove(key);
+            if (previous != null) {
+                unlink(previous);
+            }
+        }
+
+        void reweight(String key, long weight) {
+            Entry entry = this.entries.get(key);
+            if (entry != null && entry.weight() != weight) {
+                put(new Entry(entry.type(), entry.id(), entry.name(), weight), true);
+            }
+        }
+
+        List<Entry> top(String term) {
+            String walked = term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term;
+            Node node = this.root;
+            for (int i = 0; i < walked.length() && node != null; i++) {
+                node = node.child(walked.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            if (walked.length() == term.length()) {
+                return Arrays.asList(node.top);
+            }
+            // Beyond the trie's depth, so the few names below this node are checked against the whole prefix
+            List<Entry> matches = new ArrayList<>();
+            collect(node, matches);
+            return matches.stream()
+                    .distinct()
+                    .filter(entry -> (" " + normalize(entry.name())).contains(" " + term))
+                    .sorted(Entry.RANK)
+                    .limit(this.topK)
+                    .toList();
+        }
+
+        /**
+         * Recomputes the top-K list of every node, children first. Used after a bulk load.
+         */
+        void recomputeAll() {
+            recomputeSubtree(this.root);
+        }
+
+        private void recomputeSubtree(Node node) {
+            for (Node child : node.children) {
+                recomputeSubtree(child);
+            }
+            node.top = merge(node);
+        }
+
+        private void unlink(Entry entry) {
+            for (String term : terms(entry.name())) {
+                List<Node> path = path(term, false);
+                if (path == null) {
+                    continue;
+                }
+                Node last = path.get(path.size() - 1);
+                last.terminals = Arrays.stream(last.terminals).filter(terminal -> !terminal.key().equals(entry.key())).toArray(Entry[]::new);
+                recompute(path);
+            }
+        }
+
+        /**
+         * @return the nodes from the root to the term's node, or null if it does not exist and create is false
+         */
+        private List<Node> path(String term, boolean create) {
+            List<Node> path = new ArrayList<>(term.length() + 1);
+            Node node = this.root;
+            path.add(node);
+            for (int i = 0; i < term.length(); i++) {
+                Node child = node.child(term.charAt(i));
+                if (child == null) {
+                    if (!create) {
+                        return null;
+                    }
+                    child = node.addChild(term.charAt(i));
+                }
+                node = child;
+                path.add(node);
+            }
+            return path;
+        }
+
+        /**
+         * Recomputes the top-K lists along a path from the bottom up, since each depends on those of its children, and
+         * prunes the nodes that have become empty.
+         */
+        private void recompute(List<Node> path) {
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                node.top = merge(node);
+                if (i > 0 && node.top.length == 0) {
+                    path.get(i - 1).removeChild(node);
+                }
+            }
+        }
+
+        private Entry[] merge(Node node) {
+            Map<String, Entry> candidates = new LinkedHashMap<>();
+            for (Entry terminal : node.terminals) {
+                candidates.put(terminal.key(), terminal);
+            }
+            for (Node child : node.children) {
+                for (Entry entry : child.top) {
+                    candidates.put(entry.key(), entry); // A name with a repeated word reaches a node twice
+                }
+            }
+            if (candidates.isEmpty()) {
+                return NO_ENTRIES;
+            }
+            return candidates.values().stream().sorted(Entry.RANK).limit(this.topK).toArray(Entry[]::new);
+        }
+
+        private static void collect(Node node, List<Entry> matches) {
+            matches.addAll(Arrays.asList(node.terminals));
+            for (Node child : node.children) {
+                collect(child, matches);
+            }
+        }
+    }
+
+    private static class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] labels = NO_LABELS;
+
+        private Node[] children = NO_CHILDREN;
+
+        private Entry[] terminals = Trie.NO_ENTRIES; // The entries with a term ending here
+
+        private Entry[] top = Trie.NO_ENTRIES;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(this.labels, label);
+            return index >= 0 ? this.children[index] : null;
+        }
+
+        Node addChild(char label) {
+            int index = -(Arrays.binarySearch(this.labels, label) + 1);
+            char[] labels = new char[this.labels.length + 1];
+            Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.labels, 0, labels, 0, index);
+            System.arraycopy(this.children, 0, children, 0, index);
+            labels[index] = label;
+            children[index] = new Node();
+            System.arraycopy(this.labels, index, labels, index + 1, this.labels.length - index);
+            System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+            this.labels = labels;
+            this.children = children;
+            return children[index];
+        }
+
+        void removeChild(Node child) {
+            for (int index = 0; index < this.children.length; index++) {
+                if (this.children[index] == child) {
+                    char[] labels = new char[this.labels.length - 1];
+                    Node[] children = new Node[this.children.length - 1];
+                    System.arraycopy(this.labels, 0, labels, 0, index);
+                    System.arraycopy(this.children, 0, children, 0, index);
+                    System.arraycopy(this.labels, index + 1, labels, index, labels.length - index);
+                    System.arraycopy(this.children, index + 1, children, index, children.length - index);
+                    this.labels = labels;
+                    this.children = children;
+                    return;
+                }
+            }
+        }
+    }
+}
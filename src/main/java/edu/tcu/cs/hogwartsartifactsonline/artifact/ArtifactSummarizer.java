@@ -0,0 +1,244 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Summarizes catalogs of any size with map-reduce. A catalog whose JSON fits the token budget is summarized in one call,
+ * exactly as ArtifactService.summarize does. A larger one is partitioned into chunks that each fit the budget, keeping
+ * an owner's artifacts together where they fit; the chunks are summarized in parallel (map), and the partial summaries
+ * are combined into one (reduce), in rounds if they do not fit the budget together either. Latency then grows with the
+ * number of chunks divided by the parallelism instead of with the size of the catalog.
+ * <p>
+ * Tokens are estimated as four characters of JSON each, which is close enough for English text to budget with. The
+ * wall time of each stage is recorded in artifact.summary.stage, and the number of chunks in artifact.summary.chunks.
+ */
+@Component
+public class ArtifactSummarizer {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int CHARACTERS_PER_TOKEN = 4;
+
+    private final ArtifactService artifactService;
+
+    private final int tokenBudget;
+
+    private final ExecutorService executor;
+
+    private final Timer partitionTimer;
+
+    private final Timer mapTimer;
+
+    private final Timer reduceTimer;
+
+    private final DistributionSummary chunkCount;
+
+    public ArtifactSummarizer(ArtifactService artifactService,
+                              MeterRegistry meterRegistry,
+                              @Value("${artifact.summary.chunk-token-budget:3000}") int tokenBudget,
+                              @Value("${artifact.summary.parallelism:4}") int parallelism) {
+        this.artifactService = artifactService;
+        this.tokenBudget = tokenBudget;
+        // Java 17 has no virtual threads; the calls mostly wait on the model, so a small pool of platform threads bounds the concurrency just as well
+        this.executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("artifact-summarizer-"));
+        this.partitionTimer = stageTimer(meterRegistry, "partition");
+        this.mapTimer = stageTimer(meterRegistry, "map");
+        this.reduceTimer = stageTimer(meterRegistry, "reduce");
+        this.chunkCount = DistributionSummary.builder("artifact.summary.chunks")
+                .description("Number of chunks a catalog was summarized in")
+                .register(meterRegistry);
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("artifact.summary.stage")
+                .tag("stage", stage)
+                .description("Wall time of a stage of summarizing the artifact catalog")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param artifactDtos a list of artifact dtos to be summarized
+     * @return a summary of the artifacts
+     * @throws JsonProcessingException
+     */
+    public String summarize(List<ArtifactDto> artifactDtos) throws JsonProcessingException {
+        List<List<ArtifactDto>> chunks = timedPartition(artifactDtos);
+        if (chunks.size() <= 1) {
+            return this.artifactService.summarize(artifactDtos);
+        }
+        List<String> partialSummaries = reduceToBudget(map(chunks));
+        return this.reduceTimer.record(() -> this.artifactService.combineSummaries(partialSummaries));
+    }
+
+    /**
+     * Like summarize, but passes the summary to onDelta piece by piece as the model generates it. Only the last call is
+     * streamed, that is the only one for a catalog that fits the budget, or the final reduce.
+     */
+    public void summarizeStreaming(List<ArtifactDto> artifactDtos, Consumer<String> onDelta) throws JsonProcessingException {
+        List<List<ArtifactDto>> chunks = timedPartition(artifactDtos);
+        if (chunks.size() <= 1) {
+            this.artifactService.summarizeStreaming(artifactDtos, onDelta);
+            return;
+        }
+        List<String> partialSummaries = reduceToBudget(map(chunks));
+        this.reduceTimer.record(() -> this.artifactService.combineSummariesStreaming(partialSummaries, onDelta));
+    }
+
+    private List<List<ArtifactDto>> timedPartition(List<ArtifactDto> artifactDtos) throws JsonProcessingException {
+        Timer.Sample sample = Timer.start();
+        try {
+            List<List<ArtifactDto>> chunks = partition(artifactDtos);
+            this.chunkCount.record(chunks.size());
+            return chunks;
+        } finally {
+            sample.stop(this.partitionTimer);
+        }
+    }
+
+    /**
+     * Splits the artifacts into chunks whose JSON fits the token budget. An owner's artifacts go into the same chunk,
+     * unless they do not fit one on their own; unowned artifacts come last.
+     */
+    List<List<ArtifactDto>> partition(List<ArtifactDto> artifactDtos) throws JsonProcessingException {
+        Map<Integer, List<ArtifactDto>> byOwner = new LinkedHashMap<>();
+        artifactDtos.stream()
+                .sorted(Comparator.comparing((ArtifactDto artifactDto) -> ownerId(artifactDto), Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(artifactDto -> byOwner.computeIfAbsent(ownerId(artifactDto), ownerId -> new ArrayList<>()).add(artifactDto));
+
+        List<List<ArtifactDto>> chunks = new ArrayList<>();
+        List<ArtifactDto> chunk = new ArrayList<>();
+        int chunkTokens = 0;
+        for (List<ArtifactDto> owned : byOwner.values()) {
+            int[] tokens = new int[owned.size()];
+            int ownedTokens = 0;
+            for (int i = 0; i < owned.size(); i++) {
+                tokens[i] = estimateTokens(OBJECT_MAPPER.writeValueAsString(owned.get(i)));
+                ownedTokens += tokens[i];
+            }
+            if (!chunk.isEmpty() && chunkTokens + ownedTokens > this.tokenBudget) { // Starts the owner on a new chunk rather than split it
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkTokens = 0;
+            }
+            for (int i = 0; i < owned.size(); i++) {
+                if (!chunk.isEmpty() && chunkTokens + tokens[i] > this.tokenBudget) {
+                    chunks.add(chunk);
+                    chunk = new ArrayList<>();
+                    chunkTokens = 0;
+                }
+                chunk.add(owned.get(i));
+                chunkTokens += tokens[i];
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static Integer ownerId(ArtifactDto artifactDto) {
+        return artifactDto.owner() == null ? null : artifactDto.owner().id();
+    }
+
+    private List<String> map(List<List<ArtifactDto>> chunks) throws JsonProcessingException {
+        Timer.Sample sample = Timer.start();
+        try {
+            return inParallel(chunks, chunk -> {
+                try {
+                    return this.artifactService.summarize(chunk);
+                } catch (JsonProcessingException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } finally {
+            sample.stop(this.mapTimer);
+        }
+    }
+
+    /**
+     * Combines partial summaries in parallel batches until they fit the budget together, so the final reduce does too.
+     */
+    private List<String> reduceToBudget(List<String> partialSummaries) throws JsonProcessingException {
+        while (partialSummaries.size() > 1 && estimateTokens(partialSummaries) > this.tokenBudget) {
+            List<List<String>> batches = new ArrayList<>();
+            List<String> batch = new ArrayList<>();
+            int batchTokens = 0;
+            for (String partialSummary : partialSummaries) {
+                int tokens = estimateTokens(partialSummary);
+                if (batch.size() > 1 && batchTokens + tokens > this.tokenBudget) { // At least two per batch, so every round shrinks the list
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                    batchTokens = 0;
+                }
+                batch.add(partialSummary);
+                batchTokens += tokens;
+            }
+            batches.add(batch);
+            Timer.Sample sample = Timer.start();
+            try {
+                partialSummaries = inParallel(batches, this.artifactService::combineSummaries);
+            } finally {
+                sample.stop(this.reduceTimer);
+            }
+        }
+        return partialSummaries;
+    }
+
+    /**
+     * Applies the function to every input on the pool and waits for all the results. If one fails, the others are
+     * cancelled and its exception is thrown.
+     */
+    private <T> List<String> inParallel(List<T> inputs, Function<T, String> function) throws JsonProcessingException {
+        List<CompletableFuture<String>> futures = inputs.stream()
+                .map(input -> CompletableFuture.supplyAsync(() -> function.apply(input), this.executor))
+                .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof UncheckedIOException cause && cause.getCause() instanceof JsonProcessingException jsonProcessingException) {
+                throw jsonProcessingException;
+            }
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause; // Such as an HttpClientErrorException from the model
+            }
+            throw ex;
+        }
+    }
+
+    private static int estimateTokens(String text) {
+        return (text.length() + CHARACTERS_PER_TOKEN - 1) / CHARACTERS_PER_TOKEN;
+    }
+
+    private static int estimateTokens(List<String> texts) {
+        return texts.stream().filter(Objects::nonNull).mapToInt(ArtifactSummarizer::estimateTokens).sum();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+}
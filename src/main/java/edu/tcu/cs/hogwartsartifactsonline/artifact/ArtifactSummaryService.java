@@ -0,0 +1,446 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Serves the AI summary of the artifact catalog without asking the model on every request.
+ * <p>
+ * A summary is generated from the catalog as of a CatalogVersion and cached under that version in the artifactSummary
+ * cache, whose Redis tier lets all nodes share it. Writes bump the version instead of evicting anything.
+ * <ul>
+ *     <li>Callers asking for the same version while it is being generated share that one generation.</li>
+ *     <li>With stale-while-revalidate, a caller that finds the catalog changed gets the previous summary at once while the
+ *     new one is generated in the background; only the very first caller has to wait.</li>
+ *     <li>With precompute, a scheduler regenerates the summary once the catalog has stopped changing for the debounce
+ *     period, or after max-delay under a steady stream of writes, so callers rarely see a stale one. It only keeps
+ *     warm what has been asked for; nothing is generated before the first request.</li>
+ * </ul>
+ * The summary can also be streamed as Server-Sent Events: a "delta" event for each piece of text as the model generates it,
+ * then a "done" event, or an "error" event if the model fails midway. A summary already generated for the current
+ * version is sent as a single delta. Clients streaming the same version share one generation of it.
+ */
+@Service
+public class ArtifactSummaryService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactSummaryService.class.getName());
+
+    private final ArtifactSummarizer artifactSummarizer;
+
+    private final ArtifactDtoRepository artifactDtoRepository;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CacheManager cacheManager;
+
+    private final boolean staleWhileRevalidate;
+
+    private final boolean precompute;
+
+    private final long debounceNanos;
+
+    private final long maxDelayNanos;
+
+    private final long streamTimeoutMillis;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("artifact-summary-"));
+
+    private final ExecutorService streamExecutor; // Generates streamed summaries, so no request thread waits on the model
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong generations = new AtomicLong();
+
+    private volatile Summary latest;
+
+    private String changedVersion; // The version the scheduler saw the catalog move to, and when; only touched by the scheduler
+
+    private long firstChangedAt;
+
+    private long lastChangedAt;
+
+    record Summary(String version, String text, long generation) {
+    }
+
+    public ArtifactSummaryService(ArtifactSummarizer artifactSummarizer,
+                                  ArtifactDtoRepository artifactDtoRepository,
+                                  CatalogVersion catalogVersion,
+                                  CacheManager cacheManager,
+                                  @Value("${artifact.summary.stale-while-revalidate:true}") boolean staleWhileRevalidate,
+                                  @Value("${artifact.summary.precompute.enabled:true}") boolean precompute,
+                                  @Value("${artifact.summary.precompute.debounce:30s}") Duration debounce,
+                                  @Value("${artifact.summary.precompute.max-delay:5m}") Duration maxDelay,
+                                  @Value("${artifact.summary.stream.max-concurrent:8}") int maxConcurrentStreams,
+                                  @Value("${artifact.summary.stream.timeout:2m}") Duration streamTimeout) {
+        this.artifactSummarizer = artifactSummarizer;
+        this.artifactDtoRepository = artifactDtoRepository;
+        this.catalogVersion = catalogVersion;
+        this.cacheManager = cacheManager;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.precompute = precompute;
+        this.debounceNanos = debounce.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+        this.streamExecutor = new ThreadPoolExecutor(1, maxConcurrentStreams, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("artifact-summary-stream-"));
+    }
+
+    /**
+     * @return the summary of the current catalog, or with stale-while-revalidate possibly of an earlier one while the
+     * current one is being generated
+     */
+    public String getSummary() {
+        String version = this.catalogVersion.current();
+        Summary summary = this.latest;
+        if (summary != null && summary.version().equals(version)) {
+            return summary.text();
+        }
+        CompletableFuture<String> generation = refresh(version);
+        if (summary != null && this.staleWhileRevalidate) {
+            return summary.text();
+        }
+        try {
+            return generation.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause; // Such as an HttpClientErrorException from the model
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Streams the summary of the current catalog. The model is asked on a stream thread and this returns at once, so the
+     * request thread is released while the summary is generated.
+     * <p>
+     * Callers streaming the same version share one generation: a caller joining midway gets the text generated so far
+     * as a single delta, then the rest as it comes. The generation is in flight like any other, so getSummary() waits
+     * for it instead of asking the model again, and it runs to the end even if every client leaves, since its summary
+     * is kept for the next caller.
+     *
+     * @return an emitter that relays the summary as it is generated
+     * @throws TooManyRequestsException if the maximum number of summaries are being generated for streaming already
+     */
+    public SseEmitter streamSummary() {
+        SseEmitter emitter = new SseEmitter(this.streamTimeoutMillis);
+        streamSummary(emitter);
+        return emitter;
+    }
+
+    void streamSummary(SseEmitter emitter) {
+        String version = this.catalogVersion.current();
+        Summary summary = this.latest;
+        if (summary != null && summary.version().equals(version)) {
+            send(emitter, version, summary.text());
+            return;
+        }
+        CompletableFuture<String> existing = this.inFlight.get(version);
+        if (existing == null) {
+            SharedStream created = new SharedStream(version);
+            existing = this.inFlight.putIfAbsent(version, created);
+            if (existing == null) {
+                start(created);
+                existing = created;
+            }
+        }
+        if (existing instanceof SharedStream stream) {
+            stream.attach(emitter);
+        } else {
+            // Being generated without streaming, by getSummary() or the scheduler: sent whole once done
+            existing.whenComplete((text, ex) -> {
+                if (ex == null) {
+                    send(emitter, version, text);
+                } else {
+                    sendError(emitter, ex);
+                }
+            });
+        }
+    }
+
+    private void start(SharedStream stream) {
+        try {
+            this.streamExecutor.execute(() -> stream(stream));
+        } catch (RejectedExecutionException ex) {
+            TooManyRequestsException tooMany = new TooManyRequestsException("Too many summaries are being streamed, please try again later.");
+            this.inFlight.remove(stream.version, stream);
+            stream.fail(tooMany); // Callers that joined it in the meantime
+            throw tooMany;
+        }
+    }
+
+    private void stream(SharedStream stream) {
+        String version = stream.version;
+        long generation = this.generations.incrementAndGet();
+        Cache cache = this.cacheManager.getCache("artifactSummary");
+        try {
+            String text = cache == null ? null : cache.get(version, String.class); // Another node may have generated it already
+            if (text == null) {
+                this.artifactSummarizer.summarizeStreaming(findArtifactDtos(), stream::delta);
+                text = stream.text();
+                if (cache != null) {
+                    cache.put(version, text);
+                }
+            }
+            publish(new Summary(version, text, generation));
+            stream.finish(text);
+        } catch (Throwable ex) {
+            LOGGER.warn("Could not stream the summary of catalog version {}: {}", version, ex.toString());
+            stream.fail(ex);
+        } finally {
+            this.inFlight.remove(version, stream);
+        }
+    }
+
+    /**
+     * A summary being generated for streaming, relayed to every emitter attached to it. Completes with the summary, so
+     * callers that do not stream can wait for it like for any other generation.
+     */
+    private static class SharedStream extends CompletableFuture<String> {
+
+        final String version;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private final List<SseEmitter> emitters = new ArrayList<>();
+
+        private boolean finished;
+
+        private Throwable failure;
+
+        SharedStream(String version) {
+            this.version = version;
+        }
+
+        synchronized void attach(SseEmitter emitter) {
+            if (this.failure != null) {
+                sendError(emitter, this.failure);
+                return;
+            }
+            try {
+                if (!this.text.isEmpty()) {
+                    sendDelta(emitter, this.text.toString()); // What the others have had so far
+                }
+                if (this.finished) {
+                    sendDone(emitter, this.version);
+                } else {
+                    this.emitters.add(emitter);
+                }
+            } catch (ClientGoneException ex) {
+                LOGGER.debug("Client left before the summary of catalog version {} was sent", this.version);
+            }
+        }
+
+        synchronized void delta(String delta) {
+            this.text.append(delta);
+            relay(emitter -> sendDelta(emitter, delta));
+        }
+
+        synchronized String text() {
+            return this.text.toString();
+        }
+
+        synchronized void finish(String summary) {
+            if (this.text.isEmpty() && !summary.isEmpty()) {
+                delta(summary); // Found in the cache, so nothing was streamed yet
+            }
+            this.finished = true;
+            relay(emitter -> sendDone(emitter, this.version));
+            this.emitters.clear();
+            complete(summary);
+        }
+
+        synchronized void fail(Throwable ex) {
+            this.failure = ex;
+            this.emitters.forEach(emitter -> sendError(emitter, ex));
+            this.emitters.clear();
+            completeExceptionally(ex);
+        }
+
+        private void relay(Consumer<SseEmitter> event) {
+            this.emitters.removeIf(emitter -> {
+                try {
+                    event.accept(emitter);
+                    return false;
+                } catch (ClientGoneException ex) {
+                    LOGGER.debug("Client left while catalog version {} was being summarized", this.version);
+                    return true;
+                }
+            });
+        }
+    }
+
+    private static void send(SseEmitter emitter, String version, String text) {
+        try {
+            sendDelta(emitter, text);
+            sendDone(emitter, version);
+        } catch (ClientGoneException ex) {
+            LOGGER.debug("Client left before the summary of catalog version {} was sent", version);
+        }
+    }
+
+    /**
+     * Sends a piece of text as JSON, since text of its own could hold line breaks, which would end the event early.
+     */
+    private static void sendDelta(SseEmitter emitter, String delta) {
+        try {
+            emitter.send(SseEmitter.event().name("delta").data(Map.of("content", delta), MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException ex) {
+            throw new ClientGoneException(ex);
+        }
+    }
+
+    private static void sendDone(SseEmitter emitter, String version) {
+        try {
+            emitter.send(SseEmitter.event().name("done").data(Map.of("version", version), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException ex) {
+            throw new ClientGoneException(ex);
+        }
+    }
+
+    private static void sendError(SseEmitter emitter, Throwable ex) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("message", String.valueOf(ex.getMessage())), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException sendFailed) {
+            emitter.completeWithError(ex);
+        }
+    }
+
+    private static class ClientGoneException extends RuntimeException {
+
+        ClientGoneException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Regenerates the summary once the catalog has settled, if a summary has been asked for before.
+     */
+    @Scheduled(fixedDelayString = "${artifact.summary.precompute.check-interval:5000}")
+    public void refreshIfChanged() {
+        Summary summary = this.latest;
+        if (!this.precompute || summary == null) {
+            return;
+        }
+        String version = this.catalogVersion.current();
+        long now = System.nanoTime();
+        if (version.equals(summary.version())) {
+            this.changedVersion = null;
+            return;
+        }
+        if (this.changedVersion == null) {
+            this.firstChangedAt = now;
+        }
+        if (!version.equals(this.changedVersion)) {
+            this.changedVersion = version;
+            this.lastChangedAt = now;
+        }
+        if (now - this.lastChangedAt >= this.debounceNanos || now - this.firstChangedAt >= this.maxDelayNanos) {
+            refresh(version);
+        }
+    }
+
+    /**
+     * Starts generating the summary of the given version, unless that is already under way.
+     */
+    CompletableFuture<String> refresh(String version) {
+        CompletableFuture<String> existing = this.inFlight.get(version);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<String> created = new CompletableFuture<>();
+        existing = this.inFlight.putIfAbsent(version, created);
+        if (existing != null) {
+            return existing;
+        }
+        long generation = this.generations.incrementAndGet();
+        this.executor.execute(() -> {
+            try {
+                String text = load(version);
+                publish(new Summary(version, text, generation));
+                created.complete(text);
+            } catch (Throwable ex) {
+                LOGGER.warn("Could not summarize catalog version {}: {}", version, ex.toString());
+                created.completeExceptionally(ex);
+            } finally {
+                this.inFlight.remove(version, created);
+            }
+        });
+        return created;
+    }
+
+    private String load(String version) {
+        Cache cache = this.cacheManager.getCache("artifactSummary");
+        if (cache == null) {
+            return generate();
+        }
+        try {
+            return cache.get(version, this::generate); // Another node may have generated it already
+        } catch (Cache.ValueRetrievalException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    private String generate() {
+        try {
+            return this.artifactSummarizer.summarize(findArtifactDtos());
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private List<ArtifactDto> findArtifactDtos() {
+        // DTO projections: two queries for the whole catalog, instead of loading every artifact and its owner's artifacts
+        return this.artifactDtoRepository.findAll(Specification.where(null), Sort.by("id"), Limit.unlimited());
+    }
+
+    /**
+     * Makes a summary the latest one, unless a generation started after it has already finished.
+     */
+    private synchronized void publish(Summary summary) {
+        if (this.latest == null || this.latest.generation() < summary.generation()) {
+            this.latest = summary;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdownNow();
+        this.streamExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,440 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogFrontier;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.IndexMaintenance;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory trigram inverted index over Artifact.name and Artifact.description.
+ * <p>
+ * A "contains" search compiles to lower(col) LIKE '%x%' in SQL, which no B-tree index can serve. This index maps every
+ * 3-character gram of the lower-cased text to a sorted posting list of document ordinals (plain int arrays), so a term
+ * is resolved by intersecting the posting lists of its grams and verifying the few remaining candidates.
+ * <p>
+ * The index is rebuilt from the database once the application is ready and is kept up to date by the CatalogVersion
+ * changes of every node: the changed artifacts are read back from the database and put or removed. Until the first
+ * rebuild finishes, search() returns null and callers fall back to the LIKE predicates. Since changes arrive a little
+ * after their commit, callers should also check isCurrentAt(version) before trusting a search; an index that stops
+ * catching up, because a change message was lost, is rebuilt by resync(). Changes and resync rebuilds run on a
+ * maintenance thread of the index's own, where changes queued together are read back together.
+ */
+@Component
+public class ArtifactTextIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactTextIndex.class.getName());
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private final ArtifactRepository artifactRepository;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CatalogFrontier frontier = new CatalogFrontier();
+
+    private final IndexMaintenance maintenance = new IndexMaintenance("artifact-text-index", this.frontier, this::rebuild, this::applyChanges);
+
+    private final boolean enabled;
+
+    private final int maxInListSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment = new Segment();
+
+    private volatile boolean ready = false;
+
+    private List<Runnable> pendingWrites; // Writes that arrive while a rebuild is reading the database, replayed onto the rebuilt segment
+
+    public ArtifactTextIndex(ArtifactRepository artifactRepository,
+                             CatalogVersion catalogVersion,
+                             @Value("${artifact.search.index.enabled:true}") boolean enabled,
+                             @Value("${artifact.search.index.max-in-list-size:1000}") int maxInListSize) {
+        this.artifactRepository = artifactRepository;
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+        this.maxInListSize = maxInListSize;
+        catalogVersion.addListener(this::onCatalogChange);
+    }
+
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /**
+     * @return whether the index holds the changes of every node up to the given CatalogVersion, so that its search
+     * results are as fresh as a LIKE query at that version would be
+     */
+    public boolean isCurrentAt(String version) {
+        return this.ready && this.frontier.isCurrentAt(version);
+    }
+
+    /**
+     * The largest candidate set callers should pass to the database as an id IN (...) list.
+     */
+    public int maxInListSize() {
+        return this.maxInListSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!this.enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        this.lock.writeLock().lock();
+        try {
+            this.pendingWrites = new ArrayList<>();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.frontier.rebuilding(this.catalogVersion.current()); // Read before the rows, so the rows are at least as new
+
+        Segment rebuilt = new Segment();
+        try {
+            long afterId = Long.MIN_VALUE;
+            List<ArtifactRepository.ArtifactText> batch;
+            do {
+                batch = this.artifactRepository.findTextsAfter(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (ArtifactRepository.ArtifactText text : batch) {
+                    rebuilt.put(text.getId(), text.getName(), text.getDescription());
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } catch (RuntimeException ex) {
+            rebuildFailed();
+            throw ex;
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            this.segment = rebuilt;
+            this.pendingWrites.forEach(Runnable::run);
+            this.pendingWrites = null;
+            this.ready = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.frontier.rebuilt();
+        LOGGER.info("Artifact text index rebuilt with {} artifacts in {} ms", rebuilt.liveCount, System.currentTimeMillis() - start);
+    }
+
+    private void rebuildFailed() {
+        this.lock.writeLock().lock();
+        try {
+            this.pendingWrites = null;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.frontier.rebuildFailed(); // Stalled, so the next resync tries again
+    }
+
+    /**
+     * Rebuilds the index on its maintenance thread if it has fallen behind the catalog version and not caught up since
+     * the previous run, or if its last rebuild failed.
+     */
+    @Scheduled(fixedDelayString = "${artifact.search.index.resync-interval:30000}", initialDelayString = "${artifact.search.index.resync-interval:30000}")
+    public void resync() {
+        if (this.enabled && this.frontier.isStalled(this.catalogVersion.current())) {
+            LOGGER.warn("Artifact text index missed a catalog change, rebuilding it");
+            this.maintenance.requestRebuild();
+        }
+    }
+
+    boolean awaitMaintenance() throws InterruptedException {
+        return this.maintenance.awaitIdle(5000);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.maintenance.shutdown();
+    }
+
+    /**
+     * Adds or replaces the indexed text of an artifact.
+     */
+    public void put(Long id, String name, String description) {
+        write(() -> this.segment.put(id, name, description));
+    }
+
+    /**
+     * Removes an artifact from the index.
+     */
+    public void remove(Long id) {
+        write(() -> this.segment.remove(id));
+    }
+
+    /**
+     * Removes many artifacts from the index under one write, ignoring ids it does not contain.
+     */
+    public void removeAll(Collection<Long> ids) {
+        write(() -> ids.forEach(this.segment::remove));
+    }
+
+    /**
+     * Queues a change of any node for the maintenance thread, which merges it with the changes queued before it.
+     */
+    void onCatalogChange(CatalogVersion.Change change) {
+        if (this.enabled) {
+            this.maintenance.changed(change);
+        }
+    }
+
+    /**
+     * Applies changes by reading the changed artifacts back: the rows that are gone were deleted. Only called on the
+     * maintenance thread, so a later read of a row is never overwritten by an earlier one.
+     */
+    private void applyChanges(Map<String, Set<Long>> changed) {
+        List<Long> ids = new ArrayList<>(changed.getOrDefault(CatalogVersion.ARTIFACTS, Set.of()));
+        for (int from = 0; from < ids.size(); from += ArtifactRepository.IN_LIST_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ArtifactRepository.IN_LIST_CHUNK_SIZE, ids.size()));
+            List<ArtifactRepository.ArtifactText> texts = this.artifactRepository.findTextsByIdIn(chunk);
+            Set<Long> deleted = new HashSet<>(chunk);
+            texts.forEach(text -> deleted.remove(text.getId()));
+            write(() -> {
+                texts.forEach(text -> this.segment.put(text.getId(), text.getName(), text.getDescription()));
+                deleted.forEach(this.segment::remove);
+            });
+        }
+    }
+
+    /**
+     * Finds the artifacts whose name contains nameTerm and whose description contains descriptionTerm, ignoring case.
+     * A null or empty term matches everything.
+     *
+     * @return the ids of the matching artifacts in ascending order, or null if the index is not ready
+     */
+    public List<Long> search(String nameTerm, String descriptionTerm) {
+        if (!this.ready) {
+            return null;
+        }
+        this.lock.readLock().lock();
+        try {
+            return this.segment.search(normalize(nameTerm), normalize(descriptionTerm));
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable change) {
+        this.lock.writeLock().lock();
+        try {
+            change.run();
+            if (this.pendingWrites != null) {
+                this.pendingWrites.add(change);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The index data. Ordinals are handed out in increasing order and never reused, so appending an ordinal keeps every
+     * posting list sorted. A changed artifact gets a new ordinal and its old one is tombstoned; once tombstones outnumber
+     * live documents the segment compacts itself.
+     */
+    private static class Segment {
+
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+
+        private final Map<Long, PostingList> nameGrams = new HashMap<>();
+
+        private final Map<Long, PostingList> descriptionGrams = new HashMap<>();
+
+        private final BitSet live = new BitSet();
+
+        private long[] ids = new long[1024];
+
+        private String[] names = new String[1024];
+
+        private String[] descriptions = new String[1024];
+
+        private int nextOrdinal = 0;
+
+        private int liveCount = 0;
+
+        void put(long id, String name, String description) {
+            remove(id);
+            int ordinal = this.nextOrdinal++;
+            if (ordinal == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, ordinal * 2);
+                this.names = Arrays.copyOf(this.names, ordinal * 2);
+                this.descriptions = Arrays.copyOf(this.descriptions, ordinal * 2);
+            }
+            this.ids[ordinal] = id;
+            this.names[ordinal] = normalize(name);
+            this.descriptions[ordinal] = normalize(description);
+            addGrams(this.nameGrams, this.names[ordinal], ordinal);
+            addGrams(this.descriptionGrams, this.descriptions[ordinal], ordinal);
+            this.ordinals.put(id, ordinal);
+            this.live.set(ordinal);
+            this.liveCount++;
+        }
+
+        void remove(long id) {
+            Integer ordinal = this.ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            this.live.clear(ordinal);
+            this.names[ordinal] = null;
+            this.descriptions[ordinal] = null;
+            this.liveCount--;
+            int dead = this.nextOrdinal - this.liveCount;
+            if (dead > 10_000 && dead > this.liveCount) {
+                compact();
+            }
+        }
+
+        List<Long> search(String nameTerm, String descriptionTerm) {
+            PostingList candidates = PostingList.intersect(
+                    candidates(this.nameGrams, nameTerm),
+                    candidates(this.descriptionGrams, descriptionTerm));
+            List<Long> matches = new ArrayList<>();
+            for (int i = 0; i < (candidates == null ? this.nextOrdinal : candidates.size); i++) {
+                int ordinal = candidates == null ? i : candidates.docs[i];
+                // Grams only narrow the candidates down, the text itself decides.
+                if (this.live.get(ordinal)
+                        && this.names[ordinal].contains(nameTerm)
+                        && this.descriptions[ordinal].contains(descriptionTerm)) {
+                    matches.add(this.ids[ordinal]);
+                }
+            }
+            matches.sort(null);
+            return matches;
+        }
+
+        /**
+         * Returns the documents that contain every gram of the term, or null if the term is too short to have a gram.
+         */
+        private static PostingList candidates(Map<Long, PostingList> grams, String term) {
+            if (term.length() < GRAM_LENGTH) {
+                return null;
+            }
+            List<PostingList> postingLists = new ArrayList<>();
+            for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+                PostingList postings = grams.get(gram(term, i));
+                if (postings == null) {
+                    return PostingList.EMPTY;
+                }
+                postingLists.add(postings);
+            }
+            postingLists.sort(Comparator.comparingInt(postings -> postings.size)); // Rarest gram first keeps the intermediate results small
+            PostingList result = null;
+            for (PostingList postings : postingLists) {
+                result = PostingList.intersect(result, postings);
+            }
+            return result;
+        }
+
+        private static void addGrams(Map<Long, PostingList> grams, String text, int ordinal) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                long gram = gram(text, i);
+                if (seen.add(gram)) {
+                    grams.computeIfAbsent(gram, key -> new PostingList()).add(ordinal);
+                }
+            }
+        }
+
+        private static long gram(String text, int offset) {
+            return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+        }
+
+        private void compact() {
+            Segment compacted = new Segment();
+            for (int ordinal = this.live.nextSetBit(0); ordinal >= 0; ordinal = this.live.nextSetBit(ordinal + 1)) {
+                compacted.put(this.ids[ordinal], this.names[ordinal], this.descriptions[ordinal]);
+            }
+            this.ordinals.clear();
+            this.ordinals.putAll(compacted.ordinals);
+            this.nameGrams.clear();
+            this.nameGrams.putAll(compacted.nameGrams);
+            this.descriptionGrams.clear();
+            this.descriptionGrams.putAll(compacted.descriptionGrams);
+            this.live.clear();
+            this.live.or(compacted.live);
+            this.ids = compacted.ids;
+            this.names = compacted.names;
+            this.descriptions = compacted.descriptions;
+            this.nextOrdinal = compacted.nextOrdinal;
+            this.liveCount = compacted.liveCount;
+        }
+    }
+
+    /**
+     * A sorted, growable list of document ordinals backed by an int array.
+     */
+    private static class PostingList {
+
+        private static final PostingList EMPTY = new PostingList();
+
+        private int[] docs = new int[4];
+
+        private int size = 0;
+
+        void add(int ordinal) {
+            if (this.size == this.docs.length) {
+                this.docs = Arrays.copyOf(this.docs, this.size * 2);
+            }
+            this.docs[this.size++] = ordinal;
+        }
+
+        /**
+         * Intersects two sorted lists, treating null as "no restriction".
+         */
+        static PostingList intersect(PostingList a, PostingList b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            PostingList result = new PostingList();
+            int i = 0;
+            int j = 0;
+            while (i < a.size && j < b.size) {
+                if (a.docs[i] < b.docs[j]) {
+                    i++;
+                } else if (a.docs[i] > b.docs[j]) {
+                    j++;
+                } else {
+                    result.add(a.docs[i]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
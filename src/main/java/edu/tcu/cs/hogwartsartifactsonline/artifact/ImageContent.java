@@ -0,0 +1,52 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * An uploaded image, by the SHA-256 of its content, so uploading the same content to the same container again reuses
+ * the stored image. Its resized variants are recorded here too, so an artifact created with the image later gets them.
+ */
+@NoArgsConstructor
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_image_content_container_name_sha256", columnNames = {"container_name", "sha256"}),
+        indexes = @Index(name = "idx_image_content_image_url", columnList = "image_url")) // Artifacts find the variants of their image by its URL
+public class ImageContent implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    private String containerName;
+
+    @Column(length = 64)
+    private String sha256; // Lower case hex
+
+    private String imageUrl;
+
+    private long size;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<Integer, String> variants; // Width in pixels to the URL of the image resized to it, null until ImageVariantPipeline is done
+
+    public ImageContent(String containerName, String sha256, String imageUrl, long size) {
+        this.containerName = containerName;
+        this.sha256 = sha256;
+        this.imageUrl = imageUrl;
+        this.size = size;
+    }
+}
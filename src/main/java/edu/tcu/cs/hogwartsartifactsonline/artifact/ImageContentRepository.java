@@ -0,0 +1,12 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ImageContentRepository extends JpaRepository<ImageContent, Integer> {
+
+    Optional<ImageContent> findByContainerNameAndSha256(String containerName, String sha256);
+
+    Optional<ImageContent> findFirstByImageUrl(String imageUrl);
+}
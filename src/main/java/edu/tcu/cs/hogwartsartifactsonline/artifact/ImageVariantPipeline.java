@@ -0,0 +1,282 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates resized variants of uploaded images in the background, so catalog pages can show small images instead of
+ * the full-size ones.
+ * <p>
+ * Each image goes through three stages: its bytes are read back from the storage, it is decoded and resized to each
+ * configured width smaller than its own, and the variants are stored through ImageStorageClient and recorded on its
+ * ImageContent and on the artifacts showing it. Reading and storing wait on the network, so they run on a pool of
+ * io-threads; resizing is CPU bound, so it runs on a pool with one thread per core. At most queue-capacity images are in
+ * the pipeline at a time, each holding its bytes; more are turned away, and their artifacts keep only the full-size image.
+ * <p>
+ * image.variants.pending is the number of images in the pipeline, the executor.* metrics tagged name=image.variants.io
+ * and name=image.variants.cpu the queues of each pool, image.variants.stage the time spent in each stage, and
+ * image.variants.duration the time from submission to completion.
+ */
+@Component
+public class ImageVariantPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageVariantPipeline.class.getName());
+
+    private final ImageStorageClient imageStorageClient;
+
+    private final ImageContentRepository imageContentRepository;
+
+    private final ArtifactService artifactService;
+
+    private final boolean enabled;
+
+    private final List<Integer> widths; // Ascending
+
+    private final long maxPixels;
+
+    private final Semaphore slots;
+
+    private final ExecutorService ioExecutor;
+
+    private final ExecutorService cpuExecutor;
+
+    private final Timer readTimer;
+
+    private final Timer resizeTimer;
+
+    private final Timer storeTimer;
+
+    private final Timer durationTimer;
+
+    private final Counter completed;
+
+    private final Counter failed;
+
+    private final Counter rejected;
+
+    public ImageVariantPipeline(ImageStorageClient imageStorageClient,
+                                ImageContentRepository imageContentRepository,
+                                ArtifactService artifactService,
+                                MeterRegistry meterRegistry,
+                                @Value("${image.variants.enabled:true}") boolean enabled,
+                                @Value("${image.variants.widths:160,320,640}") List<Integer> widths,
+                                @Value("${image.variants.queue-capacity:100}") int queueCapacity,
+                                @Value("${image.variants.io-threads:8}") int ioThreads,
+                                @Value("${image.variants.max-pixels:40000000}") long maxPixels) {
+        this.imageStorageClient = imageStorageClient;
+        this.imageContentRepository = imageContentRepository;
+        this.artifactService = artifactService;
+        this.enabled = enabled;
+        this.widths = widths.stream().distinct().sorted().toList();
+        this.maxPixels = maxPixels;
+        this.slots = new Semaphore(queueCapacity);
+        // Java 17 has no virtual threads; the I/O stages get a pool of their own, so waiting on the storage never holds a core's thread
+        this.ioExecutor = Executors.newFixedThreadPool(ioThreads, new CustomizableThreadFactory("image-variants-io-"));
+        this.cpuExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new CustomizableThreadFactory("image-variants-cpu-"));
+        new ExecutorServiceMetrics(this.ioExecutor, "image.variants.io", Tags.empty()).bindTo(meterRegistry);
+        new ExecutorServiceMetrics(this.cpuExecutor, "image.variants.cpu", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("image.variants.pending", this.slots, semaphore -> queueCapacity - semaphore.availablePermits())
+                .description("Number of images whose variants are being generated or waiting to be")
+                .register(meterRegistry);
+        this.readTimer = stageTimer(meterRegistry, "read");
+        this.resizeTimer = stageTimer(meterRegistry, "resize");
+        this.storeTimer = stageTimer(meterRegistry, "store");
+        this.durationTimer = Timer.builder("image.variants.duration")
+                .description("Time from submitting an image to its variants being recorded, including the time spent queued")
+                .register(meterRegistry);
+        this.completed = jobCounter(meterRegistry, "completed");
+        this.failed = jobCounter(meterRegistry, "failed");
+        this.rejected = jobCounter(meterRegistry, "rejected");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("image.variants.stage")
+                .tag("stage", stage)
+                .description("Time spent in a stage of generating the variants of an image")
+                .register(meterRegistry);
+    }
+
+    private static Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("image.variants.jobs")
+                .tag("outcome", outcome)
+                .description("Number of images submitted for variants, by outcome")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a newly stored image for its variants, and returns at once.
+     *
+     * @return the width of each variant to its URL once they are recorded, empty if the image was turned away or needs
+     * none; completes exceptionally if a stage failed
+     */
+    public CompletableFuture<Map<Integer, String>> submit(String containerName, String imageUrl) {
+        if (!this.enabled || this.widths.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        if (!this.slots.tryAcquire()) {
+            this.rejected.increment();
+            LOGGER.warn("Image variant pipeline is full, image {} will only be shown in full size", imageUrl);
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        long start = System.nanoTime();
+        String imageName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        return CompletableFuture.supplyAsync(() -> this.readTimer.record(() -> read(containerName, imageName)), this.ioExecutor)
+                .thenApplyAsync(source -> this.resizeTimer.record(() -> resize(imageName, source)), this.cpuExecutor)
+                .thenApplyAsync(variants -> this.storeTimer.record(() -> store(containerName, imageUrl, variants)), this.ioExecutor)
+                .whenComplete((imageVariants, ex) -> {
+                    this.slots.release();
+                    this.durationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (ex != null) {
+                        this.failed.increment();
+                        LOGGER.warn("Failed to generate the variants of image {}", imageUrl, ex);
+                    } else {
+                        this.completed.increment();
+                    }
+                });
+    }
+
+    private byte[] read(String containerName, String imageName) {
+        try (InputStream data = this.imageStorageClient.openImage(containerName, imageName)) {
+            return data.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return the encoded variants, one per configured width smaller than the image; none if the format cannot be decoded
+     * or the image is too large to decode safely
+     */
+    private List<Variant> resize(String imageName, byte[] source) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                LOGGER.info("Image {} is in a format that cannot be resized, it has no variants", imageName);
+                return List.of();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > this.maxPixels) { // Checked before decoding, which takes 4 bytes per pixel
+                    LOGGER.info("Image {} has {}x{} pixels, too many to resize, it has no variants", imageName, width, height);
+                    return List.of();
+                }
+                String format = writableFormat(reader.getFormatName());
+                BufferedImage image = reader.read(0);
+                List<Variant> variants = new ArrayList<>();
+                for (int targetWidth : this.widths) {
+                    if (targetWidth >= width) { // Never scaled up
+                        break;
+                    }
+                    int targetHeight = Math.max(1, Math.round((float) height * targetWidth / width));
+                    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                    ImageIO.write(scale(image, targetWidth, targetHeight, format), format, encoded);
+                    variants.add(new Variant(targetWidth, format, encoded.toByteArray()));
+                }
+                return variants;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Scales down in steps of at most half, each interpolated bilinearly, which keeps the detail a single bilinear step
+     * would drop when shrinking by more than half.
+     */
+    private static BufferedImage scale(BufferedImage image, int targetWidth, int targetHeight, String format) {
+        int type = image.getColorModel().hasAlpha() && !"jpeg".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(scaled, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            scaled = step;
+        } while (width != targetWidth || height != targetHeight);
+        return scaled;
+    }
+
+    private static String writableFormat(String formatName) {
+        String format = formatName.toLowerCase(Locale.ROOT);
+        return ImageIO.getImageWritersByFormatName(format).hasNext() ? format : "png";
+    }
+
+    private Map<Integer, String> store(String containerName, String imageUrl, List<Variant> variants) {
+        if (variants.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, String> imageVariants = new TreeMap<>();
+        for (Variant variant : variants) {
+            try {
+                String variantUrl = this.imageStorageClient.uploadImage(containerName, "w" + variant.width() + "." + variant.format(), new ByteArrayInputStream(variant.data()), variant.data().length);
+                imageVariants.put(variant.width(), variantUrl);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        // Recorded on the image first, so an artifact created with it from now on copies them, then on the existing artifacts
+        this.imageContentRepository.findFirstByImageUrl(imageUrl).ifPresent(imageContent -> {
+            imageContent.setVariants(imageVariants);
+            this.imageContentRepository.save(imageContent);
+        });
+        this.artifactService.updateImageVariants(imageUrl, imageVariants);
+        return imageVariants;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.ioExecutor.shutdownNow();
+        this.cpuExecutor.shutdownNow();
+    }
+
+    private record Variant(int width, String format, byte[] data) {
+    }
+}
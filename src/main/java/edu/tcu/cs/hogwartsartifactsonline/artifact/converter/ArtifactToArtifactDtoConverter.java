@@ -24,6 +24,8 @@ public class ArtifactToArtifactDtoConverter implements Converter<Artifact, Artif
                 source.getImageUrl(),
                 source.getOwner() != null
                         ? this.wizardToWizardDtoConverter.convert(source.getOwner())
-                        : null);
+                        : null,
+                source.getVersion(),
+                source.getImageVariants());
     }
 }
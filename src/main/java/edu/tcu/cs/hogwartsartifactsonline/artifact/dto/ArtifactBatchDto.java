@@ -0,0 +1,17 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.util.List;
+
+/**
+ * The artifacts of a multi-get, in the order their ids were requested.
+ *
+ * @param artifacts  the artifacts found, each once even if its id was requested more than once
+ * @param missingIds the requested ids that no artifact has, in the order they were requested
+ */
+public record ArtifactBatchDto(List<ArtifactDto> artifacts,
+                               @JsonSerialize(contentUsing = ToStringSerializer.class)
+                               List<Long> missingIds) {
+}
@@ -1,14 +1,37 @@
 package edu.tcu.cs.hogwartsartifactsonline.artifact.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
 import jakarta.validation.constraints.NotEmpty;
 
-public record ArtifactDto(String id,
+import java.util.Map;
+
+/**
+ * @param id      written as a JSON string, since ids from IdWorker exceed the integers JavaScript numbers represent
+ *                exactly; a string or a number is accepted in requests
+ * @param version the version of the artifact when it was read, ignored in requests; together with the owner's version it
+ *                makes the artifact's ETag
+ * @param imageVariants the width in pixels of each resized variant of the image to its URL, for srcset; null until they
+ *                      are generated, and ignored in requests
+ */
+public record ArtifactDto(@JsonSerialize(using = ToStringSerializer.class)
+                          Long id,
                           @NotEmpty(message = "name is required.")
                           String name,
                           @NotEmpty(message = "description is required.")
                           String description,
                           @NotEmpty(message = "imageUrl is required.")
                           String imageUrl,
-                          WizardDto owner) {
+                          WizardDto owner,
+                          Long version,
+                          Map<Integer, String> imageVariants) {
+
+    public ArtifactDto(Long id, String name, String description, String imageUrl, WizardDto owner) {
+        this(id, name, description, imageUrl, owner, null, null);
+    }
+
+    public ArtifactDto(Long id, String name, String description, String imageUrl, WizardDto owner, Long version) {
+        this(id, name, description, imageUrl, owner, version, null);
+    }
 }
@@ -0,0 +1,11 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.dto;
+
+/**
+ * A search page together with the facets of the whole search, returned when they are asked for.
+ *
+ * @param page   the Page or CursorPage of artifacts the search returns without facets
+ * @param facets the counts of the matching artifacts by owner
+ */
+public record ArtifactFacetedPage<P>(P page,
+                                     ArtifactFacets facets) {
+}
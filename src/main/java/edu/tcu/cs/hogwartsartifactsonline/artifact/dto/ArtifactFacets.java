@@ -0,0 +1,18 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.dto;
+
+import java.util.List;
+
+/**
+ * Counts of the artifacts matching a search, by owner.
+ *
+ * @param owners  one facet per owner with matching artifacts, the largest first
+ * @param owned   the matching artifacts that have an owner
+ * @param unowned the matching artifacts that have none
+ */
+public record ArtifactFacets(List<OwnerFacet> owners,
+                             long owned,
+                             long unowned) {
+
+    public record OwnerFacet(Integer id, String name, long count) {
+    }
+}
@@ -0,0 +1,35 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.dto;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk import, chunk by chunk. Rows are numbered by the line they start on.
+ *
+ * @param chunkSize    the number of rows written per transaction
+ * @param rowsRead     the rows found in the request body
+ * @param rowsImported the rows that were committed
+ * @param rowsRejected the rows that were invalid or belonged to a chunk that failed to commit
+ * @param chunks       one report per chunk, in order
+ */
+public record ArtifactImportReport(int chunkSize,
+                                   long rowsRead,
+                                   long rowsImported,
+                                   long rowsRejected,
+                                   List<Chunk> chunks) {
+
+    /**
+     * @param failure why the whole chunk was rolled back, or null if it committed
+     */
+    public record Chunk(int index,
+                        long firstLine,
+                        long lastLine,
+                        int imported,
+                        int rejected,
+                        List<RowError> errors,
+                        String failure,
+                        long durationMillis) {
+    }
+
+    public record RowError(long line, String message) {
+    }
+}
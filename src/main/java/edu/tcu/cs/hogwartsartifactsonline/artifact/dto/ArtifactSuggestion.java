@@ -0,0 +1,16 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.dto;
+
+/**
+ * A type-ahead suggestion: an artifact or a wizard whose name matches the typed prefix.
+ *
+ * @param type "artifact" or "wizard"
+ * @param id   the artifact's or wizard's id
+ */
+public record ArtifactSuggestion(String type,
+                                 String id,
+                                 String name) {
+
+    public static final String ARTIFACT = "artifact";
+
+    public static final String WIZARD = "wizard";
+}
@@ -0,0 +1,14 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.dto;
+
+/**
+ * A block upload of an artifact image that has been started.
+ *
+ * @param uploadId  the id to send the blocks and the commit to
+ * @param blockSize the largest block accepted, in bytes; every block but the last should be this size
+ * @param imageUrl  the URL of the image if its content has been uploaded before, so no block needs to be sent; else null
+ */
+public record ImageUploadDto(String uploadId,
+                             String containerName,
+                             long blockSize,
+                             String imageUrl) {
+}
@@ -0,0 +1,58 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A cursor over ids reserved with IdWorker.reserve. The ids are stored as segments of consecutive values, one per
+ * claim: a millisecond's remaining sequence numbers, or fewer if other threads claimed some of them first. Handing them
+ * out takes no synchronization and no boxing. Not thread-safe; each
+ * batch writer reserves its own.
+ */
+public final class IdRange {
+
+    private final long[] firstIds;
+
+    private final int[] counts;
+
+    private final int segments;
+
+    private int segment;
+
+    private int offset; // Within the current segment
+
+    private int remaining;
+
+    IdRange(long[] firstIds, int[] counts, int segments, int count) {
+        this.firstIds = firstIds;
+        this.counts = counts;
+        this.segments = segments;
+        this.remaining = count;
+    }
+
+    public boolean hasNext() {
+        return this.remaining > 0;
+    }
+
+    public long nextId() {
+        if (this.remaining == 0) {
+            throw new NoSuchElementException("All reserved ids have been used.");
+        }
+        if (this.offset == this.counts[this.segment]) {
+            this.segment++;
+            this.offset = 0;
+        }
+        this.remaining--;
+        return this.firstIds[this.segment] + this.offset++;
+    }
+
+    public int remaining() {
+        return this.remaining;
+    }
+
+    /**
+     * @return the number of runs of consecutive ids the range is made of
+     */
+    public int segments() {
+        return this.segments;
+    }
+}
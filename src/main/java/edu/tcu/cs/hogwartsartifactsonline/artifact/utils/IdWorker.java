@@ -3,10 +3,33 @@ package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 
 /**
  * This piece of code is from the Internet. The quality is unknown.
  * Only for demoing purpose. Use with caution!
+ * <p>
+ * Generates 64-bit ids made of, from the high bits down, 41 bits of milliseconds since twepoch, 5 bits of datacenter id,
+ * 5 bits of worker id and a 12-bit sequence within the millisecond. nextId is lock-free: the timestamp and the sequence
+ * of the last id live together in one AtomicLong, laid out as in the id, and a thread claims the next pair with a
+ * compare-and-set, retrying if another thread claimed it first. Each instance has its own state, so two instances must not
+ * share a worker and datacenter id. Batch writers reserve their ids in ranges instead, one compare-and-set per
+ * millisecond's worth.
+ * <p>
+ * When the ids are leased, by WorkerIdLease, the IdWorker is fenced: it refuses to issue ids from the moment its lease
+ * may have run out, since another node may hold the same ids by then, until the lease is renewed or a new one assigned.
+ * <p>
+ * The timestamp of the last id is kept as a logical clock, which the ids may run ahead of the wall clock by up to a
+ * borrow window. Within it, a clock stepped backwards, by NTP for instance, is absorbed: ids keep counting up from the
+ * logical timestamp instead of failing until the wall clock catches up. A millisecond whose sequence is used up borrows
+ * the next one, and only once the window is used up too does a thread wait, parked rather than spinning, for the wall
+ * clock to advance. With no window, as by default, a clock moving backwards fails nextId as before. A node must not hand
+ * its worker id over to another, or restart with it, until the wall clock has passed the last id's timestamp.
  */
 public class IdWorker {
 
@@ -30,61 +53,249 @@ public class IdWorker {
 
     private final static long sequenceMask = -1L ^ (-1L << sequenceBits);
 
-    private static long lastTimestamp = -1L;
+    static final int WORKER_IDS = (int) (maxWorkerId + 1); // Per datacenter id
 
-    private long sequence = 0L;
+    static final int NODES = (int) (maxDatacenterId + 1) * WORKER_IDS; // Distinct datacenter and worker id pairs
 
-    private final long workerId;
+    private final AtomicLong last = new AtomicLong(-1L); // (timestamp - twepoch) << sequenceBits | sequence of the last id
 
-    private final long datacenterId;
+    private volatile Lease lease; // Read once per id, so an id never mixes two leases
 
+    private final long borrowWindow; // Milliseconds the ids may run ahead of the wall clock
+
+    private final LongSupplier clock;
+
+    private final AtomicLong clockHigh = new AtomicLong(); // The latest wall clock seen
+
+    private final AtomicLong regressedFrom = new AtomicLong(); // The clockHigh last counted in clockRegressions, so each regression counts once
+
+    private final LongAdder clockRegressions = new LongAdder();
+
+    private final LongAdder waits = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private static final long PARK_NANOS = 50_000; // Slices to wait for the clock in, a fraction of the millisecond it advances by
 
     public IdWorker() {
-        this.datacenterId = getDatacenterId(maxDatacenterId);
-        this.workerId = getMaxWorkerId(datacenterId, maxWorkerId);
+        this(Duration.ZERO);
     }
 
     public IdWorker(long workerId, long datacenterId) {
+        this(workerId, datacenterId, Long.MAX_VALUE, Duration.ZERO);
+    }
+
+    /**
+     * Derives the worker and datacenter ids from the MAC address and PID.
+     */
+    IdWorker(Duration borrowWindow) {
+        this(derivedLease(), borrowWindow, System::currentTimeMillis);
+    }
+
+    /**
+     * @param validUntil   the epoch millisecond from which no id is issued, unless the lease is renewed before
+     * @param borrowWindow how far the ids may run ahead of the wall clock
+     */
+    IdWorker(long workerId, long datacenterId, long validUntil, Duration borrowWindow) {
+        this(workerId, datacenterId, validUntil, borrowWindow, System::currentTimeMillis);
+    }
+
+    IdWorker(long workerId, long datacenterId, long validUntil, Duration borrowWindow, LongSupplier clock) {
+        this(new Lease(node(workerId, datacenterId), validUntil), borrowWindow, clock);
+    }
+
+    private IdWorker(Lease lease, Duration borrowWindow, LongSupplier clock) {
+        if (borrowWindow.isNegative()) {
+            throw new IllegalArgumentException("borrow window can't be negative");
+        }
+        this.lease = lease;
+        this.borrowWindow = borrowWindow.toMillis();
+        this.clock = clock;
+    }
+
+    private static Lease derivedLease() {
+        long datacenterId = getDatacenterId(maxDatacenterId);
+        return new Lease(node(getMaxWorkerId(datacenterId, maxWorkerId), datacenterId), Long.MAX_VALUE);
+    }
+
+    private static long node(long workerId, long datacenterId) {
         if (workerId > maxWorkerId || workerId < 0) {
             throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
         }
         if (datacenterId > maxDatacenterId || datacenterId < 0) {
             throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
         }
-        this.workerId = workerId;
-        this.datacenterId = datacenterId;
+        return (datacenterId << datacenterIdShift) | (workerId << workerIdShift);
+    }
+
+    public long getWorkerId() {
+        return (this.lease.node() >> workerIdShift) & maxWorkerId;
+    }
+
+    public long getDatacenterId() {
+        return (this.lease.node() >> datacenterIdShift) & maxDatacenterId;
+    }
+
+    /**
+     * Moves to newly leased worker and datacenter ids.
+     */
+    void assign(long workerId, long datacenterId, long validUntil) {
+        this.lease = new Lease(node(workerId, datacenterId), validUntil);
+    }
+
+    /**
+     * Extends the current lease.
+     */
+    void renew(long validUntil) {
+        this.lease = new Lease(this.lease.node(), validUntil);
+    }
+
+    /**
+     * Stops issuing ids at once, because the lease is lost or released.
+     */
+    void fence() {
+        renew(Long.MIN_VALUE);
     }
 
-    public synchronized long nextId() {
-        long timestamp = timeGen();
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+    public long nextId() {
+        Lease lease = this.lease;
+        return toId(claim(1, lease), lease);
+    }
+
+    /**
+     * Reserves count ids at once, for batch writers to assign without coming back to the IdWorker for each. The ids are
+     * claimed a millisecond's sequence at a time, with one compare-and-set each, so more than 4096 of them span several
+     * milliseconds, and reserving waits for the clock just as that many nextId calls would.
+     *
+     * @return a cursor over the reserved ids, in ascending order
+     */
+    public IdRange reserve(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count can't be less than 0");
+        }
+        int expectedSegments = count / (int) (sequenceMask + 1) + 2; // Without other threads claiming ids in between
+        long[] firstIds = new long[expectedSegments];
+        int[] counts = new int[expectedSegments];
+        int segments = 0;
+        Lease lease = this.lease;
+        for (int reserved = 0; reserved < count; segments++) {
+            if (segments == firstIds.length) { // Other threads took part of the milliseconds
+                firstIds = Arrays.copyOf(firstIds, segments * 2);
+                counts = Arrays.copyOf(counts, segments * 2);
+            }
+            long first = claim(count - reserved, lease);
+            firstIds[segments] = toId(first, lease);
+            counts[segments] = claimable(first, count - reserved);
+            reserved += counts[segments];
         }
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+        return new IdRange(firstIds, counts, segments, count);
+    }
+
+    /**
+     * Claims up to max consecutive sequence numbers of the current millisecond, as many as it has left.
+     *
+     * @return the timestamp and sequence of the first id claimed, laid out as in last; claimable tells how many were
+     */
+    private long claim(int max, Lease lease) {
+        while (true) {
+            long last = this.last.get();
+            long lastTimestamp = last >> sequenceBits; // -1 before the first id
+            long now = timeGen();
+            long timestamp = now - twepoch; // Read after last, so a timestamp claimed by another thread in between is not mistaken for the clock moving backwards
+            long ahead = lastTimestamp - timestamp; // Positive while the ids run ahead of the clock
+            long first;
+            if (now >= lease.validUntil()) {
+                throw new IllegalStateException("The worker id lease is lost. Refusing to generate ids until it is renewed");
             }
-        } else {
-            sequence = 0L;
+            observe(now);
+            if (ahead > 0) {
+                if (ahead > this.borrowWindow) {
+                    throw new RuntimeException(String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", ahead - this.borrowWindow));
+                }
+                countRegression(now);
+                timestamp = lastTimestamp; // Kept counting up from the logical clock
+            }
+            if (timestamp == lastTimestamp) {
+                if ((last & sequenceMask) == sequenceMask) { // The millisecond's sequence is used up
+                    if (ahead + 1 > this.borrowWindow) {
+                        awaitClock(lastTimestamp + 1 - this.borrowWindow + twepoch);
+                        continue;
+                    }
+                    first = (lastTimestamp + 1) << sequenceBits; // Borrowed from the next millisecond
+                } else {
+                    first = last + 1;
+                }
+            } else {
+                first = timestamp << sequenceBits;
+            }
+            if (this.last.compareAndSet(last, first + claimable(first, max) - 1)) {
+                return first;
+            }
+        }
+    }
+
+    private static int claimable(long first, int max) {
+        return (int) Math.min(max, sequenceMask - (first & sequenceMask) + 1);
+    }
+
+    private static long toId(long state, Lease lease) {
+        return ((state >>> sequenceBits) << timestampLeftShift) | lease.node() | (state & sequenceMask);
+    }
+
+    private void observe(long now) {
+        long high = this.clockHigh.get();
+        if (now > high) {
+            this.clockHigh.compareAndSet(high, now); // Lost to a thread that saw the clock at least as late
+        }
+    }
+
+    private void countRegression(long now) {
+        long high = this.clockHigh.get();
+        long regressedFrom = this.regressedFrom.get();
+        if (now < high && regressedFrom != high && this.regressedFrom.compareAndSet(regressedFrom, high)) {
+            this.clockRegressions.increment();
         }
-        lastTimestamp = timestamp;
-        long nextId = ((timestamp - twepoch) << timestampLeftShift)
-                | (datacenterId << datacenterIdShift)
-                | (workerId << workerIdShift) | sequence;
-        return nextId;
     }
 
-    private long tilNextMillis(final long lastTimestamp) {
-        long timestamp = this.timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = this.timeGen();
+    /**
+     * Parks until the wall clock reaches the given epoch millisecond.
+     */
+    private void awaitClock(long until) {
+        long start = System.nanoTime();
+        while (timeGen() < until) {
+            LockSupport.parkNanos(PARK_NANOS);
         }
-        return timestamp;
+        this.waits.increment();
+        this.waitNanos.add(System.nanoTime() - start);
     }
 
     private long timeGen() {
-        return System.currentTimeMillis();
+        return this.clock.getAsLong();
+    }
+
+    /**
+     * @return the milliseconds the last id's timestamp is ahead of the wall clock, 0 if it is not
+     */
+    long ahead() {
+        return Math.max(0, (this.last.get() >> sequenceBits) + twepoch - timeGen());
+    }
+
+    /**
+     * @return the times the wall clock was found to have moved backwards and ids kept being issued from the logical clock
+     */
+    long clockRegressions() {
+        return this.clockRegressions.sum();
+    }
+
+    /**
+     * @return the times a thread parked waiting for the wall clock, having used up the sequence and the borrow window
+     */
+    long waits() {
+        return this.waits.sum();
+    }
+
+    long waitNanos() {
+        return this.waitNanos.sum();
     }
 
     protected static long getMaxWorkerId(long datacenterId, long maxWorkerId) {
@@ -115,4 +326,11 @@ public class IdWorker {
         }
         return id;
     }
-}
\ No newline at end of file
+
+    /**
+     * @param node       the datacenter and worker bits of every id
+     * @param validUntil the epoch millisecond from which no id may be issued, Long.MAX_VALUE if the ids are not leased
+     */
+    private record Lease(long node, long validUntil) {
+    }
+}
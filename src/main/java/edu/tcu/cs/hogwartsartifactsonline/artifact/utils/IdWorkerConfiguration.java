@@ -0,0 +1,37 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Declares the application's IdWorker, whose worker and datacenter ids are leased by WorkerIdLease.
+ * <p>
+ * id.worker.clock.regressions counts the times the clock moved backwards without failing id generation,
+ * id.worker.ahead is how far the ids run ahead of the clock, and id.worker.wait the time threads spent parked waiting for
+ * the clock once a millisecond's sequence and the borrow window were used up.
+ */
+@Configuration
+public class IdWorkerConfiguration {
+
+    @Bean
+    public IdWorker idWorker(WorkerIdLease workerIdLease, MeterRegistry meterRegistry) {
+        IdWorker idWorker = workerIdLease.idWorker();
+        FunctionCounter.builder("id.worker.clock.regressions", idWorker, IdWorker::clockRegressions)
+                .description("Number of times the clock moved backwards and ids kept being issued from the last id's timestamp")
+                .register(meterRegistry);
+        Gauge.builder("id.worker.ahead", idWorker, IdWorker::ahead)
+                .baseUnit("milliseconds")
+                .description("How far the timestamp of the last id is ahead of the clock")
+                .register(meterRegistry);
+        FunctionTimer.builder("id.worker.wait", idWorker, IdWorker::waits, IdWorker::waitNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for the clock to advance once the sequence and the borrow window were used up")
+                .register(meterRegistry);
+        return idWorker;
+    }
+}
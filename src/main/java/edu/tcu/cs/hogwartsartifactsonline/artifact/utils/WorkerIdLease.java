@@ -0,0 +1,181 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases the node's worker and datacenter id pair from Redis, so nodes scaled out side by side never issue the same ids.
+ * <p>
+ * Each of the 1024 pairs is a slot, leased by setting its key only if absent, with a TTL, to a token naming this node. A
+ * heartbeat renews the TTL while the key still holds the token. The IdWorker is fenced a tenth of the TTL before Redis
+ * can expire the key, so a node whose renewals fail stops issuing ids before another node can lease the same slot; if a
+ * renewal finds the key gone or taken, the node leases another slot. The heartbeat runs on a thread of its own, so a
+ * scheduled task that holds the shared scheduler thread cannot make it miss a renewal. On shutdown the slot is released, once the wall
+ * clock has passed the ids issued ahead of it. The ids run ahead of the wall clock by at most id-worker.borrow-window,
+ * which must stay shorter than that tenth of the TTL, so they are all in the past before another node can lease the slot.
+ * <p>
+ * While Redis is unreachable at startup, the ids are derived from the MAC address and PID as before, without fencing,
+ * and the heartbeat takes a lease once Redis is back.
+ */
+@Component
+public class WorkerIdLease {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerIdLease.class.getName());
+
+    static final String KEY_PREFIX = "idworker:lease:";
+
+    private final RedisCacheClient redisCacheClient;
+
+    private final boolean enabled;
+
+    private final long ttlMillis;
+
+    private final Duration borrowWindow;
+
+    private final long renewIntervalMillis;
+
+    private final ScheduledExecutorService heartbeat;
+
+    private final String token = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID(); // pid@host, and unique per start
+
+    private IdWorker idWorker;
+
+    private int slot = -1; // The leased slot, -1 while none is held
+
+    private boolean released;
+
+    public WorkerIdLease(RedisCacheClient redisCacheClient,
+                         @Value("${id-worker.lease.enabled:true}") boolean enabled,
+                         @Value("${id-worker.lease.ttl:30s}") Duration ttl,
+                         @Value("${id-worker.borrow-window:1s}") Duration borrowWindow,
+                         @Value("${id-worker.lease.renew-interval:10000}") long renewIntervalMillis) {
+        if (enabled && borrowWindow.toMillis() >= ttl.toMillis() / 10) {
+            throw new IllegalArgumentException("id-worker.borrow-window must be shorter than a tenth of id-worker.lease.ttl.");
+        }
+        this.redisCacheClient = redisCacheClient;
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        this.borrowWindow = borrowWindow;
+        this.renewIntervalMillis = renewIntervalMillis;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("worker-id-lease-");
+        threadFactory.setDaemon(true);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * @return the IdWorker of this node, leasing its ids on the first call
+     */
+    public synchronized IdWorker idWorker() {
+        if (this.idWorker == null) {
+            this.idWorker = this.enabled ? leasedOrDerived() : new IdWorker(this.borrowWindow);
+            if (this.enabled) {
+                this.heartbeat.scheduleWithFixedDelay(this::heartbeat, this.renewIntervalMillis, this.renewIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return this.idWorker;
+    }
+
+    private IdWorker leasedOrDerived() {
+        try {
+            long start = System.currentTimeMillis();
+            int slot = lease();
+            if (slot < 0) {
+                throw new IllegalStateException("All " + IdWorker.NODES + " worker ids are leased by other nodes.");
+            }
+            this.slot = slot;
+            LOGGER.info("Leased worker id {} of datacenter id {}", slot % IdWorker.WORKER_IDS, slot / IdWorker.WORKER_IDS);
+            return new IdWorker(slot % IdWorker.WORKER_IDS, slot / IdWorker.WORKER_IDS, validUntil(start), this.borrowWindow);
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Redis is unreachable, deriving the worker id from the MAC address and PID until it can be leased: {}", ex.getMessage());
+            return new IdWorker(this.borrowWindow);
+        }
+    }
+
+    /**
+     * @return the slot leased, or -1 if all are taken
+     */
+    private int lease() {
+        int offset = ThreadLocalRandom.current().nextInt(IdWorker.NODES); // Nodes starting together try different slots first
+        for (int i = 0; i < IdWorker.NODES; i++) {
+            int slot = (offset + i) % IdWorker.NODES;
+            if (this.redisCacheClient.setIfAbsent(KEY_PREFIX + slot, this.token, this.ttlMillis, TimeUnit.MILLISECONDS)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private long validUntil(long start) {
+        return start + this.ttlMillis - this.ttlMillis / 10; // Measured from before the call, so never later than the key's expiry
+    }
+
+    private void heartbeat() {
+        try {
+            renew();
+        } catch (RuntimeException ex) {
+            LOGGER.error("Worker id lease heartbeat failed: {}", ex.toString()); // Caught, or the executor would stop renewing
+        }
+    }
+
+    public synchronized void renew() {
+        if (!this.enabled || this.idWorker == null || this.released) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            if (this.slot >= 0) {
+                if (this.redisCacheClient.expireIfEquals(KEY_PREFIX + this.slot, this.token, this.ttlMillis, TimeUnit.MILLISECONDS)) {
+                    this.idWorker.renew(validUntil(start));
+                    return;
+                }
+                this.idWorker.fence(); // Expired, and maybe leased by another node already
+                LOGGER.error("Lost the lease of worker id {} of datacenter id {}, no ids are issued until another is leased", this.slot % IdWorker.WORKER_IDS, this.slot / IdWorker.WORKER_IDS);
+                this.slot = -1;
+            }
+            int slot = lease();
+            if (slot < 0) {
+                LOGGER.error("All {} worker ids are leased by other nodes", IdWorker.NODES);
+                return;
+            }
+            this.slot = slot;
+            this.idWorker.assign(slot % IdWorker.WORKER_IDS, slot / IdWorker.WORKER_IDS, validUntil(start));
+            LOGGER.info("Leased worker id {} of datacenter id {}", slot % IdWorker.WORKER_IDS, slot / IdWorker.WORKER_IDS);
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Failed to renew the worker id lease, ids stop being issued when it runs out: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void release() {
+        this.released = true;
+        this.heartbeat.shutdown();
+        if (this.slot < 0) {
+            return;
+        }
+        this.idWorker.fence();
+        try {
+            Thread.sleep(this.idWorker.ahead()); // The next holder of the slot starts from the wall clock
+            this.redisCacheClient.deleteIfEquals(KEY_PREFIX + this.slot, this.token);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while releasing the worker id lease, it is left to expire");
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Failed to release the worker id lease, it is left to expire: {}", ex.getMessage());
+        }
+        this.slot = -1;
+    }
+}
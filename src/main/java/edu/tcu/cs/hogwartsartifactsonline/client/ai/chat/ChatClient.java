@@ -3,6 +3,8 @@ package edu.tcu.cs.hogwartsartifactsonline.client.ai.chat;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
 
+import java.util.function.Consumer;
+
 /**
  * The ChatClient interface interacts with an AI model (e.g., OpenAI GPT model) by sending requests and retrieving their responses.
  */
@@ -15,4 +17,13 @@ public interface ChatClient {
      * @return the generated completion from an AI model in a ChatResponse
      */
     ChatResponse generate(ChatRequest chatRequest);
+
+    /**
+     * Streams the completion of a ChatRequest, passing each piece of generated text to onDelta as soon as the AI model
+     * sends it, and returns once the model is done. The request is sent with stream set to true.
+     *
+     * @param chatRequest the input that guides an AI model to generate specific outputs
+     * @param onDelta     receives the generated text piece by piece; an exception it throws cancels the completion
+     */
+    void stream(ChatRequest chatRequest, Consumer<String> onDelta);
 }
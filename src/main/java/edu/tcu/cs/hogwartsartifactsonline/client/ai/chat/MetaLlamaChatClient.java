@@ -1,28 +1,45 @@
 package edu.tcu.cs.hogwartsartifactsonline.client.ai.chat;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
+import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatResponseChunk;
+import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.DeltaChoice;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
 /**
  * The MetaLlamaChatClient class is an implementation of the ChatClient interface.
  */
 @Component
 public class MetaLlamaChatClient implements ChatClient {
 
+    private static final ResponseErrorHandler ERROR_HANDLER = new DefaultResponseErrorHandler();
+
     private final RestClient restClient;
 
+    private final ObjectMapper objectMapper;
+
     public MetaLlamaChatClient(
             @Value("${ai.meta-llama.endpoint}") String endpoint,
             @Value("${ai.meta-llama.api-key}") String apiKey,
-            RestClient.Builder restClientBuilder) {
+            RestClient.Builder restClientBuilder,
+            ObjectMapper objectMapper) {
         this.restClient = restClientBuilder
                 .baseUrl(endpoint)
                 .defaultHeader("Authorization", "Bearer " + apiKey)
                 .build();
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -34,4 +51,66 @@ public class MetaLlamaChatClient implements ChatClient {
                 .retrieve()
                 .body(ChatResponse.class);
     }
+
+    /**
+     * The model answers a streamed request with Server-Sent Events: each event's data is a ChatResponseChunk in JSON, and
+     * the last one is the literal [DONE]. The body is read line by line as it arrives, never as a whole.
+     */
+    @Override
+    public void stream(ChatRequest chatRequest, Consumer<String> onDelta) {
+        chatRequest.setStream(true);
+        this.restClient
+                .post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .body(chatRequest)
+                .exchange((request, response) -> {
+                    if (ERROR_HANDLER.hasError(response)) {
+                        ERROR_HANDLER.handleError(response); // Throws the same HttpClientErrorException or HttpServerErrorException as generate
+                    }
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        readEvents(reader, onDelta);
+                    }
+                    return null;
+                });
+    }
+
+    private void readEvents(BufferedReader reader, Consumer<String> onDelta) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) { // A blank line ends an event
+                if (!data.isEmpty() && !handleEvent(data.toString(), onDelta)) {
+                    return;
+                }
+                data.setLength(0);
+            } else if (line.startsWith("data:")) {
+                if (!data.isEmpty()) {
+                    data.append('\n');
+                }
+                data.append(line.startsWith("data: ") ? line.substring(6) : line.substring(5));
+            } // Comments (":"), event names, ids, and retry hints carry nothing a completion needs
+        }
+        if (!data.isEmpty()) {
+            handleEvent(data.toString(), onDelta);
+        }
+    }
+
+    /**
+     * @return false once the model has signaled the end of the completion
+     */
+    private boolean handleEvent(String data, Consumer<String> onDelta) throws IOException {
+        if (data.equals("[DONE]")) {
+            return false;
+        }
+        ChatResponseChunk chunk = this.objectMapper.readValue(data, ChatResponseChunk.class);
+        if (chunk.choices() != null) {
+            for (DeltaChoice choice : chunk.choices()) {
+                if (choice.delta() != null && choice.delta().content() != null && !choice.delta().content().isEmpty()) {
+                    onDelta.accept(choice.delta().content());
+                }
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,13 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto;
+
+import java.util.List;
+
+/**
+ * The ChatResponseChunk record holds one piece of a chat completion that an AI model streams when ChatRequest.stream is true.
+ * The model sends a chunk whenever it has generated a few more tokens; concatenating the deltas of all chunks, in order,
+ * gives the same text a ChatResponse would have held.
+ *
+ * @param choices a list of chat completion choices, each with the text generated since the previous chunk
+ */
+public record ChatResponseChunk(List<DeltaChoice> choices) {
+}
@@ -0,0 +1,12 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto;
+
+/**
+ * The DeltaChoice record encapsulates a Message that holds only the text a streamed choice gained since the previous
+ * chunk. The role is only sent in the first chunk, and the content may be missing from the last one.
+ *
+ * @param index
+ * @param delta
+ */
+public record DeltaChoice(int index,
+                          Message delta) {
+}
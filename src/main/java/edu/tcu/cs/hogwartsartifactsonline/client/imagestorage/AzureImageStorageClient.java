@@ -1,23 +1,49 @@
 package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
 
+import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.BlockListType;
+import com.azure.storage.blob.models.ParallelTransferOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.azure.storage.blob.specialized.BlockBlobClient;
 import edu.tcu.cs.hogwartsartifactsonline.system.exception.CustomBlobStorageException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.UUID;
+import java.util.List;
+import java.util.stream.IntStream;
 
+/**
+ * Stores images as Azure block blobs. A block upload maps one to one onto the blob's blocks: putBlock stages a block,
+ * which Azure keeps uncommitted for up to a week, and commitUpload commits the block list. A one-call upload is
+ * split into blocks by the SDK, which stages up to max-concurrency of them at once.
+ * <p>
+ * This is the default implementation; the filesystem profile replaces it with FileSystemImageStorageClient.
+ */
 @Service
+@Profile("!filesystem")
 public class AzureImageStorageClient implements ImageStorageClient {
 
     private final BlobServiceClient blobServiceClient;
 
-    public AzureImageStorageClient(BlobServiceClient blobServiceClient) {
+    private final ParallelTransferOptions parallelTransferOptions;
+
+    public AzureImageStorageClient(BlobServiceClient blobServiceClient,
+                                   @Value("${image.upload.block-size:4MB}") DataSize blockSize,
+                                   @Value("${image.upload.max-concurrency:4}") int maxConcurrency) {
         this.blobServiceClient = blobServiceClient;
+        this.parallelTransferOptions = new ParallelTransferOptions()
+                .setBlockSizeLong(blockSize.toBytes())
+                .setMaxSingleUploadSizeLong(blockSize.toBytes()) // Smaller images go in one request
+                .setMaxConcurrency(maxConcurrency);
     }
 
     @Override
@@ -27,17 +53,89 @@ public class AzureImageStorageClient implements ImageStorageClient {
             BlobContainerClient blobContainerClient = blobServiceClient.getBlobContainerClient(containerName);
 
             // Rename the image file to a unique name
-            String newImageName = UUID.randomUUID() + originalImageName.substring(originalImageName.lastIndexOf("."));
+            String newImageName = ImageUploads.newImageName(originalImageName);
 
             // Get the BlobClient object to interact with the specified blob
             BlobClient blobClient = blobContainerClient.getBlobClient(newImageName);
 
-            // Upload the image file to the blob
-            blobClient.upload(data, length, true);
+            // Upload the image file to the blob, in blocks staged in parallel; at most max-concurrency blocks are buffered at a time
+            blobClient.uploadWithResponse(new BlobParallelUploadOptions(data).setParallelTransferOptions(this.parallelTransferOptions), null, Context.NONE);
 
             return blobClient.getBlobUrl();
         } catch (BlobStorageException e) {
             throw new CustomBlobStorageException("Failed to upload image to Azure Blob Storage.", e);
         }
     }
+
+    @Override
+    public InputStream openImage(String containerName, String imageName) {
+        try {
+            return this.blobServiceClient.getBlobContainerClient(containerName).getBlobClient(imageName).openInputStream();
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 404) {
+                throw new ObjectNotFoundException("image", containerName + "/" + imageName);
+            }
+            throw new CustomBlobStorageException("Failed to read image from Azure Blob Storage.", e);
+        }
+    }
+
+    @Override
+    public void deleteImage(String containerName, String imageName) {
+        try {
+            this.blobServiceClient.getBlobContainerClient(containerName).getBlobClient(imageName).deleteIfExists();
+        } catch (BlobStorageException e) {
+            throw new CustomBlobStorageException("Failed to delete image from Azure Blob Storage.", e);
+        }
+    }
+
+    @Override
+    public String initUpload(String containerName, String originalImageName) {
+        return ImageUploads.newImageName(originalImageName); // Nothing is stored until the first block arrives
+    }
+
+    @Override
+    public void putBlock(String containerName, String uploadId, int blockIndex, InputStream data, long length) throws IOException {
+        ImageUploads.checkUploadId(uploadId);
+        ImageUploads.checkBlockIndex(blockIndex);
+        try {
+            blockBlobClient(containerName, uploadId).stageBlock(ImageUploads.blockId(blockIndex), data, length);
+        } catch (BlobStorageException e) {
+            throw new CustomBlobStorageException("Failed to upload image block to Azure Blob Storage.", e);
+        }
+    }
+
+    @Override
+    public List<Integer> findUploadedBlocks(String containerName, String uploadId) {
+        ImageUploads.checkUploadId(uploadId);
+        BlockBlobClient blockBlobClient = blockBlobClient(containerName, uploadId);
+        try {
+            return blockBlobClient.listBlocks(BlockListType.UNCOMMITTED).getUncommittedBlocks().stream()
+                    .mapToInt(block -> ImageUploads.blockIndex(block.getName()))
+                    .filter(blockIndex -> blockIndex >= 0)
+                    .sorted()
+                    .boxed()
+                    .toList();
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 404) { // No block has been staged yet
+                return List.of();
+            }
+            throw new CustomBlobStorageException("Failed to list image blocks in Azure Blob Storage.", e);
+        }
+    }
+
+    @Override
+    public String commitUpload(String containerName, String uploadId, int blockCount) {
+        ImageUploads.checkComplete(findUploadedBlocks(containerName, uploadId), blockCount);
+        BlockBlobClient blockBlobClient = blockBlobClient(containerName, uploadId);
+        try {
+            blockBlobClient.commitBlockList(IntStream.range(0, blockCount).mapToObj(ImageUploads::blockId).toList(), true);
+            return blockBlobClient.getBlobUrl();
+        } catch (BlobStorageException e) {
+            throw new CustomBlobStorageException("Failed to commit image to Azure Blob Storage.", e);
+        }
+    }
+
+    private BlockBlobClient blockBlobClient(String containerName, String uploadId) {
+        return this.blobServiceClient.getBlobContainerClient(containerName).getBlobClient(uploadId).getBlockBlobClient();
+    }
 }
@@ -0,0 +1,121 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.ETags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Serves the images stored by FileSystemImageStorageClient.
+ * <p>
+ * On Tomcat the bytes never pass through the heap: the file and the range to send are handed to the connector, which
+ * writes them to the socket with sendfile once the request returns. Elsewhere, such as in MockMvc, the file is copied
+ * with FileChannel.transferTo.
+ * <p>
+ * Images are never rewritten, a new upload gets a new name, so the size and modification time of the file make a strong
+ * ETag, and responses may be cached for a year.
+ */
+@RestController
+@Profile("filesystem")
+@RequestMapping("${api.endpoint.base-url}/images")
+public class FileSystemImageController {
+
+    // Request attributes of Tomcat's sendfile support, see org.apache.catalina.Globals
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end"; // Exclusive
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final FileSystemImageStorageClient fileSystemImageStorageClient;
+
+    public FileSystemImageController(FileSystemImageStorageClient fileSystemImageStorageClient) {
+        this.fileSystemImageStorageClient = fileSystemImageStorageClient;
+    }
+
+    @GetMapping("/{containerName}/{imageName}")
+    public void getImage(@PathVariable String containerName, @PathVariable String imageName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path image = this.fileSystemImageStorageClient.findImage(containerName, imageName);
+        BasicFileAttributes attributes = Files.readAttributes(image, BasicFileAttributes.class);
+        long length = attributes.size();
+        String eTag = ETags.of(length, attributes.lastModifiedTime().toMillis());
+
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL.getHeaderValue()); // Also keeps Spring Security from writing no-store
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (ETags.isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length; // Exclusive
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) { // A stale If-Range gets the whole image
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException ex) {
+                ranges = List.of(); // Malformed, so ignored
+            }
+            if (ranges.size() == 1) { // Several ranges would need a multipart body; sending the whole image is allowed instead
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length) + 1;
+                } catch (IllegalArgumentException ex) { // Starts past the end of the image
+                    start = end;
+                }
+                if (start >= end) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(imageName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, image.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(image, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = start; position < end; ) {
+                position += file.transferTo(position, end - position, out);
+            }
+        }
+    }
+}
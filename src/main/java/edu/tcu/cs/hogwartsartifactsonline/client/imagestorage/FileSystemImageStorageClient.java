@@ -0,0 +1,255 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Stores images on local disk, for on-premises and test deployments, under root/containerName/imageName. They are
+ * served by FileSystemImageController, so the URLs returned point to public-url/containerName/imageName.
+ * <p>
+ * The blocks of an upload are kept as files in root/.uploads/containerName/uploadId until it is committed, when they are
+ * concatenated with FileChannel.transferTo. Every file is written under a temporary name and then moved into place, so
+ * a dropped connection never leaves a partial block or image behind. Uploads that are never committed are deleted by
+ * sweepAbandonedUploads() once no block has arrived for upload-ttl.
+ */
+@Service
+@Profile("filesystem")
+public class FileSystemImageStorageClient implements ImageStorageClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemImageStorageClient.class.getName());
+
+    private static final String UPLOADS_DIRECTORY = ".uploads"; // Not a valid container name, so never served
+
+    private final Path root;
+
+    private final String publicUrl;
+
+    private final Duration uploadTtl;
+
+    public FileSystemImageStorageClient(@Value("${image.filesystem.root:./images}") Path root,
+                                        @Value("${image.filesystem.public-url:/api/v1/images}") String publicUrl,
+                                        @Value("${image.filesystem.upload-ttl:24h}") Duration uploadTtl) throws IOException {
+        this.root = Files.createDirectories(root.toAbsolutePath().normalize());
+        this.publicUrl = publicUrl.endsWith("/") ? publicUrl.substring(0, publicUrl.length() - 1) : publicUrl;
+        this.uploadTtl = uploadTtl;
+    }
+
+    @Override
+    public String uploadImage(String containerName, String originalImageName, InputStream data, long length) throws IOException {
+        ImageUploads.checkContainerName(containerName);
+        String newImageName = ImageUploads.newImageName(originalImageName);
+        Path image = Files.createDirectories(this.root.resolve(containerName)).resolve(newImageName);
+        Path temporary = temporaryFile(image);
+        try {
+            Files.copy(data, temporary, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporary, image, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return imageUrl(containerName, newImageName);
+    }
+
+    @Override
+    public InputStream openImage(String containerName, String imageName) throws IOException {
+        return Files.newInputStream(findImage(containerName, imageName));
+    }
+
+    @Override
+    public void deleteImage(String containerName, String imageName) {
+        ImageUploads.checkContainerName(containerName);
+        if (!ImageUploads.isImageName(imageName)) {
+            throw new InvalidUploadException("Image name " + imageName + " is invalid.");
+        }
+        try {
+            Files.deleteIfExists(this.root.resolve(containerName).resolve(imageName));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public String initUpload(String containerName, String originalImageName) {
+        ImageUploads.checkContainerName(containerName);
+        return ImageUploads.newImageName(originalImageName);
+    }
+
+    @Override
+    public void putBlock(String containerName, String uploadId, int blockIndex, InputStream data, long length) throws IOException {
+        ImageUploads.checkContainerName(containerName);
+        ImageUploads.checkUploadId(uploadId);
+        ImageUploads.checkBlockIndex(blockIndex);
+        Path block = Files.createDirectories(uploadDirectory(containerName, uploadId)).resolve(String.valueOf(blockIndex));
+        Path temporary = temporaryFile(block);
+        try {
+            long copied = Files.copy(data, temporary, StandardCopyOption.REPLACE_EXISTING);
+            if (copied != length) {
+                throw new InvalidUploadException("Block " + blockIndex + " has " + copied + " bytes instead of " + length + ".");
+            }
+            Files.move(temporary, block, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING); // Sending a block again replaces it
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public List<Integer> findUploadedBlocks(String containerName, String uploadId) {
+        ImageUploads.checkContainerName(containerName);
+        ImageUploads.checkUploadId(uploadId);
+        try (Stream<Path> blocks = Files.list(uploadDirectory(containerName, uploadId))) {
+            return blocks.map(block -> block.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .map(Integer::valueOf)
+                    .sorted()
+                    .toList();
+        } catch (NoSuchFileException ex) {
+            return List.of(); // No block has arrived yet
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public String commitUpload(String containerName, String uploadId, int blockCount) {
+        ImageUploads.checkComplete(findUploadedBlocks(containerName, uploadId), blockCount);
+        Path uploadDirectory = uploadDirectory(containerName, uploadId);
+        try {
+            Path image = Files.createDirectories(this.root.resolve(containerName)).resolve(uploadId);
+            Path temporary = temporaryFile(image);
+            try {
+                try (FileChannel target = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    for (int blockIndex = 0; blockIndex < blockCount; blockIndex++) {
+                        try (FileChannel source = FileChannel.open(uploadDirectory.resolve(String.valueOf(blockIndex)), StandardOpenOption.READ)) {
+                            long size = source.size();
+                            for (long position = 0; position < size; ) {
+                                position += source.transferTo(position, size - position, target); // Copied by the kernel where it can
+                            }
+                        }
+                    }
+                }
+                Files.move(temporary, image, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            try (Stream<Path> blocks = Files.list(uploadDirectory)) {
+                for (Path block : blocks.toList()) {
+                    Files.deleteIfExists(block);
+                }
+            }
+            Files.deleteIfExists(uploadDirectory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return imageUrl(containerName, uploadId);
+    }
+
+    /**
+     * Deletes the uploads that have not received a block for upload-ttl, so abandoned uploads do not fill the disk.
+     *
+     * @return the number of uploads deleted
+     */
+    @Scheduled(fixedDelayString = "${image.filesystem.upload-sweep-interval:3600000}", initialDelayString = "${image.filesystem.upload-sweep-interval:3600000}")
+    public int sweepAbandonedUploads() {
+        Path uploads = this.root.resolve(UPLOADS_DIRECTORY);
+        if (!Files.isDirectory(uploads)) {
+            return 0;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(this.uploadTtl));
+        int deleted = 0;
+        try (Stream<Path> containers = Files.list(uploads)) {
+            for (Path container : containers.filter(Files::isDirectory).toList()) {
+                try (Stream<Path> uploadDirectories = Files.list(container)) {
+                    for (Path uploadDirectory : uploadDirectories.filter(Files::isDirectory).toList()) {
+                        if (lastModified(uploadDirectory).compareTo(cutoff) < 0) {
+                            deleteRecursively(uploadDirectory);
+                            deleted++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Sweeping abandoned image uploads failed, it is retried on the next run: {}", ex.toString());
+        }
+        if (deleted > 0) {
+            LOGGER.info("Deleted {} image uploads abandoned for more than {}", deleted, this.uploadTtl);
+        }
+        return deleted;
+    }
+
+    /**
+     * @return the image's file
+     * @throws ObjectNotFoundException if there is no such image, or the names could not have been produced by this client
+     */
+    public Path findImage(String containerName, String imageName) {
+        try {
+            ImageUploads.checkContainerName(containerName);
+        } catch (InvalidUploadException ex) {
+            throw new ObjectNotFoundException("image", containerName + "/" + imageName);
+        }
+        Path image = this.root.resolve(containerName).resolve(imageName);
+        if (!ImageUploads.isImageName(imageName) || !Files.isRegularFile(image)) {
+            throw new ObjectNotFoundException("image", containerName + "/" + imageName);
+        }
+        return image;
+    }
+
+    private Path uploadDirectory(String containerName, String uploadId) {
+        return this.root.resolve(UPLOADS_DIRECTORY).resolve(containerName).resolve(uploadId);
+    }
+
+    /**
+     * The time the newest block of an upload arrived, or the upload was started if none has.
+     */
+    private static FileTime lastModified(Path uploadDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(uploadDirectory)) {
+            FileTime lastModified = Files.getLastModifiedTime(uploadDirectory);
+            for (Path file : files.toList()) {
+                FileTime fileModified = Files.getLastModifiedTime(file);
+                if (fileModified.compareTo(lastModified) > 0) {
+                    lastModified = fileModified;
+                }
+            }
+            return lastModified;
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) { // Children before their directory
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private String imageUrl(String containerName, String imageName) {
+        return this.publicUrl + "/" + containerName + "/" + imageName;
+    }
+
+    /**
+     * A uniquely named file next to the given one, so concurrent writes of the same block do not share it.
+     */
+    private static Path temporaryFile(Path file) throws IOException {
+        return Files.createTempFile(file.getParent(), "." + file.getFileName() + "-", ".tmp");
+    }
+}
@@ -2,8 +2,55 @@ package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
+/**
+ * Stores artifact images. An image is either uploaded in one call, or in blocks: initUpload names the image, putBlock
+ * stores each block under its index, in any order and in parallel, and commitUpload assembles the blocks into the
+ * image. Blocks are kept until the upload is committed, so after a dropped connection the client asks
+ * findUploadedBlocks which ones arrived and sends only the others.
+ */
 public interface ImageStorageClient {
 
     String uploadImage (String containerName, String originalImageName, InputStream data, long length) throws IOException;
+
+    /**
+     * Reads a stored image back, such as to derive resized variants from it.
+     *
+     * @param imageName the last segment of the image URL
+     * @throws edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException if there is no such image
+     */
+    InputStream openImage(String containerName, String imageName) throws IOException;
+
+    /**
+     * Deletes an image, if it exists.
+     *
+     * @param imageName the last segment of the image URL
+     */
+    void deleteImage(String containerName, String imageName);
+
+    /**
+     * @return the upload id, which is also the name the image is stored under once committed
+     */
+    String initUpload(String containerName, String originalImageName);
+
+    /**
+     * Stores one block of an upload. Sending a block again replaces it.
+     *
+     * @param blockIndex the position of the block in the image, from 0
+     */
+    void putBlock(String containerName, String uploadId, int blockIndex, InputStream data, long length) throws IOException;
+
+    /**
+     * @return the indexes of the blocks stored for the upload so far, in ascending order
+     */
+    List<Integer> findUploadedBlocks(String containerName, String uploadId);
+
+    /**
+     * Assembles blocks 0 to blockCount - 1 into the image.
+     *
+     * @return the image URL
+     * @throws edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException if a block is missing
+     */
+    String commitUpload(String containerName, String uploadId, int blockCount);
 }
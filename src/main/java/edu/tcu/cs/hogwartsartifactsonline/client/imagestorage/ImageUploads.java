@@ -0,0 +1,109 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Naming and validation shared by the ImageStorageClient implementations.
+ */
+public final class ImageUploads {
+
+    public static final int MAX_BLOCKS = 50_000; // The most blocks an Azure block blob can have
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\.[A-Za-z0-9]{1,10})?");
+
+    private static final Pattern CONTAINER_NAME = Pattern.compile("[a-z0-9](?:[a-z0-9]|-(?=[a-z0-9])){2,62}"); // Azure's rules for container names
+
+    private static final Pattern EXTENSION = Pattern.compile("\\.[A-Za-z0-9]{1,10}");
+
+    private ImageUploads() {
+    }
+
+    /**
+     * Names an image with a random UUID, keeping the extension of its original name.
+     */
+    public static String newImageName(String originalImageName) {
+        int dot = originalImageName == null ? -1 : originalImageName.lastIndexOf('.');
+        String extension = dot < 0 ? "" : originalImageName.substring(dot);
+        return UUID.randomUUID() + (EXTENSION.matcher(extension).matches() ? extension : "");
+    }
+
+    /**
+     * Upload ids come back from clients and are used as image names, so only the ones newImageName can produce are
+     * accepted.
+     */
+    public static void checkUploadId(String uploadId) {
+        if (!isImageName(uploadId)) {
+            throw new InvalidUploadException("Upload id " + uploadId + " is invalid.");
+        }
+    }
+
+    /**
+     * Container names become directory names in the filesystem storage, so they follow Azure's rules: 3 to 63 lower case
+     * letters, digits, and single hyphens.
+     */
+    public static void checkContainerName(String containerName) {
+        if (containerName == null || !CONTAINER_NAME.matcher(containerName).matches()) {
+            throw new InvalidUploadException("Container name " + containerName + " is invalid.");
+        }
+    }
+
+    /**
+     * @return true if the name is one newImageName can produce
+     */
+    public static boolean isImageName(String imageName) {
+        return imageName != null && UPLOAD_ID.matcher(imageName).matches();
+    }
+
+    public static void checkBlockIndex(int blockIndex) {
+        if (blockIndex < 0 || blockIndex >= MAX_BLOCKS) {
+            throw new InvalidUploadException("Block index must be between 0 and " + (MAX_BLOCKS - 1) + ".");
+        }
+    }
+
+    /**
+     * Azure requires the block ids of a blob to be Base64 strings of the same length, so the index is zero-padded.
+     */
+    public static String blockId(int blockIndex) {
+        return Base64.getEncoder().encodeToString("block-%06d".formatted(blockIndex).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the index the block id was made from, or -1 if it was not made by blockId
+     */
+    public static int blockIndex(String blockId) {
+        try {
+            String decoded = new String(Base64.getDecoder().decode(blockId), StandardCharsets.US_ASCII);
+            return decoded.startsWith("block-") ? Integer.parseInt(decoded.substring(6)) : -1;
+        } catch (IllegalArgumentException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * @throws InvalidUploadException listing the missing indexes if not every block from 0 to blockCount - 1 was uploaded
+     */
+    public static void checkComplete(Collection<Integer> uploadedBlocks, int blockCount) {
+        if (blockCount < 1 || blockCount > MAX_BLOCKS) {
+            throw new InvalidUploadException("Block count must be between 1 and " + MAX_BLOCKS + ".");
+        }
+        Set<Integer> uploaded = new HashSet<>(uploadedBlocks);
+        List<Integer> missingBlocks = IntStream.range(0, blockCount)
+                .filter(blockIndex -> !uploaded.contains(blockIndex))
+                .boxed()
+                .limit(100) // Enough for the message
+                .toList();
+        if (!missingBlocks.isEmpty()) {
+            throw new InvalidUploadException("Blocks " + missingBlocks + " have not been uploaded.");
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package edu.tcu.cs.hogwartsartifactsonline.client.rediscache;
 
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /*
@@ -11,6 +16,13 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class RedisCacheClient {
 
+    // Compare-and-set scripts, so checking that a key still holds a value and acting on it is one atomic step
+    private static final RedisScript<Long> EXPIRE_IF_EQUALS = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    private static final RedisScript<Long> DELETE_IF_EQUALS = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
     private final StringRedisTemplate redisTemplate;
 
     public RedisCacheClient(StringRedisTemplate redisTemplate) {
@@ -21,14 +33,84 @@ public class RedisCacheClient {
         this.redisTemplate.opsForValue().set(key, value, timeout, timeUnit);
     }
 
+    /**
+     * @return true if the key did not exist and has been set, false if it already existed
+     */
+    public boolean setIfAbsent(String key, String value, long timeout, TimeUnit timeUnit) {
+        return Boolean.TRUE.equals(this.redisTemplate.opsForValue().setIfAbsent(key, value, timeout, timeUnit));
+    }
+
+    /**
+     * Resets the timeout of a key, but only if it still holds the given value.
+     *
+     * @return false if the key has expired or holds another value
+     */
+    public boolean expireIfEquals(String key, String value, long timeout, TimeUnit timeUnit) {
+        Long expired = this.redisTemplate.execute(EXPIRE_IF_EQUALS, List.of(key), value, String.valueOf(timeUnit.toMillis(timeout)));
+        return expired != null && expired == 1;
+    }
+
+    /**
+     * Deletes a key, but only if it still holds the given value.
+     *
+     * @return false if the key has expired or holds another value
+     */
+    public boolean deleteIfEquals(String key, String value) {
+        Long deleted = this.redisTemplate.execute(DELETE_IF_EQUALS, List.of(key), value);
+        return deleted != null && deleted == 1;
+    }
+
     public String get(String key) {
         return this.redisTemplate.opsForValue().get(key);
     }
 
+    /**
+     * @return the values of the keys in the same order, with null for a key that does not exist
+     */
+    public List<String> multiGet(List<String> keys) {
+        return this.redisTemplate.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * Sets many keys with the same timeout in one pipelined round trip.
+     */
+    public void multiSet(Map<String, String> values, long timeout, TimeUnit timeUnit) {
+        this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                values.forEach((key, value) -> operations.opsForValue().set(key, value, timeout, timeUnit));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Sets many keys with the same timeout in one pipelined round trip, each only if it does not exist yet.
+     */
+    public void multiSetIfAbsent(Map<String, String> values, long timeout, TimeUnit timeUnit) {
+        this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                values.forEach((key, value) -> operations.opsForValue().setIfAbsent(key, value, timeout, timeUnit));
+                return null;
+            }
+        });
+    }
+
     public void delete(String key) {
         this.redisTemplate.delete(key);
     }
 
+    public Long increment(String key) {
+        return this.redisTemplate.opsForValue().increment(key);
+    }
+
+    public void publish(String channel, String message) {
+        this.redisTemplate.convertAndSend(channel, message);
+    }
+
     public boolean isUserTokenInWhiteList(String userId, String tokenFromRequest) {
         String tokenFromRedis = get("whitelist:" + userId);
         return tokenFromRedis != null && tokenFromRedis.equals(tokenFromRequest);
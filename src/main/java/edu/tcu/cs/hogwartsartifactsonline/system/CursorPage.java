@@ -0,0 +1,24 @@
+package edu.tcu.cs.hogwartsartifactsonline.system;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A slim page envelope used by cursor (keyset) pagination. Unlike a Spring Data Page, it carries no
+ * total element count, so producing it never requires a count(*) query.
+ *
+ * @param content the rows of this page
+ * @param size    the requested page size
+ * @param next    an opaque token that fetches the page after this one, null if this is the last page
+ * @param prev    an opaque token that fetches the page before this one, null if this is the first page
+ * @param <T>     the type of the rows
+ */
+public record CursorPage<T>(List<T> content,
+                            int size,
+                            String next,
+                            String prev) {
+
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        return new CursorPage<>(this.content.stream().<U>map(converter).toList(), this.size, this.next, this.prev);
+    }
+}
@@ -0,0 +1,94 @@
+package edu.tcu.cs.hogwartsartifactsonline.system;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Strong ETags derived from entity version columns, and the conditional request checks that use them.
+ * <p>
+ * Responses that carry an ETag are marked Cache-Control: no-cache, so clients keep them but revalidate with
+ * If-None-Match on every use, and Spring Security does not replace the header with no-store.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @param versions the versions the representation depends on, in a fixed order; nulls, such as the version of a
+     *                 missing owner, are left out
+     * @return a strong ETag, or null if there are no versions
+     */
+    public static String of(Object... versions) {
+        String value = Arrays.stream(versions)
+                .filter(Objects::nonNull)
+                .map(String::valueOf)
+                .collect(Collectors.joining("."));
+        return value.isEmpty() ? null : "\"" + value + "\"";
+    }
+
+    /**
+     * Evaluates If-None-Match, which uses the weak comparison: a W/ prefix is ignored.
+     *
+     * @return true if the client's copy is current, so 304 Not Modified can be sent instead of the representation
+     */
+    public static boolean isNotModified(String ifNoneMatch, String eTag) {
+        return matches(ifNoneMatch, eTag, false);
+    }
+
+    /**
+     * Evaluates If-Match, which uses the strong comparison: a weak ETag never matches.
+     *
+     * @return true if the header is present and the client's copy is not current, so the request must be rejected
+     */
+    public static boolean isPreconditionFailed(String ifMatch, String eTag) {
+        return ifMatch != null && !matches(ifMatch, eTag, true);
+    }
+
+    private static boolean matches(String header, String eTag, boolean strong) {
+        if (header == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                if (strong) {
+                    continue;
+                }
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static ResponseEntity<Result> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    /**
+     * @param eTag the ETag of the result's data, or null to send it without one
+     */
+    public static ResponseEntity<Result> ok(String eTag, Result result) {
+        if (eTag == null) {
+            return ResponseEntity.ok(result);
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(result);
+    }
+}
@@ -0,0 +1,51 @@
+package edu.tcu.cs.hogwartsartifactsonline.system;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The decoded form of an opaque pagination token. It remembers the sort key and the id of the row a page
+ * ended (or started) at, so the next query can seek straight to it through an index instead of skipping
+ * OFFSET rows.
+ *
+ * @param property the sort property the token was issued for
+ * @param key      the value of the sort property of the boundary row
+ * @param id       the id of the boundary row, used as a tie-breaker when sort keys are equal
+ * @param backward true if the token fetches the rows before the boundary row, false for the rows after it
+ */
+public record KeysetCursor(String property,
+                           String key,
+                           String id,
+                           boolean backward) {
+
+    public String encode() {
+        String raw = (this.backward ? "B" : "F") + "\n" + this.property + "\n" + this.id + "\n" + this.key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token            the opaque token sent by the client
+     * @param expectedProperty the sort property of the current request, a token issued for another sort is rejected
+     * @return the decoded cursor
+     */
+    public static KeysetCursor decode(String token, String expectedProperty) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("The cursor is malformed.");
+        }
+        String[] parts = raw.split("\n", 4); // The key goes last so that it may contain any character.
+        if (parts.length != 4 || !(parts[0].equals("F") || parts[0].equals("B"))) {
+            throw new InvalidCursorException("The cursor is malformed.");
+        }
+        if (!parts[1].equals(expectedProperty)) {
+            throw new InvalidCursorException("The cursor was issued for a different sort order.");
+        }
+        return new KeysetCursor(parts[1], parts[3], parts[2], parts[0].equals("B"));
+    }
+}
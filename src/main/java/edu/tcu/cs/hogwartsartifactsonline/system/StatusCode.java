@@ -12,6 +12,10 @@ public class StatusCode {
 
     public static final int NOT_FOUND = 404; // Not found
 
+    public static final int PRECONDITION_FAILED = 412; // The resource changed since the client read it
+
+    public static final int TOO_MANY_REQUESTS = 429; // Server is busy, retry later
+
     public static final int INTERNAL_SERVER_ERROR = 500; // Server internal error
 
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.actuator;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the most frequently fetched artifacts in constant memory, no matter how many distinct ids are fetched.
+ * <p>
+ * Hits are counted in a Count-Min sketch: depth rows of width counters, where an id increments one counter per row and
+ * its estimated count is the smallest of them. Collisions can only inflate an estimate, never deflate it. The counters
+ * are atomic, so recording a hit takes no lock. Next to the sketch sits a top-K table of candidate ids; the lock guarding
+ * it is only taken when an id outside the table overtakes the smallest count in it, which becomes rare once traffic
+ * settles.
+ * <p>
+ * This replaces one Micrometer counter per artifact id, which grew the registry and the Prometheus scrape without bound.
+ * The ids are exposed through the hot-artifacts actuator endpoint, and the counts through one gauge per rank.
+ */
+@Component
+public class HotArtifactTracker {
+
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL};
+
+    private final int topK;
+
+    private final int depth;
+
+    private final int widthBits;
+
+    private final AtomicLongArray counters;
+
+    private final Map<Long, Long> top = new ConcurrentHashMap<>(); // Candidate id -> its estimate when last compared
+
+    private final Object topLock = new Object();
+
+    private volatile long admissionThreshold = 0; // The smallest count in a full top-K table
+
+    private final LongAdder total = new LongAdder();
+
+    public HotArtifactTracker(MeterRegistry meterRegistry,
+                              @Value("${artifact.hot.top-k:10}") int topK,
+                              @Value("${artifact.hot.sketch-depth:4}") int depth,
+                              @Value("${artifact.hot.sketch-width:4096}") int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("artifact.hot.sketch-depth must be between 1 and " + SEEDS.length + ".");
+        }
+        this.topK = topK;
+        this.depth = depth;
+        this.widthBits = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(width, 2) - 1); // Rounds the width up to a power of two
+        this.counters = new AtomicLongArray(depth << this.widthBits);
+
+        for (int i = 0; i < topK; i++) {
+            int rank = i + 1;
+            Gauge.builder("artifact.hot.count", this, tracker -> tracker.countAtRank(rank))
+                    .tag("rank", String.valueOf(rank))
+                    .description("Estimated number of fetches of the artifact at this rank, see /actuator/hot-artifacts for its id")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("artifact.hot.total", this.total, LongAdder::sum)
+                .description("Number of artifact fetches recorded since the last reset")
+                .register(meterRegistry);
+    }
+
+    public void record(Long artifactId) {
+        this.total.increment();
+        long key = artifactId; // Mixed with all 64 bits: Long.hashCode() would fold it to 32 first, so ids with the same fold would share every counter
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) {
+            estimate = Math.min(estimate, this.counters.incrementAndGet(index(row, key)));
+        }
+        if (estimate < this.admissionThreshold || this.top.containsKey(artifactId)) {
+            return; // Lock-free path: either not hot enough, or already a candidate
+        }
+        synchronized (this.topLock) {
+            if (this.top.containsKey(artifactId)) {
+                return;
+            }
+            this.top.put(artifactId, estimate);
+            if (this.top.size() > this.topK) {
+                // Stored counts go stale as their ids keep being fetched, so refresh them before picking the one to drop.
+                this.top.replaceAll((id, count) -> estimate(id));
+                this.top.entrySet().stream().min(Map.Entry.comparingByValue())
+                        .ifPresent(smallest -> this.top.remove(smallest.getKey()));
+            }
+            if (this.top.size() == this.topK) {
+                this.admissionThreshold = this.top.values().stream().mapToLong(Long::longValue).min().orElse(0);
+            }
+        }
+    }
+
+    /**
+     * Returns the hottest artifacts with their estimated counts, hottest first.
+     */
+    public List<HotArtifact> hotArtifacts() {
+        return this.top.keySet().stream()
+                .map(id -> new HotArtifact(id, estimate(id)))
+                .sorted(Comparator.comparingLong(HotArtifact::count).reversed().thenComparing(HotArtifact::id))
+                .toList();
+    }
+
+    public long total() {
+        return this.total.sum();
+    }
+
+    public void reset() {
+        synchronized (this.topLock) {
+            for (int i = 0; i < this.counters.length(); i++) {
+                this.counters.set(i, 0);
+            }
+            this.top.clear();
+            this.admissionThreshold = 0;
+            this.total.reset();
+        }
+    }
+
+    private long estimate(Long artifactId) {
+        long key = artifactId;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) {
+            estimate = Math.min(estimate, this.counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    private double countAtRank(int rank) {
+        List<HotArtifact> hotArtifacts = hotArtifacts();
+        return rank <= hotArtifacts.size() ? hotArtifacts.get(rank - 1).count() : 0;
+    }
+
+    private int index(int row, long key) {
+        long h = (key ^ SEEDS[row]) * 0xBF58476D1CE4E5B9L; // One multiply-shift hash per row
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        return (row << this.widthBits) | (int) (h >>> (Long.SIZE - this.widthBits));
+    }
+
+    public record HotArtifact(@JsonSerialize(using = ToStringSerializer.class) Long id, long count) {
+    }
+}
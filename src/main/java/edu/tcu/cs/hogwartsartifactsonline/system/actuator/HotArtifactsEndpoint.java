@@ -0,0 +1,31 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.actuator;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Endpoint(id = "hot-artifacts")
+@Component
+public class HotArtifactsEndpoint {
+
+    private final HotArtifactTracker hotArtifactTracker;
+
+    public HotArtifactsEndpoint(HotArtifactTracker hotArtifactTracker) {
+        this.hotArtifactTracker = hotArtifactTracker;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotArtifacts() {
+        List<HotArtifactTracker.HotArtifact> hotArtifacts = this.hotArtifactTracker.hotArtifacts();
+        return Map.of("total", this.hotArtifactTracker.total(), "artifacts", hotArtifacts);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        this.hotArtifactTracker.reset();
+    }
+}
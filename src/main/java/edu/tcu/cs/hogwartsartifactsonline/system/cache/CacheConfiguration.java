@@ -0,0 +1,129 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacets;
+import edu.tcu.cs.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Declares the application's caches. They hold DTOs rather than entities: entities carry lazy associations and
+ * bidirectional references that neither survive detachment from their session nor serialize to Redis.
+ * <p>
+ * Every cache reads its settings from cache.[name].*, falling back to cache.default.*:
+ * enabled, local-max-size, local-ttl, and redis-ttl (0 keeps the cache local only).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheConfiguration.class.getName());
+
+    private static final int LISTENER_THREADS = 2;
+
+    private static final int LISTENER_QUEUE_CAPACITY = 10_000;
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisCacheClient redisCacheClient, ObjectMapper objectMapper, MeterRegistry meterRegistry, Environment environment) {
+        TypeFactory typeFactory = objectMapper.getTypeFactory();
+        Map<String, JavaType> valueTypes = new LinkedHashMap<>();
+        valueTypes.put("artifact", typeFactory.constructType(ArtifactDto.class));
+        valueTypes.put("artifactPages", typeFactory.constructParametricType(CachedPage.class, ArtifactDto.class));
+        valueTypes.put("artifactCursorPages", typeFactory.constructParametricType(CursorPage.class, ArtifactDto.class));
+        valueTypes.put("artifactFacets", typeFactory.constructType(ArtifactFacets.class));
+        valueTypes.put("wizard", typeFactory.constructType(WizardDto.class));
+        valueTypes.put("artifactSummary", typeFactory.constructType(String.class)); // Keyed by CatalogVersion, never evicted
+
+        List<Cache> caches = new ArrayList<>();
+        valueTypes.forEach((name, valueType) -> {
+            if (!setting(environment, name, "enabled", Boolean.class)) {
+                caches.add(new NoOpCache(name));
+                return;
+            }
+            com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                    .maximumSize(setting(environment, name, "local-max-size", Long.class))
+                    .expireAfterWrite(setting(environment, name, "local-ttl", Duration.class))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, local, name, "tier", "l1"); // cache.gets, cache.evictions, cache.size, ...
+            caches.add(new TwoTierCache(name, local, redisCacheClient, objectMapper, valueType,
+                    setting(environment, name, "redis-ttl", Duration.class), meterRegistry));
+        });
+        return new TwoTierCacheManager(caches);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory, TwoTierCacheManager cacheManager, CatalogVersion catalogVersion) {
+        // Without an executor of its own, the container starts a new thread for every message
+        ThreadPoolTaskExecutor listenerExecutor = new ThreadPoolTaskExecutor();
+        listenerExecutor.setThreadNamePrefix("cache-invalidation-");
+        listenerExecutor.setCorePoolSize(LISTENER_THREADS);
+        listenerExecutor.setMaxPoolSize(LISTENER_THREADS);
+        listenerExecutor.setQueueCapacity(LISTENER_QUEUE_CAPACITY);
+        listenerExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy()); // Slows the subscription down rather than dropping messages
+        listenerExecutor.initialize();
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false; // Started by subscribeToInvalidations, so that an unreachable Redis does not fail startup
+            }
+
+            @Override
+            public void destroy() throws Exception {
+                super.destroy();
+                listenerExecutor.shutdown();
+            }
+        };
+        container.setConnectionFactory(redisConnectionFactory);
+        container.setTaskExecutor(listenerExecutor);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(catalogVersion, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL)); // Catalog changes for the in-memory indexes
+        return container;
+    }
+
+    /**
+     * Subscribes to the invalidation channel once the application is up. If Redis is unreachable, this node runs without
+     * invalidations from other nodes, and its L1 entries go stale for at most their TTL.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToInvalidations(ApplicationReadyEvent event) {
+        RedisMessageListenerContainer container = event.getApplicationContext().getBean("cacheInvalidationListenerContainer", RedisMessageListenerContainer.class);
+        try {
+            container.start();
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not subscribe to cache invalidations, local cache entries may be stale for up to their TTL: {}", ex.toString());
+        }
+    }
+
+    private static <T> T setting(Environment environment, String cacheName, String setting, Class<T> type) {
+        T value = environment.getProperty("cache." + cacheName + "." + setting, type);
+        return value != null ? value : environment.getRequiredProperty("cache.default." + setting, type);
+    }
+}
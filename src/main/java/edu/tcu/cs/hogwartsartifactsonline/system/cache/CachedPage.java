@@ -0,0 +1,22 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * The cacheable part of a Page. PageImpl cannot be read back from JSON, so pages are cached as their content and total
+ * and rebuilt around the requested Pageable.
+ */
+public record CachedPage<T>(List<T> content, long totalElements) {
+
+    public static <T> CachedPage<T> of(Page<T> page) {
+        return new CachedPage<>(page.getContent(), page.getTotalElements());
+    }
+
+    public Page<T> toPage(Pageable pageable) {
+        return new PageImpl<>(this.content, pageable, this.totalElements);
+    }
+}
@@ -0,0 +1,97 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks up to which CatalogVersion an in-memory index has applied the changes of every node. The frontier is the
+ * version the index was rebuilt at, moved forward over every version applied since without a gap; versions applied
+ * past a gap wait until the gap is filled. A gap that stays open means a change message was lost, and the index has to
+ * be rebuilt.
+ * <p>
+ * Thread-safe.
+ */
+public class CatalogFrontier {
+
+    private long frontier = -1; // Unknown: not rebuilt yet, rebuilding, or rebuilt while Redis was unreachable
+
+    private long rebuildVersion = -1;
+
+    private boolean rebuilding = false;
+
+    private long checkedFrontier = -1;
+
+    private final TreeSet<Long> ahead = new TreeSet<>();
+
+    /**
+     * Starts a rebuild that reads the database as of the given version, or later.
+     */
+    public synchronized void rebuilding(String version) {
+        this.rebuilding = true;
+        this.frontier = -1;
+        this.rebuildVersion = parse(version);
+        this.ahead.removeIf(applied -> applied <= this.rebuildVersion);
+    }
+
+    /**
+     * Ends the rebuild started by rebuilding(version): every change up to that version is now in the index.
+     */
+    public synchronized void rebuilt() {
+        this.rebuilding = false;
+        this.frontier = this.rebuildVersion;
+        advance();
+    }
+
+    /**
+     * Ends the rebuild started by rebuilding(version) without a result: the index is stalled until it is rebuilt.
+     */
+    public synchronized void rebuildFailed() {
+        this.rebuilding = false;
+        this.frontier = -1;
+        this.checkedFrontier = -1;
+    }
+
+    /**
+     * Records that the changes of the given version are in the index.
+     */
+    public synchronized void applied(long version) {
+        if (this.frontier >= 0 && version <= this.frontier) {
+            return;
+        }
+        this.ahead.add(version);
+        advance();
+    }
+
+    /**
+     * @return whether every change up to the given version is in the index. Never true for a local version, which
+     * only counts this node's writes.
+     */
+    public synchronized boolean isCurrentAt(String version) {
+        long current = parse(version);
+        return current >= 0 && this.frontier >= current;
+    }
+
+    /**
+     * Meant to be called periodically with the current version.
+     *
+     * @return whether the index is behind that version and has not moved since the previous call, so it missed a change
+     */
+    public synchronized boolean isStalled(String version) {
+        long current = parse(version);
+        boolean stalled = !this.rebuilding && current >= 0 && this.frontier < current && this.frontier == this.checkedFrontier;
+        this.checkedFrontier = this.frontier;
+        return stalled;
+    }
+
+    private void advance() {
+        if (this.frontier < 0) {
+            return;
+        }
+        while (!this.ahead.isEmpty() && this.ahead.first() <= this.frontier + 1) {
+            this.frontier = Math.max(this.frontier, this.ahead.pollFirst());
+        }
+    }
+
+    private static long parse(String version) {
+        return version != null && version.startsWith("r") ? Long.parseLong(version.substring(1)) : -1;
+    }
+}
@@ -0,0 +1,264 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import edu.tcu.cs.hogwartsartifactsonline.system.ETags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A version number for the content of the artifact catalog, that is every artifact and the owners they show. Any write
+ * that changes what a catalog-wide result such as the artifact summary would say bumps it, so such results can be cached
+ * under the version they were computed from and never need to be evicted.
+ * <p>
+ * The version lives in Redis, so all nodes agree on it. While Redis is unreachable a node falls back to a local counter,
+ * which only sees this node's writes; the two are told apart by a prefix, so a local version never matches a Redis one.
+ * Writes made during the outage bump the Redis counter once it is reachable again.
+ * <p>
+ * Every bump of the Redis counter is also published on the cache invalidation channel, with the ids of the artifacts
+ * and wizards the write changed, so that in-memory indexes on every node can follow the writes of all nodes. Listeners
+ * can tell from the versions whether they missed a change: Redis pub/sub drops messages while a node is disconnected.
+ */
+@Component
+public class CatalogVersion implements MessageListener {
+
+    public static final String ARTIFACTS = "artifact";
+
+    public static final String WIZARDS = "wizard";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogVersion.class.getName());
+
+    static final String KEY = "catalog:version";
+
+    private static final long REDIS_RETRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private static final int MAX_PUBLISHED_IDS = 10_000; // Larger changes are published as "anything may have changed"
+
+    private final RedisCacheClient redisCacheClient;
+
+    private final AtomicLong localVersion = new AtomicLong();
+
+    private volatile long redisRetryAt = System.nanoTime();
+
+    private volatile boolean redisBumpMissed = false; // A write happened while Redis was unreachable, so its counter is behind
+
+    private final List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
+
+    public CatalogVersion(RedisCacheClient redisCacheClient) {
+        this.redisCacheClient = redisCacheClient;
+    }
+
+    /**
+     * @return the current version, "r" followed by the Redis counter or "l" followed by the local one
+     */
+    public String current() {
+        if (redisAvailable()) {
+            try {
+                if (this.redisBumpMissed) {
+                    Long version = this.redisCacheClient.increment(KEY);
+                    this.redisBumpMissed = false;
+                    publish(version, null); // Other nodes did not see the writes of the outage
+                }
+                String version = this.redisCacheClient.get(KEY);
+                return "r" + (version == null ? "0" : version);
+            } catch (RuntimeException ex) {
+                redisFailed(ex);
+            }
+        }
+        return "l" + this.localVersion.get();
+    }
+
+    /**
+     * @return the current version as the ETag of a catalog-wide result such as a list page, or null while Redis is
+     * unreachable: a local version only covers this node's writes, so another node could send the same one for
+     * different content
+     */
+    public String eTag() {
+        String version = current();
+        return version.startsWith("r") ? ETags.of(version) : null;
+    }
+
+    /**
+     * Moves to a new version. Inside a transaction the bump happens once, after commit, however often it is called,
+     * so a reader cannot compute a result from the old rows and cache it under the new version.
+     */
+    public void bump() {
+        bump(null, List.of());
+    }
+
+    /**
+     * Like bump(), and tells the listeners on every node that the given artifacts or wizards changed. Inside a
+     * transaction, the ids of all its bumps are sent together after commit.
+     *
+     * @param kind ARTIFACTS or WIZARDS
+     * @param ids  the ids of the changed, added or deleted rows
+     */
+    public void bump(String kind, Collection<? extends Number> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<String, Set<Long>> changed = new HashMap<>();
+            addIds(changed, kind, ids);
+            increment(changed);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Set<Long>> changed = (Map<String, Set<Long>>) TransactionSynchronizationManager.getResource(this);
+        if (changed != null) { // Already registered for this transaction
+            addIds(changed, kind, ids);
+            return;
+        }
+        Map<String, Set<Long>> transactionChanges = new HashMap<>();
+        addIds(transactionChanges, kind, ids);
+        TransactionSynchronizationManager.bindResource(this, transactionChanges);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersion.this);
+                if (status == STATUS_COMMITTED) {
+                    increment(transactionChanges);
+                }
+            }
+        });
+    }
+
+    /**
+     * Registers a listener for the changes of every node, including this one. While Redis is reachable, the listener
+     * receives every version once, in any order and on any thread; a version it never receives was lost. While Redis
+     * is unreachable, it receives this node's changes without a version. It must return quickly and leave any database
+     * reads to a thread of its own: it is called on a Redis listener thread, or as a transaction completes.
+     */
+    public void addListener(Consumer<Change> listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length != 3 || !parts[0].equals("V")) {
+            return; // A cache invalidation, handled by TwoTierCacheManager
+        }
+        dispatch(new Change(Long.valueOf(parts[1]), parseIds(parts[2])));
+    }
+
+    private void increment(Map<String, Set<Long>> changed) {
+        this.localVersion.incrementAndGet();
+        if (redisAvailable()) {
+            try {
+                boolean missed = this.redisBumpMissed;
+                Long version = this.redisCacheClient.increment(KEY);
+                this.redisBumpMissed = false;
+                publish(version, missed ? null : changed);
+                return;
+            } catch (RuntimeException ex) {
+                redisFailed(ex);
+            }
+        }
+        this.redisBumpMissed = true; // Caught up on the next successful read
+        dispatch(new Change(null, changed)); // Only this node's listeners can be told
+    }
+
+    private void publish(Long version, Map<String, Set<Long>> changed) {
+        if (version == null) {
+            return;
+        }
+        try {
+            this.redisCacheClient.publish(TwoTierCacheManager.INVALIDATION_CHANNEL, changeMessage(version, changed));
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not publish catalog version {}, other nodes will resync: {}", version, ex.toString());
+        }
+    }
+
+    private void dispatch(Change change) {
+        for (Consumer<Change> listener : this.listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Catalog change listener failed on version {}: {}", change.version(), ex.toString());
+            }
+        }
+    }
+
+    /**
+     * Encodes a change as "V", the version and the ids as "kind:id,id;kind:id", one per line, or "*" for anything. Kinds
+     * and ids are sorted, so equal changes have equal messages.
+     */
+    static String changeMessage(long version, Map<String, Set<Long>> changed) {
+        if (changed == null || changed.values().stream().mapToInt(Set::size).sum() > MAX_PUBLISHED_IDS) {
+            return "V\n" + version + "\n*";
+        }
+        StringJoiner kinds = new StringJoiner(";");
+        new TreeMap<>(changed).forEach((kind, ids) -> {
+            StringJoiner joiner = new StringJoiner(",", kind + ":", "");
+            new TreeSet<>(ids).forEach(id -> joiner.add(String.valueOf(id)));
+            kinds.add(joiner.toString());
+        });
+        return "V\n" + version + "\n" + kinds;
+    }
+
+    private static Map<String, Set<Long>> parseIds(String ids) {
+        if (ids.equals("*")) {
+            return null;
+        }
+        Map<String, Set<Long>> changed = new HashMap<>();
+        for (String kindIds : ids.split(";")) {
+            int colon = kindIds.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            Set<Long> kindSet = changed.computeIfAbsent(kindIds.substring(0, colon), key -> new HashSet<>());
+            for (String id : kindIds.substring(colon + 1).split(",")) {
+                if (!id.isEmpty()) {
+                    kindSet.add(Long.valueOf(id));
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static void addIds(Map<String, Set<Long>> changed, String kind, Collection<? extends Number> ids) {
+        if (kind != null && !ids.isEmpty()) {
+            Set<Long> kindSet = changed.computeIfAbsent(kind, key -> new HashSet<>());
+            ids.forEach(id -> kindSet.add(id.longValue()));
+        }
+    }
+
+    private boolean redisAvailable() {
+        return System.nanoTime() - this.redisRetryAt >= 0;
+    }
+
+    private void redisFailed(RuntimeException ex) {
+        this.redisRetryAt = System.nanoTime() + REDIS_RETRY_INTERVAL_NANOS;
+        LOGGER.warn("Catalog version falls back to the local counter for the next 30 seconds: {}", ex.toString());
+    }
+
+    /**
+     * A change of the catalog.
+     *
+     * @param version the Redis version it moved the catalog to, or null if Redis was unreachable
+     * @param ids     the changed ids by kind, or null if anything may have changed
+     */
+    public record Change(Long version, Map<String, Set<Long>> ids) {
+
+        public Set<Long> ids(String kind) {
+            return this.ids == null ? Set.of() : this.ids.getOrDefault(kind, Set.of());
+        }
+    }
+}
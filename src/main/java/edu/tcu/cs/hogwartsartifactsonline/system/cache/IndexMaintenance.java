@@ -0,0 +1,151 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the upkeep of an in-memory index on a thread of its own: its full rebuilds, and the CatalogVersion changes of
+ * every node it follows. Neither the shared scheduler thread, nor a Redis listener thread, nor a thread completing a
+ * transaction waits on the database for the index this way.
+ * <p>
+ * Work queued while the thread is busy is merged: the changes of a burst of writes are applied together, with one read
+ * of the changed rows, and a queued rebuild takes the place of every change queued with it, since it reads all rows
+ * after they were made.
+ * <p>
+ * The thread is started on demand and ends after a minute without work.
+ */
+public class IndexMaintenance {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexMaintenance.class.getName());
+
+    private final String name;
+
+    private final CatalogFrontier frontier;
+
+    private final Runnable rebuild;
+
+    private final Consumer<Map<String, Set<Long>>> apply;
+
+    private final ThreadPoolExecutor executor;
+
+    private boolean rebuildPending = false;
+
+    private Map<String, Set<Long>> pendingIds = new HashMap<>();
+
+    private List<Long> pendingVersions = new ArrayList<>();
+
+    private boolean running = false;
+
+    /**
+     * @param name     names the thread and the log messages
+     * @param frontier told which versions are applied
+     * @param rebuild  rebuilds the index from the database, moving the frontier itself
+     * @param apply    reads the rows of the given ids by kind back from the database into the index
+     */
+    public IndexMaintenance(String name, CatalogFrontier frontier, Runnable rebuild, Consumer<Map<String, Set<Long>>> apply) {
+        this.name = name;
+        this.frontier = frontier;
+        this.rebuild = rebuild;
+        this.apply = apply;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * Queues a rebuild, unless one is queued already.
+     */
+    public synchronized void requestRebuild() {
+        this.rebuildPending = true;
+        schedule();
+    }
+
+    /**
+     * Queues a change to apply, or a rebuild if anything may have changed. Returns at once.
+     */
+    public synchronized void changed(CatalogVersion.Change change) {
+        if (change.ids() == null) {
+            this.rebuildPending = true;
+        } else {
+            change.ids().forEach((kind, ids) -> this.pendingIds.computeIfAbsent(kind, key -> new HashSet<>()).addAll(ids));
+            if (change.version() != null) {
+                this.pendingVersions.add(change.version());
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Waits until no work is queued or running.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public synchronized boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (this.running) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                return false;
+            }
+            wait(left);
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private void schedule() {
+        if (!this.running) {
+            this.running = true;
+            this.executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            boolean rebuildNow;
+            Map<String, Set<Long>> ids;
+            List<Long> versions;
+            synchronized (this) {
+                if (!this.rebuildPending && this.pendingIds.isEmpty() && this.pendingVersions.isEmpty()) {
+                    this.running = false;
+                    notifyAll();
+                    return;
+                }
+                rebuildNow = this.rebuildPending;
+                ids = this.pendingIds;
+                versions = this.pendingVersions;
+                this.rebuildPending = false;
+                this.pendingIds = new HashMap<>();
+                this.pendingVersions = new ArrayList<>();
+            }
+            try {
+                if (rebuildNow) {
+                    this.rebuild.run(); // Reads the catalog version first, which is at least that of every queued change
+                } else {
+                    if (!ids.isEmpty()) {
+                        this.apply.accept(ids);
+                    }
+                    versions.forEach(this.frontier::applied);
+                }
+            } catch (RuntimeException ex) {
+                // The versions are not applied, so the index stalls and the next resync rebuilds it
+                LOGGER.warn("Could not {} the {}, it is retried on the next resync: {}", rebuildNow ? "rebuild" : "update", this.name, ex.toString());
+            }
+        }
+    }
+}
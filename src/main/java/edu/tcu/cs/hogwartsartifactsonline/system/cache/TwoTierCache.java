@@ -0,0 +1,394 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Spring Cache with two tiers: a size- and TTL-bounded Caffeine cache local to this node (L1) in front of Redis (L2),
+ * which is shared by all nodes and reached through RedisCacheClient.
+ * <p>
+ * A read tries L1, then L2, then the loader, and fills the tiers it missed. Values are stored in Redis as JSON of a
+ * fixed type per cache. Evictions replace the Redis entry with a short-lived tombstone and are published on the
+ * invalidation channel so that every node drops its L1 copy. Clearing the cache bumps a generation number that is part
+ * of every Redis key, which orphans all old entries at once (they expire with their TTL) instead of scanning for them.
+ * <p>
+ * A loaded value only fills Redis if the key holds neither an entry nor a tombstone, and if the generation has not
+ * moved during the load. A load that read the old row before a concurrent eviction therefore cannot put the stale
+ * value back into Redis after it.
+ * <p>
+ * Redis is an optimization here, not a dependency: when a Redis call fails the cache carries on with L1 and the loader,
+ * and leaves Redis alone for a while before trying again. Invalidations issued meanwhile are recorded and replayed once
+ * Redis answers again, before anything is read from it; past MAX_MISSED_EVICTIONS keys, the generation is bumped
+ * instead. Other nodes can serve stale L1 entries until then, for at most the L1 TTL.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TwoTierCache.class.getName());
+
+    private static final long REDIS_RETRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    static final String TOMBSTONE = "evicted"; // Not valid JSON, so never a value
+
+    private static final long TOMBSTONE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1); // Outlives any load that started before the eviction
+
+    static final int MAX_MISSED_EVICTIONS = 1000;
+
+    private final String name;
+
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+
+    private final RedisCacheClient redisCacheClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final JavaType valueType;
+
+    private final Duration redisTtl;
+
+    private final Counter redisHits;
+
+    private final Counter redisMisses;
+
+    private final Counter redisErrors;
+
+    private volatile long generation = -1; // Unknown until read from Redis
+
+    private volatile long redisRetryAt = System.nanoTime();
+
+    private final Set<String> missedEvictions = new HashSet<>(); // Guarded by this
+
+    private boolean missedClear = false; // Guarded by this
+
+    private volatile boolean invalidationsMissed = false;
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, RedisCacheClient redisCacheClient,
+                        ObjectMapper objectMapper, JavaType valueType, Duration redisTtl, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.redisCacheClient = redisCacheClient;
+        this.objectMapper = objectMapper;
+        this.valueType = valueType;
+        this.redisTtl = redisTtl;
+        this.redisHits = Counter.builder("cache.gets").tags("cache", name, "tier", "l2", "result", "hit").register(meterRegistry);
+        this.redisMisses = Counter.builder("cache.gets").tags("cache", name, "tier", "l2", "result", "miss").register(meterRegistry);
+        this.redisErrors = Counter.builder("cache.l2.errors").tag("cache", name).description("Redis calls that failed and fell back to L1 and the loader").register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = key.toString();
+        Object value = this.local.getIfPresent(localKey);
+        if (value == null) {
+            value = readRedis(localKey);
+            if (value != null) {
+                this.local.put(localKey, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Caffeine runs the mapping function at most once per key at a time, so concurrent misses on this node share one load.
+        return (T) fromStoreValue(this.local.get(key.toString(), localKey -> {
+            Object value = readRedis(localKey);
+            if (value == null) {
+                long generationBeforeLoad = this.generation;
+                try {
+                    value = toStoreValue(valueLoader.call());
+                } catch (Throwable ex) {
+                    throw new ValueRetrievalException(key, valueLoader, ex);
+                }
+                fillRedis(Map.of(localKey, value), generationBeforeLoad);
+            }
+            return value;
+        }));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = key.toString();
+        Object storeValue = toStoreValue(value);
+        this.local.put(localKey, storeValue);
+        writeRedis(localKey, storeValue);
+    }
+
+    /**
+     * Looks up many keys at once: L1 first, then everything L1 misses with a single Redis MGET, whose hits fill L1.
+     *
+     * @return the values found, by key; keys found in neither tier are left out
+     */
+    public Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> found = new HashMap<>(this.local.getAllPresent(keys));
+        List<String> missed = keys.stream().distinct().filter(key -> !found.containsKey(key)).toList();
+        if (!missed.isEmpty()) {
+            Map<String, Object> fromRedis = readRedis(missed);
+            this.local.putAll(fromRedis);
+            found.putAll(fromRedis);
+        }
+        found.replaceAll((key, value) -> fromStoreValue(value));
+        return found;
+    }
+
+    /**
+     * Stores many entries loaded after getAll(keys) missed them, writing them to Redis in one pipelined round trip. Like
+     * the values loaded by get(key, loader), they do not replace an entry or tombstone already in Redis.
+     */
+    public void putAll(Map<String, ?> values) {
+        long generationBeforeWrite = this.generation;
+        Map<String, Object> storeValues = new HashMap<>();
+        values.forEach((key, value) -> storeValues.put(key, toStoreValue(value)));
+        this.local.putAll(storeValues);
+        fillRedis(storeValues, generationBeforeWrite);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = key.toString();
+        this.local.invalidate(localKey);
+        if (this.redisTtl.isZero()) {
+            return;
+        }
+        if (redisReady()) {
+            try {
+                evictRedis(localKey);
+                return;
+            } catch (RuntimeException ex) {
+                redisFailed(ex);
+            }
+        }
+        missed(localKey);
+    }
+
+    @Override
+    public void clear() {
+        this.local.invalidateAll();
+        if (this.redisTtl.isZero()) {
+            return;
+        }
+        if (redisReady()) {
+            try {
+                clearRedis();
+                return;
+            } catch (RuntimeException ex) {
+                this.generation = -1;
+                redisFailed(ex);
+            }
+        }
+        missed(null);
+    }
+
+    private void evictRedis(String key) {
+        this.redisCacheClient.set(redisKey(key), TOMBSTONE, Math.min(TOMBSTONE_TTL_MILLIS, this.redisTtl.toMillis()), TimeUnit.MILLISECONDS);
+        this.redisCacheClient.publish(TwoTierCacheManager.INVALIDATION_CHANNEL, TwoTierCacheManager.evictMessage(this.name, key));
+    }
+
+    private void clearRedis() {
+        long newGeneration = this.redisCacheClient.increment(generationKey());
+        this.generation = newGeneration;
+        this.redisCacheClient.publish(TwoTierCacheManager.INVALIDATION_CHANNEL, TwoTierCacheManager.clearMessage(this.name, newGeneration));
+    }
+
+    /**
+     * Records an eviction, or a clear if key is null, that could not reach Redis.
+     */
+    private synchronized void missed(String key) {
+        if (key == null || this.missedEvictions.size() >= MAX_MISSED_EVICTIONS) {
+            this.missedClear = true;
+            this.missedEvictions.clear();
+        } else if (!this.missedClear) {
+            this.missedEvictions.add(key);
+        }
+        this.invalidationsMissed = true;
+    }
+
+    /**
+     * Replays the invalidations that could not reach Redis. Kept until they all went through, so a failure midway only
+     * repeats them.
+     */
+    private synchronized void replayMissedInvalidations() {
+        if (!this.invalidationsMissed) {
+            return;
+        }
+        if (this.missedClear) {
+            clearRedis();
+        } else {
+            this.missedEvictions.forEach(this::evictRedis);
+        }
+        LOGGER.info("Replayed the invalidations of cache {} made while Redis was unreachable", this.name);
+        this.missedEvictions.clear();
+        this.missedClear = false;
+        this.invalidationsMissed = false;
+    }
+
+    /**
+     * Drops an entry from L1 only, on an eviction published by another node.
+     */
+    void evictLocal(String key) {
+        this.local.invalidate(key);
+    }
+
+    /**
+     * Drops all entries from L1 only, on a clear published by another node, and adopts its new generation.
+     */
+    void clearLocal(long newGeneration) {
+        this.generation = newGeneration;
+        this.local.invalidateAll();
+    }
+
+    private Object readRedis(String key) {
+        if (!redisReady()) {
+            return null;
+        }
+        try {
+            String json = this.redisCacheClient.get(redisKey(key));
+            if (json == null || json.equals(TOMBSTONE)) {
+                this.redisMisses.increment();
+                return null;
+            }
+            this.redisHits.increment();
+            return this.objectMapper.readValue(json, this.valueType);
+        } catch (JsonProcessingException ex) { // A value written by an older version is treated like a miss and overwritten
+            LOGGER.debug("Ignoring unreadable entry of cache {}: {}", this.name, ex.getMessage());
+            return null;
+        } catch (RuntimeException ex) {
+            redisFailed(ex);
+            return null;
+        }
+    }
+
+    private Map<String, Object> readRedis(List<String> keys) {
+        Map<String, Object> found = new HashMap<>();
+        if (!redisReady()) {
+            return found;
+        }
+        try {
+            List<String> jsons = this.redisCacheClient.multiGet(keys.stream().map(this::redisKey).toList());
+            for (int i = 0; i < keys.size(); i++) {
+                String json = jsons.get(i);
+                if (json == null || json.equals(TOMBSTONE)) {
+                    this.redisMisses.increment();
+                    continue;
+                }
+                try {
+                    found.put(keys.get(i), this.objectMapper.readValue(json, this.valueType));
+                    this.redisHits.increment();
+                } catch (JsonProcessingException ex) {
+                    LOGGER.debug("Ignoring unreadable entry of cache {}: {}", this.name, ex.getMessage());
+                }
+            }
+        } catch (RuntimeException ex) {
+            redisFailed(ex);
+        }
+        return found;
+    }
+
+    private void writeRedis(String key, Object value) {
+        if (!redisReady()) {
+            return;
+        }
+        try {
+            this.redisCacheClient.set(redisKey(key), this.objectMapper.writeValueAsString(value), this.redisTtl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception ex) {
+            redisFailed(ex);
+        }
+    }
+
+    /**
+     * Writes loaded values to Redis where it holds neither an entry nor a tombstone, unless the cache was cleared since
+     * the load started, in which case they may predate the clear.
+     */
+    private void fillRedis(Map<String, Object> values, long generationBeforeLoad) {
+        if (values.isEmpty() || !redisReady()) {
+            return;
+        }
+        try {
+            Map<String, String> jsons = new HashMap<>();
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                jsons.put(redisKey(entry.getKey()), this.objectMapper.writeValueAsString(entry.getValue()));
+            }
+            if (generationBeforeLoad >= 0 && generationBeforeLoad != this.generation) { // Unknown before, if Redis was not read
+                return;
+            }
+            if (jsons.size() == 1) {
+                Map.Entry<String, String> json = jsons.entrySet().iterator().next();
+                this.redisCacheClient.setIfAbsent(json.getKey(), json.getValue(), this.redisTtl.toMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                this.redisCacheClient.multiSetIfAbsent(jsons, this.redisTtl.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception ex) {
+            redisFailed(ex);
+        }
+    }
+
+    private boolean redisAvailable() {
+        return !this.redisTtl.isZero() && System.nanoTime() - this.redisRetryAt >= 0;
+    }
+
+    /**
+     * @return whether Redis can be used, having replayed the invalidations it missed first
+     */
+    private boolean redisReady() {
+        if (!redisAvailable()) {
+            return false;
+        }
+        if (this.invalidationsMissed) {
+            try {
+                replayMissedInvalidations();
+            } catch (RuntimeException ex) {
+                redisFailed(ex);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void redisFailed(Exception ex) {
+        this.redisErrors.increment();
+        this.redisRetryAt = System.nanoTime() + REDIS_RETRY_INTERVAL_NANOS;
+        LOGGER.warn("Redis tier of cache {} failed, using the local tier only for the next 30 seconds: {}", this.name, ex.toString());
+    }
+
+    private String redisKey(String key) {
+        long currentGeneration = this.generation;
+        if (currentGeneration < 0) {
+            String stored = this.redisCacheClient.get(generationKey());
+            currentGeneration = stored == null ? 0 : Long.parseLong(stored);
+            this.generation = currentGeneration;
+        }
+        return "cache:" + this.name + ":" + currentGeneration + ":" + key;
+    }
+
+    private String generationKey() {
+        return "cache:" + this.name + ":generation";
+    }
+}
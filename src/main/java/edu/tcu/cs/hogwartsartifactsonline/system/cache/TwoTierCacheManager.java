@@ -0,0 +1,77 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the application's caches and applies the invalidations other nodes publish on the invalidation channel.
+ * <p>
+ * The manager is transaction aware: a put or evict issued inside a transaction, such as a @CacheEvict on a service
+ * method, is applied and published only after the transaction commits, so no node can reload the old row in between.
+ */
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TwoTierCacheManager.class.getName());
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    private final Collection<Cache> caches;
+
+    private final Map<String, TwoTierCache> twoTierCaches;
+
+    /**
+     * @param caches the caches by name; a disabled cache is passed as a NoOpCache
+     */
+    public TwoTierCacheManager(Collection<Cache> caches) {
+        this.caches = caches;
+        this.twoTierCaches = caches.stream()
+                .filter(TwoTierCache.class::isInstance)
+                .map(TwoTierCache.class::cast)
+                .collect(Collectors.toMap(TwoTierCache::getName, Function.identity()));
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return this.caches;
+    }
+
+    /**
+     * Applies an invalidation published by a node, this one included. Evicting an entry that is already gone is harmless.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length != 3) {
+            LOGGER.warn("Ignoring malformed cache invalidation message");
+            return;
+        }
+        TwoTierCache cache = this.twoTierCaches.get(parts[1]);
+        if (cache == null) {
+            return; // Disabled on this node
+        }
+        if (parts[0].equals("E")) {
+            cache.evictLocal(parts[2]);
+        } else if (parts[0].equals("C")) {
+            cache.clearLocal(Long.parseLong(parts[2]));
+        }
+    }
+
+    static String evictMessage(String cacheName, String key) {
+        return "E\n" + cacheName + "\n" + key;
+    }
+
+    static String clearMessage(String cacheName, long generation) {
+        return "C\n" + cacheName + "\n" + generation;
+    }
+}
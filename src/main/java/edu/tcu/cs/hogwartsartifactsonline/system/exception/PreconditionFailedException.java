@@ -0,0 +1,16 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String objectName, String id) {
+        super("The " + objectName + " with Id " + id + " has changed since it was read, fetch it again and retry.");
+    }
+
+    public PreconditionFailedException(String objectName, Integer id) {
+        super("The " + objectName + " with Id " + id + " has changed since it was read, fetch it again and retry.");
+    }
+
+    public PreconditionFailedException(String objectName, Long id) {
+        super("The " + objectName + " with Id " + id + " has changed since it was read, fetch it again and retry.");
+    }
+}
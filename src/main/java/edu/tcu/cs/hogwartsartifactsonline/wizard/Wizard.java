@@ -3,6 +3,7 @@ package edu.tcu.cs.hogwartsartifactsonline.wizard;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.Artifact;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.OptimisticLock;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
@@ -21,8 +22,12 @@ public class Wizard implements Serializable {
     private String name;
 
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE},mappedBy = "owner")
+    @OptimisticLock(excluded = false) // Adding or removing an artifact increments the version, which Hibernate skips for mappedBy collections by default
     private List<Artifact> artifacts = new ArrayList<>();
 
+    @Version
+    private long version;
+
     public void addArtifact(Artifact artifact) {
         artifact.setOwner(this);
         artifacts.add(artifact);
@@ -1,15 +1,19 @@
 package edu.tcu.cs.hogwartsartifactsonline.wizard;
 
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
+import edu.tcu.cs.hogwartsartifactsonline.system.ETags;
 import edu.tcu.cs.hogwartsartifactsonline.system.Result;
 import edu.tcu.cs.hogwartsartifactsonline.system.StatusCode;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.converter.WizardDtoToWizardConverter;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.converter.WizardToWizardDtoConverter;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("${api.endpoint.base-url}/wizards")
 public class WizardController {
@@ -27,17 +31,29 @@ public class WizardController {
     }
 
     @GetMapping("/{wizardId}")
-    public Result findWizardById(@PathVariable Integer wizardId) {
-        Wizard wizard = wizardService.findById(wizardId);
-        WizardDto wizardDto = wizardToWizardDtoConverter.convert(wizard);
-        return new Result(true, StatusCode.SUCCESS, "Find One Success", wizardDto);
+    public ResponseEntity<Result> findWizardById(@PathVariable Integer wizardId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String eTag = wizardService.findETagById(wizardId); // Only the version column, the wizard is not loaded
+            if (ETags.isNotModified(ifNoneMatch, eTag)) {
+                return ETags.notModified(eTag);
+            }
+        }
+        WizardDto wizardDto = wizardService.findDtoById(wizardId);
+        return ETags.ok(ETags.of(wizardDto.version()), new Result(true, StatusCode.SUCCESS, "Find One Success", wizardDto));
     }
 
     @GetMapping
-    public Result findAllWizards() {
-        List<Wizard> wizards = wizardService.findAll();
-        List<WizardDto> wizardDtos = wizards.stream().map(wizardToWizardDtoConverter::convert).toList();
-        return new Result(true, StatusCode.SUCCESS, "Find All Success", wizardDtos);
+    public ResponseEntity<Result> findAllWizards(Pageable pageable, @RequestParam(required = false) String cursor, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = wizardService.findAllETag(); // Read before the wizards, so they are never older than their tag
+        if (ETags.isNotModified(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        if (cursor != null) { // Opt-in like the artifact listing: ?cursor= (empty) asks for the first page
+            CursorPage<WizardDto> wizardDtoCursorPage = wizardService.findAll(cursor, pageable);
+            return ETags.ok(eTag, new Result(true, StatusCode.SUCCESS, "Find All Success", wizardDtoCursorPage));
+        }
+        Page<WizardDto> wizardDtoPage = wizardService.findAll(pageable); // Artifacts are counted by the query, none is loaded
+        return ETags.ok(eTag, new Result(true, StatusCode.SUCCESS, "Find All Success", wizardDtoPage));
     }
 
     @PostMapping
@@ -49,11 +65,11 @@ public class WizardController {
     }
 
     @PutMapping("/{wizardId}")
-    public Result updateWizard(@PathVariable Integer wizardId, @Valid @RequestBody WizardDto wizardDto) {
+    public ResponseEntity<Result> updateWizard(@PathVariable Integer wizardId, @Valid @RequestBody WizardDto wizardDto, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Wizard update = wizardDtoToWizardConverter.convert(wizardDto);
-        Wizard updatedWizard = wizardService.update(wizardId, update);
+        Wizard updatedWizard = wizardService.update(wizardId, update, ifMatch); // 412 if the wizard changed since the client read it
         WizardDto updatedWizardDto = wizardToWizardDtoConverter.convert(updatedWizard);
-        return new Result(true, StatusCode.SUCCESS, "Update Success", updatedWizardDto);
+        return ETags.ok(ETags.of(updatedWizardDto.version()), new Result(true, StatusCode.SUCCESS, "Update Success", updatedWizardDto));
     }
 
     @DeleteMapping("/{wizardId}")
@@ -63,7 +79,7 @@ public class WizardController {
     }
 
     @PutMapping("/{wizardId}/artifacts/{artifactId}")
-    public Result assignArtifact(@PathVariable Integer wizardId, @PathVariable String artifactId) {
+    public Result assignArtifact(@PathVariable Integer wizardId, @PathVariable Long artifactId) {
         wizardService.assignArtifact(wizardId, artifactId);
         return new Result(true, StatusCode.SUCCESS, "Artifact Assignment Success");
     }
@@ -1,6 +1,61 @@
 package edu.tcu.cs.hogwartsartifactsonline.wizard;
 
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface WizardRepository extends JpaRepository<Wizard, Integer> {
+
+    /**
+     * Reads only the version of a wizard, enough to evaluate a conditional request without loading it.
+     */
+    @Query("select w.version from Wizard w where w.id = :wizardId")
+    Optional<Long> findVersionById(Integer wizardId);
+
+    /**
+     * Reads every wizard's id and name with its number of artifacts, counted in one grouped query.
+     */
+    @Query("select w.id as id, w.name as name, count(a) as numberOfArtifacts from Wizard w left join w.artifacts a group by w.id, w.name")
+    List<WizardCount> findAllWithNumberOfArtifacts();
+
+    /**
+     * Like findAllWithNumberOfArtifacts, for the given wizards only; the ids of deleted ones are left out.
+     */
+    @Query("select w.id as id, w.name as name, count(a) as numberOfArtifacts from Wizard w left join w.artifacts a where w.id in :wizardIds group by w.id, w.name")
+    List<WizardCount> findAllWithNumberOfArtifactsByIdIn(Collection<Integer> wizardIds);
+
+    /**
+     * Reads a page of wizards as DTOs, their artifacts counted by the same grouped query, so no artifact is loaded.
+     */
+    @Query(value = "select new edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto(w.id, w.name, cast(count(a) as Integer), w.version) from Wizard w left join w.artifacts a group by w.id, w.name, w.version",
+            countQuery = "select count(w) from Wizard w")
+    Page<WizardDto> findAllDtos(Pageable pageable);
+
+    /**
+     * Reads the wizards after the given id in id order, for cursor pagination; the seek is on the primary key.
+     */
+    @Query("select new edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto(w.id, w.name, cast(count(a) as Integer), w.version) from Wizard w left join w.artifacts a where w.id > :afterId group by w.id, w.name, w.version order by w.id")
+    List<WizardDto> findDtosAfter(Integer afterId, Limit limit);
+
+    /**
+     * Reads the wizards before the given id, nearest first, for walking cursor pages backward.
+     */
+    @Query("select new edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto(w.id, w.name, cast(count(a) as Integer), w.version) from Wizard w left join w.artifacts a where w.id < :beforeId group by w.id, w.name, w.version order by w.id desc")
+    List<WizardDto> findDtosBefore(Integer beforeId, Limit limit);
+
+    interface WizardCount {
+
+        Integer getId();
+
+        String getName();
+
+        long getNumberOfArtifacts();
+    }
 }
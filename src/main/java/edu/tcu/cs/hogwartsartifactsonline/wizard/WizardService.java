@@ -2,10 +2,28 @@ package edu.tcu.cs.hogwartsartifactsonline.wizard;
 
 import edu.tcu.cs.hogwartsartifactsonline.artifact.Artifact;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.ArtifactRepository;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
+import edu.tcu.cs.hogwartsartifactsonline.system.ETags;
+import edu.tcu.cs.hogwartsartifactsonline.system.KeysetCursor;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidCursorException;
 import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
 import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -16,41 +34,149 @@ public class WizardService {
 
     private final ArtifactRepository artifactRepository;
 
-    public WizardService(WizardRepository wizardRepository, ArtifactRepository artifactRepository) {
+    private final CatalogVersion catalogVersion;
+
+
+    public WizardService(WizardRepository wizardRepository, ArtifactRepository artifactRepository, CatalogVersion catalogVersion) {
         this.wizardRepository = wizardRepository;
         this.artifactRepository = artifactRepository;
+        this.catalogVersion = catalogVersion;
     }
 
     public Wizard findById(Integer wizardId) {
         return wizardRepository.findById(wizardId).orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
     }
 
-    public List<Wizard> findAll() {
-        return wizardRepository.findAll();
+    /**
+     * Returns the wizard as a DTO, counting its artifacts with a grouped query instead of loading them.
+     */
+    @Cacheable(cacheNames = "wizard", key = "#wizardId", sync = true)
+    public WizardDto findDtoById(Integer wizardId) {
+        Wizard wizard = findById(wizardId);
+        long numberOfArtifacts = this.artifactRepository.countByOwnerIdIn(List.of(wizardId)).stream()
+                .findFirst()
+                .map(ArtifactRepository.OwnerArtifactCount::getNumberOfArtifacts)
+                .orElse(0L);
+        return new WizardDto(wizard.getId(), wizard.getName(), (int) numberOfArtifacts, wizard.getVersion());
+    }
+
+    /**
+     * Returns the ETag of the wizard from its version, without loading it.
+     */
+    public String findETagById(Integer wizardId) {
+        return this.wizardRepository.findVersionById(wizardId)
+                .map(ETags::of)
+                .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
+    }
+
+    /**
+     * Returns the ETag of the wizard list, which is the catalog version: every write that changes a wizard or its
+     * number of artifacts bumps it.
+     */
+    public String findAllETag() {
+        return this.catalogVersion.eTag();
+    }
+
+    /**
+     * Returns a page of wizards as DTOs. Their numberOfArtifacts is counted by the same grouped query, so unlike
+     * converting Wizard entities, no artifact list is loaded. Without a sort they are in id order, since the grouped
+     * query has no order of its own and pages would otherwise overlap.
+     */
+    public Page<WizardDto> findAll(Pageable pageable) {
+        if (pageable.isPaged() && pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        }
+        return this.wizardRepository.findAllDtos(pageable);
+    }
+
+    /**
+     * Keyset (cursor) variant of {@link #findAll(Pageable)}. It seeks past the wizard id encoded in the cursor and reads
+     * one extra row to find out whether another page exists.
+     *
+     * @param cursor   the next or prev token of the previous page, null or empty for the first page
+     * @param pageable the page size; wizards are only walked in id order, the one order the primary key lets it seek on
+     * @return a page of wizards together with the tokens of its neighbouring pages
+     */
+    public CursorPage<WizardDto> findAll(String cursor, Pageable pageable) {
+        if (pageable.getSort().isSorted() && !pageable.getSort().equals(Sort.by("id"))) {
+            throw new InvalidCursorException("Cursor pagination of wizards only supports sorting by id.");
+        }
+        KeysetCursor position = StringUtils.hasLength(cursor) ? KeysetCursor.decode(cursor, "id") : null;
+        boolean backward = position != null && position.backward();
+        int size = pageable.getPageSize();
+
+        List<WizardDto> rows = new ArrayList<>(backward
+                ? this.wizardRepository.findDtosBefore(parseCursorId(position), Limit.of(size + 1))
+                : this.wizardRepository.findDtosAfter(position == null ? Integer.MIN_VALUE : parseCursorId(position), Limit.of(size + 1)));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        if (backward) {
+            Collections.reverse(rows);
+        }
+
+        String next = null;
+        String prev = null;
+        if (!rows.isEmpty()) {
+            String firstId = String.valueOf(rows.get(0).id());
+            String lastId = String.valueOf(rows.get(rows.size() - 1).id());
+            if (backward || hasMore) {
+                next = new KeysetCursor("id", lastId, lastId, false).encode();
+            }
+            if (backward ? hasMore : position != null) {
+                prev = new KeysetCursor("id", firstId, firstId, true).encode();
+            }
+        }
+        return new CursorPage<>(rows, size, next, prev);
+    }
+
+    private static Integer parseCursorId(KeysetCursor position) {
+        try {
+            return Integer.valueOf(position.id());
+        } catch (NumberFormatException ex) {
+            throw new InvalidCursorException("The cursor is malformed.");
+        }
     }
 
     public Wizard save(Wizard wizard) {
-        return wizardRepository.save(wizard);
+        Wizard savedWizard = wizardRepository.save(wizard);
+        this.catalogVersion.bump(CatalogVersion.WIZARDS, List.of(savedWizard.getId())); // The wizard list is tagged with the catalog version
+        return savedWizard;
     }
 
-    public Wizard update(Integer wizardId, Wizard update) {
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "wizard", key = "#wizardId"),
+            @CacheEvict(cacheNames = {"artifact", "artifactPages", "artifactCursorPages", "artifactFacets"}, allEntries = true) // Artifact DTOs embed their owner
+    })
+    public Wizard update(Integer wizardId, Wizard update, String ifMatch) {
         return wizardRepository.findById(wizardId)
                 .map(oldWizard -> {
+                    if (ETags.isPreconditionFailed(ifMatch, ETags.of(oldWizard.getVersion()))) {
+                        throw new PreconditionFailedException("wizard", wizardId);
+                    }
                     oldWizard.setName(update.getName());
+                    this.catalogVersion.bump(CatalogVersion.WIZARDS, List.of(wizardId)); // Owner names are part of the artifact catalog
                     return wizardRepository.save(oldWizard);
                 })
                 .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "wizard", key = "#wizardId"),
+            @CacheEvict(cacheNames = {"artifact", "artifactPages", "artifactCursorPages", "artifactFacets"}, allEntries = true)
+    })
     public void delete(Integer wizardId) {
         Wizard wizard = wizardRepository.findById(wizardId).orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
 
         // unassign all artifacts from the wizard to be deleted
         wizard.removeAllArtifacts();
         wizardRepository.deleteById(wizardId);
+        this.catalogVersion.bump(CatalogVersion.WIZARDS, List.of(wizardId));
     }
 
-    public void assignArtifact(Integer wizardId, String artifactId) {
+    @CacheEvict(cacheNames = {"wizard", "artifact", "artifactPages", "artifactCursorPages", "artifactFacets"}, allEntries = true) // Both owners' counts change
+    public void assignArtifact(Integer wizardId, Long artifactId) {
         // Find this artifact by Id from DB
         Artifact artifactToBeAssigned = this.artifactRepository.findById(artifactId).orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
 
@@ -59,9 +185,12 @@ public class WizardService {
 
         // Artifact assignment
         // We need to see if the artifact is already owned by some wizard
+        List<Integer> ownerIds = new ArrayList<>(List.of(wizardId));
         if (artifactToBeAssigned.getOwner() != null) {
+            ownerIds.add(artifactToBeAssigned.getOwner().getId());
             artifactToBeAssigned.getOwner().removeArtifact(artifactToBeAssigned);
         }
         wizard.addArtifact(artifactToBeAssigned);
+        this.catalogVersion.bump(CatalogVersion.WIZARDS, ownerIds); // Both owners' numbers of artifacts change
     }
 }
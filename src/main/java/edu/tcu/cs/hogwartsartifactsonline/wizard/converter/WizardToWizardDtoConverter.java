@@ -12,6 +12,7 @@ public class WizardToWizardDtoConverter implements Converter<Wizard, WizardDto>
         return new WizardDto(
                 source.getId(),
                 source.getName(),
-                source.getNumberOfArtifacts()); // Principle of least knowledge (Law of Demeter), instead of source.artifacts.size()
+                source.getNumberOfArtifacts(), // Principle of least knowledge (Law of Demeter), instead of source.artifacts.size()
+                source.getVersion());
     }
 }
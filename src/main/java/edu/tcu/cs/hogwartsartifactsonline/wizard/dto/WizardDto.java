@@ -2,8 +2,16 @@ package edu.tcu.cs.hogwartsartifactsonline.wizard.dto;
 
 import jakarta.validation.constraints.NotEmpty;
 
+/**
+ * @param version the version of the wizard when it was read, ignored in requests; it makes the wizard's ETag
+ */
 public record WizardDto(Integer id,
                         @NotEmpty(message = "name is required.")
                         String name,
-                        Integer numberOfArtifacts) {
+                        Integer numberOfArtifacts,
+                        Long version) {
+
+    public WizardDto(Integer id, String name, Integer numberOfArtifacts) {
+        this(id, name, numberOfArtifacts, null);
+    }
 }
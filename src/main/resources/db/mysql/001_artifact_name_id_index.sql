@@ -0,0 +1,3 @@
+-- The prod profile runs with spring.jpa.hibernate.ddl-auto=none, so schema changes are applied by hand, in file order.
+-- Supports cursor pagination sorted by name: the keyset predicate (name, id) > (?, ?) becomes an index range seek.
+CREATE INDEX idx_artifact_name_id ON artifact (name, id);
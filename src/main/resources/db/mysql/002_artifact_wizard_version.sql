@@ -0,0 +1,4 @@
+-- Optimistic locking and ETags: every update increments the version, so a stale If-Match is rejected and an unchanged
+-- If-None-Match is answered with 304 Not Modified.
+ALTER TABLE artifact ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE wizard ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Content-hash deduplication of uploaded images: one row per stored image, looked up by container and SHA-256.
+CREATE TABLE image_content (
+    id INT NOT NULL AUTO_INCREMENT,
+    container_name VARCHAR(255),
+    sha256 VARCHAR(64),
+    image_url VARCHAR(255),
+    size BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_image_content_container_name_sha256 UNIQUE (container_name, sha256)
+);
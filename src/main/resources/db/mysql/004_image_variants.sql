@@ -0,0 +1,5 @@
+-- Resized variants of uploaded images, width in pixels to URL as a JSON object. They are generated in the background and
+-- recorded on the image, then copied to every artifact showing it, so listing artifacts needs no join.
+ALTER TABLE artifact ADD COLUMN image_variants JSON;
+ALTER TABLE image_content ADD COLUMN variants JSON;
+CREATE INDEX idx_image_content_image_url ON image_content (image_url);
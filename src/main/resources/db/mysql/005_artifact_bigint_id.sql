@@ -0,0 +1,35 @@
+-- Artifact ids are IdWorker ids, so they fit a BIGINT. Keyed as VARCHAR(255), each one took 20 bytes instead of 8 in the
+-- primary key and again in every secondary index, and compared as collated strings. The change is online: the key is
+-- copied into a shadow column kept current by triggers, and only the final rename needs the table to itself.
+-- pt-online-schema-change or gh-ost would do the same from the MODIFY below, if either is already in use.
+
+-- 1. The shadow column, filled for new and changed rows from now on.
+ALTER TABLE artifact ADD COLUMN id_num BIGINT NULL, ALGORITHM=INSTANT;
+CREATE TRIGGER artifact_id_num_insert BEFORE INSERT ON artifact FOR EACH ROW SET NEW.id_num = CAST(NEW.id AS UNSIGNED);
+CREATE TRIGGER artifact_id_num_update BEFORE UPDATE ON artifact FOR EACH ROW SET NEW.id_num = CAST(NEW.id AS UNSIGNED);
+
+-- 2. Backfill in small batches, so no statement holds many row locks. Repeat until it updates 0 rows.
+UPDATE artifact SET id_num = CAST(id AS UNSIGNED) WHERE id_num IS NULL LIMIT 10000;
+
+-- 3. Move the primary key and the cursor index to the shadow column. This rebuilds the table, but in place, with reads
+-- and writes going on. The old key keeps a unique index, so lookups by the running version stay index seeks.
+ALTER TABLE artifact
+    MODIFY id_num BIGINT NOT NULL,
+    MODIFY id VARCHAR(255) NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id_num),
+    ADD UNIQUE INDEX uk_artifact_id_old (id),
+    DROP INDEX idx_artifact_name_id,
+    ADD INDEX idx_artifact_name_id (name, id_num),
+    ALGORITHM=INPLACE, LOCK=NONE;
+
+-- 4. Cut over together with the deployment of the version with numeric ids. Drain the running version first: once the
+-- columns are renamed, it would compare the BIGINT key to strings as doubles, which are not exact beyond 2^53.
+LOCK TABLES artifact WRITE;
+DROP TRIGGER artifact_id_num_insert;
+DROP TRIGGER artifact_id_num_update;
+ALTER TABLE artifact RENAME COLUMN id TO id_old, RENAME COLUMN id_num TO id, ALGORITHM=INSTANT;
+UNLOCK TABLES;
+
+-- 5. Once no node of the previous version is left to roll back to.
+ALTER TABLE artifact DROP INDEX uk_artifact_id_old, DROP COLUMN id_old, ALGORITHM=INPLACE, LOCK=NONE;
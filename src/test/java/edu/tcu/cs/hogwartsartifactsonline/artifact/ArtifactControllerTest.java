@@ -1,9 +1,19 @@
 package edu.tcu.cs.hogwartsartifactsonline.artifact;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactBatchDto;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacets;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportReport;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactSuggestion;
+import edu.tcu.cs.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
 import edu.tcu.cs.hogwartsartifactsonline.system.StatusCode;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidCursorException;
 import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.TooManyRequestsException;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,21 +28,36 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc(addFilters = false)
@@ -45,6 +70,24 @@ class ArtifactControllerTest {
     @MockBean
     ArtifactService artifactService;
 
+    @MockBean
+    ArtifactImportService artifactImportService;
+
+    @MockBean
+    ArtifactExportService artifactExportService;
+
+    @MockBean
+    ArtifactSummaryService artifactSummaryService;
+
+    @MockBean
+    ArtifactSuggestIndex artifactSuggestIndex;
+
+    @MockBean
+    ImageStorageClient imageStorageClient;
+
+    @MockBean
+    ArtifactImageService artifactImageService;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -58,42 +101,42 @@ class ArtifactControllerTest {
         this.artifacts = new ArrayList<>();
 
         Artifact a1 = new Artifact();
-        a1.setId("1250808601744904191");
+        a1.setId(1250808601744904191L);
         a1.setName("Deluminator");
         a1.setDescription("A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.");
         a1.setImageUrl("ImageUrl");
         this.artifacts.add(a1);
 
         Artifact a2 = new Artifact();
-        a2.setId("1250808601744904192");
+        a2.setId(1250808601744904192L);
         a2.setName("Invisibility Cloak");
         a2.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a2.setImageUrl("ImageUrl");
         this.artifacts.add(a2);
 
         Artifact a3 = new Artifact();
-        a3.setId("1250808601744904193");
+        a3.setId(1250808601744904193L);
         a3.setName("Elder Wand");
         a3.setDescription("The Elder Wand, known throughout history as the Deathstick or the Wand of Destiny, is an extremely powerful wand made of elder wood with a core of Thestral tail hair.");
         a3.setImageUrl("ImageUrl");
         this.artifacts.add(a3);
 
         Artifact a4 = new Artifact();
-        a4.setId("1250808601744904194");
+        a4.setId(1250808601744904194L);
         a4.setName("The Marauder's Map");
         a4.setDescription("A magical map of Hogwarts created by Remus Lupin, Peter Pettigrew, Sirius Black, and James Potter while they were students at Hogwarts.");
         a4.setImageUrl("ImageUrl");
         this.artifacts.add(a4);
 
         Artifact a5 = new Artifact();
-        a5.setId("1250808601744904195");
+        a5.setId(1250808601744904195L);
         a5.setName("The Sword Of Gryffindor");
         a5.setDescription("A goblin-made sword adorned with large rubies on the pommel. It was once owned by Godric Gryffindor, one of the medieval founders of Hogwarts.");
         a5.setImageUrl("ImageUrl");
         this.artifacts.add(a5);
 
         Artifact a6 = new Artifact();
-        a6.setId("1250808601744904196");
+        a6.setId(1250808601744904196L);
         a6.setName("Resurrection Stone");
         a6.setDescription("The Resurrection Stone allows the holder to bring back deceased loved ones, in a semi-physical form, and communicate with them.");
         a6.setImageUrl("ImageUrl");
@@ -107,7 +150,8 @@ class ArtifactControllerTest {
     @Test
     void testFindArtifactByIdSuccess() throws Exception {
         // Given
-        given(this.artifactService.findById("1250808601744904191")).willReturn(this.artifacts.get(0));
+        Artifact artifact = this.artifacts.get(0);
+        given(this.artifactService.findDtoById(1250808601744904191L)).willReturn(new ArtifactDto(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(), null));
 
         // When and then
         this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
@@ -121,7 +165,7 @@ class ArtifactControllerTest {
     @Test
     void testFindArtifactByIdNotFound() throws Exception {
         // Given
-        given(this.artifactService.findById("1250808601744904191")).willThrow(new ObjectNotFoundException("artifact", "1250808601744904191"));
+        given(this.artifactService.findDtoById(1250808601744904191L)).willThrow(new ObjectNotFoundException("artifact", 1250808601744904191L));
 
         // When and then
         this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
@@ -131,11 +175,78 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    void testFindArtifactByIdThatIsNotANumber() throws Exception {
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/deluminator").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Provided argument artifactId is invalid."));
+        verify(this.artifactService, never()).findDtoById(Mockito.anyLong());
+    }
+
+    @Test
+    void testFindArtifactByIdSendsETag() throws Exception {
+        // Given
+        Artifact artifact = this.artifacts.get(0);
+        given(this.artifactService.findDtoById(1250808601744904191L)).willReturn(new ArtifactDto(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(), new WizardDto(1, "Albus Dumbledore", 2, 4L), 3L));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3.4\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.data.version").value(3));
+    }
+
+    @Test
+    void testFindArtifactByIdNotModified() throws Exception {
+        // Given
+        given(this.artifactService.findETagById(1250808601744904191L)).willReturn("\"3.4\"");
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").header(HttpHeaders.IF_NONE_MATCH, "\"3.4\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3.4\""))
+                .andExpect(content().string(""));
+        verify(this.artifactService, never()).findDtoById(Mockito.anyLong());
+    }
+
+    @Test
+    void testFindArtifactByIdModifiedSinceTheClientsCopy() throws Exception {
+        // Given
+        Artifact artifact = this.artifacts.get(0);
+        given(this.artifactService.findETagById(1250808601744904191L)).willReturn("\"4.4\"");
+        given(this.artifactService.findDtoById(1250808601744904191L)).willReturn(new ArtifactDto(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(), new WizardDto(1, "Albus Dumbledore", 2, 4L), 4L));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").header(HttpHeaders.IF_NONE_MATCH, "\"3.4\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4.4\""))
+                .andExpect(jsonPath("$.data.id").value("1250808601744904191"));
+    }
+
+    @Test
+    void testFindAllArtifactsNotModified() throws Exception {
+        // Given
+        given(this.artifactService.findAllETag()).willReturn("\"r7\"");
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").header(HttpHeaders.IF_NONE_MATCH, "\"r7\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(this.artifactService, never()).findAll(Mockito.any(Pageable.class));
+    }
+
     @Test
     void testFindAllArtifactsSuccess() throws Exception {
         // Given
         Pageable pageable = PageRequest.of(0, 20);
-        PageImpl<Artifact> artifactPage = new PageImpl<>(this.artifacts, pageable, this.artifacts.size());
+        List<ArtifactDto> artifactDtos = this.artifacts.stream()
+                .map(artifact -> new ArtifactDto(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(), null))
+                .toList();
+        PageImpl<ArtifactDto> artifactPage = new PageImpl<>(artifactDtos, pageable, artifactDtos.size());
         given(this.artifactService.findAll(Mockito.any(Pageable.class))).willReturn(artifactPage);
 
         MultiValueMap<String, String> requestParams = new LinkedMultiValueMap<>();
@@ -154,6 +265,44 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data.content[1].name").value("Invisibility Cloak"));
     }
 
+    @Test
+    void testFindAllArtifactsByCursorSuccess() throws Exception {
+        // Given
+        List<ArtifactDto> artifactDtos = List.of(
+                new ArtifactDto(1250808601744904191L, "Deluminator", "A Deluminator.", "ImageUrl", null),
+                new ArtifactDto(1250808601744904192L, "Invisibility Cloak", "An invisibility cloak.", "ImageUrl", null));
+        CursorPage<ArtifactDto> artifactCursorPage = new CursorPage<>(artifactDtos, 2, "bmV4dA", null);
+        given(this.artifactService.findAll(eq(""), Mockito.any(Pageable.class))).willReturn(artifactCursorPage);
+
+        MultiValueMap<String, String> requestParams = new LinkedMultiValueMap<>();
+        requestParams.add("cursor", "");
+        requestParams.add("size", "2");
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").accept(MediaType.APPLICATION_JSON).params(requestParams))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Find All Success"))
+                .andExpect(jsonPath("$.data.content").value(Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data.content[1].id").value("1250808601744904192"))
+                .andExpect(jsonPath("$.data.next").value("bmV4dA"))
+                .andExpect(jsonPath("$.data.prev").isEmpty())
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
+    }
+
+    @Test
+    void testFindAllArtifactsByInvalidCursor() throws Exception {
+        // Given
+        given(this.artifactService.findAll(eq("garbage"), Mockito.any(Pageable.class))).willThrow(new InvalidCursorException("The cursor is malformed."));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").accept(MediaType.APPLICATION_JSON).param("cursor", "garbage"))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("The cursor is malformed."))
+                .andExpect(jsonPath("$.data").isEmpty());
+    }
+
     @Test
     void testAddArtifactSuccess() throws Exception {
         // Given
@@ -165,7 +314,7 @@ class ArtifactControllerTest {
         String json = this.objectMapper.writeValueAsString(artifactDto);
 
         Artifact savedArtifact = new Artifact();
-        savedArtifact.setId("1250808601744904197");
+        savedArtifact.setId(1250808601744904197L);
         savedArtifact.setName("Remembrall");
         savedArtifact.setDescription("A Remembrall was a magical large marble-sized glass ball that contained smoke which turned red when its owner or user had forgotten something. It turned clear once whatever was forgotten was remembered.");
         savedArtifact.setImageUrl("ImageUrl");
@@ -184,23 +333,227 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data.imageUrl").value(savedArtifact.getImageUrl()));
     }
 
+    @Test
+    void testImportArtifactsSuccess() throws Exception {
+        // Given
+        String ndjson = """
+                {"name":"Remembrall","description":"A Remembrall.","imageUrl":"ImageUrl"}
+                {"name":"Deluminator","description":"","imageUrl":"ImageUrl"}
+                """;
+        ArtifactImportReport report = new ArtifactImportReport(1000, 2, 1, 1, List.of(
+                new ArtifactImportReport.Chunk(0, 1, 2, 1, 1, List.of(new ArtifactImportReport.RowError(2, "description: description is required.")), null, 5)));
+        given(this.artifactImportService.importArtifacts(Mockito.any(InputStream.class), eq(MediaType.parseMediaType("application/x-ndjson")), eq(null))).willReturn(report);
+
+        // When and then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/bulk").contentType("application/x-ndjson").content(ndjson).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Import Success"))
+                .andExpect(jsonPath("$.data.rowsImported").value(1))
+                .andExpect(jsonPath("$.data.chunks[0].errors[0].line").value(2));
+    }
+
+    @Test
+    void testImportArtifactsWhenTooManyImportsAreRunning() throws Exception {
+        // Given
+        given(this.artifactImportService.importArtifacts(Mockito.any(InputStream.class), Mockito.any(MediaType.class), eq(500)))
+                .willThrow(new TooManyRequestsException("Too many imports are running, try again later."));
+
+        // When and then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/bulk").param("chunkSize", "500").contentType("text/csv").content("name,description,imageUrl\n").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.TOO_MANY_REQUESTS))
+                .andExpect(jsonPath("$.message").value("Too many imports are running, try again later."));
+    }
+
+    @Test
+    void testExportArtifactsSuccess() throws Exception {
+        // Given
+        given(this.artifactExportService.exportArtifacts(Mockito.any(OutputStream.class), eq(ArtifactExportService.Format.CSV), eq(true))).willAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("id,name,description,imageUrl,ownerId,ownerName\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        });
+
+        // When
+        MvcResult mvcResult = this.mockMvc.perform(get(this.baseUrl + "/artifacts/export").param("format", "csv").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"artifacts.csv\""))
+                .andExpect(content().string("id,name,description,imageUrl,ownerId,ownerName\n"));
+    }
+
+    @Test
+    void testExportArtifactsWithUnsupportedFormat() throws Exception {
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/export").param("format", "xml"))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Export format xml is not supported, use ndjson or csv."));
+    }
+
+    @Test
+    void testFindArtifactsByIds() throws Exception {
+        // Given
+        List<ArtifactDto> found = Stream.of(this.artifacts.get(1), this.artifacts.get(0))
+                .map(artifact -> new ArtifactDto(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(), null))
+                .toList();
+        given(this.artifactService.findDtosByIds(List.of(1250808601744904192L, 1250808601744904199L, 1250808601744904191L)))
+                .willReturn(new ArtifactBatchDto(found, List.of(1250808601744904199L)));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("ids", "1250808601744904192,1250808601744904199,1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Find Success"))
+                .andExpect(jsonPath("$.data.artifacts", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data.artifacts[0].id").value("1250808601744904192"))
+                .andExpect(jsonPath("$.data.artifacts[1].id").value("1250808601744904191"))
+                .andExpect(jsonPath("$.data.missingIds[0]").value("1250808601744904199"));
+        verify(this.artifactService, never()).findAll(Mockito.any(Pageable.class));
+    }
+
+    @Test
+    void testImageBlockUploadSuccess() throws Exception {
+        // Given
+        String uploadId = "0b4f5e6a-1c2d-4e3f-8a9b-0c1d2e3f4a5b.png";
+        given(this.imageStorageClient.initUpload("images", "wand.png")).willReturn(uploadId);
+        given(this.imageStorageClient.findUploadedBlocks("images", uploadId)).willReturn(List.of(0));
+        given(this.artifactImageService.commitUpload("images", uploadId, 2)).willReturn("https://example.blob.core.windows.net/images/" + uploadId);
+
+        // When and then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/images/uploads").param("containerName", "images").param("fileName", "wand.png").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.message").value("Init Upload Success"))
+                .andExpect(jsonPath("$.data.uploadId").value(uploadId))
+                .andExpect(jsonPath("$.data.blockSize").value(4 * 1024 * 1024))
+                .andExpect(jsonPath("$.data.imageUrl").doesNotExist());
+        this.mockMvc.perform(put(this.baseUrl + "/artifacts/images/uploads/" + uploadId + "/blocks/1").param("containerName", "images")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1, 2, 3}).header(HttpHeaders.CONTENT_LENGTH, 3).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.message").value("Put Block Success"));
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/images/uploads/" + uploadId).param("containerName", "images").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data[0]").value(0));
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/images/uploads/" + uploadId).param("containerName", "images").param("blockCount", "2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.message").value("Upload Image Success"))
+                .andExpect(jsonPath("$.data").value("https://example.blob.core.windows.net/images/" + uploadId));
+        verify(this.imageStorageClient).putBlock(eq("images"), eq(uploadId), eq(1), Mockito.any(InputStream.class), eq(3L));
+    }
+
+    @Test
+    void testInitImageUploadOfStoredContent() throws Exception {
+        // Given
+        String sha256 = "97cdccc4501383131d558ebb582b92ff03c300368f88baac4dd4ee114134a9a3";
+        given(this.artifactImageService.findImageUrl("images", sha256)).willReturn("https://example.blob.core.windows.net/images/1.png");
+
+        // When and then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/images/uploads").param("containerName", "images").param("fileName", "wand.png").param("sha256", sha256).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data.uploadId").doesNotExist())
+                .andExpect(jsonPath("$.data.imageUrl").value("https://example.blob.core.windows.net/images/1.png"));
+        verify(this.imageStorageClient, never()).initUpload(Mockito.anyString(), Mockito.anyString());
+    }
+
+    @Test
+    void testUploadImageSuccess() throws Exception {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("file", "wand.png", MediaType.IMAGE_PNG_VALUE, "an elder wand".getBytes(StandardCharsets.UTF_8));
+        given(this.artifactImageService.uploadImage(eq("images"), eq("wand.png"), Mockito.any(InputStream.class), eq(13L), eq(null))).willReturn("https://example.blob.core.windows.net/images/1.png");
+
+        // When and then
+        this.mockMvc.perform(multipart(this.baseUrl + "/artifacts/images").file(file).param("containerName", "images").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.message").value("Upload Image Success"))
+                .andExpect(jsonPath("$.data").value("https://example.blob.core.windows.net/images/1.png"));
+    }
+
+    @Test
+    void testPutImageBlockLargerThanTheBlockSize() throws Exception {
+        // When and then
+        this.mockMvc.perform(put(this.baseUrl + "/artifacts/images/uploads/0b4f5e6a-1c2d-4e3f-8a9b-0c1d2e3f4a5b.png/blocks/0").param("containerName", "images")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[1]).header(HttpHeaders.CONTENT_LENGTH, 4 * 1024 * 1024 + 1).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT));
+        verify(this.imageStorageClient, never()).putBlock(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt(), Mockito.any(InputStream.class), Mockito.anyLong());
+    }
+
+    @Test
+    void testSuggestArtifacts() throws Exception {
+        // Given
+        given(this.artifactSuggestIndex.suggest("el", 5)).willReturn(List.of(
+                new ArtifactSuggestion("artifact", "1250808601744904193", "Elder Wand"),
+                new ArtifactSuggestion("wizard", "4", "Elphias Doge")));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/suggest").param("prefix", "el").param("limit", "5").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Suggest Success"))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data[0].type").value("artifact"))
+                .andExpect(jsonPath("$.data[0].name").value("Elder Wand"))
+                .andExpect(jsonPath("$.data[1].id").value("4"));
+        verify(this.artifactService, never()).findByCriteria(Mockito.anyMap(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    void testFindArtifactsByCriteriaWithFacets() throws Exception {
+        // Given
+        Map<String, String> searchCriteria = Map.of("ownerName", "albus dumbledore");
+        Pageable pageable = PageRequest.of(0, 20);
+        List<ArtifactDto> artifactDtos = List.of(new ArtifactDto(1250808601744904191L, "Deluminator", "A Deluminator.", "ImageUrl", new WizardDto(1, "Albus Dumbledore", 2)));
+        given(this.artifactService.findByCriteria(eq(searchCriteria), Mockito.any(Pageable.class))).willReturn(new PageImpl<>(artifactDtos, pageable, 1));
+        given(this.artifactService.findFacets(searchCriteria)).willReturn(new ArtifactFacets(List.of(new ArtifactFacets.OwnerFacet(1, "Albus Dumbledore", 2), new ArtifactFacets.OwnerFacet(2, "Harry Potter", 2)), 4, 1));
+
+        // When and then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/search").param("facets", "true").contentType(MediaType.APPLICATION_JSON).content(this.objectMapper.writeValueAsString(searchCriteria)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.message").value("Search Success"))
+                .andExpect(jsonPath("$.data.page.content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.data.facets.owners[1].name").value("Harry Potter"))
+                .andExpect(jsonPath("$.data.facets.owners[1].count").value(2))
+                .andExpect(jsonPath("$.data.facets.owned").value(4))
+                .andExpect(jsonPath("$.data.facets.unowned").value(1));
+    }
+
+    @Test
+    void testFindArtifactsByCriteriaWithoutFacets() throws Exception {
+        // Given
+        Map<String, String> searchCriteria = Map.of("ownerName", "albus dumbledore");
+        given(this.artifactService.findByCriteria(eq(searchCriteria), Mockito.any(Pageable.class))).willReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+
+        // When and then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/search").contentType(MediaType.APPLICATION_JSON).content(this.objectMapper.writeValueAsString(searchCriteria)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(0)));
+        verify(this.artifactService, never()).findFacets(Mockito.anyMap());
+    }
+
     @Test
     void testUpdateArtifactSuccess() throws Exception {
         // Given
-        ArtifactDto artifactDto =  new ArtifactDto("1250808601744904192",
+        ArtifactDto artifactDto =  new ArtifactDto(1250808601744904192L,
                 "Invisibility Cloak",
                 "A new description.",
                 "ImageUrl",
                 null);
         String json = this.objectMapper.writeValueAsString(artifactDto);
 
-        Artifact updatedArtifact = new Artifact();
-        updatedArtifact.setId("1250808601744904192");
-        updatedArtifact.setName("Invisibility Cloak");
-        updatedArtifact.setDescription("A new description.");
-        updatedArtifact.setImageUrl("ImageUrl");
+        ArtifactDto updatedArtifactDto = new ArtifactDto(1250808601744904192L,
+                "Invisibility Cloak",
+                "A new description.",
+                "ImageUrl",
+                null,
+                1L);
 
-        given(this.artifactService.update(eq("1250808601744904192"), Mockito.any(Artifact.class))).willReturn(updatedArtifact);
+        given(this.artifactService.update(eq(1250808601744904192L), Mockito.any(Artifact.class), Mockito.isNull())).willReturn(updatedArtifactDto);
 
         // When and then
         this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192").contentType(MediaType.APPLICATION_JSON
@@ -209,22 +562,23 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
                 .andExpect(jsonPath("$.message").value("Update Success"))
                 .andExpect(jsonPath("$.data.id").value("1250808601744904192"))
-                .andExpect(jsonPath("$.data.description").value(updatedArtifact.getDescription()))
-                .andExpect(jsonPath("$.data.name").value(updatedArtifact.getName()))
-                .andExpect(jsonPath("$.data.imageUrl").value(updatedArtifact.getImageUrl()));
+                .andExpect(jsonPath("$.data.description").value(updatedArtifactDto.description()))
+                .andExpect(jsonPath("$.data.name").value(updatedArtifactDto.name()))
+                .andExpect(jsonPath("$.data.imageUrl").value(updatedArtifactDto.imageUrl()))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
     }
 
     @Test
     void testUpdateArtifactErrorWithNonExistentId() throws Exception {
         // Given
-        ArtifactDto artifactDto =  new ArtifactDto("1250808601744904192",
+        ArtifactDto artifactDto =  new ArtifactDto(1250808601744904192L,
                 "Invisibility Cloak",
                 "A new description.",
                 "ImageUrl",
                 null);
         String json = this.objectMapper.writeValueAsString(artifactDto);
 
-        given(this.artifactService.update(eq("1250808601744904192"), Mockito.any(Artifact.class))).willThrow(new ObjectNotFoundException("artifact", "1250808601744904192"));
+        given(this.artifactService.update(eq(1250808601744904192L), Mockito.any(Artifact.class), Mockito.isNull())).willThrow(new ObjectNotFoundException("artifact", 1250808601744904192L));
 
         // When and then
         this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192").contentType(MediaType.APPLICATION_JSON
@@ -235,10 +589,30 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    void testUpdateArtifactWithStaleIfMatch() throws Exception {
+        // Given
+        ArtifactDto artifactDto = new ArtifactDto(1250808601744904192L,
+                "Invisibility Cloak",
+                "A new description.",
+                "ImageUrl",
+                null);
+        String json = this.objectMapper.writeValueAsString(artifactDto);
+
+        given(this.artifactService.update(eq(1250808601744904192L), Mockito.any(Artifact.class), eq("\"2\""))).willThrow(new PreconditionFailedException("artifact", 1250808601744904192L));
+
+        // When and then
+        this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192").header(HttpHeaders.IF_MATCH, "\"2\"").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.PRECONDITION_FAILED))
+                .andExpect(jsonPath("$.message").value("The artifact with Id 1250808601744904192 has changed since it was read, fetch it again and retry."));
+    }
+
     @Test
     void testDeleteArtifactSuccess() throws Exception {
         // Given
-        doNothing().when(this.artifactService).delete("1250808601744904191");
+        doNothing().when(this.artifactService).delete(1250808601744904191L);
 
         // When and then
         this.mockMvc.perform(delete(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
@@ -251,7 +625,7 @@ class ArtifactControllerTest {
     @Test
     void testDeleteArtifactErrorWithNonExistentId() throws Exception {
         // Given
-        doThrow(new ObjectNotFoundException("artifact", "1250808601744904191")).when(this.artifactService).delete("1250808601744904191");
+        doThrow(new ObjectNotFoundException("artifact", 1250808601744904191L)).when(this.artifactService).delete(1250808601744904191L);
 
         // When and then
         this.mockMvc.perform(delete(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
@@ -261,10 +635,24 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    void testDeleteArtifactsSuccess() throws Exception {
+        // Given
+        List<Long> artifactIds = List.of(1250808601744904191L, 1250808601744904192L, 1250808601744904199L);
+        given(this.artifactService.deleteAll(artifactIds)).willReturn(2);
+
+        // When and then
+        this.mockMvc.perform(delete(this.baseUrl + "/artifacts").contentType(MediaType.APPLICATION_JSON).content(this.objectMapper.writeValueAsString(artifactIds)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Delete Success"))
+                .andExpect(jsonPath("$.data").value(2));
+    }
+
     @Test
     void testSummarizeArtifactSuccess() throws Exception {
         // Given
-        given(this.artifactService.summarize(Mockito.anyList())).willReturn("The summary includes six artifacts, owned by three different users.");
+        given(this.artifactSummaryService.getSummary()).willReturn("The summary includes six artifacts, owned by three different users.");
 
         // When and then
         this.mockMvc.perform(get(this.baseUrl + "/artifacts/summary").accept(MediaType.APPLICATION_JSON))
@@ -273,4 +661,38 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.message").value("Summarize Success"))
                 .andExpect(jsonPath("$.data").value("The summary includes six artifacts, owned by three different users."));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStreamArtifactSummarySuccess() throws Exception {
+        // Given
+        SseEmitter emitter = new SseEmitter();
+        given(this.artifactSummaryService.streamSummary()).willReturn(emitter);
+
+        // When
+        MvcResult mvcResult = this.mockMvc.perform(get(this.baseUrl + "/artifacts/summary/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("delta").data(Map.of("content", "The summary includes six artifacts."), MediaType.APPLICATION_JSON));
+        emitter.send(SseEmitter.event().name("done").data(Map.of("version", "r1"), MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        // Then
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, Matchers.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE)))
+                .andExpect(content().string("event:delta\ndata:{\"content\":\"The summary includes six artifacts.\"}\n\n"
+                        + "event:done\ndata:{\"version\":\"r1\"}\n\n"));
+    }
+
+    @Test
+    void testStreamArtifactSummaryTooManyRequests() throws Exception {
+        // Given
+        given(this.artifactSummaryService.streamSummary()).willThrow(new TooManyRequestsException("Too many summaries are being streamed, please try again later."));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/summary/stream").accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.TOO_MANY_REQUESTS));
+    }
+}
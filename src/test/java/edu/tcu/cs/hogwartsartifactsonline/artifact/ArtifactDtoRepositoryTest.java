@@ -0,0 +1,196 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacets;
+import edu.tcu.cs.hogwartsartifactsonline.system.ETags;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.Wizard;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.WizardRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles(value = "dev")
+@Transactional
+class ArtifactDtoRepositoryTest {
+
+    @Autowired
+    ArtifactDtoRepository artifactDtoRepository;
+
+    @Autowired
+    WizardRepository wizardRepository;
+
+    @Autowired
+    ArtifactRepository artifactRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // 5 more wizards owning 20 artifacts each, on top of the 6 artifacts and 3 wizards of DBDataInitializer
+        for (int w = 0; w < 5; w++) {
+            Wizard wizard = new Wizard();
+            wizard.setName("Wizard " + w);
+            for (int a = 0; a < 20; a++) {
+                Artifact artifact = new Artifact();
+                artifact.setId(2250808601744904_000L + w * 100 + a);
+                artifact.setName("Artifact " + w + "-" + a);
+                artifact.setDescription("Description");
+                artifact.setImageUrl("ImageUrl");
+                wizard.addArtifact(artifact);
+            }
+            this.wizardRepository.save(wizard);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @Test
+    void testFindAllPageUsesAConstantNumberOfStatements() {
+        // When
+        Page<ArtifactDto> artifactDtoPage = this.artifactDtoRepository.findAll(Specification.where(null), PageRequest.of(0, 100, Sort.by("id")));
+
+        // Then
+        assertThat(artifactDtoPage.getContent()).hasSize(100);
+        assertThat(artifactDtoPage.getTotalElements()).isEqualTo(106);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(3); // Rows, grouped owner counts and the total count
+        assertThat(this.statistics.getEntityLoadCount()).isZero();
+        assertThat(this.statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void testFindAllComputesNumberOfArtifactsPerOwner() {
+        // When
+        Page<ArtifactDto> artifactDtoPage = this.artifactDtoRepository.findAll(ArtifactSpecs.hasIdIn(List.of(1250808601744904191L, 1250808601744904196L, 2250808601744904000L)), PageRequest.of(0, 10, Sort.by("id")));
+
+        // Then
+        assertThat(artifactDtoPage.getContent()).extracting(ArtifactDto::id).containsExactly(1250808601744904191L, 1250808601744904196L, 2250808601744904000L);
+        assertThat(artifactDtoPage.getContent().get(0).owner().name()).isEqualTo("Albus Dumbledore");
+        assertThat(artifactDtoPage.getContent().get(0).owner().numberOfArtifacts()).isEqualTo(2);
+        assertThat(artifactDtoPage.getContent().get(1).owner()).isNull();
+        assertThat(artifactDtoPage.getContent().get(2).owner().numberOfArtifacts()).isEqualTo(20);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2); // The page is not full, so its total needs no count query
+    }
+
+    @Test
+    void testOwnerVersionChangesWithItsNumberOfArtifacts() {
+        // Given
+        ArtifactDto before = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        Wizard owner = this.wizardRepository.findById(before.owner().id()).orElseThrow();
+        Artifact other = owner.getArtifacts().stream().filter(artifact -> !artifact.getId().equals(before.id())).findFirst().orElseThrow();
+
+        // When
+        owner.removeArtifact(other); // The artifact itself does not change, only its owner's number of artifacts
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        // Then
+        ArtifactDto after = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        assertThat(after.owner().numberOfArtifacts()).isEqualTo(19);
+        assertThat(after.version()).isEqualTo(before.version());
+        assertThat(after.owner().version()).isEqualTo(before.owner().version() + 1);
+        assertThat(ArtifactService.eTag(after)).isNotEqualTo(ArtifactService.eTag(before));
+        ArtifactRepository.ArtifactVersion version = this.artifactRepository.findVersionById(2250808601744904000L).orElseThrow();
+        assertThat(ETags.of(version.getVersion(), version.getOwnerVersion())).isEqualTo(ArtifactService.eTag(after)); // The tag a conditional request is checked against
+    }
+
+    @Test
+    void testUpdateByIdIsOneStatementAndIncrementsTheVersion() {
+        // Given
+        ArtifactDto before = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        this.statistics.clear();
+
+        // When
+        int updated = this.artifactRepository.updateById(2250808601744904000L, "Renamed", "Description", "ImageUrl", null);
+        int stale = this.artifactRepository.updateByIdAndVersion(2250808601744904000L, "Renamed again", "Description", "ImageUrl", null, before.version());
+
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(stale).isZero(); // Its version has moved on
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(this.statistics.getEntityLoadCount()).isZero();
+        ArtifactDto after = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        assertThat(after.name()).isEqualTo("Renamed");
+        assertThat(after.version()).isEqualTo(before.version() + 1);
+        assertThat(this.artifactRepository.updateById(2250808601744904999L, "Missing", null, null, null)).isZero();
+    }
+
+    @Test
+    void testDeleteByIdInIncrementsTheOwnersVersions() {
+        // Given
+        ArtifactDto before = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        List<Long> artifactIds = List.of(2250808601744904001L, 2250808601744904002L, 2250808601744904100L, 2250808601744904999L);
+        this.statistics.clear();
+
+        // When
+        this.artifactRepository.incrementOwnerVersions(artifactIds);
+        int deleted = this.artifactRepository.deleteByIdIn(artifactIds);
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(this.statistics.getEntityLoadCount()).isZero();
+        ArtifactDto after = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        assertThat(after.owner().numberOfArtifacts()).isEqualTo(18);
+        assertThat(after.owner().version()).isEqualTo(before.owner().version() + 1); // Once, however many of its artifacts went
+    }
+
+    @Test
+    void testUpdateImageVariantsByImageUrlRecordsThemOnEveryArtifactShowingTheImage() {
+        // Given
+        this.artifactRepository.updateById(2250808601744904000L, "Artifact 0-0", "Description", "https://images.example.com/wand.png", null);
+        this.artifactRepository.updateById(2250808601744904100L, "Artifact 1-0", "Description", "https://images.example.com/wand.png", null);
+        ArtifactDto before = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        Map<Integer, String> imageVariants = Map.of(160, "https://images.example.com/wand-160.png", 320, "https://images.example.com/wand-320.png");
+
+        // When
+        int updated = this.artifactRepository.updateImageVariantsByImageUrl("https://images.example.com/wand.png", imageVariants);
+
+        // Then
+        assertThat(updated).isEqualTo(2);
+        ArtifactDto after = this.artifactDtoRepository.findById(2250808601744904000L).orElseThrow();
+        assertThat(after.imageVariants()).isEqualTo(imageVariants);
+        assertThat(after.version()).isEqualTo(before.version() + 1);
+        assertThat(this.artifactDtoRepository.findById(2250808601744904001L).orElseThrow().imageVariants()).isNull();
+        assertThat(this.artifactRepository.findIdsByImageUrl("https://images.example.com/wand.png")).containsExactlyInAnyOrder(2250808601744904000L, 2250808601744904100L);
+    }
+
+    @Test
+    void testFindFacetsCountsPerOwnerInOneStatement() {
+        // When
+        ArtifactFacets artifactFacets = this.artifactDtoRepository.findFacets(ArtifactSpecs.hasIdIn(List.of(1250808601744904191L, 1250808601744904193L, 1250808601744904196L, 2250808601744904000L, 2250808601744904001L)));
+
+        // Then
+        assertThat(artifactFacets.owners()).extracting(ArtifactFacets.OwnerFacet::name, ArtifactFacets.OwnerFacet::count)
+                .containsExactly(tuple("Albus Dumbledore", 2L), tuple("Wizard 0", 2L));
+        assertThat(artifactFacets.owned()).isEqualTo(4);
+        assertThat(artifactFacets.unowned()).isEqualTo(1);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,131 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidExportFormatException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles(value = "dev")
+@Transactional
+class ArtifactExportServiceTest {
+
+    @Autowired
+    ArtifactExportService artifactExportService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // 2500 more artifacts, on top of the 6 of DBDataInitializer, so the export spans several fetches
+        for (int i = 0; i < 2500; i++) {
+            Artifact artifact = new Artifact();
+            artifact.setId(2250808601744_000_000L + i);
+            artifact.setName("Artifact " + i);
+            artifact.setDescription("Description");
+            artifact.setImageUrl("ImageUrl");
+            this.entityManager.persist(artifact);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @Test
+    void testExportNdjsonWithOneQuery() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long count = this.artifactExportService.exportArtifacts(outputStream, ArtifactExportService.Format.NDJSON, false);
+
+        // Then
+        List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(count).isEqualTo(2506);
+        assertThat(lines).hasSize(2506);
+        JsonNode first = this.objectMapper.readTree(lines.get(0));
+        assertThat(first.get("id").asText()).isEqualTo("1250808601744904191"); // A string, beyond what a double holds exactly
+        assertThat(first.get("name").asText()).isEqualTo("Deluminator");
+        assertThat(first.get("ownerId").asInt()).isEqualTo(1);
+        assertThat(first.get("ownerName").asText()).isEqualTo("Albus Dumbledore");
+        assertThat(this.objectMapper.readTree(lines.get(5)).get("ownerId").isNull()).isTrue(); // The Resurrection Stone has no owner
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1); // Owners come with the artifacts, not one query each
+    }
+
+    @Test
+    void testExportGzippedCsv() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        this.artifactExportService.exportArtifacts(outputStream, ArtifactExportService.Format.CSV, true);
+
+        // Then
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        List<String> lines = csv.lines().toList();
+        assertThat(lines).hasSize(2507);
+        assertThat(lines.get(0)).isEqualTo("id,name,description,imageUrl,ownerId,ownerName");
+        assertThat(lines.get(1)).startsWith("1250808601744904191,Deluminator,").contains(",ImageUrl,1,");
+    }
+
+    @Test
+    void testExportFlushesOncePerFetchNotPerRow() throws Exception {
+        for (ArtifactExportService.Format format : ArtifactExportService.Format.values()) {
+            // Given
+            FlushCountingOutputStream outputStream = new FlushCountingOutputStream();
+
+            // When
+            this.artifactExportService.exportArtifacts(outputStream, format, false);
+
+            // Then
+            assertThat(outputStream.flushes).as(format.name()).isBetween(1, 2506 / ArtifactRepository.STREAM_FETCH_SIZE + 2); // Every fetch, then the end
+        }
+    }
+
+    @Test
+    void testExportFormatIsCaseInsensitive() {
+        assertThat(ArtifactExportService.Format.of("CSV")).isEqualTo(ArtifactExportService.Format.CSV);
+        assertThatThrownBy(() -> ArtifactExportService.Format.of("xml"))
+                .isInstanceOf(InvalidExportFormatException.class)
+                .hasMessage("Export format xml is not supported, use ndjson or csv.");
+    }
+
+    static class FlushCountingOutputStream extends ByteArrayOutputStream {
+
+        int flushes = 0;
+
+        @Override
+        public void flush() {
+            this.flushes++;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the artifact queries keyed by IdWorker ids stored as VARCHAR(255), as they were, with the same queries keyed by
+ * BIGINT: a lookup by id, a batch lookup joined with the owners as ArtifactDtoRepository reads it, and a cursor page. The
+ * tables are in-memory H2, so the figures show the cost of comparing and storing the keys, not MySQL's.
+ * <p>
+ * Run with:
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main ArtifactIdBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactIdBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"200000"})
+    int artifactCount;
+
+    @Param({"varchar(255)", "bigint"})
+    String idType;
+
+    long[] ids;
+
+    Random random = new Random(42);
+
+    Connection connection;
+
+    PreparedStatement findById;
+
+    PreparedStatement findByIds;
+
+    PreparedStatement findPage;
+
+    @Setup
+    public void setUp() throws SQLException {
+        IdWorker idWorker = new IdWorker(1, 1);
+        this.ids = new long[this.artifactCount];
+        for (int i = 0; i < this.artifactCount; i++) {
+            this.ids[i] = idWorker.nextId();
+        }
+
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:ids;DB_CLOSE_DELAY=-1");
+        this.connection.createStatement().execute("create table wizard (id integer primary key, name varchar(255))");
+        this.connection.createStatement().execute("create table artifact (id " + this.idType + " primary key, name varchar(255), owner_id integer references wizard (id))");
+        this.connection.createStatement().execute("insert into wizard select x, 'Wizard ' || x from system_range(1, 100)");
+        try (PreparedStatement insert = this.connection.prepareStatement("insert into artifact values (?, ?, ?)")) {
+            for (int i = 0; i < this.artifactCount; i++) {
+                setId(insert, 1, this.ids[i]);
+                insert.setString(2, "Artifact " + i);
+                insert.setInt(3, i % 100 + 1);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        this.findById = this.connection.prepareStatement("select id, name from artifact where id = ?");
+        this.findByIds = this.connection.prepareStatement("select a.id, a.name, w.name from artifact a left join wizard w on w.id = a.owner_id where a.id in ("
+                + "?, ".repeat(BATCH_SIZE - 1) + "?)");
+        this.findPage = this.connection.prepareStatement("select id, name from artifact where id > ? order by id limit 20");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.connection.createStatement().execute("drop all objects");
+        this.connection.close();
+    }
+
+    @Benchmark
+    public void findById(Blackhole blackhole) throws SQLException {
+        setId(this.findById, 1, randomId());
+        consume(this.findById, blackhole);
+    }
+
+    @Benchmark
+    public void findByIdsWithOwners(Blackhole blackhole) throws SQLException {
+        for (int i = 1; i <= BATCH_SIZE; i++) {
+            setId(this.findByIds, i, randomId());
+        }
+        consume(this.findByIds, blackhole);
+    }
+
+    @Benchmark
+    public void findPageAfterCursor(Blackhole blackhole) throws SQLException {
+        setId(this.findPage, 1, randomId());
+        consume(this.findPage, blackhole);
+    }
+
+    private long randomId() {
+        return this.ids[this.random.nextInt(this.ids.length)];
+    }
+
+    private void setId(PreparedStatement statement, int index, long id) throws SQLException {
+        if ("bigint".equals(this.idType)) {
+            statement.setLong(index, id);
+        } else {
+            statement.setString(index, String.valueOf(id));
+        }
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                names.add(resultSet.getString(2));
+            }
+        }
+        blackhole.consume(names);
+    }
+}
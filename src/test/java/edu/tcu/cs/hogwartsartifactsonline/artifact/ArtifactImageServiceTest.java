@@ -0,0 +1,179 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactImageServiceTest {
+
+    private static final byte[] IMAGE = "an elder wand".getBytes(StandardCharsets.UTF_8);
+
+    private static final String IMAGE_SHA_256 = "97cdccc4501383131d558ebb582b92ff03c300368f88baac4dd4ee114134a9a3";
+
+    @Mock
+    ImageStorageClient imageStorageClient;
+
+    @Mock
+    ImageContentRepository imageContentRepository;
+
+    @Mock
+    ImageVariantPipeline imageVariantPipeline;
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ArtifactImageService artifactImageService;
+
+    @BeforeEach
+    void setUp() {
+        this.artifactImageService = new ArtifactImageService(this.imageStorageClient, this.imageContentRepository, this.imageVariantPipeline, this.meterRegistry);
+    }
+
+    @Test
+    void testCommitUploadIndexesTheHashOfTheStoredImage() throws Exception {
+        // Given
+        given(this.imageStorageClient.commitUpload("images", "0b4f5e6a.png", 3)).willReturn("https://example.blob.core.windows.net/images/0b4f5e6a.png");
+        given(this.imageStorageClient.openImage("images", "0b4f5e6a.png")).willReturn(new ByteArrayInputStream(IMAGE));
+        given(this.imageContentRepository.findByContainerNameAndSha256("images", IMAGE_SHA_256)).willReturn(Optional.empty());
+
+        // When
+        String imageUrl = this.artifactImageService.commitUpload("images", "0b4f5e6a.png", 3);
+
+        // Then
+        assertThat(imageUrl).isEqualTo("https://example.blob.core.windows.net/images/0b4f5e6a.png");
+        InOrder inOrder = inOrder(this.imageContentRepository, this.imageVariantPipeline);
+        inOrder.verify(this.imageContentRepository).save(new ImageContent("images", IMAGE_SHA_256, "https://example.blob.core.windows.net/images/0b4f5e6a.png", IMAGE.length)); // With the stored size
+        inOrder.verify(this.imageVariantPipeline).submit("images", "https://example.blob.core.windows.net/images/0b4f5e6a.png"); // After, so the variants are recorded on it and artifacts saved later copy them
+    }
+
+    @Test
+    void testCommitUploadOfStoredContentDeletesTheNewCopy() throws Exception {
+        // Given
+        given(this.imageStorageClient.commitUpload("images", "0b4f5e6a.png", 3)).willReturn("https://example.blob.core.windows.net/images/0b4f5e6a.png");
+        given(this.imageStorageClient.openImage("images", "0b4f5e6a.png")).willReturn(new ByteArrayInputStream(IMAGE));
+        given(this.imageContentRepository.findByContainerNameAndSha256("images", IMAGE_SHA_256))
+                .willReturn(Optional.of(new ImageContent("images", IMAGE_SHA_256, "https://example.blob.core.windows.net/images/1.png", IMAGE.length)));
+
+        // When
+        String imageUrl = this.artifactImageService.commitUpload("images", "0b4f5e6a.png", 3);
+
+        // Then
+        assertThat(imageUrl).isEqualTo("https://example.blob.core.windows.net/images/1.png");
+        verify(this.imageStorageClient).deleteImage("images", "0b4f5e6a.png");
+        verify(this.imageContentRepository, never()).save(any());
+        verify(this.imageVariantPipeline, never()).submit(anyString(), anyString());
+        assertThat(this.meterRegistry.get("image.upload.saved").tag("stage", "after-transfer").counter().count()).isEqualTo(IMAGE.length);
+    }
+
+    @Test
+    void testUploadImageIndexesItsHash() throws Exception {
+        // Given
+        given(this.imageStorageClient.uploadImage(eq("images"), eq("wand.png"), any(InputStream.class), eq((long) IMAGE.length))).willAnswer(invocation -> {
+            invocation.getArgument(2, InputStream.class).readAllBytes(); // The storage reads the stream, which hashes it on the way
+            return "https://example.blob.core.windows.net/images/1.png";
+        });
+        given(this.imageContentRepository.findByContainerNameAndSha256("images", IMAGE_SHA_256)).willReturn(Optional.empty());
+
+        // When
+        String imageUrl = this.artifactImageService.uploadImage("images", "wand.png", new ByteArrayInputStream(IMAGE), IMAGE.length, null);
+
+        // Then
+        assertThat(imageUrl).isEqualTo("https://example.blob.core.windows.net/images/1.png");
+        ArgumentCaptor<ImageContent> indexed = ArgumentCaptor.forClass(ImageContent.class);
+        verify(this.imageContentRepository).save(indexed.capture());
+        assertThat(indexed.getValue()).isEqualTo(new ImageContent("images", IMAGE_SHA_256, "https://example.blob.core.windows.net/images/1.png", IMAGE.length));
+        verify(this.imageStorageClient, never()).deleteImage(anyString(), anyString());
+        verify(this.imageVariantPipeline).submit("images", "https://example.blob.core.windows.net/images/1.png"); // New content gets its variants generated
+    }
+
+    @Test
+    void testUploadImageOfStoredContentDeletesTheNewCopy() throws Exception {
+        // Given
+        given(this.imageStorageClient.uploadImage(eq("images"), eq("wand.png"), any(InputStream.class), eq((long) IMAGE.length))).willAnswer(invocation -> {
+            invocation.getArgument(2, InputStream.class).readAllBytes();
+            return "https://example.blob.core.windows.net/images/2.png";
+        });
+        given(this.imageContentRepository.findByContainerNameAndSha256("images", IMAGE_SHA_256))
+                .willReturn(Optional.of(new ImageContent("images", IMAGE_SHA_256, "https://example.blob.core.windows.net/images/1.png", IMAGE.length)));
+
+        // When
+        String imageUrl = this.artifactImageService.uploadImage("images", "wand.png", new ByteArrayInputStream(IMAGE), IMAGE.length, null);
+
+        // Then
+        assertThat(imageUrl).isEqualTo("https://example.blob.core.windows.net/images/1.png");
+        verify(this.imageStorageClient).deleteImage("images", "2.png");
+        verify(this.imageContentRepository, never()).save(any());
+        verify(this.imageVariantPipeline, never()).submit(anyString(), anyString()); // The stored copy has them already
+        assertThat(this.meterRegistry.get("image.upload.saved").tag("stage", "after-transfer").counter().count()).isEqualTo(IMAGE.length);
+    }
+
+    @Test
+    void testUploadImageWithAKnownHashSkipsTheTransfer() throws Exception {
+        // Given
+        given(this.imageContentRepository.findByContainerNameAndSha256("images", IMAGE_SHA_256))
+                .willReturn(Optional.of(new ImageContent("images", IMAGE_SHA_256, "https://example.blob.core.windows.net/images/1.png", IMAGE.length)));
+
+        // When
+        String imageUrl = this.artifactImageService.uploadImage("images", "wand.png", new ByteArrayInputStream(IMAGE), 1_000_000_000L, IMAGE_SHA_256.toUpperCase()); // The declared length is not trusted
+
+        // Then
+        assertThat(imageUrl).isEqualTo("https://example.blob.core.windows.net/images/1.png");
+        verify(this.imageStorageClient, never()).uploadImage(anyString(), anyString(), any(InputStream.class), anyLong());
+        assertThat(this.meterRegistry.get("image.upload.deduplicated").tag("stage", "before-transfer").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("image.upload.saved").tag("stage", "before-transfer").counter().count()).isEqualTo(IMAGE.length);
+    }
+
+    @Test
+    void testUploadImageThatLosesTheRaceToIndexReturnsTheWinner() throws Exception {
+        // Given
+        given(this.imageStorageClient.uploadImage(eq("images"), eq("wand.png"), any(InputStream.class), eq((long) IMAGE.length))).willAnswer(invocation -> {
+            invocation.getArgument(2, InputStream.class).readAllBytes();
+            return "https://example.blob.core.windows.net/images/2.png";
+        });
+        given(this.imageContentRepository.findByContainerNameAndSha256("images", IMAGE_SHA_256))
+                .willReturn(Optional.empty())
+                .willReturn(Optional.of(new ImageContent("images", IMAGE_SHA_256, "https://example.blob.core.windows.net/images/1.png", IMAGE.length)));
+        given(this.imageContentRepository.save(any(ImageContent.class))).willThrow(new DataIntegrityViolationException("uk_image_content_container_name_sha256"));
+
+        // When
+        String imageUrl = this.artifactImageService.uploadImage("images", "wand.png", new ByteArrayInputStream(IMAGE), IMAGE.length, null);
+
+        // Then
+        assertThat(imageUrl).isEqualTo("https://example.blob.core.windows.net/images/1.png");
+        verify(this.imageStorageClient).deleteImage("images", "2.png");
+    }
+
+    @Test
+    void testUploadImageWithAMalformedHash() {
+        // When
+        Throwable thrown = catchThrowable(() -> this.artifactImageService.uploadImage("images", "wand.png", new ByteArrayInputStream(IMAGE), IMAGE.length, "not-a-hash"));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidUploadException.class);
+    }
+}
@@ -0,0 +1,140 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportReport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles(value = "dev")
+class ArtifactImportServiceTest {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    ArtifactImportService artifactImportService;
+
+    @Autowired
+    ArtifactRepository artifactRepository;
+
+    @Autowired
+    ArtifactTextIndex artifactTextIndex;
+
+    @Autowired
+    ArtifactSuggestIndex artifactSuggestIndex;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // The import commits, so its rows have to be removed for the other tests sharing this database
+        List<Artifact> imported = this.artifactRepository.findAll().stream()
+                .filter(artifact -> artifact.getName().startsWith("Bulk "))
+                .toList();
+        this.artifactRepository.deleteAll(imported);
+        imported.forEach(artifact -> this.artifactTextIndex.remove(artifact.getId()));
+    }
+
+    @Test
+    void testImportNdjsonInBatchedChunks() throws Exception {
+        // Given
+        String ndjson = IntStream.range(0, 250)
+                .mapToObj(i -> "{\"name\":\"Bulk " + i + "\",\"description\":\"Imported in bulk\",\"imageUrl\":\"ImageUrl\"}")
+                .collect(Collectors.joining("\n"));
+
+        // When
+        ArtifactImportReport report = this.artifactImportService.importArtifacts(body(ndjson), NDJSON, 100);
+
+        // Then
+        assertThat(report.rowsRead()).isEqualTo(250);
+        assertThat(report.rowsImported()).isEqualTo(250);
+        assertThat(report.rowsRejected()).isZero();
+        assertThat(report.chunks()).extracting(ArtifactImportReport.Chunk::imported).containsExactly(100, 100, 50);
+        assertThat(report.chunks()).extracting(ArtifactImportReport.Chunk::firstLine).containsExactly(1L, 101L, 201L);
+        assertThat(this.artifactTextIndex.awaitMaintenance()).isTrue();
+        assertThat(this.artifactSuggestIndex.awaitMaintenance()).isTrue();
+        assertThat(this.statistics.getEntityInsertCount()).isEqualTo(250);
+        // One batched INSERT per chunk and at most one read back into each in-memory index per chunk, fewer when the
+        // changes of several chunks are read back together; no SELECT per row
+        assertThat(this.statistics.getPrepareStatementCount()).isBetween(5L, 9L);
+        assertThat(this.artifactTextIndex.search("Bulk 249", null)).hasSize(1);
+    }
+
+    @Test
+    void testImportReportsInvalidRowsAndKeepsTheRest() throws Exception {
+        // Given
+        String ndjson = """
+                {"name":"Bulk 0","description":"Imported in bulk","imageUrl":"ImageUrl"}
+                {"name":"Bulk 1","description":"","imageUrl":"ImageUrl"}
+
+                {"name":"Bulk 2",
+                {"name":"Bulk 3","description":"Imported in bulk","imageUrl":"ImageUrl"}
+                """;
+
+        // When
+        ArtifactImportReport report = this.artifactImportService.importArtifacts(body(ndjson), NDJSON, null);
+
+        // Then
+        assertThat(report.rowsRead()).isEqualTo(4);
+        assertThat(report.rowsImported()).isEqualTo(2);
+        assertThat(report.rowsRejected()).isEqualTo(2);
+        assertThat(report.chunks()).hasSize(1);
+        List<ArtifactImportReport.RowError> errors = report.chunks().get(0).errors();
+        assertThat(errors).extracting(ArtifactImportReport.RowError::line).containsExactly(2L, 4L);
+        assertThat(errors.get(0).message()).isEqualTo("description: description is required.");
+    }
+
+    @Test
+    void testImportCsvWithQuotedFields() throws Exception {
+        // Given
+        String csv = """
+                name,description,imageUrl
+                Bulk 0,"Spans
+                two lines, with a comma",ImageUrl
+                Bulk 1,Imported in bulk,
+                Bulk 2,Imported in bulk,ImageUrl
+                """;
+
+        // When
+        ArtifactImportReport report = this.artifactImportService.importArtifacts(body(csv), CSV, null);
+
+        // Then
+        assertThat(report.rowsImported()).isEqualTo(2);
+        assertThat(report.chunks().get(0).errors()).containsExactly(new ArtifactImportReport.RowError(4, "imageUrl: imageUrl is required."));
+        assertThat(this.artifactRepository.findAll()).filteredOn(artifact -> artifact.getName().equals("Bulk 0"))
+                .singleElement()
+                .extracting(Artifact::getDescription)
+                .isEqualTo("Spans\ntwo lines, with a comma");
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
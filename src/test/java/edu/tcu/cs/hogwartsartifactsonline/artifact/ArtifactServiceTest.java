@@ -2,14 +2,22 @@ package edu.tcu.cs.hogwartsartifactsonline.artifact;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactBatchDto;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactFacets;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.ChatClient;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.Choice;
 import edu.tcu.cs.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
+import edu.tcu.cs.hogwartsartifactsonline.system.KeysetCursor;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.TwoTierCache;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidCursorException;
 import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.Wizard;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
 import org.junit.jupiter.api.AfterEach;
@@ -20,14 +28,25 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -45,21 +64,38 @@ class ArtifactServiceTest {
     @Mock
     ChatClient chatClient;
 
+    @Mock
+    ArtifactTextIndex artifactTextIndex;
+
+    @Mock
+    ArtifactDtoRepository artifactDtoRepository;
+
+    @Mock
+    CacheManager cacheManager; // Returns no caches, so every read goes to the repositories
+
+    @Mock
+    CatalogVersion catalogVersion;
+
+    @Mock
+    ImageContentRepository imageContentRepository;
+
     @InjectMocks
     ArtifactService artifactService;
 
     List<Artifact> artifacts;
 
+    List<ArtifactDto> artifactDtos;
+
     @BeforeEach
     void setUp() {
         Artifact a1 = new Artifact();
-        a1.setId("1250808601744904191");
+        a1.setId(1250808601744904191L);
         a1.setName("Deluminator");
         a1.setDescription("A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.");
         a1.setImageUrl("imageUrl");
 
         Artifact a2 = new Artifact();
-        a2.setId("1250808601744904192");
+        a2.setId(1250808601744904192L);
         a2.setName("Invisibility Cloak");
         a2.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a2.setImageUrl("imageUrl");
@@ -67,6 +103,10 @@ class ArtifactServiceTest {
         this.artifacts = new ArrayList<>();
         this.artifacts.add(a1);
         this.artifacts.add(a2);
+
+        this.artifactDtos = new ArrayList<>();
+        this.artifactDtos.add(new ArtifactDto(a1.getId(), a1.getName(), a1.getDescription(), a1.getImageUrl(), null));
+        this.artifactDtos.add(new ArtifactDto(a2.getId(), a2.getName(), a2.getDescription(), a2.getImageUrl(), new WizardDto(1, "Albus Dumbledore", 2)));
     }
 
     @AfterEach
@@ -77,13 +117,13 @@ class ArtifactServiceTest {
     void testFindByIdSuccess() {
         // Given. Arrange inputs and targets. Define the behavior of Mock object artifactRepository
         /*
-        "id": "1250808601744904192",
+        "id": 1250808601744904192L,
         "name": "Invisibility Cloak",
         "description": "An invisibility cloak is used to make the wearer invisible.",
         "imageUrl": "ImageUrl",
         */
         Artifact a = new Artifact();
-        a.setId("1250808601744904192");
+        a.setId(1250808601744904192L);
         a.setName("Invisibility Cloak");
         a.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a.setImageUrl("ImageUrl");
@@ -94,10 +134,10 @@ class ArtifactServiceTest {
 
         a.setOwner(w);
 
-        given(artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(a)); // Defines the behavior of the mock object
+        given(artifactRepository.findById(1250808601744904192L)).willReturn(Optional.of(a)); // Defines the behavior of the mock object
 
         // When. Act on the target behavior. When steps should cover the method to be tested
-        Artifact returnedArtifact = artifactService.findById("1250808601744904192");
+        Artifact returnedArtifact = artifactService.findById(1250808601744904192L);
 
         // Then. Assert expected outcomes.
         assertThat(returnedArtifact.getId()).isEqualTo(a.getId());
@@ -105,22 +145,46 @@ class ArtifactServiceTest {
         assertThat(returnedArtifact.getDescription()).isEqualTo(a.getDescription());
         assertThat(returnedArtifact.getImageUrl()).isEqualTo(a.getImageUrl());
 
-        verify(artifactRepository, times(1)).findById("1250808601744904192");
+        verify(artifactRepository, times(1)).findById(1250808601744904192L);
     }
 
     @Test
     void testFindByIdNotFound() {
         // Given
-        given(artifactRepository.findById(Mockito.any(String.class))).willReturn(Optional.empty());
+        given(artifactRepository.findById(Mockito.any(Long.class))).willReturn(Optional.empty());
 
         // When
         Throwable thrown = catchThrowable(() -> {
-            Artifact returnedArtifact = artifactService.findById("1250808601744904192");
+            Artifact returnedArtifact = artifactService.findById(1250808601744904192L);
         });
 
         // Then
         assertThat(thrown).isInstanceOf(ObjectNotFoundException.class).hasMessage("Could not find artifact with Id 1250808601744904192 :(");
-        verify(artifactRepository, times(1)).findById("1250808601744904192");
+        verify(artifactRepository, times(1)).findById(1250808601744904192L);
+    }
+
+    @Test
+    void testFindDtoByIdSuccess() {
+        // Given
+        given(this.artifactDtoRepository.findById(1250808601744904192L)).willReturn(Optional.of(this.artifactDtos.get(1)));
+
+        // When
+        ArtifactDto artifactDto = this.artifactService.findDtoById(1250808601744904192L);
+
+        // Then
+        assertThat(artifactDto.owner().numberOfArtifacts()).isEqualTo(2);
+    }
+
+    @Test
+    void testFindDtoByIdNotFound() {
+        // Given
+        given(this.artifactDtoRepository.findById(1250808601744904192L)).willReturn(Optional.empty());
+
+        // When
+        Throwable thrown = catchThrowable(() -> this.artifactService.findDtoById(1250808601744904192L));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ObjectNotFoundException.class).hasMessage("Could not find artifact with Id 1250808601744904192 :(");
     }
 
     @Test
@@ -151,38 +215,173 @@ class ArtifactServiceTest {
         Artifact savedArtifact = artifactService.save(newArtifact);
 
         // Then
-        assertThat(savedArtifact.getId()).isEqualTo("123456");
+        assertThat(savedArtifact.getId()).isEqualTo(123456L);
         assertThat(savedArtifact.getName()).isEqualTo(newArtifact.getName());
         assertThat(savedArtifact.getDescription()).isEqualTo(newArtifact.getDescription());
         assertThat(savedArtifact.getImageUrl()).isEqualTo(newArtifact.getImageUrl());
         verify(artifactRepository, times(1)).save(newArtifact);
+        verify(catalogVersion, times(1)).bump(CatalogVersion.ARTIFACTS, List.of(123456L));
+    }
+
+    @Test
+    void testSaveCopiesTheVariantsOfAnUploadedImage() {
+        // Given
+        Artifact newArtifact = new Artifact();
+        newArtifact.setName("Artifact 3");
+        newArtifact.setDescription("Description...");
+        newArtifact.setImageUrl("https://images.example.com/wand.png");
+        ImageContent imageContent = new ImageContent("images", "97cdccc4501383131d558ebb582b92ff03c300368f88baac4dd4ee114134a9a3", "https://images.example.com/wand.png", 1024);
+        imageContent.setVariants(Map.of(160, "https://images.example.com/wand-160.png"));
+
+        given(idWorker.nextId()).willReturn(123456L);
+        given(imageContentRepository.findFirstByImageUrl("https://images.example.com/wand.png")).willReturn(Optional.of(imageContent));
+        given(artifactRepository.save(newArtifact)).willReturn(newArtifact);
+
+        // When
+        Artifact savedArtifact = artifactService.save(newArtifact);
+
+        // Then
+        assertThat(savedArtifact.getImageVariants()).containsExactly(entry(160, "https://images.example.com/wand-160.png"));
+    }
+
+    @Test
+    void testUpdateImageVariantsEvictsTheArtifactsShowingTheImage() {
+        // Given
+        Cache artifactCache = mock(Cache.class);
+        Map<Integer, String> imageVariants = Map.of(160, "https://images.example.com/wand-160.png");
+        given(this.cacheManager.getCache("artifact")).willReturn(artifactCache);
+        given(artifactRepository.findIdsByImageUrl("https://images.example.com/wand.png")).willReturn(List.of(1250808601744904191L, 1250808601744904192L));
+        given(artifactRepository.updateImageVariantsByImageUrl("https://images.example.com/wand.png", imageVariants)).willReturn(2);
+
+        // When
+        int updated = artifactService.updateImageVariants("https://images.example.com/wand.png", imageVariants);
+
+        // Then
+        assertThat(updated).isEqualTo(2);
+        verify(artifactCache).evict(1250808601744904191L);
+        verify(artifactCache).evict(1250808601744904192L);
+        verify(this.catalogVersion).bump(CatalogVersion.ARTIFACTS, List.of(1250808601744904191L, 1250808601744904192L));
+    }
+
+    @Test
+    void testFindDtosByIdsConsultsTheCacheFirstAndKeepsTheRequestOrder() {
+        // Given
+        TwoTierCache artifactCache = mock(TwoTierCache.class);
+        given(this.cacheManager.getCache("artifact")).willReturn(artifactCache);
+        given(artifactCache.getAll(List.of("3", "1", "2"))).willReturn(Map.of("1", this.artifactDtos.get(0)));
+        ArtifactDto loaded = new ArtifactDto(3L, "Elder Wand", "The Elder Wand.", "ImageUrl", null);
+        given(this.artifactDtoRepository.findAll(Mockito.any(Specification.class), Mockito.eq(Sort.unsorted()), Mockito.eq(Limit.unlimited()))).willReturn(List.of(loaded));
+
+        // When
+        ArtifactBatchDto artifactBatchDto = this.artifactService.findDtosByIds(List.of(3L, 1L, 2L, 3L));
+
+        // Then
+        assertThat(artifactBatchDto.artifacts()).containsExactly(loaded, this.artifactDtos.get(0));
+        assertThat(artifactBatchDto.missingIds()).containsExactly(2L);
+        verify(this.artifactDtoRepository, times(1)).findAll(Mockito.any(Specification.class), Mockito.eq(Sort.unsorted()), Mockito.eq(Limit.unlimited())); // Only for the ids the cache missed
+        verify(artifactCache).putAll(Map.of("3", loaded));
+    }
+
+    @Test
+    void testFindDtosByIdsReadsInChunks() {
+        // Given
+        List<Long> artifactIds = new ArrayList<>();
+        for (int i = 0; i < 2 * ArtifactRepository.IN_LIST_CHUNK_SIZE + 1; i++) {
+            artifactIds.add((long) i);
+        }
+        given(this.artifactDtoRepository.findAll(Mockito.any(Specification.class), Mockito.eq(Sort.unsorted()), Mockito.eq(Limit.unlimited()))).willReturn(List.of());
+
+        // When
+        ArtifactBatchDto artifactBatchDto = this.artifactService.findDtosByIds(artifactIds);
+
+        // Then
+        assertThat(artifactBatchDto.artifacts()).isEmpty();
+        assertThat(artifactBatchDto.missingIds()).isEqualTo(artifactIds);
+        verify(this.artifactDtoRepository, times(3)).findAll(Mockito.any(Specification.class), Mockito.eq(Sort.unsorted()), Mockito.eq(Limit.unlimited()));
     }
 
     @Test
     void testUpdateSuccess() {
         // Given
-        Artifact oldArtifact = new Artifact();
-        oldArtifact.setId("1250808601744904192");
-        oldArtifact.setName("Invisibility Cloak");
-        oldArtifact.setDescription("An invisibility cloak is used to make the wearer invisible.");
-        oldArtifact.setImageUrl("ImageUrl");
+        Artifact update = new Artifact();
+        update.setName("Invisibility Cloak");
+        update.setDescription("A new description.");
+        update.setImageUrl("ImageUrl");
+
+        ArtifactDto updatedArtifactDto = new ArtifactDto(1250808601744904192L, "Invisibility Cloak", "A new description.", "ImageUrl", null, 1L);
+
+        given(artifactRepository.updateById(1250808601744904192L, "Invisibility Cloak", "A new description.", "ImageUrl", null)).willReturn(1);
+        given(artifactDtoRepository.findById(1250808601744904192L)).willReturn(Optional.of(updatedArtifactDto));
 
+        // When
+        ArtifactDto updated = artifactService.update(1250808601744904192L, update, null);
+
+        // Then
+        assertThat(updated).isEqualTo(updatedArtifactDto);
+        verify(artifactRepository, never()).findById(anyLong()); // Updated in one statement, not loaded first
+        verify(artifactRepository, never()).save(any(Artifact.class));
+        verify(this.catalogVersion, times(1)).bump(CatalogVersion.ARTIFACTS, List.of(1250808601744904192L));
+    }
+
+    @Test
+    void testUpdateWithStaleIfMatch() {
+        // Given
         Artifact update = new Artifact();
         update.setName("Invisibility Cloak");
         update.setDescription("A new description.");
         update.setImageUrl("ImageUrl");
 
-        given(artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(oldArtifact));
-        given(artifactRepository.save(oldArtifact)).willReturn(oldArtifact);
+        ArtifactRepository.ArtifactVersion version = artifactVersion(3L, null);
+        given(artifactRepository.findVersionById(1250808601744904192L)).willReturn(Optional.of(version));
 
         // When
-        Artifact updatedArtifact = artifactService.update("1250808601744904192", update);
+        Throwable thrown = catchThrowable(() -> artifactService.update(1250808601744904192L, update, "\"2\""));
 
         // Then
-        assertThat(updatedArtifact.getId()).isEqualTo(oldArtifact.getId());
-        assertThat(updatedArtifact.getDescription()).isEqualTo(update.getDescription());
-        verify(artifactRepository, times(1)).findById("1250808601744904192");
-        verify(artifactRepository, times(1)).save(oldArtifact);
+        assertThat(thrown)
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("The artifact with Id 1250808601744904192 has changed since it was read, fetch it again and retry.");
+        verify(artifactRepository, never()).updateByIdAndVersion(anyLong(), any(), any(), any(), any(), anyLong());
+        verify(this.catalogVersion, never()).bump(anyString(), anyList());
+    }
+
+    @Test
+    void testUpdateWithCurrentIfMatch() {
+        // Given
+        Artifact update = new Artifact();
+        update.setName("Invisibility Cloak");
+
+        ArtifactDto updatedArtifactDto = new ArtifactDto(1250808601744904192L, "Invisibility Cloak", null, null, null, 4L);
+
+        ArtifactRepository.ArtifactVersion version = artifactVersion(3L, 7L);
+        given(artifactRepository.findVersionById(1250808601744904192L)).willReturn(Optional.of(version));
+        given(artifactRepository.updateByIdAndVersion(1250808601744904192L, "Invisibility Cloak", null, null, null, 3L)).willReturn(1);
+        given(artifactDtoRepository.findById(1250808601744904192L)).willReturn(Optional.of(updatedArtifactDto));
+
+        // When
+        ArtifactDto updated = artifactService.update(1250808601744904192L, update, "\"3.7\"");
+
+        // Then
+        assertThat(updated.name()).isEqualTo("Invisibility Cloak");
+        verify(artifactRepository, never()).updateById(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testUpdateWithIfMatchLosesTheRace() {
+        // Given
+        Artifact update = new Artifact();
+        update.setName("Invisibility Cloak");
+
+        ArtifactRepository.ArtifactVersion version = artifactVersion(3L, null);
+        given(artifactRepository.findVersionById(1250808601744904192L)).willReturn(Optional.of(version));
+        given(artifactRepository.updateByIdAndVersion(1250808601744904192L, "Invisibility Cloak", null, null, null, 3L)).willReturn(0); // Updated by someone else in between
+
+        // When
+        Throwable thrown = catchThrowable(() -> artifactService.update(1250808601744904192L, update, "\"3\""));
+
+        // Then
+        assertThat(thrown).isInstanceOf(PreconditionFailedException.class);
+        verify(this.catalogVersion, never()).bump(anyString(), anyList());
     }
 
     @Test
@@ -194,48 +393,115 @@ class ArtifactServiceTest {
         update.setDescription("A new description.");
         update.setImageUrl("ImageUrl");
 
-        given(artifactRepository.findById("1250808601744904192")).willReturn(Optional.empty());
+        given(artifactRepository.updateById(1250808601744904192L, "Invisibility Cloak", "A new description.", "ImageUrl", null)).willReturn(0);
 
         // When
         assertThrows(ObjectNotFoundException.class, () -> {
-            artifactService.update("1250808601744904192", update);
+            artifactService.update(1250808601744904192L, update, null);
         });
 
         // Then
-        verify(artifactRepository, times(1)).findById("1250808601744904192");
+        verify(this.catalogVersion, never()).bump(anyString(), anyList());
     }
 
     @Test
     void testDeleteSuccess() {
         // Given
-        Artifact artifact = new Artifact();
-        artifact.setId("1250808601744904192");
-        artifact.setName("Invisibility Cloak");
-        artifact.setDescription("An invisibility cloak is used to make the wearer invisible.");
-        artifact.setImageUrl("ImageUrl");
+        given(artifactRepository.deleteByIdIn(List.of(1250808601744904192L))).willReturn(1);
 
-        given(artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(artifact));
-        doNothing().when(artifactRepository).deleteById("1250808601744904192");
+        // When
+        artifactService.delete(1250808601744904192L);
 
         // Then
-        artifactService.delete(artifact.getId());
+        verify(artifactRepository, times(1)).incrementOwnerVersions(List.of(1250808601744904192L));
+        verify(artifactRepository, never()).findById(anyLong());
+        verify(this.catalogVersion, times(1)).bump(CatalogVersion.ARTIFACTS, List.of(1250808601744904192L));
+    }
+
+    @Test
+    void testDeleteEvictsOnlyTheArtifactsAndOwnerItChanges() {
+        // Given
+        Cache artifactCache = mock(Cache.class);
+        Cache wizardCache = mock(Cache.class);
+        given(this.cacheManager.getCache("artifact")).willReturn(artifactCache);
+        given(this.cacheManager.getCache("wizard")).willReturn(wizardCache);
+        given(artifactRepository.findWithOwnedAlongside(List.of(1250808601744904192L))).willReturn(List.of(
+                artifactOwner(1250808601744904192L, 2),
+                artifactOwner(1250808601744904195L, 2)));
+        given(artifactRepository.deleteByIdIn(List.of(1250808601744904192L))).willReturn(1);
+
+        // When
+        artifactService.delete(1250808601744904192L);
 
         // Then
-        verify(artifactRepository, times(1)).deleteById("1250808601744904192");
+        verify(artifactCache).evict(1250808601744904192L);
+        verify(artifactCache).evict(1250808601744904195L);
+        verify(artifactCache, never()).clear();
+        verify(wizardCache, times(1)).evict(2);
+        verify(wizardCache, never()).clear();
+    }
+
+    private static ArtifactRepository.ArtifactOwner artifactOwner(Long id, Integer ownerId) {
+        return new ArtifactRepository.ArtifactOwner() {
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getOwnerId() {
+                return ownerId;
+            }
+        };
     }
 
     @Test
     void testDeleteNotFound() {
         // Given
-        given(artifactRepository.findById("1250808601744904192")).willReturn(Optional.empty());
+        given(artifactRepository.deleteByIdIn(List.of(1250808601744904192L))).willReturn(0);
 
         // Then
         assertThrows(ObjectNotFoundException.class, () -> {
-           artifactService.delete("1250808601744904192");
+           artifactService.delete(1250808601744904192L);
         });
 
         // Then
-        verify(artifactRepository, times(1)).findById("1250808601744904192");
+        verify(this.catalogVersion, never()).bump(anyString(), anyList());
+    }
+
+    @Test
+    void testDeleteAllInChunks() {
+        // Given
+        List<Long> artifactIds = new ArrayList<>();
+        for (int i = 0; i < ArtifactRepository.IN_LIST_CHUNK_SIZE + 1; i++) {
+            artifactIds.add((long) i);
+        }
+        artifactIds.add(0L); // Duplicates are deleted once
+        given(artifactRepository.deleteByIdIn(anyList())).willAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size() == 1 ? 0 : ArtifactRepository.IN_LIST_CHUNK_SIZE);
+
+        // When
+        int deleted = artifactService.deleteAll(artifactIds);
+
+        // Then
+        assertThat(deleted).isEqualTo(ArtifactRepository.IN_LIST_CHUNK_SIZE); // The last id does not exist
+        verify(artifactRepository, times(2)).incrementOwnerVersions(anyList());
+        verify(artifactRepository, times(1)).deleteByIdIn(artifactIds.subList(0, ArtifactRepository.IN_LIST_CHUNK_SIZE));
+        verify(artifactRepository, times(1)).deleteByIdIn(List.of((long) ArtifactRepository.IN_LIST_CHUNK_SIZE));
+        verify(this.catalogVersion, times(1)).bump(eq(CatalogVersion.ARTIFACTS), anyList());
+    }
+
+    @Test
+    void testDeleteAllOfNothingDoesNotBumpTheCatalogVersion() {
+        // Given
+        given(artifactRepository.deleteByIdIn(List.of(1L))).willReturn(0);
+
+        // When
+        int deleted = artifactService.deleteAll(List.of(1L));
+
+        // Then
+        assertThat(deleted).isZero();
+        verify(this.catalogVersion, never()).bump(anyString(), anyList());
     }
 
     @Test
@@ -243,8 +509,8 @@ class ArtifactServiceTest {
         // Given
         WizardDto wizardDto = new WizardDto(1, "Albus Dumbledore", 2);
         List<ArtifactDto> artifactDtos = List.of(
-                new ArtifactDto("1250808601744904191", "Deluminator", "A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.", "ImageUrl", wizardDto),
-                new ArtifactDto("1250808601744904193", "Elder Wand", "The Elder Wand, known throughout history as the Deathstick or the Wand of Destiny, is an extremely powerful wand made of elder wood with a core of Thestral tail hair.", "ImageUrl", wizardDto)
+                new ArtifactDto(1250808601744904191L, "Deluminator", "A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.", "ImageUrl", wizardDto),
+                new ArtifactDto(1250808601744904193L, "Elder Wand", "The Elder Wand, known throughout history as the Deathstick or the Wand of Destiny, is an extremely powerful wand made of elder wood with a core of Thestral tail hair.", "ImageUrl", wizardDto)
         );
 
         ObjectMapper objectMapper = new ObjectMapper();
@@ -273,4 +539,144 @@ class ArtifactServiceTest {
         assertThat(summary).isEqualTo("A summary of two artifacts owned by Albus Dumbledore.");
         verify(this.chatClient, times(1)).generate(chatRequest);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCombineSummariesSuccess() {
+        // Given
+        List<Message> messages = List.of(
+                new Message("system", "Your task is to combine the given summaries, each of different artifacts, into one short summary in at most 100 words. The summary must include the total number of artifacts, their descriptions, and the ownership information. Don't mention that the summary is combined from other summaries."),
+                new Message("user", "Two artifacts owned by Albus Dumbledore.\n\nOne artifact owned by Harry Potter.")
+        );
+
+        ChatRequest chatRequest = new ChatRequest("openai-community/gpt2", messages);
+        chatRequest.setMaxTokens(500);
+        chatRequest.setStream(false);
+
+        given(this.chatClient.generate(chatRequest)).willReturn(new ChatResponse(List.of(
+                new Choice(0, new Message("assistant", "Three artifacts, two owned by Albus Dumbledore and one by Harry Potter."))
+        )));
+
+        // When
+        String summary = this.artifactService.combineSummaries(List.of("Two artifacts owned by Albus Dumbledore.", "One artifact owned by Harry Potter."));
+
+        // Then
+        assertThat(summary).isEqualTo("Three artifacts, two owned by Albus Dumbledore and one by Harry Potter.");
+    }
+
+    @Test
+    void testFindAllByCursorFirstPage() {
+        // Given
+        this.artifactDtos.add(new ArtifactDto(1250808601744904193L, "Elder Wand", "The Elder Wand.", "imageUrl", null));
+
+        given(this.artifactDtoRepository.findAll(Mockito.any(Specification.class), Mockito.any(Sort.class), Mockito.eq(Limit.of(3)))).willReturn(this.artifactDtos); // One row more than the page size
+
+        // When
+        CursorPage<ArtifactDto> cursorPage = this.artifactService.findAll(null, PageRequest.of(0, 2));
+
+        // Then
+        assertThat(cursorPage.content()).hasSize(2);
+        assertThat(cursorPage.content().get(1).id()).isEqualTo(1250808601744904192L);
+        assertThat(cursorPage.prev()).isNull();
+        assertThat(KeysetCursor.decode(cursorPage.next(), "id")).isEqualTo(new KeysetCursor("id", "1250808601744904192", "1250808601744904192", false));
+    }
+
+    @Test
+    void testFindAllByCursorLastPage() {
+        // Given
+        String cursor = new KeysetCursor("name", "Deluminator", "1250808601744904191", false).encode();
+        given(this.artifactDtoRepository.findAll(Mockito.any(Specification.class), Mockito.any(Sort.class), Mockito.any(Limit.class))).willReturn(List.of(this.artifactDtos.get(1)));
+
+        // When
+        CursorPage<ArtifactDto> cursorPage = this.artifactService.findAll(cursor, PageRequest.of(0, 2, Sort.by("name")));
+
+        // Then
+        assertThat(cursorPage.content()).hasSize(1);
+        assertThat(cursorPage.next()).isNull();
+        assertThat(KeysetCursor.decode(cursorPage.prev(), "name")).isEqualTo(new KeysetCursor("name", "Invisibility Cloak", "1250808601744904192", true));
+    }
+
+    @Test
+    void testFindAllByCursorWithUnsupportedSort() {
+        // When
+        Throwable thrown = catchThrowable(() -> this.artifactService.findAll(null, PageRequest.of(0, 2, Sort.by("description"))));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidCursorException.class).hasMessage("Cursor pagination only supports sorting by one of [id, name].");
+        verifyNoInteractions(this.artifactDtoRepository);
+    }
+
+    @Test
+    void testFindAllByCursorWithCursorOfAnotherSort() {
+        // Given
+        String cursor = new KeysetCursor("id", "1250808601744904191", "1250808601744904191", false).encode();
+
+        // When
+        Throwable thrown = catchThrowable(() -> this.artifactService.findAll(cursor, PageRequest.of(0, 2, Sort.by("name"))));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidCursorException.class).hasMessage("The cursor was issued for a different sort order.");
+    }
+
+    @Test
+    void testFindByCriteriaPagesThroughTextIndex() {
+        // Given
+        Map<String, String> searchCriteria = Map.of("description", "hogwarts");
+        given(this.catalogVersion.current()).willReturn("r5");
+        given(this.artifactTextIndex.isCurrentAt("r5")).willReturn(true);
+        given(this.artifactTextIndex.search(null, "hogwarts")).willReturn(List.of(1250808601744904191L, 1250808601744904192L, 1250808601744904194L));
+        given(this.artifactDtoRepository.findAll(Mockito.any(Specification.class), Mockito.any(Sort.class), Mockito.eq(Limit.unlimited()))).willReturn(this.artifactDtos);
+
+        // When
+        Page<ArtifactDto> artifactPage = this.artifactService.findByCriteria(searchCriteria, PageRequest.of(0, 2));
+
+        // Then
+        assertThat(artifactPage.getContent()).hasSize(2);
+        assertThat(artifactPage.getTotalElements()).isEqualTo(3);
+        verify(this.artifactDtoRepository, never()).findAll(Mockito.any(Specification.class), Mockito.any(Pageable.class)); // No LIKE scan and no count query
+    }
+
+    @Test
+    void testFindByCriteriaFallsBackToLikeWhenIndexIsNotCurrent() {
+        // Given
+        Map<String, String> searchCriteria = Map.of("description", "hogwarts");
+        Pageable pageable = PageRequest.of(0, 2);
+        given(this.catalogVersion.current()).willReturn("r5");
+        given(this.artifactTextIndex.isCurrentAt("r5")).willReturn(false); // A change of another node is still on its way
+        given(this.artifactDtoRepository.findAll(Mockito.any(Specification.class), Mockito.eq(pageable))).willReturn(new PageImpl<>(this.artifactDtos, pageable, 2));
+
+        // When
+        Page<ArtifactDto> artifactPage = this.artifactService.findByCriteria(searchCriteria, pageable);
+
+        // Then
+        assertThat(artifactPage.getContent()).hasSize(2);
+        verify(this.artifactDtoRepository, times(1)).findAll(Mockito.any(Specification.class), Mockito.eq(pageable));
+        verify(this.artifactTextIndex, never()).search(any(), any());
+    }
+
+    @Test
+    void testFindFacetsLeavesOutTheOwnerNameCriterion() {
+        // Given
+        Map<String, String> searchCriteria = Map.of("description", "hogwarts", "ownerName", "albus dumbledore");
+        ArtifactFacets artifactFacets = new ArtifactFacets(List.of(new ArtifactFacets.OwnerFacet(1, "Albus Dumbledore", 2), new ArtifactFacets.OwnerFacet(2, "Harry Potter", 1)), 3, 1);
+        given(this.catalogVersion.current()).willReturn("r5");
+        given(this.artifactTextIndex.isCurrentAt("r5")).willReturn(true);
+        given(this.artifactTextIndex.search(null, "hogwarts")).willReturn(List.of(1L, 2L, 3L, 4L));
+        given(this.artifactTextIndex.maxInListSize()).willReturn(1000);
+        given(this.artifactDtoRepository.findFacets(Mockito.any(Specification.class))).willReturn(artifactFacets);
+
+        // When
+        ArtifactFacets facets = this.artifactService.findFacets(searchCriteria);
+
+        // Then
+        assertThat(facets).isEqualTo(artifactFacets);
+        verify(this.artifactDtoRepository, times(1)).findFacets(Mockito.any(Specification.class));
+        verify(this.artifactDtoRepository, never()).findAll(Mockito.any(Specification.class), Mockito.any(Pageable.class));
+    }
+
+    private static ArtifactRepository.ArtifactVersion artifactVersion(Long version, Long ownerVersion) {
+        ArtifactRepository.ArtifactVersion artifactVersion = mock(ArtifactRepository.ArtifactVersion.class);
+        given(artifactVersion.getVersion()).willReturn(version);
+        given(artifactVersion.getOwnerVersion()).willReturn(ownerVersion);
+        return artifactVersion;
+    }
+}
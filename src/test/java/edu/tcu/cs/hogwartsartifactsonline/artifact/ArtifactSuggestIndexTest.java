@@ -0,0 +1,198 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactSuggestion;
+import edu.tcu.cs.hogwartsartifactsonline.system.actuator.HotArtifactTracker;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.WizardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactSuggestIndexTest {
+
+    @Mock
+    ArtifactRepository artifactRepository;
+
+    @Mock
+    WizardRepository wizardRepository;
+
+    @Mock
+    HotArtifactTracker hotArtifactTracker;
+
+    @Mock
+    CatalogVersion catalogVersion;
+
+    ArtifactSuggestIndex artifactSuggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        this.artifactSuggestIndex = new ArtifactSuggestIndex(this.artifactRepository, this.wizardRepository, this.hotArtifactTracker, this.catalogVersion, true, 3);
+    }
+
+    @Test
+    void testSuggestBeforeRebuildReturnsNothing() {
+        // When
+        List<ArtifactSuggestion> suggestions = this.artifactSuggestIndex.suggest("wand", 3);
+
+        // Then
+        assertThat(suggestions).isEmpty();
+        assertThat(this.artifactSuggestIndex.isReady()).isFalse();
+    }
+
+    @Test
+    void testRebuildAndSuggestByAnyWordOfTheName() {
+        // Given
+        given(this.artifactRepository.findTextsAfter(eq(Long.MIN_VALUE), any(Limit.class))).willReturn(List.of(
+                new Text(1250808601744904191L, "Deluminator", "A device invented by Albus Dumbledore."),
+                new Text(1250808601744904193L, "Elder Wand", "An extremely powerful wand made of elder wood."),
+                new Text(1250808601744904195L, "The Sword Of Gryffindor", "A goblin-made sword, once owned by Godric Gryffindor, a founder of Hogwarts.")
+        ));
+        given(this.wizardRepository.findAllWithNumberOfArtifacts()).willReturn(List.of(
+                new Count(1, "Albus Dumbledore", 2),
+                new Count(2, "Harry Potter", 2),
+                new Count(3, "Neville Longbottom", 1)
+        ));
+
+        // When
+        this.artifactSuggestIndex.rebuild();
+
+        // Then
+        assertThat(this.artifactSuggestIndex.isReady()).isTrue();
+        assertThat(this.artifactSuggestIndex.suggest("WA", 3)).containsExactly(new ArtifactSuggestion("artifact", "1250808601744904193", "Elder Wand"));
+        assertThat(this.artifactSuggestIndex.suggest("gryff", 3)).containsExactly(new ArtifactSuggestion("artifact", "1250808601744904195", "The Sword Of Gryffindor"));
+        assertThat(this.artifactSuggestIndex.suggest("d", 3)).containsExactly( // Dumbledore owns two artifacts, so it outranks the shorter name
+                new ArtifactSuggestion("wizard", "1", "Albus Dumbledore"),
+                new ArtifactSuggestion("artifact", "1250808601744904191", "Deluminator"));
+        assertThat(this.artifactSuggestIndex.suggest("lord", 3)).isEmpty(); // Not the start of a word
+        assertThat(this.artifactSuggestIndex.suggest("  ", 3)).isEmpty();
+    }
+
+    @Test
+    void testSuggestIgnoresCaseAccentsAndPunctuation() {
+        // Given
+        this.artifactSuggestIndex.rebuild();
+        this.artifactSuggestIndex.putArtifact(1L, "Pensieve (Dumbledore's)");
+        this.artifactSuggestIndex.putWizard(4, "Hermione Granger-Weasley");
+
+        // When and then
+        assertThat(this.artifactSuggestIndex.suggest("PENSIÈVE", 3)).extracting(ArtifactSuggestion::id).containsExactly("1");
+        assertThat(this.artifactSuggestIndex.suggest("dumbledore s", 3)).extracting(ArtifactSuggestion::id).containsExactly("1");
+        assertThat(this.artifactSuggestIndex.suggest("weasley", 3)).extracting(ArtifactSuggestion::id).containsExactly("4");
+    }
+
+    @Test
+    void testPutRenamesAndRemoveDeletes() {
+        // Given
+        this.artifactSuggestIndex.rebuild();
+        this.artifactSuggestIndex.putArtifact(1250808601744904192L, "Invisibility Cloak");
+        this.artifactSuggestIndex.putArtifact(1250808601744904196L, "Resurrection Stone");
+        this.artifactSuggestIndex.putWizard(1, "Albus Dumbledore");
+
+        // When
+        this.artifactSuggestIndex.putArtifact(1250808601744904192L, "Cloak of Invisibility");
+        this.artifactSuggestIndex.removeArtifacts(List.of(1250808601744904196L));
+        this.artifactSuggestIndex.removeWizard(1);
+
+        // Then
+        assertThat(this.artifactSuggestIndex.suggest("cloak", 3)).extracting(ArtifactSuggestion::name).containsExactly("Cloak of Invisibility");
+        assertThat(this.artifactSuggestIndex.suggest("invisibility", 3)).extracting(ArtifactSuggestion::name).containsExactly("Cloak of Invisibility");
+        assertThat(this.artifactSuggestIndex.suggest("stone", 3)).isEmpty();
+        assertThat(this.artifactSuggestIndex.suggest("albus", 3)).isEmpty();
+    }
+
+    @Test
+    void testSuggestReturnsTheTopKOfAManyNamesPrefix() {
+        // Given
+        this.artifactSuggestIndex.rebuild();
+        for (int i = 0; i < 1000; i++) {
+            this.artifactSuggestIndex.putArtifact((long) i, "Artifact " + i);
+        }
+
+        // When
+        List<ArtifactSuggestion> suggestions = this.artifactSuggestIndex.suggest("art", 10);
+
+        // Then
+        assertThat(suggestions).extracting(ArtifactSuggestion::name).containsExactly("Artifact 0", "Artifact 1", "Artifact 2"); // Capped at top-K, shortest first
+        assertThat(this.artifactSuggestIndex.suggest("artifact 99", 2)).extracting(ArtifactSuggestion::name).containsExactly("Artifact 99", "Artifact 990");
+    }
+
+    @Test
+    void testRefreshPopularityRanksHotArtifactsFirst() {
+        // Given
+        this.artifactSuggestIndex.rebuild();
+        this.artifactSuggestIndex.putArtifact(1L, "Time-Turner");
+        this.artifactSuggestIndex.putArtifact(2L, "Tom Riddle's Diary");
+        given(this.hotArtifactTracker.hotArtifacts()).willReturn(List.of(new HotArtifactTracker.HotArtifact(2L, 42)));
+
+        // When
+        this.artifactSuggestIndex.refreshPopularity();
+        this.artifactSuggestIndex.putArtifact(2L, "Riddle's Diary"); // A rename keeps the weight
+
+        // Then
+        assertThat(this.artifactSuggestIndex.suggest("t", 3)).extracting(ArtifactSuggestion::id).containsExactly("1");
+        assertThat(this.artifactSuggestIndex.suggest("ri", 3)).extracting(ArtifactSuggestion::id).containsExactly("2");
+        this.artifactSuggestIndex.putArtifact(3L, "Remembrall");
+        assertThat(this.artifactSuggestIndex.suggest("r", 3)).extracting(ArtifactSuggestion::id).containsExactly("2", "3");
+
+        // When it is no longer hot
+        given(this.hotArtifactTracker.hotArtifacts()).willReturn(List.of());
+        this.artifactSuggestIndex.refreshPopularity();
+
+        // Then
+        assertThat(this.artifactSuggestIndex.suggest("r", 3)).extracting(ArtifactSuggestion::id).containsExactly("3", "2");
+    }
+
+    @Test
+    void testSuggestBeyondTheTrieDepthChecksTheWholePrefix() {
+        // Given
+        this.artifactSuggestIndex.rebuild();
+        this.artifactSuggestIndex.putArtifact(1L, "Extraordinarily Indestructible Chest of Seven Locks");
+        this.artifactSuggestIndex.putArtifact(2L, "Extraordinarily Indestructible Chest of Sixteen Keys");
+
+        // When and then
+        assertThat(this.artifactSuggestIndex.suggest("extraordinarily indestructible chest of se", 3)).extracting(ArtifactSuggestion::id).containsExactly("1");
+        assertThat(this.artifactSuggestIndex.suggest("indestructible chest of si", 3)).extracting(ArtifactSuggestion::id).containsExactly("2");
+    }
+
+    @Test
+    void testChangesOfOtherNodesAreReadBackFromTheDatabase() throws Exception {
+        // Given
+        this.artifactSuggestIndex.rebuild();
+        this.artifactSuggestIndex.putArtifact(1250808601744904191L, "Deluminator");
+        this.artifactSuggestIndex.putWizard(2, "Harry Potter");
+        given(this.artifactRepository.findTextsByIdIn(any())).willReturn(List.of(
+                new Text(1250808601744904193L, "Elder Wand", "An extremely powerful wand made of elder wood.")));
+        given(this.wizardRepository.findAllWithNumberOfArtifactsByIdIn(any())).willReturn(List.of(new Count(3, "Neville Longbottom", 1)));
+
+        // When
+        this.artifactSuggestIndex.onCatalogChange(new CatalogVersion.Change(6L, Map.of(
+                CatalogVersion.ARTIFACTS, Set.of(1250808601744904191L, 1250808601744904193L),
+                CatalogVersion.WIZARDS, Set.of(2L, 3L))));
+        assertThat(this.artifactSuggestIndex.awaitMaintenance()).isTrue();
+
+        // Then
+        assertThat(this.artifactSuggestIndex.suggest("wand", 3)).extracting(ArtifactSuggestion::name).containsExactly("Elder Wand");
+        assertThat(this.artifactSuggestIndex.suggest("delum", 3)).isEmpty(); // Deleted on another node, so no longer suggested
+        assertThat(this.artifactSuggestIndex.suggest("potter", 3)).isEmpty();
+        assertThat(this.artifactSuggestIndex.suggest("neville", 3)).extracting(ArtifactSuggestion::id).containsExactly("3");
+    }
+
+    record Text(Long getId, String getName, String getDescription) implements ArtifactRepository.ArtifactText {
+    }
+
+    record Count(Integer getId, String getName, long getNumberOfArtifacts) implements WizardRepository.WizardCount {
+    }
+}
@@ -0,0 +1,186 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactSummarizerTest {
+
+    @Mock
+    ArtifactService artifactService;
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ArtifactSummarizer artifactSummarizer;
+
+    @AfterEach
+    void tearDown() {
+        if (this.artifactSummarizer != null) {
+            this.artifactSummarizer.shutdown();
+        }
+    }
+
+    @Test
+    void testSmallCatalogIsSummarizedInOneCall() throws Exception {
+        // Given
+        this.artifactSummarizer = new ArtifactSummarizer(this.artifactService, this.meterRegistry, 3000, 4);
+        List<ArtifactDto> artifactDtos = List.of(artifact(1L, 1), artifact(2L, 2));
+        given(this.artifactService.summarize(artifactDtos)).willReturn("Two artifacts.");
+
+        // When
+        String summary = this.artifactSummarizer.summarize(artifactDtos);
+
+        // Then
+        assertThat(summary).isEqualTo("Two artifacts.");
+        verify(this.artifactService, times(1)).summarize(anyList());
+        verify(this.artifactService, never()).combineSummaries(anyList());
+    }
+
+    @Test
+    void testPartitionKeepsAnOwnersArtifactsTogether() throws Exception {
+        // Given
+        this.artifactSummarizer = new ArtifactSummarizer(this.artifactService, this.meterRegistry, tokensOf(3), 4);
+        List<ArtifactDto> artifactDtos = List.of(artifact(1L, 1), artifact(2L, 2), artifact(3L, null), artifact(4L, 1), artifact(5L, 2));
+
+        // When
+        List<List<ArtifactDto>> chunks = this.artifactSummarizer.partition(artifactDtos);
+
+        // Then
+        assertThat(chunks).extracting(chunk -> chunk.stream().map(ArtifactDto::id).toList())
+                .containsExactly(List.of(1L, 4L), List.of(2L, 5L, 3L)); // Owner 2 does not fit next to owner 1, unowned come last
+    }
+
+    @Test
+    void testPartitionSplitsAnOwnerThatDoesNotFitOneChunk() throws Exception {
+        // Given
+        this.artifactSummarizer = new ArtifactSummarizer(this.artifactService, this.meterRegistry, tokensOf(2), 4);
+        List<ArtifactDto> artifactDtos = List.of(artifact(1L, 1), artifact(2L, 1), artifact(3L, 1), artifact(4L, 2));
+
+        // When
+        List<List<ArtifactDto>> chunks = this.artifactSummarizer.partition(artifactDtos);
+
+        // Then
+        assertThat(chunks).extracting(chunk -> chunk.stream().map(ArtifactDto::id).toList())
+                .containsExactly(List.of(1L, 2L), List.of(3L, 4L));
+    }
+
+    @Test
+    void testLargeCatalogIsSummarizedInParallelChunksThenCombined() throws Exception {
+        // Given
+        this.artifactSummarizer = new ArtifactSummarizer(this.artifactService, this.meterRegistry, tokensOf(1), 4);
+        List<ArtifactDto> artifactDtos = List.of(artifact(1L, 1), artifact(2L, 2), artifact(3L, 3), artifact(4L, 4));
+        CountDownLatch allStarted = new CountDownLatch(4);
+        given(this.artifactService.summarize(anyList())).willAnswer(invocation -> {
+            allStarted.countDown();
+            assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue(); // Only returns once all four chunks are being summarized at once
+            List<ArtifactDto> chunk = invocation.getArgument(0);
+            return "Artifact " + chunk.get(0).id() + ".";
+        });
+        given(this.artifactService.combineSummaries(List.of("Artifact 1.", "Artifact 2.", "Artifact 3.", "Artifact 4."))).willReturn("Four artifacts.");
+
+        // When
+        String summary = this.artifactSummarizer.summarize(artifactDtos);
+
+        // Then
+        assertThat(summary).isEqualTo("Four artifacts.");
+        verify(this.artifactService, times(4)).summarize(anyList());
+        assertThat(this.meterRegistry.get("artifact.summary.stage").tag("stage", "map").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("artifact.summary.stage").tag("stage", "reduce").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("artifact.summary.chunks").summary().totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    void testPartialSummariesAreCombinedInRoundsUntilTheyFitTheBudget() throws Exception {
+        // Given
+        this.artifactSummarizer = new ArtifactSummarizer(this.artifactService, this.meterRegistry, tokensOf(1), 4);
+        List<ArtifactDto> artifactDtos = List.of(artifact(1L, 1), artifact(2L, 2), artifact(3L, 3), artifact(4L, 4));
+        String longSummary = "x".repeat(tokensOf(1) / 2 * 4); // Two fit the budget, three do not
+        given(this.artifactService.summarize(anyList())).willReturn(longSummary);
+        AtomicInteger combined = new AtomicInteger();
+        given(this.artifactService.combineSummaries(anyList())).willAnswer(invocation -> "Round " + combined.incrementAndGet() + ".");
+
+        // When
+        String summary = this.artifactSummarizer.summarize(artifactDtos);
+
+        // Then
+        assertThat(summary).isEqualTo("Round 3.");
+        verify(this.artifactService, times(3)).combineSummaries(anyList()); // Two batches of two, then the final one
+    }
+
+    @Test
+    void testStreamingOnlyStreamsTheFinalCombine() throws Exception {
+        // Given
+        this.artifactSummarizer = new ArtifactSummarizer(this.artifactService, this.meterRegistry, tokensOf(1), 4);
+        List<ArtifactDto> artifactDtos = List.of(artifact(1L, 1), artifact(2L, 2));
+        given(this.artifactService.summarize(anyList())).willReturn("One artifact.");
+        willAnswer(invocation -> {
+            Consumer<String> onDelta = invocation.getArgument(1);
+            onDelta.accept("Two");
+            onDelta.accept(" artifacts.");
+            return null;
+        }).given(this.artifactService).combineSummariesStreaming(anyList(), any());
+
+        // When
+        List<String> deltas = new ArrayList<>();
+        this.artifactSummarizer.summarizeStreaming(artifactDtos, deltas::add);
+
+        // Then
+        assertThat(deltas).containsExactly("Two", " artifacts.");
+        verify(this.artifactService, never()).summarizeStreaming(anyList(), any());
+    }
+
+    @Test
+    void testFailedChunkFailsTheSummary() throws Exception {
+        // Given
+        this.artifactSummarizer = new ArtifactSummarizer(this.artifactService, this.meterRegistry, tokensOf(1), 4);
+        List<ArtifactDto> artifactDtos = List.of(artifact(1L, 1), artifact(2L, 2));
+        given(this.artifactService.summarize(anyList())).willThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null));
+
+        // When
+        Throwable thrown = catchThrowable(() -> this.artifactSummarizer.summarize(artifactDtos));
+
+        // Then
+        assertThat(thrown).isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+        verify(this.artifactService, never()).combineSummaries(anyList());
+    }
+
+    /**
+     * The test artifacts all serialize to the same length, so a budget of this many tokens fits exactly that many of them.
+     */
+    private static int tokensOf(int artifacts) throws Exception {
+        int characters = new ObjectMapper().writeValueAsString(artifact(1L, 1)).length();
+        return artifacts * ((characters + 3) / 4);
+    }
+
+    private static ArtifactDto artifact(Long id, Integer ownerId) {
+        WizardDto owner = ownerId == null ? null : new WizardDto(ownerId, "Wizard " + ownerId, 1);
+        return new ArtifactDto(id, "Artifact " + id, "A magical artifact.", "ImageUrl", owner);
+    }
+}
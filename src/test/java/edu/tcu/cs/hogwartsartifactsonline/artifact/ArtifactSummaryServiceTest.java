@@ -0,0 +1,321 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactSummaryServiceTest {
+
+    @Mock
+    ArtifactSummarizer artifactSummarizer;
+
+    @Mock
+    ArtifactDtoRepository artifactDtoRepository;
+
+    @Mock
+    CatalogVersion catalogVersion;
+
+    @Mock
+    CacheManager cacheManager; // Returns no caches, so only the in-memory latest summary is kept
+
+    ArtifactSummaryService artifactSummaryService;
+
+    @AfterEach
+    void tearDown() {
+        if (this.artifactSummaryService != null) {
+            this.artifactSummaryService.shutdown();
+        }
+    }
+
+    @Test
+    void testSameVersionIsSummarizedOnce() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        given(this.catalogVersion.current()).willReturn("r1");
+        given(this.artifactSummarizer.summarize(anyList())).willReturn("Six artifacts.");
+
+        // When
+        String first = this.artifactSummaryService.getSummary();
+        String second = this.artifactSummaryService.getSummary();
+
+        // Then
+        assertThat(first).isEqualTo("Six artifacts.");
+        assertThat(second).isEqualTo("Six artifacts.");
+        verify(this.artifactSummarizer, times(1)).summarize(anyList());
+    }
+
+    @Test
+    void testConcurrentCallersShareOneGeneration() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        CountDownLatch modelAnswers = new CountDownLatch(1);
+        given(this.catalogVersion.current()).willReturn("r1");
+        given(this.artifactSummarizer.summarize(anyList())).willAnswer(invocation -> {
+            modelAnswers.await();
+            return "Six artifacts.";
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<String>> summaries = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            summaries.add(callers.submit(this.artifactSummaryService::getSummary));
+        }
+        Thread.sleep(100); // Lets every caller reach the in-flight generation
+        modelAnswers.countDown();
+
+        // Then
+        for (Future<String> summary : summaries) {
+            assertThat(summary.get(5, TimeUnit.SECONDS)).isEqualTo("Six artifacts.");
+        }
+        verify(this.artifactSummarizer, times(1)).summarize(anyList());
+        callers.shutdown();
+    }
+
+    @Test
+    void testStaleSummaryIsServedWhileTheNewOneIsGenerated() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        given(this.catalogVersion.current()).willReturn("r1", "r2");
+        given(this.artifactSummarizer.summarize(anyList())).willReturn("Six artifacts.", "Seven artifacts.");
+        this.artifactSummaryService.getSummary();
+
+        // When
+        String stale = this.artifactSummaryService.getSummary();
+
+        // Then
+        assertThat(stale).isEqualTo("Six artifacts.");
+        assertThat(awaitSummary("Seven artifacts.")).isTrue();
+        verify(this.artifactSummarizer, times(2)).summarize(anyList());
+    }
+
+    @Test
+    void testWithoutStaleWhileRevalidateCallersWaitForTheNewSummary() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(false, Duration.ofHours(1));
+        given(this.catalogVersion.current()).willReturn("r1", "r2");
+        given(this.artifactSummarizer.summarize(anyList())).willReturn("Six artifacts.", "Seven artifacts.");
+        this.artifactSummaryService.getSummary();
+
+        // When
+        String summary = this.artifactSummaryService.getSummary();
+
+        // Then
+        assertThat(summary).isEqualTo("Seven artifacts.");
+    }
+
+    @Test
+    void testPrecomputeRegeneratesOnceTheCatalogHasSettled() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ZERO);
+        given(this.catalogVersion.current()).willReturn("r1", "r2");
+        given(this.artifactSummarizer.summarize(anyList())).willReturn("Six artifacts.", "Seven artifacts.");
+        this.artifactSummaryService.getSummary();
+
+        // When
+        this.artifactSummaryService.refreshIfChanged(); // With no debounce period, the catalog counts as settled at once
+
+        // Then
+        assertThat(awaitSummary("Seven artifacts.")).isTrue();
+        verify(this.artifactSummarizer, times(2)).summarize(anyList());
+    }
+
+    @Test
+    void testPrecomputeDebouncesChanges() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        given(this.catalogVersion.current()).willReturn("r1", "r2", "r3");
+        given(this.artifactSummarizer.summarize(anyList())).willReturn("Six artifacts.");
+        this.artifactSummaryService.getSummary();
+
+        // When
+        this.artifactSummaryService.refreshIfChanged();
+        this.artifactSummaryService.refreshIfChanged();
+
+        // Then
+        verify(this.artifactSummarizer, times(1)).summarize(anyList()); // Only the first request
+    }
+
+    @Test
+    void testNothingIsPrecomputedBeforeTheFirstRequest() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ZERO);
+
+        // When
+        this.artifactSummaryService.refreshIfChanged();
+
+        // Then
+        verify(this.catalogVersion, never()).current();
+        verify(this.artifactSummarizer, never()).summarize(anyList());
+    }
+
+    @Test
+    void testStreamRelaysEachDeltaAndKeepsTheSummary() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        given(this.catalogVersion.current()).willReturn("r1");
+        willAnswer(invocation -> {
+            Consumer<String> onDelta = invocation.getArgument(1);
+            onDelta.accept("Six");
+            onDelta.accept(" artifacts.");
+            return null;
+        }).given(this.artifactSummarizer).summarizeStreaming(anyList(), any());
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        this.artifactSummaryService.streamSummary(emitter);
+
+        // Then
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.events).containsExactly(
+                "event:delta\ndata:{content=Six}\n\n",
+                "event:delta\ndata:{content= artifacts.}\n\n",
+                "event:done\ndata:{version=r1}\n\n");
+        assertThat(this.artifactSummaryService.getSummary()).isEqualTo("Six artifacts.");
+        verify(this.artifactSummarizer, never()).summarize(anyList());
+    }
+
+    @Test
+    void testStreamsOfTheSameVersionShareOneGeneration() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        CountDownLatch firstDeltaSent = new CountDownLatch(1);
+        CountDownLatch modelGoesOn = new CountDownLatch(1);
+        given(this.catalogVersion.current()).willReturn("r1");
+        willAnswer(invocation -> {
+            Consumer<String> onDelta = invocation.getArgument(1);
+            onDelta.accept("Six");
+            firstDeltaSent.countDown();
+            modelGoesOn.await();
+            onDelta.accept(" artifacts.");
+            return null;
+        }).given(this.artifactSummarizer).summarizeStreaming(anyList(), any());
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter late = new RecordingEmitter();
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+
+        // When
+        this.artifactSummaryService.streamSummary(first);
+        assertThat(firstDeltaSent.await(5, TimeUnit.SECONDS)).isTrue();
+        this.artifactSummaryService.streamSummary(late);
+        Future<String> summary = callers.submit(this.artifactSummaryService::getSummary);
+        modelGoesOn.countDown();
+
+        // Then
+        assertThat(first.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(late.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(summary.get(5, TimeUnit.SECONDS)).isEqualTo("Six artifacts.");
+        assertThat(first.events).containsExactly(
+                "event:delta\ndata:{content=Six}\n\n",
+                "event:delta\ndata:{content= artifacts.}\n\n",
+                "event:done\ndata:{version=r1}\n\n");
+        assertThat(late.events).isEqualTo(first.events); // The text so far, replayed, then the rest
+        verify(this.artifactSummarizer, times(1)).summarizeStreaming(anyList(), any());
+        verify(this.artifactSummarizer, never()).summarize(anyList());
+        callers.shutdown();
+    }
+
+    @Test
+    void testStreamSendsTheCurrentSummaryAtOnce() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        given(this.catalogVersion.current()).willReturn("r1");
+        given(this.artifactSummarizer.summarize(anyList())).willReturn("Six artifacts.");
+        this.artifactSummaryService.getSummary();
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        this.artifactSummaryService.streamSummary(emitter);
+
+        // Then
+        assertThat(emitter.completed.getCount()).isZero();
+        assertThat(emitter.events).containsExactly(
+                "event:delta\ndata:{content=Six artifacts.}\n\n",
+                "event:done\ndata:{version=r1}\n\n");
+        verify(this.artifactSummarizer, never()).summarizeStreaming(anyList(), any());
+    }
+
+    @Test
+    void testStreamReportsAModelFailureAsAnErrorEvent() throws Exception {
+        // Given
+        this.artifactSummaryService = newService(true, Duration.ofHours(1));
+        given(this.catalogVersion.current()).willReturn("r1");
+        willThrow(new IllegalStateException("Model overloaded")).given(this.artifactSummarizer).summarizeStreaming(anyList(), any());
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        this.artifactSummaryService.streamSummary(emitter);
+
+        // Then
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.events).containsExactly("event:error\ndata:{message=Model overloaded}\n\n");
+    }
+
+    /**
+     * Records the events sent instead of writing them to a response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            this.events.add(builder.build().stream().map(data -> data.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            this.completed.countDown();
+        }
+    }
+
+    /**
+     * Polls until the given summary is served. A summary is published before its generation leaves the in-flight map,
+     * so polling never starts a second generation of the same version.
+     */
+    private boolean awaitSummary(String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (expected.equals(this.artifactSummaryService.getSummary())) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private ArtifactSummaryService newService(boolean staleWhileRevalidate, Duration debounce) {
+        return new ArtifactSummaryService(this.artifactSummarizer, this.artifactDtoRepository, this.catalogVersion, this.cacheManager,
+                staleWhileRevalidate, true, debounce, Duration.ofHours(1), 2, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,108 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Limit;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Compares a name search through ArtifactTextIndex with the lower(name) LIKE '%x%' query it replaces, run against an
+ * in-memory H2 table holding the same rows.
+ * <p>
+ * Run with:
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main ArtifactTextIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactTextIndexBenchmark {
+
+    private static final String[] ADJECTIVES = {"Elder", "Invisible", "Golden", "Cursed", "Ancient", "Enchanted", "Broken", "Silver"};
+
+    private static final String[] NOUNS = {"Wand", "Cloak", "Stone", "Map", "Sword", "Locket", "Goblet", "Diadem", "Ring", "Cup"};
+
+    @Param({"100000"})
+    int artifactCount;
+
+    @Param({"wand", "silver goblet 4217"})
+    String term;
+
+    ArtifactTextIndex artifactTextIndex;
+
+    Connection connection;
+
+    PreparedStatement likeStatement;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Random random = new Random(42);
+        List<ArtifactRepository.ArtifactText> texts = new ArrayList<>(this.artifactCount);
+        for (int i = 0; i < this.artifactCount; i++) {
+            long id = 1250808601744904191L + i;
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + i;
+            String description = "A " + name.toLowerCase() + " that once belonged to a student at Hogwarts.";
+            texts.add(new Text(id, name, description));
+        }
+
+        ArtifactRepository artifactRepository = Mockito.mock(ArtifactRepository.class);
+        Mockito.when(artifactRepository.findTextsAfter(anyLong(), any(Limit.class))).thenReturn(texts, List.of());
+        this.artifactTextIndex = new ArtifactTextIndex(artifactRepository, Mockito.mock(CatalogVersion.class), true, 1000);
+        this.artifactTextIndex.rebuild();
+
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        this.connection.createStatement().execute("create table artifact (id bigint primary key, name varchar(255), description varchar(255))");
+        try (PreparedStatement insert = this.connection.prepareStatement("insert into artifact values (?, ?, ?)")) {
+            for (ArtifactRepository.ArtifactText text : texts) {
+                insert.setLong(1, text.getId());
+                insert.setString(2, text.getName());
+                insert.setString(3, text.getDescription());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        this.likeStatement = this.connection.prepareStatement("select id from artifact where lower(name) like ? order by id");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.connection.createStatement().execute("drop all objects");
+        this.connection.close();
+    }
+
+    @Benchmark
+    public void indexSearch(Blackhole blackhole) {
+        blackhole.consume(this.artifactTextIndex.search(this.term, null));
+    }
+
+    @Benchmark
+    public void likeScan(Blackhole blackhole) throws SQLException {
+        this.likeStatement.setString(1, "%" + this.term + "%");
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet resultSet = this.likeStatement.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        blackhole.consume(ids);
+    }
+
+    record Text(Long getId, String getName, String getDescription) implements ArtifactRepository.ArtifactText {
+    }
+}
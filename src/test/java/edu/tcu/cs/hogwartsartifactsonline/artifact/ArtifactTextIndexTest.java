@@ -0,0 +1,218 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactTextIndexTest {
+
+    @Mock
+    ArtifactRepository artifactRepository;
+
+    @Mock
+    CatalogVersion catalogVersion;
+
+    ArtifactTextIndex artifactTextIndex;
+
+    @BeforeEach
+    void setUp() {
+        this.artifactTextIndex = new ArtifactTextIndex(this.artifactRepository, this.catalogVersion, true, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.artifactTextIndex.shutdown();
+    }
+
+    @Test
+    void testSearchBeforeRebuildReturnsNull() {
+        // When
+        List<Long> ids = this.artifactTextIndex.search("wand", null);
+
+        // Then
+        assertThat(ids).isNull();
+        assertThat(this.artifactTextIndex.isReady()).isFalse();
+    }
+
+    @Test
+    void testRebuildAndSearch() {
+        // Given
+        given(this.artifactRepository.findTextsAfter(eq(Long.MIN_VALUE), any(Limit.class))).willReturn(List.of(
+                new Text(1250808601744904191L, "Deluminator", "A device invented by Albus Dumbledore."),
+                new Text(1250808601744904193L, "Elder Wand", "An extremely powerful wand made of elder wood."),
+                new Text(1250808601744904195L, "The Sword Of Gryffindor", "A goblin-made sword, once owned by Godric Gryffindor, a founder of Hogwarts.")
+        ));
+
+        // When
+        this.artifactTextIndex.rebuild();
+
+        // Then
+        assertThat(this.artifactTextIndex.isReady()).isTrue();
+        assertThat(this.artifactTextIndex.search("WAND", null)).containsExactly(1250808601744904193L);
+        assertThat(this.artifactTextIndex.search(null, "wood")).containsExactly(1250808601744904193L);
+        assertThat(this.artifactTextIndex.search("sword", "hogwarts")).containsExactly(1250808601744904195L);
+        assertThat(this.artifactTextIndex.search("sword", "dumbledore")).isEmpty();
+        assertThat(this.artifactTextIndex.search("e", null)).containsExactly(1250808601744904191L, 1250808601744904193L, 1250808601744904195L); // Shorter than a gram
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDeletes() {
+        // Given
+        this.artifactTextIndex.rebuild();
+        this.artifactTextIndex.put(1250808601744904192L, "Invisibility Cloak", "Makes the wearer invisible.");
+        this.artifactTextIndex.put(1250808601744904196L, "Resurrection Stone", "Brings back deceased loved ones.");
+
+        // When
+        this.artifactTextIndex.put(1250808601744904192L, "Cloak of Invisibility", "Makes the wearer invisible.");
+        this.artifactTextIndex.remove(1250808601744904196L);
+
+        // Then
+        assertThat(this.artifactTextIndex.search("cloak of", null)).containsExactly(1250808601744904192L);
+        assertThat(this.artifactTextIndex.search("invisibility cloak", null)).isEmpty();
+        assertThat(this.artifactTextIndex.search("stone", null)).isEmpty();
+        assertThat(this.artifactTextIndex.search(null, "invisible")).containsExactly(1250808601744904192L);
+    }
+
+    @Test
+    void testSearchVerifiesCandidates() {
+        // Given
+        this.artifactTextIndex.rebuild();
+        this.artifactTextIndex.put(1250808601744904197L, "Sword and Words", "A riddle.");
+
+        // When and then
+        assertThat(this.artifactTextIndex.search("sword words", null)).isEmpty(); // Every gram of the term is indexed, but the term itself does not occur
+        assertThat(this.artifactTextIndex.search("and words", null)).containsExactly(1250808601744904197L);
+    }
+
+    @Test
+    void testRemoveCompactsWhenTombstonesDominate() {
+        // Given
+        this.artifactTextIndex.rebuild();
+        for (int i = 0; i < 25_000; i++) {
+            this.artifactTextIndex.put((long) i, "Artifact " + i, "Description " + i);
+        }
+
+        // When
+        for (int i = 0; i < 24_000; i++) {
+            this.artifactTextIndex.remove((long) i);
+        }
+
+        // Then
+        assertThat(this.artifactTextIndex.search("artifact 2400", null)).containsExactly(24000L, 24001L, 24002L, 24003L, 24004L, 24005L, 24006L, 24007L, 24008L, 24009L);
+        assertThat(this.artifactTextIndex.search("artifact 2399", null)).isEmpty();
+    }
+
+    @Test
+    void testChangesOfOtherNodesAreReadBackFromTheDatabase() throws Exception {
+        // Given
+        given(this.catalogVersion.current()).willReturn("r5");
+        given(this.artifactRepository.findTextsAfter(eq(Long.MIN_VALUE), any(Limit.class))).willReturn(List.of(
+                new Text(1250808601744904191L, "Deluminator", "A device invented by Albus Dumbledore.")));
+        this.artifactTextIndex.rebuild();
+        given(this.artifactRepository.findTextsByIdIn(any())).willReturn(List.of(
+                new Text(1250808601744904193L, "Elder Wand", "An extremely powerful wand made of elder wood.")));
+
+        // When
+        this.artifactTextIndex.onCatalogChange(new CatalogVersion.Change(6L, Map.of(CatalogVersion.ARTIFACTS, Set.of(1250808601744904191L, 1250808601744904193L))));
+        assertThat(this.artifactTextIndex.awaitMaintenance()).isTrue();
+
+        // Then
+        assertThat(this.artifactTextIndex.search("wand", null)).containsExactly(1250808601744904193L);
+        assertThat(this.artifactTextIndex.search("deluminator", null)).isEmpty(); // Gone from the database, so deleted
+        assertThat(this.artifactTextIndex.isCurrentAt("r6")).isTrue();
+        assertThat(this.artifactTextIndex.isCurrentAt("r7")).isFalse();
+        assertThat(this.artifactTextIndex.isCurrentAt("l6")).isFalse(); // A local version does not cover the other nodes
+    }
+
+    @Test
+    void testChangesQueuedWhileTheIndexIsBusyAreReadBackTogether() throws Exception {
+        // Given
+        given(this.catalogVersion.current()).willReturn("r5");
+        given(this.artifactRepository.findTextsAfter(eq(Long.MIN_VALUE), any(Limit.class))).willReturn(List.of());
+        this.artifactTextIndex.rebuild();
+        CountDownLatch firstRead = new CountDownLatch(1);
+        CountDownLatch databaseAnswers = new CountDownLatch(1);
+        given(this.artifactRepository.findTextsByIdIn(any())).willAnswer(invocation -> {
+            firstRead.countDown();
+            databaseAnswers.await();
+            return List.of();
+        });
+
+        // When
+        this.artifactTextIndex.onCatalogChange(new CatalogVersion.Change(6L, Map.of(CatalogVersion.ARTIFACTS, Set.of(1L))));
+        assertThat(firstRead.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long version = 7; version <= 9; version++) {
+            this.artifactTextIndex.onCatalogChange(new CatalogVersion.Change(version, Map.of(CatalogVersion.ARTIFACTS, Set.of(version))));
+        }
+        databaseAnswers.countDown();
+        assertThat(this.artifactTextIndex.awaitMaintenance()).isTrue();
+
+        // Then
+        verify(this.artifactRepository).findTextsByIdIn(List.of(1L));
+        verify(this.artifactRepository).findTextsByIdIn(argThat(ids -> Set.copyOf(ids).equals(Set.of(7L, 8L, 9L))));
+        assertThat(this.artifactTextIndex.isCurrentAt("r9")).isTrue();
+    }
+
+    @Test
+    void testResyncRebuildsAfterAChangeWasLost() throws Exception {
+        // Given
+        given(this.catalogVersion.current()).willReturn("r5", "r7");
+        given(this.artifactRepository.findTextsAfter(eq(Long.MIN_VALUE), any(Limit.class))).willReturn(List.of());
+        this.artifactTextIndex.rebuild();
+        this.artifactTextIndex.onCatalogChange(new CatalogVersion.Change(7L, Map.of())); // Version 6 never arrives
+        assertThat(this.artifactTextIndex.awaitMaintenance()).isTrue();
+
+        // When
+        this.artifactTextIndex.resync(); // Behind, but may still be catching up
+        assertThat(this.artifactTextIndex.isCurrentAt("r7")).isFalse();
+        this.artifactTextIndex.resync(); // Still behind
+        assertThat(this.artifactTextIndex.awaitMaintenance()).isTrue(); // Rebuilt on the maintenance thread
+
+        // Then
+        verify(this.artifactRepository, times(2)).findTextsAfter(eq(Long.MIN_VALUE), any(Limit.class));
+        assertThat(this.artifactTextIndex.isCurrentAt("r7")).isTrue();
+    }
+
+    @Test
+    void testResyncRetriesAFailedRebuild() throws Exception {
+        // Given
+        given(this.catalogVersion.current()).willReturn("r5");
+        given(this.artifactRepository.findTextsAfter(eq(Long.MIN_VALUE), any(Limit.class)))
+                .willThrow(new QueryTimeoutException("Timed out"))
+                .willReturn(List.of(new Text(1250808601744904193L, "Elder Wand", "An extremely powerful wand made of elder wood.")));
+        assertThatThrownBy(this.artifactTextIndex::rebuild).isInstanceOf(QueryTimeoutException.class);
+
+        // When
+        this.artifactTextIndex.resync();
+        assertThat(this.artifactTextIndex.awaitMaintenance()).isTrue();
+
+        // Then
+        assertThat(this.artifactTextIndex.search("wand", null)).containsExactly(1250808601744904193L);
+        assertThat(this.artifactTextIndex.isCurrentAt("r5")).isTrue();
+    }
+
+    record Text(Long getId, String getName, String getDescription) implements ArtifactRepository.ArtifactText {
+    }
+}
@@ -0,0 +1,164 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantPipelineTest {
+
+    private static final String IMAGE_URL = "https://example.blob.core.windows.net/images/1.png";
+
+    @Mock
+    ImageStorageClient imageStorageClient;
+
+    @Mock
+    ImageContentRepository imageContentRepository;
+
+    @Mock
+    ArtifactService artifactService;
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ImageVariantPipeline imageVariantPipeline;
+
+    @AfterEach
+    void tearDown() {
+        this.imageVariantPipeline.shutdown();
+    }
+
+    @Test
+    void testSubmitStoresAndRecordsTheVariantsNarrowerThanTheImage() throws Exception {
+        // Given
+        this.imageVariantPipeline = newPipeline(100);
+        given(this.imageStorageClient.openImage("images", "1.png")).willReturn(new ByteArrayInputStream(png(400, 300)));
+        Map<String, BufferedImage> uploaded = new ConcurrentHashMap<>();
+        given(this.imageStorageClient.uploadImage(eq("images"), anyString(), any(InputStream.class), anyLong())).willAnswer(invocation -> {
+            String name = invocation.getArgument(1, String.class);
+            uploaded.put(name, ImageIO.read(invocation.getArgument(2, InputStream.class)));
+            return "https://example.blob.core.windows.net/images/" + name;
+        });
+        ImageContent imageContent = new ImageContent("images", "97cdccc4501383131d558ebb582b92ff03c300368f88baac4dd4ee114134a9a3", IMAGE_URL, 1024);
+        given(this.imageContentRepository.findFirstByImageUrl(IMAGE_URL)).willReturn(Optional.of(imageContent));
+
+        // When
+        Map<Integer, String> imageVariants = this.imageVariantPipeline.submit("images", IMAGE_URL).get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(imageVariants).containsExactly( // Not scaled up to 640
+                entry(160, "https://example.blob.core.windows.net/images/w160.png"),
+                entry(320, "https://example.blob.core.windows.net/images/w320.png"));
+        assertThat(uploaded.get("w160.png").getWidth()).isEqualTo(160);
+        assertThat(uploaded.get("w160.png").getHeight()).isEqualTo(120);
+        assertThat(uploaded.get("w320.png").getHeight()).isEqualTo(240);
+        assertThat(imageContent.getVariants()).isEqualTo(imageVariants);
+        verify(this.imageContentRepository).save(imageContent);
+        verify(this.artifactService).updateImageVariants(IMAGE_URL, imageVariants);
+        assertThat(this.meterRegistry.get("image.variants.jobs").tag("outcome", "completed").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("image.variants.stage").tag("stage", "resize").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSubmitOfAnImageThatCannotBeDecodedRecordsNothing() throws Exception {
+        // Given
+        this.imageVariantPipeline = newPipeline(100);
+        given(this.imageStorageClient.openImage("images", "1.png")).willReturn(new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8)));
+
+        // When
+        Map<Integer, String> imageVariants = this.imageVariantPipeline.submit("images", IMAGE_URL).get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(imageVariants).isEmpty();
+        verify(this.imageStorageClient, never()).uploadImage(anyString(), anyString(), any(InputStream.class), anyLong());
+        verify(this.artifactService, never()).updateImageVariants(anyString(), any());
+    }
+
+    @Test
+    void testSubmitIsTurnedAwayWhenThePipelineIsFull() throws Exception {
+        // Given
+        this.imageVariantPipeline = newPipeline(1);
+        CountDownLatch storageResponds = new CountDownLatch(1);
+        given(this.imageStorageClient.openImage("images", "1.png")).willAnswer(invocation -> {
+            storageResponds.await();
+            return new ByteArrayInputStream(png(100, 100));
+        });
+        CompletableFuture<Map<Integer, String>> first = this.imageVariantPipeline.submit("images", IMAGE_URL);
+
+        // When
+        Map<Integer, String> imageVariants = this.imageVariantPipeline.submit("images", "https://example.blob.core.windows.net/images/2.png").get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(imageVariants).isEmpty();
+        assertThat(this.meterRegistry.get("image.variants.jobs").tag("outcome", "rejected").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("image.variants.pending").gauge().value()).isEqualTo(1);
+        storageResponds.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEmpty(); // 100 pixels wide needs no variant
+        assertThat(this.meterRegistry.get("image.variants.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void testSubmitThatFailsToStoreFreesItsSlot() throws Exception {
+        // Given
+        this.imageVariantPipeline = newPipeline(1);
+        given(this.imageStorageClient.openImage("images", "1.png")).willReturn(new ByteArrayInputStream(png(400, 300)));
+        given(this.imageStorageClient.uploadImage(eq("images"), anyString(), any(InputStream.class), anyLong())).willThrow(new IOException("Connection reset"));
+
+        // When
+        CompletableFuture<Map<Integer, String>> imageVariants = this.imageVariantPipeline.submit("images", IMAGE_URL);
+
+        // Then
+        assertThrows(ExecutionException.class, () -> imageVariants.get(10, TimeUnit.SECONDS));
+        verify(this.artifactService, never()).updateImageVariants(anyString(), any());
+        assertThat(this.meterRegistry.get("image.variants.jobs").tag("outcome", "failed").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("image.variants.pending").gauge().value()).isZero();
+    }
+
+    private ImageVariantPipeline newPipeline(int queueCapacity) {
+        return new ImageVariantPipeline(this.imageStorageClient, this.imageContentRepository, this.artifactService, this.meterRegistry,
+                true, List.of(640, 160, 320), queueCapacity, 2, 40_000_000);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, x * 255 / width << 16 | y * 255 / height << 8);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
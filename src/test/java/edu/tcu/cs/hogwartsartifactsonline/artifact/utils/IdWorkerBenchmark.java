@@ -0,0 +1,106 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the lock-free IdWorker with the synchronized implementation it replaced, from 1 to 64
+ * threads sharing one instance. A worker can issue at most 4096 ids per millisecond, so beyond that both wait for the
+ * clock; what differs is how much of the time threads spend contending for the lock rather than issuing ids.
+ * <p>
+ * Run with:
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main IdWorkerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdWorkerBenchmark {
+
+    @Param({"lock-free", "synchronized"})
+    String implementation;
+
+    IdWorker idWorker;
+
+    SynchronizedIdWorker synchronizedIdWorker;
+
+    boolean lockFree;
+
+    @Setup
+    public void setUp() {
+        this.lockFree = "lock-free".equals(this.implementation);
+        this.idWorker = new IdWorker(1, 1);
+        this.synchronizedIdWorker = new SynchronizedIdWorker(1, 1);
+    }
+
+    private long nextId() {
+        return this.lockFree ? this.idWorker.nextId() : this.synchronizedIdWorker.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long threads1() {
+        return nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long threads4() {
+        return nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long threads16() {
+        return nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long threads64() {
+        return nextId();
+    }
+
+    /**
+     * The previous IdWorker.nextId, one monitor around the timestamp and sequence; lastTimestamp is per instance here, as
+     * it was static before.
+     */
+    static class SynchronizedIdWorker {
+
+        private static final long TWEPOCH = 1288834974657L;
+
+        private static final long SEQUENCE_MASK = 4095L;
+
+        private final long node;
+
+        private long lastTimestamp = -1L;
+
+        private long sequence = 0L;
+
+        SynchronizedIdWorker(long workerId, long datacenterId) {
+            this.node = (datacenterId << 17) | (workerId << 12);
+        }
+
+        synchronized long nextId() {
+            long timestamp = System.currentTimeMillis();
+            if (timestamp < this.lastTimestamp) {
+                throw new IllegalStateException("Clock moved backwards");
+            }
+            if (this.lastTimestamp == timestamp) {
+                this.sequence = (this.sequence + 1) & SEQUENCE_MASK;
+                if (this.sequence == 0) {
+                    while (timestamp <= this.lastTimestamp) {
+                        timestamp = System.currentTimeMillis();
+                    }
+                }
+            } else {
+                this.sequence = 0L;
+            }
+            this.lastTimestamp = timestamp;
+            return ((timestamp - TWEPOCH) << 22) | this.node | this.sequence;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares assigning a batch of ids with one IdWorker.reserve against one nextId call per id, as ArtifactImportService
+ * did for each chunk, by a single writer and by 8 writers sharing the IdWorker. Scores are ids per millisecond; a worker
+ * issues at most 4096 of them, so the difference shows in how close to that each approach gets.
+ * <p>
+ * Run with:
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main IdWorkerReserveBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdWorkerReserveBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    IdWorker idWorker;
+
+    @Setup
+    public void setUp() {
+        this.idWorker = new IdWorker(1, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void nextIdPerCall(Blackhole blackhole) {
+        assignWithNextId(blackhole);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void reserve(Blackhole blackhole) {
+        assignWithReserve(blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void nextIdPerCall8Threads(Blackhole blackhole) {
+        assignWithNextId(blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void reserve8Threads(Blackhole blackhole) {
+        assignWithReserve(blackhole);
+    }
+
+    private void assignWithNextId(Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(Long.toString(this.idWorker.nextId()));
+        }
+    }
+
+    private void assignWithReserve(Blackhole blackhole) {
+        IdRange ids = this.idWorker.reserve(BATCH_SIZE);
+        while (ids.hasNext()) {
+            blackhole.consume(Long.toString(ids.nextId()));
+        }
+    }
+}
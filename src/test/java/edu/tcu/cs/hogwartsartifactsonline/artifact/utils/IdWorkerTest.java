@@ -0,0 +1,276 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdWorkerTest {
+
+    private static final long TWEPOCH = 1288834974657L;
+
+    @Test
+    void testNextIdKeepsTheBitLayout() {
+        // Given
+        IdWorker idWorker = new IdWorker(3, 7);
+        long before = System.currentTimeMillis();
+
+        // When
+        long first = idWorker.nextId();
+        long second = idWorker.nextId();
+        long after = System.currentTimeMillis();
+
+        // Then
+        assertThat((first >> 22) + TWEPOCH).isBetween(before, after); // 41 bits of milliseconds
+        assertThat((first >> 17) & 31).isEqualTo(7); // 5 bits of datacenter id
+        assertThat((first >> 12) & 31).isEqualTo(3); // 5 bits of worker id
+        assertThat(second).isGreaterThan(first);
+        if (second >> 22 == first >> 22) {
+            assertThat(second & 4095).isEqualTo((first & 4095) + 1); // 12 bits of sequence
+        }
+    }
+
+    @Test
+    void testNextIdIsUniqueAndIncreasingUnderConcurrency() throws Exception {
+        // Given
+        int threads = 16;
+        int idsPerThread = 50_000;
+        IdWorker idWorker = new IdWorker(1, 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(() -> {
+                start.await();
+                long[] ids = new long[idsPerThread];
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids[i] = idWorker.nextId();
+                }
+                return ids;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<long[]>> futures;
+        try {
+            futures = tasks.stream().map(executor::submit).toList();
+            start.countDown();
+            for (Future<long[]> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        Set<Long> distinct = new HashSet<>(threads * idsPerThread);
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 0; i < ids.length; i++) {
+                assertThat(distinct.add(ids[i])).as("duplicate id %d", ids[i]).isTrue();
+                if (i > 0) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]); // Each thread sees its ids in order
+                }
+            }
+        }
+        assertThat(distinct).hasSize(threads * idsPerThread); // More than 4096 per millisecond, so sequences roll over to the next millisecond
+    }
+
+    @Test
+    void testIdWorkersKeepTheirOwnState() {
+        // Given
+        IdWorker first = new IdWorker(1, 1);
+        IdWorker second = new IdWorker(2, 1);
+
+        // When
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(first.nextId());
+            ids.add(second.nextId());
+        }
+
+        // Then
+        assertThat(ids).hasSize(20_000);
+    }
+
+    @Test
+    void testReserveHandsOutConsecutiveIdsWithinAMillisecond() {
+        // Given
+        IdWorker idWorker = new IdWorker(1, 1);
+
+        // When
+        IdRange ids = idWorker.reserve(100);
+
+        // Then
+        assertThat(ids.remaining()).isEqualTo(100);
+        long first = ids.nextId();
+        long previous = first;
+        while (ids.hasNext()) {
+            long id = ids.nextId();
+            assertThat(id).isGreaterThan(previous);
+            if (ids.segments() == 1) {
+                assertThat(id).isEqualTo(previous + 1);
+            }
+            previous = id;
+        }
+        assertThat(idWorker.nextId()).isGreaterThan(previous);
+        assertThrows(NoSuchElementException.class, ids::nextId);
+    }
+
+    @Test
+    void testReserveRollsOverTheSequenceIntoTheNextMillisecond() {
+        // Given
+        IdWorker idWorker = new IdWorker(1, 1);
+
+        // When
+        IdRange ids = idWorker.reserve(10_000);
+
+        // Then
+        assertThat(ids.segments()).isGreaterThanOrEqualTo(3); // 4096 ids per millisecond at most
+        Set<Long> distinct = new HashSet<>();
+        long previous = -1;
+        while (ids.hasNext()) {
+            long id = ids.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat((id >> 12) & 31).isEqualTo(1); // The sequence never carries into the worker id
+            assertThat((id >> 17) & 31).isEqualTo(1);
+            distinct.add(id);
+            previous = id;
+        }
+        assertThat(distinct).hasSize(10_000);
+        assertThat(idWorker.reserve(0).hasNext()).isFalse();
+    }
+
+    @Test
+    void testReserveAndNextIdDoNotOverlapUnderConcurrency() throws Exception {
+        // Given
+        IdWorker idWorker = new IdWorker(1, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        // When
+        try {
+            for (int t = 0; t < 8; t++) {
+                boolean reserving = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[20_000];
+                    for (int i = 0; i < ids.length; ) {
+                        if (reserving) {
+                            IdRange range = idWorker.reserve(Math.min(5000, ids.length - i)); // Claimed in between other threads' ids, so in many segments
+                            while (range.hasNext()) {
+                                ids[i++] = range.nextId();
+                            }
+                        } else {
+                            ids[i++] = idWorker.nextId();
+                        }
+                    }
+                    return ids;
+                }));
+            }
+
+            // Then
+            Set<Long> distinct = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get()) {
+                    assertThat(distinct.add(id)).as("duplicate id %d", id).isTrue();
+                }
+            }
+            assertThat(distinct).hasSize(8 * 20_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testClockMovingBackwardsWithinTheBorrowWindowIsAbsorbed() {
+        // Given
+        AtomicLong clock = new AtomicLong(TWEPOCH + 1_000_000);
+        IdWorker idWorker = new IdWorker(1, 1, Long.MAX_VALUE, Duration.ofMillis(5), clock::get);
+        long before = idWorker.nextId();
+
+        // When
+        clock.addAndGet(-3); // Stepped back by NTP
+        long first = idWorker.nextId();
+        long second = idWorker.nextId();
+
+        // Then
+        assertThat(first).isGreaterThan(before);
+        assertThat(second).isGreaterThan(first);
+        assertThat(second >> 22).isEqualTo(before >> 22); // Still the logical timestamp
+        assertThat(idWorker.clockRegressions()).isEqualTo(1); // Once per regression, not per id
+        assertThat(idWorker.ahead()).isEqualTo(3);
+        clock.addAndGet(10);
+        assertThat(idWorker.nextId() >> 22).isEqualTo(1_000_007); // Back on the wall clock
+        assertThat(idWorker.ahead()).isZero();
+    }
+
+    @Test
+    void testClockMovingBackwardsBeyondTheBorrowWindowThrows() {
+        // Given
+        AtomicLong clock = new AtomicLong(TWEPOCH + 1_000_000);
+        IdWorker idWorker = new IdWorker(1, 1, Long.MAX_VALUE, Duration.ofMillis(5), clock::get);
+        IdWorker strict = new IdWorker(1, 1, Long.MAX_VALUE, Duration.ZERO, clock::get);
+        idWorker.nextId();
+        strict.nextId();
+
+        // When
+        clock.addAndGet(-6);
+
+        // Then
+        assertThrows(RuntimeException.class, idWorker::nextId);
+        clock.addAndGet(5);
+        assertThrows(RuntimeException.class, strict::nextId); // No window, fails as before
+        assertThat(idWorker.nextId()).isPositive();
+    }
+
+    @Test
+    void testUsedUpSequenceBorrowsTheNextMillisecondsThenWaitsForTheClock() throws Exception {
+        // Given
+        AtomicLong clock = new AtomicLong(TWEPOCH + 1_000_000); // Frozen until advanced
+        IdWorker idWorker = new IdWorker(1, 1, Long.MAX_VALUE, Duration.ofMillis(2), clock::get);
+        Set<Long> ids = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 3 * 4096; i++) {
+            ids.add(idWorker.nextId()); // This millisecond's sequence, then two borrowed
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> waiting = executor.submit(idWorker::nextId);
+            Thread.sleep(50);
+            assertThat(waiting.isDone()).isFalse(); // The window is used up
+            clock.incrementAndGet();
+            long next = waiting.get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(ids).hasSize(3 * 4096);
+            assertThat(next >> 22).isEqualTo(1_000_003);
+            assertThat(idWorker.ahead()).isEqualTo(2);
+            assertThat(idWorker.waits()).isEqualTo(1);
+            assertThat(idWorker.waitNanos()).isPositive();
+            assertThat(idWorker.clockRegressions()).isZero(); // Ran ahead, but the clock never moved backwards
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConstructorRejectsOutOfRangeIds() {
+        assertThrows(IllegalArgumentException.class, () -> new IdWorker(32, 1));
+        assertThrows(IllegalArgumentException.class, () -> new IdWorker(1, -1));
+    }
+}
@@ -0,0 +1,221 @@
+package edu.tcu.cs.hogwartsartifactsonline.artifact.utils;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkerIdLeaseTest {
+
+    InMemoryRedis redis = new InMemoryRedis();
+
+    @Test
+    void testNodesLeaseDistinctWorkerIds() {
+        // Given
+        List<WorkerIdLease> nodes = List.of(newLease(Duration.ofSeconds(30)), newLease(Duration.ofSeconds(30)), newLease(Duration.ofSeconds(30)));
+
+        // When
+        Set<Long> leased = new HashSet<>();
+        for (WorkerIdLease node : nodes) {
+            IdWorker idWorker = node.idWorker();
+            leased.add(idWorker.getDatacenterId() * 32 + idWorker.getWorkerId());
+        }
+
+        // Then
+        assertThat(leased).hasSize(3);
+        assertThat(this.redis.values).hasSize(3);
+    }
+
+    @Test
+    void testRenewKeepsTheLease() {
+        // Given
+        WorkerIdLease node = newLease(Duration.ofMillis(300));
+        IdWorker idWorker = node.idWorker();
+        long workerId = idWorker.getWorkerId();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            sleep(100);
+            node.renew();
+        }
+
+        // Then
+        assertThat(idWorker.nextId()).isPositive(); // Past the first lease's fence, but renewed
+        assertThat(idWorker.getWorkerId()).isEqualTo(workerId);
+    }
+
+    @Test
+    void testHeartbeatRenewsTheLeaseOnItsOwnThread() {
+        // Given
+        WorkerIdLease node = new WorkerIdLease(this.redis, true, Duration.ofMillis(300), Duration.ofMillis(15), 100);
+        IdWorker idWorker = node.idWorker();
+
+        // When
+        sleep(500); // Past the first lease's fence, with no one calling renew()
+
+        // Then
+        assertThat(idWorker.nextId()).isPositive();
+        node.release();
+    }
+
+    @Test
+    void testLostLeaseFencesAndLeasesAnotherWorkerId() {
+        // Given
+        WorkerIdLease node = newLease(Duration.ofSeconds(30));
+        IdWorker idWorker = node.idWorker();
+        String key = this.redis.values.keySet().iterator().next();
+        long slot = idWorker.getDatacenterId() * 32 + idWorker.getWorkerId();
+        this.redis.values.put(key, "another node"); // Expired, then leased by another node
+
+        // When
+        node.renew();
+
+        // Then
+        assertThat(idWorker.getDatacenterId() * 32 + idWorker.getWorkerId()).isNotEqualTo(slot);
+        assertThat(idWorker.nextId()).isPositive();
+        assertThat(this.redis.values).hasSize(2);
+    }
+
+    @Test
+    void testIdWorkerIsFencedWhenTheLeaseCannotBeRenewed() {
+        // Given
+        WorkerIdLease node = newLease(Duration.ofMillis(200));
+        IdWorker idWorker = node.idWorker();
+        this.redis.reachable = false;
+
+        // When
+        node.renew(); // Fails, but the lease has not run out yet
+        long id = idWorker.nextId();
+        sleep(250);
+
+        // Then
+        assertThat(id).isPositive();
+        assertThrows(IllegalStateException.class, idWorker::nextId);
+    }
+
+    @Test
+    void testFallsBackToDerivedIdsWhileRedisIsUnreachable() {
+        // Given
+        this.redis.reachable = false;
+        WorkerIdLease node = newLease(Duration.ofSeconds(30));
+
+        // When
+        IdWorker idWorker = node.idWorker();
+        long derivedId = idWorker.nextId();
+        this.redis.reachable = true;
+        node.renew();
+
+        // Then
+        assertThat(derivedId).isPositive();
+        assertThat(this.redis.values).hasSize(1); // Leased once Redis is back
+        assertThat(idWorker.nextId()).isNotEqualTo(derivedId);
+    }
+
+    @Test
+    void testReleaseDeletesTheLeaseAndFences() {
+        // Given
+        WorkerIdLease node = newLease(Duration.ofSeconds(30));
+        IdWorker idWorker = node.idWorker();
+
+        // When
+        node.release();
+
+        // Then
+        assertThat(this.redis.values).isEmpty();
+        assertThrows(IllegalStateException.class, idWorker::nextId);
+    }
+
+    @Test
+    void testBorrowWindowMustBeShorterThanTheFenceMargin() {
+        assertThrows(IllegalArgumentException.class, () -> new WorkerIdLease(this.redis, true, Duration.ofSeconds(30), Duration.ofSeconds(3), 10000));
+    }
+
+    private WorkerIdLease newLease(Duration ttl) {
+        return new WorkerIdLease(this.redis, true, ttl, Duration.ofMillis(ttl.toMillis() / 20), 3_600_000); // Renewed by the tests themselves
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A stand-in for Redis with the commands a lease uses, keys expiring on the wall clock as they would in Redis.
+     */
+    static class InMemoryRedis extends RedisCacheClient {
+
+        final Map<String, String> values = new ConcurrentHashMap<>();
+
+        final Map<String, Long> expiries = new ConcurrentHashMap<>();
+
+        volatile boolean reachable = true;
+
+        InMemoryRedis() {
+            super(null);
+        }
+
+        @Override
+        public synchronized boolean setIfAbsent(String key, String value, long timeout, TimeUnit timeUnit) {
+            checkReachable();
+            expire();
+            if (this.values.containsKey(key)) {
+                return false;
+            }
+            this.values.put(key, value);
+            this.expiries.put(key, System.currentTimeMillis() + timeUnit.toMillis(timeout));
+            return true;
+        }
+
+        @Override
+        public synchronized boolean expireIfEquals(String key, String value, long timeout, TimeUnit timeUnit) {
+            checkReachable();
+            expire();
+            if (!value.equals(this.values.get(key))) {
+                return false;
+            }
+            this.expiries.put(key, System.currentTimeMillis() + timeUnit.toMillis(timeout));
+            return true;
+        }
+
+        @Override
+        public synchronized boolean deleteIfEquals(String key, String value) {
+            checkReachable();
+            expire();
+            if (!value.equals(this.values.get(key))) {
+                return false;
+            }
+            this.values.remove(key);
+            this.expiries.remove(key);
+            return true;
+        }
+
+        private void checkReachable() {
+            if (!this.reachable) {
+                throw new RedisConnectionFailureException("Unable to connect to Redis");
+            }
+        }
+
+        private void expire() {
+            long now = System.currentTimeMillis();
+            this.expiries.forEach((key, expiry) -> {
+                if (expiry <= now) {
+                    this.values.remove(key);
+                    this.expiries.remove(key);
+                }
+            });
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -149,4 +150,54 @@ class MetaLlamaChatClientTest {
         assertThat(thrown)
                 .isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStreamSuccess() {
+        // Given
+        String events = """
+                data: {"choices":[{"index":0,"delta":{"role":"assistant","content":"The summary"}}]}
+
+                : keep-alive
+
+                data: {"choices":[{"index":0,"delta":{"content":" includes six artifacts."}}]}
+
+                data: {"choices":[{"index":0,"delta":{},"finish_reason":"stop"}]}
+
+                data: [DONE]
+
+                """;
+
+        this.mockServer.expect(requestTo(this.url))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Authorization", startsWith("Bearer ")))
+                .andExpect(header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE))
+                .andExpect(jsonPath("$.stream").value(true))
+                .andRespond(withSuccess(events, MediaType.TEXT_EVENT_STREAM));
+
+        // When
+        List<String> deltas = new ArrayList<>();
+        this.metaLlamaChatClient.stream(this.chatRequest, deltas::add);
+
+        // Then
+        this.mockServer.verify();
+        assertThat(deltas).containsExactly("The summary", " includes six artifacts.");
+    }
+
+    @Test
+    void testStreamUnauthorizedRequest() {
+        // Given
+        this.mockServer.expect(requestTo(this.url))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withUnauthorizedRequest());
+
+        // When
+        List<String> deltas = new ArrayList<>();
+        Throwable thrown = catchThrowable(() -> this.metaLlamaChatClient.stream(this.chatRequest, deltas::add));
+
+        // Then
+        this.mockServer.verify();
+        assertThat(thrown)
+                .isInstanceOf(HttpClientErrorException.Unauthorized.class);
+        assertThat(deltas).isEmpty();
+    }
+}
@@ -0,0 +1,140 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
+
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.models.BlockListType;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Runs against Azurite, the Azure Storage emulator, so block staging and committing behave as they do in Azure.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@Tag("integration")
+class AzureImageStorageClientTest {
+
+    private static final String CONTAINER_NAME = "images";
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Container
+    static GenericContainer<?> azurite = new GenericContainer<>(DockerImageName.parse("mcr.microsoft.com/azure-storage/azurite:3.31.0"))
+            .withCommand("azurite-blob", "--blobHost", "0.0.0.0", "--skipApiVersionCheck")
+            .withExposedPorts(10000);
+
+    BlobServiceClient blobServiceClient;
+
+    AzureImageStorageClient azureImageStorageClient;
+
+    @BeforeEach
+    void setUp() {
+        // The well-known development account of the emulator
+        String connectionString = "DefaultEndpointsProtocol=http;AccountName=devstoreaccount1;"
+                + "AccountKey=Eby8vdM02xNOcqFlqUwJPLlmEtlCDXJ1OUzFT50uSRZ6IFsuFq2UVErCz4I6tq/K1SZFPTOtr/KBHBeksoGMGw==;"
+                + "BlobEndpoint=http://" + azurite.getHost() + ":" + azurite.getMappedPort(10000) + "/devstoreaccount1;";
+        this.blobServiceClient = new BlobServiceClientBuilder().connectionString(connectionString).buildClient();
+        this.blobServiceClient.createBlobContainerIfNotExists(CONTAINER_NAME);
+        this.azureImageStorageClient = new AzureImageStorageClient(this.blobServiceClient, DataSize.ofBytes(BLOCK_SIZE), 4);
+    }
+
+    @Test
+    void testBlockUploadResumesAndCommitsInOrder() {
+        // Given
+        byte[] image = randomBytes(3 * BLOCK_SIZE + 100);
+        String uploadId = this.azureImageStorageClient.initUpload(CONTAINER_NAME, "wand.png");
+        putBlock(uploadId, image, 2);
+        putBlock(uploadId, image, 0); // Out of order, as parallel requests arrive
+
+        // When the connection drops, the client asks which blocks arrived and sends the rest
+        List<Integer> uploadedBlocks = this.azureImageStorageClient.findUploadedBlocks(CONTAINER_NAME, uploadId);
+        IntStream.range(0, 4).filter(blockIndex -> !uploadedBlocks.contains(blockIndex)).forEach(blockIndex -> putBlock(uploadId, image, blockIndex));
+        String imageUrl = this.azureImageStorageClient.commitUpload(CONTAINER_NAME, uploadId, 4);
+
+        // Then
+        assertThat(uploadedBlocks).containsExactly(0, 2);
+        assertThat(uploadId).endsWith(".png");
+        assertThat(imageUrl).endsWith("/" + CONTAINER_NAME + "/" + uploadId);
+        assertThat(download(uploadId)).isEqualTo(image);
+    }
+
+    @Test
+    void testCommitWithAMissingBlockFails() {
+        // Given
+        byte[] image = randomBytes(2 * BLOCK_SIZE);
+        String uploadId = this.azureImageStorageClient.initUpload(CONTAINER_NAME, "wand.png");
+        putBlock(uploadId, image, 1);
+
+        // When
+        Throwable thrown = catchThrowable(() -> this.azureImageStorageClient.commitUpload(CONTAINER_NAME, uploadId, 2));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidUploadException.class).hasMessage("Blocks [0] have not been uploaded.");
+        assertThat(this.blobServiceClient.getBlobContainerClient(CONTAINER_NAME).getBlobClient(uploadId).exists()).isFalse();
+    }
+
+    @Test
+    void testBlockUploadRejectsAnUploadIdItDidNotIssue() {
+        // When
+        Throwable thrown = catchThrowable(() -> this.azureImageStorageClient.putBlock(CONTAINER_NAME, "../other-container/cloak.png", 0, new ByteArrayInputStream(new byte[1]), 1));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidUploadException.class);
+    }
+
+    @Test
+    void testUploadImageLargerThanABlockIsStagedInBlocks() throws Exception {
+        // Given
+        byte[] image = randomBytes(5 * BLOCK_SIZE + 1);
+
+        // When
+        String imageUrl = this.azureImageStorageClient.uploadImage(CONTAINER_NAME, "cloak.jpg", new ByteArrayInputStream(image), image.length);
+
+        // Then
+        String imageName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        assertThat(imageName).endsWith(".jpg");
+        assertThat(download(imageName)).isEqualTo(image);
+        assertThat(this.blobServiceClient.getBlobContainerClient(CONTAINER_NAME).getBlobClient(imageName).getBlockBlobClient()
+                .listBlocks(BlockListType.COMMITTED).getCommittedBlocks()).hasSize(6);
+    }
+
+    private void putBlock(String uploadId, byte[] image, int blockIndex) {
+        int from = blockIndex * BLOCK_SIZE;
+        byte[] block = Arrays.copyOfRange(image, from, Math.min(image.length, from + BLOCK_SIZE));
+        try {
+            this.azureImageStorageClient.putBlock(CONTAINER_NAME, uploadId, blockIndex, new ByteArrayInputStream(block), block.length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private byte[] download(String imageName) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.blobServiceClient.getBlobContainerClient(CONTAINER_NAME).getBlobClient(imageName).downloadStream(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,115 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.StatusCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"dev", "filesystem"})
+class FileSystemImageControllerTest {
+
+    @TempDir
+    static Path root;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ImageStorageClient imageStorageClient;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    String imageUrl;
+
+    @DynamicPropertySource
+    static void imageProperties(DynamicPropertyRegistry registry) {
+        registry.add("image.filesystem.root", () -> root.toString());
+        registry.add("image.filesystem.public-url", () -> "/api/v1/images");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        byte[] image = "0123456789".getBytes(StandardCharsets.UTF_8);
+        this.imageUrl = this.imageStorageClient.uploadImage("images", "wand.png", new ByteArrayInputStream(image), image.length);
+    }
+
+    @Test
+    void testGetImageSuccess() throws Exception {
+        // Given
+        assertThat(this.imageStorageClient).isInstanceOf(FileSystemImageStorageClient.class);
+
+        // When and then, without credentials
+        this.mockMvc.perform(get(this.imageUrl))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void testGetImageRange() throws Exception {
+        // When and then
+        this.mockMvc.perform(get(this.imageUrl).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+        this.mockMvc.perform(get(this.imageUrl).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("789"));
+        this.mockMvc.perform(get(this.imageUrl).header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void testGetImageConditionally() throws Exception {
+        // Given
+        MvcResult result = this.mockMvc.perform(get(this.imageUrl)).andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When and then
+        this.mockMvc.perform(get(this.imageUrl).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        this.mockMvc.perform(get(this.imageUrl).header(HttpHeaders.RANGE, "bytes=0-0").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk()) // The client's copy changed, so it gets the whole image
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void testGetImageNotFound() throws Exception {
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/images/images/0b4f5e6a-1c2d-4e3f-8a9b-0c1d2e3f4a5b.png"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.NOT_FOUND));
+    }
+}
@@ -0,0 +1,101 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the download throughput of FileSystemImageController under concurrent clients, on an embedded Tomcat as in
+ * the application. With sendfile, the connector writes the file to the socket itself; without it, the controller falls
+ * back to FileChannel.transferTo into the response stream, which copies through buffers on the heap.
+ * <p>
+ * Run with:
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main FileSystemImageDownloadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class FileSystemImageDownloadBenchmark {
+
+    @Param({"true", "false"})
+    boolean useSendfile;
+
+    @Param({"65536", "4194304"})
+    int imageSize;
+
+    Path root;
+
+    Tomcat tomcat;
+
+    HttpClient httpClient;
+
+    URI imageUri;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.root = Files.createTempDirectory("images");
+        FileSystemImageStorageClient fileSystemImageStorageClient = new FileSystemImageStorageClient(this.root, "/images", Duration.ofHours(24));
+        byte[] image = new byte[this.imageSize];
+        new Random(42).nextBytes(image);
+        String imageUrl = fileSystemImageStorageClient.uploadImage("images", "wand.png", new ByteArrayInputStream(image), image.length);
+        FileSystemImageController fileSystemImageController = new FileSystemImageController(fileSystemImageStorageClient);
+
+        this.tomcat = new Tomcat();
+        this.tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+        this.tomcat.setPort(0);
+        this.tomcat.getConnector().setProperty("useSendfile", String.valueOf(this.useSendfile));
+        this.tomcat.getConnector().setProperty("maxThreads", "32");
+        Context context = this.tomcat.addContext("", null);
+        Tomcat.addServlet(context, "images", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                String[] path = request.getPathInfo().split("/"); // /{containerName}/{imageName}
+                fileSystemImageController.getImage(path[1], path[2], request, response);
+            }
+        });
+        context.addServletMappingDecoded("/images/*", "images");
+        this.tomcat.start();
+
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.imageUri = URI.create("http://localhost:" + this.tomcat.getConnector().getLocalPort() + imageUrl);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.tomcat.stop();
+        this.tomcat.destroy();
+        try (Stream<Path> files = Files.walk(this.root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long download() throws Exception {
+        HttpResponse<Void> response = this.httpClient.send(HttpRequest.newBuilder(this.imageUri).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.headers().firstValueAsLong("Content-Length").orElse(0);
+    }
+}
@@ -0,0 +1,151 @@
+package edu.tcu.cs.hogwartsartifactsonline.client.imagestorage;
+
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidUploadException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class FileSystemImageStorageClientTest {
+
+    @TempDir
+    Path root;
+
+    FileSystemImageStorageClient fileSystemImageStorageClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.fileSystemImageStorageClient = new FileSystemImageStorageClient(this.root, "http://localhost:8080/api/v1/images/", Duration.ofHours(24));
+    }
+
+    @Test
+    void testUploadImage() throws Exception {
+        // Given
+        byte[] image = "an elder wand".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        String imageUrl = this.fileSystemImageStorageClient.uploadImage("images", "wand.png", new ByteArrayInputStream(image), image.length);
+
+        // Then
+        assertThat(imageUrl).startsWith("http://localhost:8080/api/v1/images/images/").endsWith(".png");
+        String imageName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        assertThat(Files.readAllBytes(this.fileSystemImageStorageClient.findImage("images", imageName))).isEqualTo(image);
+        try (var files = Files.list(this.root.resolve("images"))) {
+            assertThat(files).hasSize(1); // No temporary file left behind
+        }
+    }
+
+    @Test
+    void testBlockUploadResumesAndCommitsInOrder() throws Exception {
+        // Given
+        String uploadId = this.fileSystemImageStorageClient.initUpload("images", "cloak.jpg");
+        putBlock(uploadId, 2, "ility cloak");
+        putBlock(uploadId, 0, "an invi");
+
+        // When
+        assertThat(this.fileSystemImageStorageClient.findUploadedBlocks("images", uploadId)).containsExactly(0, 2);
+        putBlock(uploadId, 1, "sib");
+        String imageUrl = this.fileSystemImageStorageClient.commitUpload("images", uploadId, 3);
+
+        // Then
+        assertThat(imageUrl).isEqualTo("http://localhost:8080/api/v1/images/images/" + uploadId);
+        assertThat(Files.readString(this.fileSystemImageStorageClient.findImage("images", uploadId))).isEqualTo("an invisibility cloak");
+        assertThat(this.root.resolve(".uploads").resolve("images").resolve(uploadId)).doesNotExist();
+    }
+
+    @Test
+    void testUploadsAreScopedByContainer() throws Exception {
+        // Given
+        String uploadId = this.fileSystemImageStorageClient.initUpload("images", "cloak.jpg");
+        putBlock(uploadId, 0, "an invisibility cloak");
+
+        // When and then
+        assertThat(this.fileSystemImageStorageClient.findUploadedBlocks("thumbnails", uploadId)).isEmpty();
+        assertThat(catchThrowable(() -> this.fileSystemImageStorageClient.commitUpload("thumbnails", uploadId, 1))).isInstanceOf(InvalidUploadException.class);
+        assertThat(this.fileSystemImageStorageClient.findUploadedBlocks("images", uploadId)).containsExactly(0);
+    }
+
+    @Test
+    void testSweepDeletesOnlyAbandonedUploads() throws Exception {
+        // Given
+        String abandoned = this.fileSystemImageStorageClient.initUpload("images", "cloak.jpg");
+        putBlock(abandoned, 0, "an invi");
+        String active = this.fileSystemImageStorageClient.initUpload("images", "wand.png");
+        putBlock(active, 0, "an elder");
+        putBlock(active, 1, " wand");
+        Path abandonedDirectory = this.root.resolve(".uploads").resolve("images").resolve(abandoned);
+        Path activeDirectory = this.root.resolve(".uploads").resolve("images").resolve(active);
+        FileTime dayAndAHourAgo = FileTime.from(Instant.now().minus(Duration.ofHours(25)));
+        Files.setLastModifiedTime(abandonedDirectory.resolve("0"), dayAndAHourAgo);
+        Files.setLastModifiedTime(abandonedDirectory, dayAndAHourAgo);
+        Files.setLastModifiedTime(activeDirectory.resolve("0"), dayAndAHourAgo);
+        Files.setLastModifiedTime(activeDirectory, dayAndAHourAgo); // Block 1 arrived just now
+
+        // When
+        int deleted = this.fileSystemImageStorageClient.sweepAbandonedUploads();
+
+        // Then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(abandonedDirectory).doesNotExist();
+        assertThat(this.fileSystemImageStorageClient.findUploadedBlocks("images", active)).containsExactly(0, 1);
+    }
+
+    @Test
+    void testCommitWithAMissingBlockFails() throws Exception {
+        // Given
+        String uploadId = this.fileSystemImageStorageClient.initUpload("images", "cloak.jpg");
+        putBlock(uploadId, 1, "sib");
+
+        // When
+        Throwable thrown = catchThrowable(() -> this.fileSystemImageStorageClient.commitUpload("images", uploadId, 2));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidUploadException.class).hasMessage("Blocks [0] have not been uploaded.");
+        assertThat(this.fileSystemImageStorageClient.findUploadedBlocks("images", uploadId)).containsExactly(1); // Still there to resume
+    }
+
+    @Test
+    void testBlockCutShortIsNotKept() throws Exception {
+        // Given
+        String uploadId = this.fileSystemImageStorageClient.initUpload("images", "cloak.jpg");
+
+        // When
+        Throwable thrown = catchThrowable(() -> this.fileSystemImageStorageClient.putBlock("images", uploadId, 0, new ByteArrayInputStream(new byte[3]), 4));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidUploadException.class);
+        assertThat(this.fileSystemImageStorageClient.findUploadedBlocks("images", uploadId)).isEmpty();
+    }
+
+    @Test
+    void testNamesThatEscapeTheRootAreRejected() throws Exception {
+        // Given
+        Files.writeString(this.root.resolve("secret.txt"), "secret");
+
+        // When and then
+        assertThat(catchThrowable(() -> this.fileSystemImageStorageClient.uploadImage("../images", "wand.png", new ByteArrayInputStream(new byte[1]), 1)))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThat(catchThrowable(() -> this.fileSystemImageStorageClient.putBlock("images", "../../secret.txt", 0, new ByteArrayInputStream(new byte[1]), 1)))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThat(catchThrowable(() -> this.fileSystemImageStorageClient.findImage("images", "..%2Fsecret.txt")))
+                .isInstanceOf(ObjectNotFoundException.class);
+        assertThat(catchThrowable(() -> this.fileSystemImageStorageClient.findImage(".uploads", "0b4f5e6a-1c2d-4e3f-8a9b-0c1d2e3f4a5b.png")))
+                .isInstanceOf(ObjectNotFoundException.class);
+    }
+
+    private void putBlock(String uploadId, int blockIndex, String content) throws Exception {
+        byte[] block = content.getBytes(StandardCharsets.UTF_8);
+        this.fileSystemImageStorageClient.putBlock("images", uploadId, blockIndex, new ByteArrayInputStream(block), block.length);
+    }
+}
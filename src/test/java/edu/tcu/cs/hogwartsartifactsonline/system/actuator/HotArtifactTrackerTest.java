@@ -0,0 +1,125 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.actuator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class HotArtifactTrackerTest {
+
+    SimpleMeterRegistry meterRegistry;
+
+    HotArtifactTracker hotArtifactTracker;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.hotArtifactTracker = new HotArtifactTracker(this.meterRegistry, 3, 4, 1024);
+    }
+
+    @Test
+    void testHotArtifactsFindsTheHeavyHittersAmongManyIds() {
+        // Given. 3 hot ids hidden among 100,000 ids fetched once each
+        Random random = new Random(42);
+        List<Long> fetches = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            fetches.add(1250808601744904191L + i);
+        }
+        for (int i = 0; i < 3000; i++) fetches.add(1250808601744904191L);
+        for (int i = 0; i < 2000; i++) fetches.add(1250808601744904192L);
+        for (int i = 0; i < 1000; i++) fetches.add(1250808601744904193L);
+        Collections.shuffle(fetches, random);
+
+        // When
+        fetches.forEach(this.hotArtifactTracker::record);
+
+        // Then
+        List<HotArtifactTracker.HotArtifact> hotArtifacts = this.hotArtifactTracker.hotArtifacts();
+        assertThat(hotArtifacts).extracting(HotArtifactTracker.HotArtifact::id)
+                .containsExactly(1250808601744904191L, 1250808601744904192L, 1250808601744904193L);
+        assertThat(hotArtifacts.get(0).count()).isGreaterThanOrEqualTo(3001); // Estimates never undercount
+        assertThat(this.hotArtifactTracker.total()).isEqualTo(106_000);
+    }
+
+    @Test
+    void testIdsWithTheSameHashCodeAreCountedApart() {
+        // Given. Flipping bit 0 of both halves keeps Long.hashCode(), which xors them
+        long hot = 1250808601744904191L;
+        long other = hot ^ 0x0000000100000001L;
+        assertThat(Long.hashCode(other)).isEqualTo(Long.hashCode(hot));
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            this.hotArtifactTracker.record(hot);
+        }
+        this.hotArtifactTracker.record(other);
+
+        // Then
+        assertThat(this.hotArtifactTracker.hotArtifacts()).extracting(HotArtifactTracker.HotArtifact::id, HotArtifactTracker.HotArtifact::count)
+                .containsExactly(tuple(hot, 1000L), tuple(other, 1L));
+    }
+
+    @Test
+    void testRecordFromManyThreads() throws Exception {
+        // Given
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    this.hotArtifactTracker.record(1250808601744904191L);
+                    this.hotArtifactTracker.record((long) i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        // Then
+        HotArtifactTracker.HotArtifact hottest = this.hotArtifactTracker.hotArtifacts().get(0);
+        assertThat(hottest.id()).isEqualTo(1250808601744904191L);
+        assertThat(hottest.count()).isBetween(80_000L, 80_500L); // No lost updates; collisions may only add a little
+        assertThat(this.hotArtifactTracker.total()).isEqualTo(160_000);
+    }
+
+    @Test
+    void testGaugesAreAFixedSet() {
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            this.hotArtifactTracker.record((long) i);
+        }
+        this.hotArtifactTracker.record(7L);
+
+        // Then
+        assertThat(this.meterRegistry.getMeters()).hasSize(4); // One gauge per rank plus the total
+        assertThat(this.meterRegistry.get("artifact.hot.count").tag("rank", "1").gauge().value()).isGreaterThanOrEqualTo(2);
+        assertThat(this.meterRegistry.get("artifact.hot.total").gauge().value()).isEqualTo(10_001);
+    }
+
+    @Test
+    void testReset() {
+        // Given
+        this.hotArtifactTracker.record(1250808601744904191L);
+
+        // When
+        this.hotArtifactTracker.reset();
+
+        // Then
+        assertThat(this.hotArtifactTracker.hotArtifacts()).isEmpty();
+        assertThat(this.hotArtifactTracker.total()).isZero();
+    }
+}
@@ -0,0 +1,167 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import edu.tcu.cs.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogVersionTest {
+
+    @Mock
+    RedisCacheClient redisCacheClient;
+
+    CatalogVersion catalogVersion;
+
+    @BeforeEach
+    void setUp() {
+        this.catalogVersion = new CatalogVersion(this.redisCacheClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testCurrentReadsTheSharedVersion() {
+        // Given
+        given(this.redisCacheClient.get(CatalogVersion.KEY)).willReturn("5", (String) null);
+
+        // When and then
+        assertThat(this.catalogVersion.current()).isEqualTo("r5");
+        assertThat(this.catalogVersion.current()).isEqualTo("r0");
+    }
+
+    @Test
+    void testBumpOutsideATransactionIncrementsAtOnce() {
+        // When
+        this.catalogVersion.bump();
+
+        // Then
+        verify(this.redisCacheClient).increment(CatalogVersion.KEY);
+    }
+
+    @Test
+    void testBumpsInATransactionIncrementOnceAfterCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        this.catalogVersion.bump();
+        this.catalogVersion.bump();
+
+        // Then
+        verify(this.redisCacheClient, never()).increment(anyString());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        verify(this.redisCacheClient, times(1)).increment(CatalogVersion.KEY);
+        assertThat(TransactionSynchronizationManager.hasResource(this.catalogVersion)).isFalse();
+    }
+
+    @Test
+    void testBumpInARolledBackTransactionDoesNothing() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        this.catalogVersion.bump();
+
+        // When
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        verify(this.redisCacheClient, never()).increment(anyString());
+    }
+
+    @Test
+    void testFallsBackToTheLocalVersionWhenRedisIsDown() {
+        // Given
+        given(this.redisCacheClient.get(CatalogVersion.KEY)).willThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+
+        // When
+        String before = this.catalogVersion.current();
+        this.catalogVersion.bump();
+        String after = this.catalogVersion.current();
+
+        // Then
+        assertThat(before).isEqualTo("l0");
+        assertThat(after).isEqualTo("l1");
+        verify(this.redisCacheClient, times(1)).get(CatalogVersion.KEY); // Backs off instead of trying again on every call
+        verify(this.redisCacheClient, never()).increment(anyString());
+    }
+
+    @Test
+    void testBumpsInATransactionPublishTheirIdsTogether() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        given(this.redisCacheClient.increment(CatalogVersion.KEY)).willReturn(8L);
+
+        // When
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, List.of(1250808601744904191L));
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, List.of(1250808601744904192L));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        verify(this.redisCacheClient).publish(TwoTierCacheManager.INVALIDATION_CHANNEL,
+                CatalogVersion.changeMessage(8L, Map.of(CatalogVersion.ARTIFACTS, Set.of(1250808601744904191L, 1250808601744904192L))));
+    }
+
+    @Test
+    void testPublishedChangesReachTheListeners() {
+        // Given
+        List<CatalogVersion.Change> changes = new ArrayList<>();
+        this.catalogVersion.addListener(changes::add);
+        String message = CatalogVersion.changeMessage(8L, Map.of(CatalogVersion.ARTIFACTS, Set.of(1250808601744904191L), CatalogVersion.WIZARDS, Set.of(2L)));
+
+        // When
+        this.catalogVersion.onMessage(new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)), null);
+        this.catalogVersion.onMessage(new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8), TwoTierCacheManager.evictMessage("artifact", "1").getBytes(StandardCharsets.UTF_8)), null);
+
+        // Then
+        assertThat(changes).containsExactly(new CatalogVersion.Change(8L, Map.of(CatalogVersion.ARTIFACTS, Set.of(1250808601744904191L), CatalogVersion.WIZARDS, Set.of(2L))));
+    }
+
+    @Test
+    void testBumpWhileRedisIsDownTellsTheLocalListenersAndLaterAllOfThem() {
+        // Given
+        List<CatalogVersion.Change> changes = new ArrayList<>();
+        this.catalogVersion.addListener(changes::add);
+        given(this.redisCacheClient.increment(CatalogVersion.KEY)).willThrow(new RedisConnectionFailureException("Unable to connect to Redis")).willReturn(9L);
+
+        // When
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, List.of(1250808601744904191L));
+        this.catalogVersion.bump(CatalogVersion.ARTIFACTS, List.of(1250808601744904192L)); // Backing off, still local
+
+        // Then
+        assertThat(changes).containsExactly(
+                new CatalogVersion.Change(null, Map.of(CatalogVersion.ARTIFACTS, Set.of(1250808601744904191L))),
+                new CatalogVersion.Change(null, Map.of(CatalogVersion.ARTIFACTS, Set.of(1250808601744904192L))));
+        verify(this.redisCacheClient, never()).publish(anyString(), anyString());
+        assertThat(CatalogVersion.changeMessage(9L, null)).isEqualTo("V\n9\n*"); // What the catch-up bump publishes, since the other nodes missed the outage
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
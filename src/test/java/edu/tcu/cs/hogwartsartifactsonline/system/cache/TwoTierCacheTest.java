@@ -0,0 +1,267 @@
+package edu.tcu.cs.hogwartsartifactsonline.system.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.tcu.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import edu.tcu.cs.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+    @Mock
+    RedisCacheClient redisCacheClient;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    SimpleMeterRegistry meterRegistry;
+
+    TwoTierCache cache;
+
+    TwoTierCacheManager cacheManager;
+
+    ArtifactDto artifactDto = new ArtifactDto(1250808601744904191L, "Deluminator", "A Deluminator.", "ImageUrl", new WizardDto(1, "Albus Dumbledore", 2));
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cache = new TwoTierCache("artifact", Caffeine.newBuilder().maximumSize(100).build(), this.redisCacheClient,
+                this.objectMapper, this.objectMapper.constructType(ArtifactDto.class), Duration.ofHours(1), this.meterRegistry);
+        this.cacheManager = new TwoTierCacheManager(List.of(this.cache));
+        this.cacheManager.afterPropertiesSet();
+    }
+
+    @Test
+    void testMissLoadsOnceAndFillsBothTiers() throws Exception {
+        // When
+        ArtifactDto first = this.cache.get("1250808601744904191", () -> this.artifactDto);
+        ArtifactDto second = this.cache.get("1250808601744904191", () -> {
+            throw new IllegalStateException("Should have been served from L1");
+        });
+
+        // Then
+        assertThat(first).isEqualTo(this.artifactDto);
+        assertThat(second).isEqualTo(this.artifactDto);
+        verify(this.redisCacheClient, times(1)).get("cache:artifact:0:1250808601744904191");
+        verify(this.redisCacheClient).setIfAbsent("cache:artifact:0:1250808601744904191", this.objectMapper.writeValueAsString(this.artifactDto), 3_600_000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void testRedisHitFillsL1() throws Exception {
+        // Given
+        given(this.redisCacheClient.get("cache:artifact:generation")).willReturn("7");
+        given(this.redisCacheClient.get("cache:artifact:7:1250808601744904191")).willReturn(this.objectMapper.writeValueAsString(this.artifactDto));
+
+        // When
+        ArtifactDto value = this.cache.get("1250808601744904191", () -> {
+            throw new IllegalStateException("Should have been served from Redis");
+        });
+
+        // Then
+        assertThat(value).isEqualTo(this.artifactDto);
+        assertThat(this.cache.get("1250808601744904191").get()).isEqualTo(this.artifactDto);
+        verify(this.redisCacheClient, times(1)).get("cache:artifact:7:1250808601744904191");
+        assertThat(this.meterRegistry.get("cache.gets").tags("cache", "artifact", "tier", "l2", "result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetAllReadsL1ThenRedisInOneRoundTrip() throws Exception {
+        // Given
+        this.cache.put("1250808601744904191", this.artifactDto);
+        ArtifactDto other = new ArtifactDto(1250808601744904192L, "Invisibility Cloak", "An invisibility cloak.", "ImageUrl", null);
+        given(this.redisCacheClient.multiGet(List.of("cache:artifact:0:1250808601744904192", "cache:artifact:0:1250808601744904193")))
+                .willReturn(Arrays.asList(this.objectMapper.writeValueAsString(other), null));
+
+        // When
+        Map<String, Object> found = this.cache.getAll(List.of("1250808601744904191", "1250808601744904192", "1250808601744904193"));
+
+        // Then
+        assertThat(found).containsOnly(entry("1250808601744904191", this.artifactDto), entry("1250808601744904192", other));
+        assertThat(this.cache.get("1250808601744904192").get()).isEqualTo(other); // The Redis hit filled L1
+        verify(this.redisCacheClient, never()).get("cache:artifact:0:1250808601744904192");
+    }
+
+    @Test
+    void testPutAllWritesRedisInOneRoundTrip() throws Exception {
+        // When
+        this.cache.putAll(Map.of("1250808601744904191", this.artifactDto));
+
+        // Then
+        assertThat(this.cache.get("1250808601744904191").get()).isEqualTo(this.artifactDto);
+        verify(this.redisCacheClient).setIfAbsent("cache:artifact:0:1250808601744904191", this.objectMapper.writeValueAsString(this.artifactDto), 3_600_000, TimeUnit.MILLISECONDS);
+        verify(this.redisCacheClient, never()).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testLoaderExceptionIsWrappedAndNotCached() {
+        // When
+        Throwable thrown = catchThrowable(() -> this.cache.get("1250808601744904191", () -> {
+            throw new ObjectNotFoundException("artifact", "1250808601744904191");
+        }));
+
+        // Then
+        assertThat(thrown).isInstanceOf(Cache.ValueRetrievalException.class).hasCauseInstanceOf(ObjectNotFoundException.class);
+        assertThat(this.cache.get("1250808601744904191")).isNull();
+    }
+
+    @Test
+    void testEvictLeavesATombstoneInRedisAndPublishes() {
+        // Given
+        this.cache.put("1250808601744904191", this.artifactDto);
+
+        // When
+        this.cache.evict("1250808601744904191");
+
+        // Then
+        assertThat(this.cache.get("1250808601744904191")).isNull();
+        verify(this.redisCacheClient).set("cache:artifact:0:1250808601744904191", TwoTierCache.TOMBSTONE, 60_000, TimeUnit.MILLISECONDS);
+        verify(this.redisCacheClient).publish(TwoTierCacheManager.INVALIDATION_CHANNEL, "E\nartifact\n1250808601744904191");
+    }
+
+    @Test
+    void testTombstoneIsAMissThatLoadsButDoesNotFillRedis() throws Exception {
+        // Given
+        given(this.redisCacheClient.get("cache:artifact:generation")).willReturn("0");
+        given(this.redisCacheClient.get("cache:artifact:0:1250808601744904191")).willReturn(TwoTierCache.TOMBSTONE);
+
+        // When
+        ArtifactDto value = this.cache.get("1250808601744904191", () -> this.artifactDto);
+
+        // Then
+        assertThat(value).isEqualTo(this.artifactDto);
+        verify(this.redisCacheClient).setIfAbsent(eq("cache:artifact:0:1250808601744904191"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)); // Kept out by the tombstone
+        verify(this.redisCacheClient, never()).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testLoadOverlappingAClearDoesNotFillRedis() {
+        // When
+        ArtifactDto value = this.cache.get("1250808601744904191", () -> {
+            this.cacheManager.onMessage(new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    "C\nartifact\n1".getBytes(StandardCharsets.UTF_8)), null); // Cleared by another node while loading
+            return this.artifactDto;
+        });
+
+        // Then
+        assertThat(value).isEqualTo(this.artifactDto);
+        verify(this.redisCacheClient, never()).setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testEvictionsMissedWhileRedisIsUnreachableAreReplayedOnceItIsBack() {
+        // Given
+        given(this.redisCacheClient.get(anyString())).willThrow(new RedisConnectionFailureException("Unable to connect to Redis")).willReturn(null);
+        this.cache.get("1250808601744904191", () -> this.artifactDto); // Fails, so Redis is left alone for a while
+        this.cache.evict("1250808601744904191");
+        this.cache.evict("1250808601744904192");
+        verify(this.redisCacheClient, never()).publish(anyString(), anyString());
+
+        // When
+        ReflectionTestUtils.setField(this.cache, "redisRetryAt", System.nanoTime()); // The retry interval is over
+        this.cache.get("1250808601744904193", () -> this.artifactDto);
+
+        // Then
+        verify(this.redisCacheClient).set("cache:artifact:0:1250808601744904191", TwoTierCache.TOMBSTONE, 60_000, TimeUnit.MILLISECONDS);
+        verify(this.redisCacheClient).set("cache:artifact:0:1250808601744904192", TwoTierCache.TOMBSTONE, 60_000, TimeUnit.MILLISECONDS);
+        verify(this.redisCacheClient).publish(TwoTierCacheManager.INVALIDATION_CHANNEL, "E\nartifact\n1250808601744904191");
+        verify(this.redisCacheClient).publish(TwoTierCacheManager.INVALIDATION_CHANNEL, "E\nartifact\n1250808601744904192");
+    }
+
+    @Test
+    void testTooManyMissedEvictionsAreReplayedAsAClear() {
+        // Given
+        given(this.redisCacheClient.get(anyString())).willThrow(new RedisConnectionFailureException("Unable to connect to Redis")).willReturn(null);
+        given(this.redisCacheClient.increment("cache:artifact:generation")).willReturn(1L);
+        this.cache.get("1250808601744904191", () -> this.artifactDto);
+        for (int i = 0; i <= TwoTierCache.MAX_MISSED_EVICTIONS; i++) {
+            this.cache.evict(String.valueOf(i));
+        }
+
+        // When
+        ReflectionTestUtils.setField(this.cache, "redisRetryAt", System.nanoTime());
+        this.cache.get("1250808601744904193", () -> this.artifactDto);
+
+        // Then
+        verify(this.redisCacheClient).publish(TwoTierCacheManager.INVALIDATION_CHANNEL, "C\nartifact\n1");
+        verify(this.redisCacheClient, never()).set(anyString(), eq(TwoTierCache.TOMBSTONE), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(this.redisCacheClient).setIfAbsent(eq("cache:artifact:1:1250808601744904193"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testClearBumpsTheGeneration() {
+        // Given
+        given(this.redisCacheClient.increment("cache:artifact:generation")).willReturn(1L);
+        this.cache.put("1250808601744904191", this.artifactDto);
+
+        // When
+        this.cache.clear();
+        this.cache.put("1250808601744904192", this.artifactDto);
+
+        // Then
+        verify(this.redisCacheClient).publish(TwoTierCacheManager.INVALIDATION_CHANNEL, "C\nartifact\n1");
+        verify(this.redisCacheClient).set(eq("cache:artifact:1:1250808601744904192"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testInvalidationFromAnotherNodeDropsL1Only() {
+        // Given
+        this.cache.put("1250808601744904191", this.artifactDto);
+        this.cache.put("1250808601744904192", this.artifactDto);
+
+        // When
+        this.cacheManager.onMessage(new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "E\nartifact\n1250808601744904191".getBytes(StandardCharsets.UTF_8)), null);
+
+        // Then
+        assertThat(this.cache.get("1250808601744904191")).isNull();
+        assertThat(this.cache.get("1250808601744904192").get()).isEqualTo(this.artifactDto);
+        verify(this.redisCacheClient, never()).delete(anyString());
+        verify(this.redisCacheClient, never()).publish(anyString(), anyString());
+    }
+
+    @Test
+    void testRedisFailureFallsBackToTheLoaderAndBacksOff() {
+        // Given
+        given(this.redisCacheClient.get(anyString())).willThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+
+        // When
+        ArtifactDto first = this.cache.get("1250808601744904191", () -> this.artifactDto);
+        ArtifactDto second = this.cache.get("1250808601744904192", () -> this.artifactDto);
+
+        // Then
+        assertThat(first).isEqualTo(this.artifactDto);
+        assertThat(second).isEqualTo(this.artifactDto);
+        verify(this.redisCacheClient, times(1)).get(anyString()); // The second miss does not try Redis again
+        verify(this.redisCacheClient, never()).setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        assertThat(this.meterRegistry.get("cache.l2.errors").counter().count()).isEqualTo(1);
+    }
+}
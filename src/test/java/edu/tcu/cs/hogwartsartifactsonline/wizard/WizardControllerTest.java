@@ -2,8 +2,10 @@ package edu.tcu.cs.hogwartsartifactsonline.wizard;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.Artifact;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
 import edu.tcu.cs.hogwartsartifactsonline.system.StatusCode;
 import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
 import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +16,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -21,12 +27,17 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc(addFilters = false)
@@ -49,37 +60,37 @@ class WizardControllerTest {
     @BeforeEach
     void setUp() {
         Artifact a1 = new Artifact();
-        a1.setId("1250808601744904191");
+        a1.setId(1250808601744904191L);
         a1.setName("Deluminator");
         a1.setDescription("A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.");
         a1.setImageUrl("ImageUrl");
 
         Artifact a2 = new Artifact();
-        a2.setId("1250808601744904192");
+        a2.setId(1250808601744904192L);
         a2.setName("Invisibility Cloak");
         a2.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a2.setImageUrl("ImageUrl");
 
         Artifact a3 = new Artifact();
-        a3.setId("1250808601744904193");
+        a3.setId(1250808601744904193L);
         a3.setName("Elder Wand");
         a3.setDescription("The Elder Wand, known throughout history as the Deathstick or the Wand of Destiny, is an extremely powerful wand made of elder wood with a core of Thestral tail hair.");
         a3.setImageUrl("ImageUrl");
 
         Artifact a4 = new Artifact();
-        a4.setId("1250808601744904194");
+        a4.setId(1250808601744904194L);
         a4.setName("The Marauder's Map");
         a4.setDescription("A magical map of Hogwarts created by Remus Lupin, Peter Pettigrew, Sirius Black, and James Potter while they were students at Hogwarts.");
         a4.setImageUrl("ImageUrl");
 
         Artifact a5 = new Artifact();
-        a5.setId("1250808601744904195");
+        a5.setId(1250808601744904195L);
         a5.setName("The Sword Of Gryffindor");
         a5.setDescription("A goblin-made sword adorned with large rubies on the pommel. It was once owned by Godric Gryffindor, one of the medieval founders of Hogwarts.");
         a5.setImageUrl("ImageUrl");
 
         Artifact a6 = new Artifact();
-        a6.setId("1250808601744904196");
+        a6.setId(1250808601744904196L);
         a6.setName("Resurrection Stone");
         a6.setDescription("The Resurrection Stone allows the holder to bring back deceased loved ones, in a semi-physical form, and communicate with them.");
         a6.setImageUrl("ImageUrl");
@@ -114,7 +125,8 @@ class WizardControllerTest {
     @Test
     void testFindWizardByIdSuccess() throws Exception {
         // Given
-        given(wizardService.findById(1)).willReturn(wizards.get(0));
+        Wizard wizard = wizards.get(0);
+        given(wizardService.findDtoById(1)).willReturn(new WizardDto(wizard.getId(), wizard.getName(), wizard.getNumberOfArtifacts()));
 
         // When and then
         this.mockMvc.perform(get(this.baseUrl + "/wizards/1").accept(MediaType.APPLICATION_JSON))
@@ -129,7 +141,7 @@ class WizardControllerTest {
     @Test
     void testFindWizardByIdNotFound() throws Exception {
         // Given
-        given(wizardService.findById(9)).willThrow(new ObjectNotFoundException("wizard", 9));
+        given(wizardService.findDtoById(9)).willThrow(new ObjectNotFoundException("wizard", 9));
 
         // When and then
         this.mockMvc.perform(get(this.baseUrl + "/wizards/9").accept(MediaType.APPLICATION_JSON))
@@ -142,14 +154,68 @@ class WizardControllerTest {
     @Test
     void testFindAllWizardsSuccess() throws Exception {
         // Given
-        given(wizardService.findAll()).willReturn(wizards);
+        PageRequest pageable = PageRequest.of(0, 20);
+        given(wizardService.findAll(pageable)).willReturn(new PageImpl<>(wizardDtos(), pageable, 3));
 
         // When and then
         this.mockMvc.perform(get(this.baseUrl + "/wizards").accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.flag").value(true))
                 .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
                 .andExpect(jsonPath("$.message").value("Find All Success"))
-                .andExpect(jsonPath("$.data[0].id").value(wizards.get(0).getId()));
+                .andExpect(jsonPath("$.data.content[0].id").value(wizards.get(0).getId()))
+                .andExpect(jsonPath("$.data.content[0].numberOfArtifacts").value(2))
+                .andExpect(jsonPath("$.data.totalElements").value(3));
+    }
+
+    @Test
+    void testFindAllWizardsByCursorSuccess() throws Exception {
+        // Given
+        PageRequest pageable = PageRequest.of(0, 2);
+        given(wizardService.findAll("", pageable)).willReturn(new CursorPage<>(wizardDtos().subList(0, 2), 2, "Rg", null));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("cursor", "").param("size", "2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data.content[1].id").value(2))
+                .andExpect(jsonPath("$.data.next").value("Rg"))
+                .andExpect(jsonPath("$.data.prev").isEmpty());
+    }
+
+    @Test
+    void testFindWizardByIdNotModified() throws Exception {
+        // Given
+        given(wizardService.findETagById(1)).willReturn("\"5\"");
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/wizards/1").header(HttpHeaders.IF_NONE_MATCH, "W/\"5\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(content().string(""));
+        verify(wizardService, never()).findDtoById(1);
+    }
+
+    @Test
+    void testFindAllWizardsSendsETag() throws Exception {
+        // Given
+        given(wizardService.findAllETag()).willReturn("\"r7\"");
+        given(wizardService.findAll(Mockito.any(Pageable.class))).willReturn(new PageImpl<>(wizardDtos()));
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r7\""))
+                .andExpect(jsonPath("$.data.content[0].id").value(wizards.get(0).getId()));
+    }
+
+    @Test
+    void testFindAllWizardsNotModified() throws Exception {
+        // Given
+        given(wizardService.findAllETag()).willReturn("\"r7\"");
+
+        // When and then
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").header(HttpHeaders.IF_NONE_MATCH, "\"r6\", \"r7\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+        verify(wizardService, never()).findAll(Mockito.any(Pageable.class));
     }
 
     @Test
@@ -184,7 +250,7 @@ class WizardControllerTest {
         updatedWizard.setId(2);
         updatedWizard.setName("Harry Potter-update");
 
-        given(wizardService.update(eq(2), Mockito.any(Wizard.class))).willReturn(updatedWizard);
+        given(wizardService.update(eq(2), Mockito.any(Wizard.class), Mockito.isNull())).willReturn(updatedWizard);
 
         // When and then
         this.mockMvc.perform(put(this.baseUrl + "/wizards/2").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
@@ -201,7 +267,7 @@ class WizardControllerTest {
         WizardDto wizardDto = new WizardDto(null, "Harry Potter-update", null);
         String json = objectMapper.writeValueAsString(wizardDto);
 
-        given(wizardService.update(eq(9), Mockito.any(Wizard.class))).willThrow(new ObjectNotFoundException("wizard", 9));
+        given(wizardService.update(eq(9), Mockito.any(Wizard.class), Mockito.isNull())).willThrow(new ObjectNotFoundException("wizard", 9));
 
         // When and then
         this.mockMvc.perform(put(this.baseUrl + "/wizards/9").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
@@ -211,6 +277,22 @@ class WizardControllerTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    void testUpdateWizardWithStaleIfMatch() throws Exception {
+        // Given
+        WizardDto wizardDto = new WizardDto(null, "Updated wizard name", 0);
+        String json = objectMapper.writeValueAsString(wizardDto);
+
+        given(wizardService.update(eq(2), Mockito.any(Wizard.class), eq("\"1\""))).willThrow(new PreconditionFailedException("wizard", 2));
+
+        // When and then
+        this.mockMvc.perform(put(this.baseUrl + "/wizards/2").header(HttpHeaders.IF_MATCH, "\"1\"").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.PRECONDITION_FAILED))
+                .andExpect(jsonPath("$.message").value("The wizard with Id 2 has changed since it was read, fetch it again and retry."));
+    }
+
     @Test
     void testDeleteWizardSuccess() throws Exception {
         // Given
@@ -240,7 +322,7 @@ class WizardControllerTest {
     @Test
     void testAssignArtifactSuccess() throws Exception {
         // Given
-        doNothing().when(this.wizardService).assignArtifact(3, "1250808601744904192");
+        doNothing().when(this.wizardService).assignArtifact(3, 1250808601744904192L);
 
         // When and then
         this.mockMvc.perform(put(this.baseUrl + "/wizards/3/artifacts/1250808601744904192").accept(MediaType.APPLICATION_JSON))
@@ -253,7 +335,7 @@ class WizardControllerTest {
     @Test
     void testAssignArtifactErrorWithNonExistentWizardId() throws Exception {
         // Given
-        doThrow(new ObjectNotFoundException("wizard", 3)).when(this.wizardService).assignArtifact(3, "1250808601744904192");
+        doThrow(new ObjectNotFoundException("wizard", 3)).when(this.wizardService).assignArtifact(3, 1250808601744904192L);
 
         // When and then
         this.mockMvc.perform(put(this.baseUrl + "/wizards/3/artifacts/1250808601744904192").accept(MediaType.APPLICATION_JSON))
@@ -266,7 +348,7 @@ class WizardControllerTest {
     @Test
     void testAssignArtifactErrorWithNonExistentArtifactId() throws Exception {
         // Given
-        doThrow(new ObjectNotFoundException("artifact", "1250808601744904192")).when(this.wizardService).assignArtifact(3, "1250808601744904192");
+        doThrow(new ObjectNotFoundException("artifact", 1250808601744904192L)).when(this.wizardService).assignArtifact(3, 1250808601744904192L);
 
         // When and then
         this.mockMvc.perform(put(this.baseUrl + "/wizards/3/artifacts/1250808601744904192").accept(MediaType.APPLICATION_JSON))
@@ -275,4 +357,8 @@ class WizardControllerTest {
                 .andExpect(jsonPath("$.message").value("Could not find artifact with Id 1250808601744904192 :("))
                 .andExpect(jsonPath("$.data").isEmpty());
     }
-}
\ No newline at end of file
+
+    private List<WizardDto> wizardDtos() {
+        return this.wizards.stream().map(wizard -> new WizardDto(wizard.getId(), wizard.getName(), wizard.getNumberOfArtifacts(), 0L)).toList();
+    }
+}
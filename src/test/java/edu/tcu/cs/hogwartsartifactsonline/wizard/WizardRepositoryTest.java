@@ -0,0 +1,90 @@
+package edu.tcu.cs.hogwartsartifactsonline.wizard;
+
+import edu.tcu.cs.hogwartsartifactsonline.artifact.Artifact;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles(value = "dev")
+@Transactional
+class WizardRepositoryTest {
+
+    @Autowired
+    WizardRepository wizardRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // 5 more wizards owning 20 artifacts each, on top of the 6 artifacts and 3 wizards of DBDataInitializer
+        for (int w = 0; w < 5; w++) {
+            Wizard wizard = new Wizard();
+            wizard.setName("Wizard " + w);
+            for (int a = 0; a < 20; a++) {
+                Artifact artifact = new Artifact();
+                artifact.setId(2250808601744904_000L + w * 100 + a);
+                artifact.setName("Artifact " + w + "-" + a);
+                artifact.setDescription("Description");
+                artifact.setImageUrl("ImageUrl");
+                wizard.addArtifact(artifact);
+            }
+            this.wizardRepository.save(wizard);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @Test
+    void testFindAllDtosCountsArtifactsWithoutLoadingThem() {
+        // When
+        Page<WizardDto> wizardDtoPage = this.wizardRepository.findAllDtos(PageRequest.of(0, 5, Sort.by("id")));
+
+        // Then
+        assertThat(wizardDtoPage.getContent()).hasSize(5);
+        assertThat(wizardDtoPage.getTotalElements()).isEqualTo(8);
+        assertThat(wizardDtoPage.getContent()).extracting(WizardDto::name, WizardDto::numberOfArtifacts).startsWith(
+                tuple("Albus Dumbledore", 2), tuple("Harry Potter", 2), tuple("Neville Longbottom", 1), tuple("Wizard 0", 20));
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2); // The grouped page and the total count
+        assertThat(this.statistics.getEntityLoadCount()).isZero();
+        assertThat(this.statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void testFindDtosAfterAndBeforeSeekOnTheId() {
+        // When
+        List<WizardDto> after = this.wizardRepository.findDtosAfter(2, Limit.of(2));
+        List<WizardDto> before = this.wizardRepository.findDtosBefore(3, Limit.of(5));
+
+        // Then
+        assertThat(after).extracting(WizardDto::name, WizardDto::numberOfArtifacts).containsExactly(tuple("Neville Longbottom", 1), tuple("Wizard 0", 20));
+        assertThat(before).extracting(WizardDto::id).containsExactly(2, 1); // Nearest first
+        assertThat(this.statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -2,7 +2,12 @@ package edu.tcu.cs.hogwartsartifactsonline.wizard;
 
 import edu.tcu.cs.hogwartsartifactsonline.artifact.Artifact;
 import edu.tcu.cs.hogwartsartifactsonline.artifact.ArtifactRepository;
+import edu.tcu.cs.hogwartsartifactsonline.system.CursorPage;
+import edu.tcu.cs.hogwartsartifactsonline.system.cache.CatalogVersion;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.InvalidCursorException;
 import edu.tcu.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import edu.tcu.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
+import edu.tcu.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,12 +15,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -29,6 +40,9 @@ class WizardServiceTest {
     @Mock
     ArtifactRepository artifactRepository;
 
+    @Mock
+    CatalogVersion catalogVersion;
+
     @InjectMocks
     WizardService wizardService;
 
@@ -90,17 +104,68 @@ class WizardServiceTest {
         verify(wizardRepository, times(1)).findById(anyInt());
     }
 
+    @Test
+    void testFindDtoByIdCountsArtifactsWithoutLoadingThem() {
+        // Given
+        given(wizardRepository.findById(1)).willReturn(Optional.of(this.wizards.get(0)));
+        ArtifactRepository.OwnerArtifactCount count = mock(ArtifactRepository.OwnerArtifactCount.class);
+        given(count.getNumberOfArtifacts()).willReturn(2L);
+        given(artifactRepository.countByOwnerIdIn(List.of(1))).willReturn(List.of(count));
+
+        // When
+        WizardDto wizardDto = wizardService.findDtoById(1);
+
+        // Then
+        assertThat(wizardDto).isEqualTo(new WizardDto(1, "Albus Dumbledore", 2, 0L));
+    }
+
     @Test
     void testFindAllSuccess() {
         // Given
-        given(wizardRepository.findAll()).willReturn(wizards);
+        PageRequest pageable = PageRequest.of(0, 20, Sort.by("id")); // Unsorted pages are read in id order
+        List<WizardDto> wizardDtos = List.of(new WizardDto(1, "Albus Dumbledore", 2, 0L), new WizardDto(2, "Harry Potter", 2, 0L), new WizardDto(3, "Neville Longbottom", 1, 0L));
+        given(wizardRepository.findAllDtos(pageable)).willReturn(new PageImpl<>(wizardDtos, pageable, 3));
+
+        // When
+        Page<WizardDto> foundWizards = wizardService.findAll(PageRequest.of(0, 20));
+
+        // Then
+        assertThat(foundWizards.getContent()).isEqualTo(wizardDtos);
+        verify(wizardRepository, never()).findAll(); // No entity, so no artifact list to load
+    }
+
+    @Test
+    void testFindAllByCursorWalksForwardAndBack() {
+        // Given
+        PageRequest pageable = PageRequest.of(0, 2);
+        given(wizardRepository.findDtosAfter(Integer.MIN_VALUE, Limit.of(3))).willReturn(List.of(
+                new WizardDto(1, "Albus Dumbledore", 2, 0L), new WizardDto(2, "Harry Potter", 2, 0L), new WizardDto(3, "Neville Longbottom", 1, 0L)));
+        given(wizardRepository.findDtosAfter(2, Limit.of(3))).willReturn(List.of(new WizardDto(3, "Neville Longbottom", 1, 0L)));
+        given(wizardRepository.findDtosBefore(3, Limit.of(3))).willReturn(List.of(new WizardDto(2, "Harry Potter", 2, 0L), new WizardDto(1, "Albus Dumbledore", 2, 0L)));
 
         // When
-        List<Wizard> foundWizards = wizardService.findAll();
+        CursorPage<WizardDto> first = wizardService.findAll("", pageable);
+        CursorPage<WizardDto> second = wizardService.findAll(first.next(), pageable);
+        CursorPage<WizardDto> back = wizardService.findAll(second.prev(), pageable);
 
         // Then
-        assertThat(foundWizards.size()).isEqualTo(wizards.size());
-        verify(wizardRepository, times(1)).findAll();
+        assertThat(first.content()).extracting(WizardDto::id).containsExactly(1, 2);
+        assertThat(first.prev()).isNull();
+        assertThat(second.content()).extracting(WizardDto::id).containsExactly(3);
+        assertThat(second.next()).isNull();
+        assertThat(back.content()).extracting(WizardDto::id).containsExactly(1, 2);
+        assertThat(back.prev()).isNull();
+        assertThat(back.next()).isNotNull();
+    }
+
+    @Test
+    void testFindAllByCursorSortedByNameIsRejected() {
+        // When
+        Throwable thrown = catchThrowable(() -> wizardService.findAll("", PageRequest.of(0, 2, Sort.by("name"))));
+
+        // Then
+        assertThat(thrown).isInstanceOf(InvalidCursorException.class);
+        verifyNoInteractions(wizardRepository);
     }
 
     @Test
@@ -109,7 +174,10 @@ class WizardServiceTest {
         Wizard wizard = new Wizard();
         wizard.setName("Hermione Granger");
 
-        given(wizardRepository.save(wizard)).willReturn(wizard);
+        given(wizardRepository.save(wizard)).willAnswer(invocation -> {
+            wizard.setId(4);
+            return wizard;
+        });
 
         // When
         Wizard wizardSaved = wizardService.save(wizard);
@@ -118,6 +186,7 @@ class WizardServiceTest {
         assertThat(wizardSaved.getName()).isEqualTo(wizard.getName());
         assertThat(wizardSaved.getNumberOfArtifacts()).isEqualTo(0);
         verify(wizardRepository, times(1)).save(wizard);
+        verify(this.catalogVersion).bump(CatalogVersion.WIZARDS, List.of(4));
     }
 
     @Test
@@ -134,7 +203,7 @@ class WizardServiceTest {
         given(wizardRepository.save(oldWizard)).willReturn(oldWizard);
 
         // When
-        Wizard updatedWizard = wizardService.update(2, update);
+        Wizard updatedWizard = wizardService.update(2, update, null);
 
         // Then
         assertThat(updatedWizard.getId()).isEqualTo(2);
@@ -143,6 +212,28 @@ class WizardServiceTest {
         verify(wizardRepository, times(1)).save(oldWizard);
     }
 
+    @Test
+    void testUpdateWithStaleIfMatch() {
+        // Given
+        Wizard oldWizard = new Wizard();
+        oldWizard.setId(1);
+        oldWizard.setName("Albus Dumbledore");
+        oldWizard.setVersion(5);
+
+        Wizard update = new Wizard();
+        update.setName("Albus Dumbledore - update");
+
+        given(wizardRepository.findById(1)).willReturn(Optional.of(oldWizard));
+
+        // When and then
+        PreconditionFailedException thrown = assertThrows(PreconditionFailedException.class, () -> {
+            wizardService.update(1, update, "\"4\"");
+        });
+        assertThat(thrown.getMessage()).isEqualTo("The wizard with Id 1 has changed since it was read, fetch it again and retry.");
+        assertThat(oldWizard.getName()).isEqualTo("Albus Dumbledore");
+        verify(wizardRepository, never()).save(any(Wizard.class));
+    }
+
     @Test
     void testUpdateNotFound() {
         // Given
@@ -153,7 +244,7 @@ class WizardServiceTest {
 
         // Then
         assertThrows(ObjectNotFoundException.class, () -> {
-            wizardService.update(2, update);
+            wizardService.update(2, update, null);
         });
 
         // When
@@ -176,6 +267,7 @@ class WizardServiceTest {
         // Then
         verify(wizardRepository, times(1)).findById(1);
         verify(wizardRepository, times(1)).deleteById(1);
+        verify(this.catalogVersion).bump(CatalogVersion.WIZARDS, List.of(1)); // Drops it from the suggest index of every node
     }
 
     @Test
@@ -196,7 +288,7 @@ class WizardServiceTest {
     void testAssignArtifactSuccess() {
         // Given
         Artifact a = new Artifact();
-        a.setId("1250808601744904192");
+        a.setId(1250808601744904192L);
         a.setName("Invisibility Cloak");
         a.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a.setImageUrl("ImageUrl");
@@ -210,22 +302,23 @@ class WizardServiceTest {
         w3.setId(3);
         w3.setName("Neville Longbottom");
 
-        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(a));
+        given(this.artifactRepository.findById(1250808601744904192L)).willReturn(Optional.of(a));
         given(this.wizardRepository.findById(3)).willReturn(Optional.of(w3));
 
         // When
-        wizardService.assignArtifact(3, "1250808601744904192");
+        wizardService.assignArtifact(3, 1250808601744904192L);
 
         // Then
         assertThat(a.getOwner().getId()).isEqualTo(3);
         assertThat(w3.getArtifacts()).contains(a);
+        verify(this.catalogVersion).bump(CatalogVersion.WIZARDS, List.of(3, 2)); // The new and the previous owner
     }
 
     @Test
     void testAssignArtifactErrorWithNonExistentWizardId() {
         // Given
         Artifact a = new Artifact();
-        a.setId("1250808601744904192");
+        a.setId(1250808601744904192L);
         a.setName("Invisibility Cloak");
         a.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a.setImageUrl("ImageUrl");
@@ -235,12 +328,12 @@ class WizardServiceTest {
         w2.setName("Harry Potter");
         w2.addArtifact(a);
 
-        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(a));
+        given(this.artifactRepository.findById(1250808601744904192L)).willReturn(Optional.of(a));
         given(this.wizardRepository.findById(3)).willReturn(Optional.empty());
 
         // When
         Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> {
-            wizardService.assignArtifact(3, "1250808601744904192");
+            wizardService.assignArtifact(3, 1250808601744904192L);
         });
 
         // Then
@@ -251,11 +344,11 @@ class WizardServiceTest {
     @Test
     void testAssignArtifactErrorWithNonExistentArtifactId() {
         // Given
-        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.empty());
+        given(this.artifactRepository.findById(1250808601744904192L)).willReturn(Optional.empty());
 
         // When
         Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> {
-            wizardService.assignArtifact(3, "1250808601744904192");
+            wizardService.assignArtifact(3, 1250808601744904192L);
         });
 
         // Then